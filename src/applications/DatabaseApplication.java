@@ -4,6 +4,7 @@ import core.Application;
 import core.DTNHost;
 import core.DataMessage;
 import core.DisasterData;
+import core.DisasterDataRegistry;
 import core.LocalDatabase;
 import core.Message;
 import core.Settings;
@@ -17,8 +18,10 @@ import routing.util.EnergyModel;
 import util.Tuple;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.DoubleSummaryStatistics;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -58,6 +61,15 @@ public class DatabaseApplication extends Application implements DisasterDataCrea
      * Messages with less database items may be created if the total number to sent is not a multiple of this value.
      */
     public static final String ITEMS_PER_MESSAGE = "itemsPerMessage";
+    /**
+     * Digest synchronization -setting id ({@value}).
+     * Boolean, false by default.
+     * If true, hosts exchange digests of their databases with neighbors and only offer a neighbor those useful data
+     * items which are not contained in its digest. A digest's size is charged to the connection by adding it to the
+     * first data message sent to the neighbor, and the digest is only received once that message's transfer starts.
+     * Received digests are kept until the connection to the neighbor goes down.
+     */
+    public static final String DIGEST_SYNC = "digestSync";
 
     /** Application ID */
     public static final String APP_ID = "AdHocNetworksInDisasterScenarios";
@@ -73,12 +85,18 @@ public class DatabaseApplication extends Application implements DisasterDataCrea
      */
     private static final int DATA_MESSAGE_PRIORITY = 0;
 
+    /**
+     * Number of bytes per data item in a database digest. A digest is a sorted list of 32 bit item hashes.
+     */
+    private static final int DIGEST_BYTES_PER_ITEM = 4;
+
     /* Some properties that are the same across all application instances. */
     private double utilityThreshold;
     private long[] databaseSizeRange;
     private int seed;
     private double mapSendingInterval;
     private int itemsPerMessage;
+    private boolean digestSync;
 
     /** The host this application instance is attached to. */
     private DTNHost host;
@@ -95,6 +113,9 @@ public class DatabaseApplication extends Application implements DisasterDataCrea
     /** Pseudo-random number generator for this application. */
     private Random pseudoRandom;
 
+    /** Last digest received from each currently connected neighbor, by neighbor address. */
+    private Map<Integer, Digest> receivedDigests = new HashMap<>();
+
     /**
      * Creates a new instance of the {@link DatabaseApplication} class.
      * @param s A settings object to read properties from.
@@ -108,6 +129,7 @@ public class DatabaseApplication extends Application implements DisasterDataCrea
         this.seed = s.getInt(SIZE_RANDOMIZER_SEED);
         this.mapSendingInterval = s.getDouble(MIN_INTERVAL_MAP_SENDING);
         this.itemsPerMessage = s.getInt(ITEMS_PER_MESSAGE);
+        this.digestSync = s.getBoolean(DIGEST_SYNC, false);
 
         /* Check they are valid. */
         DatabaseApplication.checkUtilityThreshold(this.utilityThreshold);
@@ -133,6 +155,7 @@ public class DatabaseApplication extends Application implements DisasterDataCrea
         this.seed = application.seed;
         this.mapSendingInterval = application.mapSendingInterval;
         this.itemsPerMessage = application.itemsPerMessage;
+        this.digestSync = application.digestSync;
 
         DisasterDataNotifier.addListener(this);
     }
@@ -215,8 +238,8 @@ public class DatabaseApplication extends Application implements DisasterDataCrea
         // If the message is a data message sent to the host the application instance is attached to, unwrap and store
         // the data and don't forward the message any further.
         if (msg instanceof DataMessage && msg.getTo().equals(this.host)) {
-            for (DisasterData dataItem : ((DataMessage)msg).getData()) {
-                this.database.add(dataItem);
+            for (int dataId : ((DataMessage)msg).getDataIds()) {
+                this.database.add(DisasterDataRegistry.getData(dataId));
             }
             return null;
         } else {
@@ -237,7 +260,39 @@ public class DatabaseApplication extends Application implements DisasterDataCrea
             this.initialize(databaseOwner);
         }
 
-        // Find all data which could be interesting for neighbors.
+        // Find all data which could be interesting for neighbors, then create data messages out of them.
+        return this.createDataMessagePrototypes(this.findUsefulData());
+    }
+
+    /**
+     * Creates database synchronization messages from existing useful data for each of the provided neighbors.
+     *
+     * In contrast to {@link #wrapUsefulDataIntoMessages(DTNHost)}, the messages are addressed to their receivers and
+     * only contain data items the respective receiver does not have yet. This requires both hosts to exchange a
+     * digest of their databases. A neighbor's digest is only exchanged again if its database changed, and its size is
+     * added to the first message for that neighbor.
+     *
+     * @param databaseOwner The DTNHost this instance of the application is attached to.
+     * @param neighbors The neighbors to create messages for.
+     * @return The created messages, grouped by receiver in the order of the provided neighbors.
+     */
+    public List<DataMessage> wrapUsefulDataIntoMessages(DTNHost databaseOwner, List<DTNHost> neighbors) {
+        // If we don't know who the application is attached to yet, use the new knowledge for initialization.
+        if (!this.isInitialized()) {
+            this.initialize(databaseOwner);
+        }
+
+        return this.createDataMessagesForNeighbors(this.findUsefulData(), neighbors);
+    }
+
+    /**
+     * Finds all data which could be interesting for neighbors. If no map has been sent for some time, a random map
+     * data item is added.
+     *
+     * @return The useful data and their utilities.
+     */
+    private List<Tuple<DisasterData, Double>> findUsefulData() {
+        // Find all non-map data which could be interesting for neighbors.
         List<Tuple<DisasterData, Double>> interestingData =
                 this.database.getAllNonMapDataWithMinimumUtility(this.utilityThreshold);
 
@@ -253,8 +308,7 @@ public class DatabaseApplication extends Application implements DisasterDataCrea
             }
         }
 
-        // Then create data messages out of the data items.
-        return this.createDataMessagePrototypes(interestingData);
+        return interestingData;
     }
 
     /**
@@ -271,7 +325,40 @@ public class DatabaseApplication extends Application implements DisasterDataCrea
             this.initialize(databaseOwner);
         }
 
-        // Find all interesting data which has been modified recently.
+        // Find all interesting data which has been modified recently, then create data messages out of them.
+        return this.createDataMessagePrototypes(this.findRecentUsefulData(maximumNumberSecondsSinceModification));
+    }
+
+    /**
+     * Creates database synchronization messages from existing useful data that has been modified recently for each of
+     * the provided neighbors.
+     *
+     * As in {@link #wrapUsefulDataIntoMessages(DTNHost, List)}, the messages are addressed to their receivers and only
+     * contain data items the respective receiver does not have yet.
+     *
+     * @param databaseOwner The DTNHost this instance of the application is attached to.
+     * @param maximumNumberSecondsSinceModification The maximum number of seconds since last modification.
+     * @param neighbors The neighbors to create messages for.
+     * @return The created messages, grouped by receiver in the order of the provided neighbors.
+     */
+    public List<DataMessage> wrapRecentUsefulDataIntoMessages(
+            DTNHost databaseOwner, int maximumNumberSecondsSinceModification, List<DTNHost> neighbors) {
+        // If we don't know who the application is attached to yet, use the new knowledge for initialization.
+        if (!this.isInitialized()) {
+            this.initialize(databaseOwner);
+        }
+
+        return this.createDataMessagesForNeighbors(
+                this.findRecentUsefulData(maximumNumberSecondsSinceModification), neighbors);
+    }
+
+    /**
+     * Finds all interesting data which has been modified recently.
+     *
+     * @param maximumNumberSecondsSinceModification The maximum number of seconds since last modification.
+     * @return The recent useful data and their utilities.
+     */
+    private List<Tuple<DisasterData, Double>> findRecentUsefulData(int maximumNumberSecondsSinceModification) {
         List<Tuple<DisasterData, Double>> recentData = new ArrayList<>();
         for (Tuple<DisasterData, Double> dataWithUtility :
                 this.database.getAllNonMapDataWithMinimumUtility(this.utilityThreshold)) {
@@ -279,9 +366,56 @@ public class DatabaseApplication extends Application implements DisasterDataCrea
                 recentData.add(dataWithUtility);
             }
         }
+        return recentData;
+    }
+
+    /**
+     * Creates data messages for each neighbor containing all provided data items the neighbor does not have yet.
+     *
+     * Data is reconciled with the last digest received from the neighbor. If there is no such digest or the
+     * neighbor's database has changed since then, data is reconciled with the neighbor's current digest instead, and
+     * that digest is charged to the first message for that neighbor. The digest only counts as received once a
+     * transfer of that message starts, see {@link #receiveDigestOf(DTNHost)}.
+     *
+     * @param data The data to offer to the neighbors.
+     * @param neighbors The neighbors to create messages for.
+     * @return The created messages, grouped by receiver.
+     */
+    private List<DataMessage> createDataMessagesForNeighbors(
+            List<Tuple<DisasterData, Double>> data, List<DTNHost> neighbors) {
+        // Sort data items by utility once for all neighbors.
+        data.sort(Comparator.comparingDouble(t -> (-1) * t.getValue()));
 
-        // Then create data messages out of the data items.
-        return this.createDataMessagePrototypes(recentData);
+        List<DataMessage> messages = new ArrayList<>();
+        for (DTNHost neighbor : neighbors) {
+            DatabaseApplication neighborApplication = DatabaseApplication.findDatabaseApplication(neighbor.getRouter());
+            if (neighborApplication == null) {
+                this.createDataMessages(data, neighbor, 0, messages);
+                continue;
+            }
+
+            // If we do not know the current version of the neighbor's digest yet, reconcile with the current version
+            // and charge it to the connection.
+            Digest digest = this.receivedDigests.get(neighbor.getAddress());
+            boolean digestIsCurrent = digest != null && digest.version == neighborApplication.getDigestVersion();
+            List<Tuple<DisasterData, Double>> missingData = new ArrayList<>(data.size());
+            for (Tuple<DisasterData, Double> dataWithUtility : data) {
+                DisasterData dataItem = dataWithUtility.getKey();
+                boolean neighborHasItem = digestIsCurrent
+                        ? digest.contains(dataItem)
+                        : neighborApplication.isInitialized() && neighborApplication.database.contains(dataItem);
+                if (!neighborHasItem) {
+                    missingData.add(dataWithUtility);
+                }
+            }
+            if (missingData.isEmpty()) {
+                continue;
+            }
+
+            int digestBytes = digestIsCurrent ? 0 : neighborApplication.getDigestSize();
+            this.createDataMessages(missingData, neighbor, digestBytes, messages);
+        }
+        return messages;
     }
 
     /**
@@ -298,17 +432,34 @@ public class DatabaseApplication extends Application implements DisasterDataCrea
         // Then create a message out of every x data items.
         List<DataMessage> messages = new ArrayList<>(data.size());
         DTNHost unknownReceiver = null;
-        for (int i = 0; i < data.size(); i += this.itemsPerMessage) {
-            int firstIndexNotToSent = Math.min(i + this.itemsPerMessage, data.size());
-            List<Tuple<DisasterData, Double>> subsetToSent = data.subList(i, firstIndexNotToSent);
+        this.createDataMessages(data, unknownReceiver, 0, messages);
+        return messages;
+    }
+
+    /**
+     * Creates a {@link DataMessage} out of every {@link #itemsPerMessage} data items and adds them to the provided
+     * list.
+     *
+     * @param sortedData The data to wrap, sorted by utility.
+     * @param receiver The receiver of the messages. May be null for prototypes.
+     * @param overheadBytes Number of additional bytes to charge to the first message.
+     * @param messages List to add the created messages to.
+     */
+    private void createDataMessages(
+            List<Tuple<DisasterData, Double>> sortedData, DTNHost receiver, int overheadBytes,
+            List<DataMessage> messages) {
+        int overhead = overheadBytes;
+        for (int i = 0; i < sortedData.size(); i += this.itemsPerMessage) {
+            int firstIndexNotToSent = Math.min(i + this.itemsPerMessage, sortedData.size());
+            List<Tuple<DisasterData, Double>> subsetToSent = sortedData.subList(i, firstIndexNotToSent);
             DataMessage message = new DataMessage(
-                    this.host, unknownReceiver,
+                    this.host, receiver,
                     DatabaseApplication.createMessageId(subsetToSent), subsetToSent,
-                    DATA_MESSAGE_PRIORITY);
+                    DATA_MESSAGE_PRIORITY, overhead);
             message.setAppID(APP_ID);
             messages.add(message);
+            overhead = 0;
         }
-        return messages;
     }
 
     private static String createMessageId(List<Tuple<DisasterData, Double>> subsetToSent) {
@@ -337,7 +488,7 @@ public class DatabaseApplication extends Application implements DisasterDataCrea
         }
 
         // If battery is empty, no data will be created.
-        if (this.host.getComBus().getDouble(EnergyModel.ENERGY_VALUE_ID, 1) <= 0) {
+        if (this.host.getComBus().getDouble(EnergyModel.ENERGY_VALUE_KEY, 1) <= 0) {
             return;
         }
 
@@ -360,6 +511,55 @@ public class DatabaseApplication extends Application implements DisasterDataCrea
         return this.database.getTotalSize();
     }
 
+    /**
+     * Receives the current database digest of the provided neighbor. Called when a transfer of a message carrying
+     * the digest's size starts.
+     *
+     * @param neighbor The neighbor whose digest is received.
+     */
+    public void receiveDigestOf(DTNHost neighbor) {
+        DatabaseApplication neighborApplication = DatabaseApplication.findDatabaseApplication(neighbor.getRouter());
+        if (neighborApplication == null || !neighborApplication.isInitialized()) {
+            return;
+        }
+        this.receivedDigests.put(
+                neighbor.getAddress(),
+                new Digest(neighborApplication.getDigestVersion(), neighborApplication.database.getStoredItemIds()));
+    }
+
+    /**
+     * Forgets the digest received from the provided neighbor. Called when the connection to the neighbor goes down.
+     *
+     * @param neighbor The neighbor whose digest is forgotten.
+     */
+    public void forgetDigestOf(DTNHost neighbor) {
+        this.receivedDigests.remove(neighbor.getAddress());
+    }
+
+    /**
+     * Gets the version of this application's database digest.
+     *
+     * @return The database version, or 0 if the application was not initialized yet.
+     */
+    private long getDigestVersion() {
+        if (!this.isInitialized()) {
+            return 0;
+        }
+        return this.database.getVersion();
+    }
+
+    /**
+     * Gets the size of this application's database digest in bytes.
+     *
+     * @return The digest size.
+     */
+    private int getDigestSize() {
+        if (!this.isInitialized()) {
+            return 0;
+        }
+        return this.database.getNumberOfItems() * DIGEST_BYTES_PER_ITEM;
+    }
+
     /**
      * Checks whether we already know the host this application instance is attached to.
      *
@@ -397,6 +597,21 @@ public class DatabaseApplication extends Application implements DisasterDataCrea
                 + this.pseudoRandom.nextDouble() * (this.databaseSizeRange[1] - this.databaseSizeRange[0]));
     }
 
+    /**
+     * Returns the {@link DatabaseApplication} instance of the provided {@link MessageRouter}, if it has one.
+     *
+     * @param router The router to check for a {@link DatabaseApplication}.
+     * @return The found {@link DatabaseApplication} or null if there is none.
+     */
+    public static DatabaseApplication findDatabaseApplication(MessageRouter router) {
+        for (Application application : router.getApplications(APP_ID)) {
+            if (application instanceof DatabaseApplication) {
+                return (DatabaseApplication)application;
+            }
+        }
+        return null;
+    }
+
     @Override
     public Application replicate() {
         return new DatabaseApplication(this);
@@ -422,6 +637,15 @@ public class DatabaseApplication extends Application implements DisasterDataCrea
         return this.itemsPerMessage;
     }
 
+    /**
+     * Checks whether database synchronization is based on digests exchanged between neighbors.
+     *
+     * @return True iff only data missing at the neighbor is sent.
+     */
+    public boolean usesDigestSync() {
+        return this.digestSync;
+    }
+
     /**
      * Computes the statistics about the data utility across all {@link DisasterData} items
      * @return statistics about the data utility across all {@link DisasterData} items
@@ -448,6 +672,61 @@ public class DatabaseApplication extends Application implements DisasterDataCrea
         return database.getDataDistanceStatistics();
     }
 
+    /**
+     * Gets the average utility across all {@link DisasterData} items. Takes a pass over all items, but each item's
+     * utility is computed at most once per utility refresh of the database.
+     * @return The average data utility, or 0 if there are no items.
+     */
+    public double getAverageDataUtility() {
+        return database.getAverageDataUtility();
+    }
+
+    /**
+     * Gets the number of {@link DisasterData} items which are not of type map.
+     * @return The number of non-map items.
+     */
+    public int getNumberOfNonMapItems() {
+        return database.getNumberOfNonMapItems();
+    }
+
+    /**
+     * Gets the average age across all {@link DisasterData} items which are not of type map. Derived from running
+     * sums of creation times, so it does not iterate the items.
+     * @return The average data age, or 0 if there are no non-map items.
+     */
+    public double getAverageDataAge() {
+        return database.getAverageDataAge();
+    }
+
+    /**
+     * Gets the maximum age across all {@link DisasterData} items which are not of type map. Takes a pass over all
+     * items of a data type if its oldest item was deleted since the last call.
+     * @return The maximum data age, or 0 if there are no non-map items.
+     */
+    public double getMaximumDataAge() {
+        return database.getMaximumDataAge();
+    }
+
+    /**
+     * Gets the average distance of all {@link DisasterData} items to the host which owns the
+     * {@link DatabaseApplication}. Takes a pass over all items, but only if the host moved or the database changed
+     * since the last call.
+     * @return The average data distance, or 0 if there are no items.
+     */
+    public double getAverageDataDistance() {
+        return database.getAverageDataDistance();
+    }
+
+    /**
+     * Gets the maximum distance of all {@link DisasterData} items to the host which owns the
+     * {@link DatabaseApplication}. Takes a pass over all items, but only if the host moved or the database changed
+     * since the last call.
+     * @return The maximum data distance, or 0 if there are no items.
+     */
+    public double getMaximumDataDistance() {
+        return database.getMaximumDataDistance();
+    }
+
     /**
      * Percentage of memory available for {@link DisasterData} which is used as a value between 0 and 1
      * @return percentage of available memory for {@link DisasterData} which is used as a value between 0 and 1
@@ -464,4 +743,35 @@ public class DatabaseApplication extends Application implements DisasterDataCrea
     public Map<DisasterData.DataType, Double> getRatioOfItemsPerDataType(){
         return database.getRatioOfItemsPerDataType();
     }
+
+    /**
+     * A neighbor's database digest as received by this application.
+     */
+    private static final class Digest {
+        /** Version of the neighbor's database the digest was created for. */
+        private final long version;
+        /** Ids of the data items stored in the neighbor's database at that version. */
+        private final BitSet itemIds;
+
+        /**
+         * Initializes a new instance of the {@link Digest} class.
+         *
+         * @param version Version of the neighbor's database the digest was created for.
+         * @param itemIds Ids of the data items stored in the neighbor's database.
+         */
+        private Digest(long version, BitSet itemIds) {
+            this.version = version;
+            this.itemIds = itemIds;
+        }
+
+        /**
+         * Checks whether the provided data item was stored in the neighbor's database when the digest was created.
+         *
+         * @param dataItem The data item to check.
+         * @return True iff the digest contains the data item.
+         */
+        private boolean contains(DisasterData dataItem) {
+            return this.itemIds.get(dataItem.getId());
+        }
+    }
 }
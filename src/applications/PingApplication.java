@@ -11,6 +11,7 @@ import report.PingAppReporter;
 import core.Application;
 import core.DTNHost;
 import core.Message;
+import core.MessageAttribute;
 import core.Settings;
 import core.SimClock;
 import core.SimScenario;
@@ -47,6 +48,10 @@ public class PingApplication extends Application {
 	/** Application ID */
 	public static final String APP_ID = "fi.tkk.netlab.PingApplication";
 
+	/** Message attribute telling whether a message is a ping or a pong */
+	private static final MessageAttribute<String> TYPE_ATTRIBUTE =
+		MessageAttribute.register("type", String.class);
+
 	// Private vars
 	private double	lastPing = 0;
 	private double	interval = 500;
@@ -119,7 +124,7 @@ public class PingApplication extends Application {
 	 */
 	@Override
 	public Message handle(Message msg, DTNHost host) {
-		String type = (String)msg.getProperty("type");
+		String type = msg.getAttribute(TYPE_ATTRIBUTE);
 		if (type==null) return msg; // Not a ping/pong message
 
 		// Respond with pong if we're the recipient
@@ -127,7 +132,7 @@ public class PingApplication extends Application {
 			String id = "pong" + SimClock.getIntTime() + "-" +
 				host.getAddress();
 			Message m = new Message(host, msg.getFrom(), id, getPongSize());
-			m.addProperty("type", "pong");
+			m.setAttribute(TYPE_ATTRIBUTE, "pong");
 			m.setAppID(APP_ID);
 			host.createNewMessage(m);
 
@@ -179,7 +184,7 @@ public class PingApplication extends Application {
 			Message m = new Message(host, randomHost(), "ping" +
 					SimClock.getIntTime() + "-" + host.getAddress(),
 					getPingSize());
-			m.addProperty("type", "ping");
+			m.setAttribute(TYPE_ATTRIBUTE, "ping");
 			m.setAppID(APP_ID);
 			host.createNewMessage(m);
 
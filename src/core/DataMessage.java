@@ -12,8 +12,11 @@ import java.util.List;
  * Created by Britta Heymann on 12.04.2017.
  */
 public class DataMessage extends Message {
-    private List<DisasterData> data;
+    /** Ids of the wrapped data items, see {@link DisasterData#getId()}. */
+    private int[] dataIds;
     private double utility;
+    /** Number of bytes the message carries in addition to its data, e.g. a synchronization digest. */
+    private int overheadBytes;
 
     /**
      * Initializes a new instance of the {@link DataMessage} class.
@@ -26,14 +29,35 @@ public class DataMessage extends Message {
      */
     public DataMessage(
             DTNHost from, DTNHost to, String id, Iterable<Tuple<DisasterData, Double>> dataWithUtility, int priority) {
-        super(from, to, id, computeTotalDataSize(dataWithUtility), priority);
+        this(from, to, id, dataWithUtility, priority, 0);
+    }
+
+    /**
+     * Initializes a new instance of the {@link DataMessage} class which carries additional overhead, e.g. a
+     * synchronization digest, on top of its data.
+     * @param from The message's sender.
+     * @param to The message receiver.
+     * @param id The message's ID.
+     * @param dataWithUtility The {@link DisasterData} items this message is wrapping and the utility of each
+     * {@link DisasterData} at the time this message was created.
+     * @param priority Priority of the message.
+     * @param overheadBytes Number of bytes the message carries in addition to its data.
+     */
+    public DataMessage(
+            DTNHost from, DTNHost to, String id, Iterable<Tuple<DisasterData, Double>> dataWithUtility, int priority,
+            int overheadBytes) {
+        super(from, to, id, computeTotalDataSize(dataWithUtility) + overheadBytes, priority);
         this.utility = computeUtility(dataWithUtility);
+        this.overheadBytes = overheadBytes;
 
         List<DisasterData> dataList = new ArrayList<>();
         for (Tuple<DisasterData, Double> dataItem : dataWithUtility) {
             dataList.add(dataItem.getKey());
         }
-        this.data = Collections.unmodifiableList(dataList);
+        this.dataIds = new int[dataList.size()];
+        for (int i = 0; i < this.dataIds.length; i++) {
+            this.dataIds[i] = dataList.get(i).getId();
+        }
     }
 
     /**
@@ -44,7 +68,8 @@ public class DataMessage extends Message {
     private DataMessage(DataMessage message, DTNHost receiver) {
         super(message.from, receiver, message.getId(), message.size, message.getPriority());
         this.utility = message.utility;
-        this.data = message.data;
+        this.dataIds = message.dataIds;
+        this.overheadBytes = message.overheadBytes;
     }
 
     /**
@@ -91,6 +116,16 @@ public class DataMessage extends Message {
         return m;
     }
 
+    /**
+     * Checks whether this message is a prototype, i.e. a message without receiver which still has to be instantiated
+     * via {@link #instantiateFor(DTNHost)} before it is sent.
+     *
+     * @return True iff the message does not have a receiver yet.
+     */
+    public boolean isPrototype() {
+        return this.getTo() == null;
+    }
+
     /**
      * Returns a replicate of this message (identical except for the unique id)
      *
@@ -106,9 +141,21 @@ public class DataMessage extends Message {
      * @return The wrapped {@link DisasterData}.
      */
     public List<DisasterData> getData() {
+        List<DisasterData> data = new ArrayList<>(this.dataIds.length);
+        for (int id : this.dataIds) {
+            data.add(DisasterDataRegistry.getData(id));
+        }
         return Collections.unmodifiableList(data);
     }
 
+    /**
+     * Gets the ids of the data this message is wrapping.
+     * @return The ids of the wrapped {@link DisasterData}.
+     */
+    public int[] getDataIds() {
+        return this.dataIds.clone();
+    }
+
     /**
      * Gets the utility that has been computed when this message was created.
      * @return The original utility.
@@ -117,6 +164,14 @@ public class DataMessage extends Message {
         return this.utility;
     }
 
+    /**
+     * Gets the number of bytes the message carries in addition to its data, e.g. a synchronization digest.
+     * @return The number of additional bytes.
+     */
+    public int getOverheadBytes() {
+        return this.overheadBytes;
+    }
+
     /**
      * Gets the message type.
      *
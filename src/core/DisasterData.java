@@ -38,6 +38,8 @@ public class DisasterData {
     private Coord location;
     /** String representation of this object */
     private String stringRepresentation;
+    /** Dense id given to the data object by the {@link DisasterDataRegistry}. */
+    private int id;
 
     /**
      * Initializes a new instance of the {@link DisasterData} class.
@@ -52,6 +54,7 @@ public class DisasterData {
         this.creation = creation;
         this.location = location;
         this.stringRepresentation =""+ this.type +"@"+ this.creation + "@" + this.location;
+        this.id = DisasterDataRegistry.register(this);
     }
 
     /**
@@ -78,6 +81,15 @@ public class DisasterData {
         return this.creation;
     }
 
+    /**
+     * Gets the data's id. Ids are dense non-negative integers which can be resolved via
+     * {@link DisasterDataRegistry#getData(int)}.
+     * @return The data's id.
+     */
+    public int getId() {
+        return this.id;
+    }
+
     /**
      * Gets the location of the object presented by the data.
      * @return Location of the object presented by the data.
@@ -0,0 +1,156 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Global registry of all {@link DisasterData} items created in the simulation.
+ *
+ * Every item gets a dense non-negative integer id on creation (see {@link DisasterData#getId()}). As the same items
+ * spread to many hosts, per-host structures like {@link LocalDatabase} and {@link DataMessage} only store these ids.
+ * The immutable properties needed for utility computations are kept here once in primitive arrays indexed by id.
+ */
+public final class DisasterDataRegistry {
+    /** Capacity of the property arrays after a reset. */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** All registered data items, indexed by id. */
+    private static List<DisasterData> dataById;
+    /** Creation times of the data items, indexed by id. */
+    private static double[] creationTimes;
+    /** x coordinates of the data items' locations, indexed by id. */
+    private static double[] xCoordinates;
+    /** y coordinates of the data items' locations, indexed by id. */
+    private static double[] yCoordinates;
+    /** Sizes of the data items, indexed by id. */
+    private static int[] sizes;
+
+    static {
+        reset();
+        DTNSim.registerForReset(DisasterDataRegistry.class.getCanonicalName());
+    }
+
+    /**
+     * Private default constructor throwing an {@link IllegalAccessError} if called.
+     * Reason: This is a registry with static methods only that should never be initialized.
+     */
+    private DisasterDataRegistry() {
+        throw new IllegalAccessError("Registry class.");
+    }
+
+    /**
+     * Registers a newly created data item.
+     *
+     * @param data The data item to register.
+     * @return The id given to the data item.
+     */
+    static int register(DisasterData data) {
+        int id = dataById.size();
+        if (id == sizes.length) {
+            grow();
+        }
+
+        dataById.add(data);
+        creationTimes[id] = data.getCreation();
+        xCoordinates[id] = data.getLocation().getX();
+        yCoordinates[id] = data.getLocation().getY();
+        sizes[id] = data.getSize();
+        return id;
+    }
+
+    /**
+     * Returns the data item with the provided id.
+     *
+     * @param id The data item's id.
+     * @return The data item.
+     * @throws IllegalArgumentException if no data item with that id exists.
+     */
+    public static DisasterData getData(int id) {
+        checkId(id);
+        return dataById.get(id);
+    }
+
+    /**
+     * Returns the creation time of the data item with the provided id.
+     *
+     * @param id The data item's id.
+     * @return The creation time in simulator time.
+     */
+    public static double getCreation(int id) {
+        return creationTimes[id];
+    }
+
+    /**
+     * Returns the x coordinate of the location of the data item with the provided id.
+     *
+     * @param id The data item's id.
+     * @return The x coordinate.
+     */
+    public static double getX(int id) {
+        return xCoordinates[id];
+    }
+
+    /**
+     * Returns the y coordinate of the location of the data item with the provided id.
+     *
+     * @param id The data item's id.
+     * @return The y coordinate.
+     */
+    public static double getY(int id) {
+        return yCoordinates[id];
+    }
+
+    /**
+     * Returns the size of the data item with the provided id.
+     *
+     * @param id The data item's id.
+     * @return The size in bytes.
+     */
+    public static int getSize(int id) {
+        return sizes[id];
+    }
+
+    /**
+     * Returns the number of registered data items.
+     *
+     * @return The number of data items.
+     */
+    public static int getNumberOfData() {
+        return dataById.size();
+    }
+
+    /**
+     * Checks that a data item with the provided id exists.
+     *
+     * @param id The id to check.
+     * @throws IllegalArgumentException if no data item with that id exists.
+     */
+    private static void checkId(int id) {
+        if (id < 0 || id >= dataById.size()) {
+            throw new IllegalArgumentException("No disaster data with id " + id + " exists.");
+        }
+    }
+
+    /**
+     * Doubles the capacity of all property arrays.
+     */
+    private static void grow() {
+        int newCapacity = sizes.length * 2;
+        creationTimes = Arrays.copyOf(creationTimes, newCapacity);
+        xCoordinates = Arrays.copyOf(xCoordinates, newCapacity);
+        yCoordinates = Arrays.copyOf(yCoordinates, newCapacity);
+        sizes = Arrays.copyOf(sizes, newCapacity);
+    }
+
+    /**
+     * Resets all static fields to default values.
+     */
+    public static void reset() {
+        dataById = new ArrayList<>();
+        creationTimes = new double[INITIAL_CAPACITY];
+        xCoordinates = new double[INITIAL_CAPACITY];
+        yCoordinates = new double[INITIAL_CAPACITY];
+        sizes = new int[INITIAL_CAPACITY];
+    }
+}
@@ -1,9 +1,7 @@
 package core;
 
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -24,10 +22,24 @@ public final class Group implements Addressable {
      */
     private int address;
 
+    /** Number of addresses represented by a single word of {@link #memberWords}. */
+    static final int ADDRESSES_PER_WORD = Long.SIZE;
+
+    /**
+     * Sorted addresses of all group members. Replaced by a new array whenever a host joins, so that arrays handed out
+     * by {@link #getMemberAddresses()} never change.
+     */
+    private int[] memberAddresses;
+
     /**
-     * List of group member addresses.
+     * Addresses of all group members in the order they joined the group.
      */
-    private List<Integer> members;
+    private int[] membersInJoinOrder;
+
+    /**
+     * Bitset of group member addresses: The bit for address a is bit a % 64 of word a / 64.
+     */
+    private long[] memberWords;
 
     /**
      * Creates a new group
@@ -39,7 +51,9 @@ public final class Group implements Addressable {
             throw new AssertionError("Group address already assigned to another group: " + address);
         }
         this.address = address;
-        members = new ArrayList<>();
+        this.memberAddresses = new int[0];
+        this.membersInJoinOrder = new int[0];
+        this.memberWords = new long[0];
     }
 
     /**
@@ -105,19 +119,60 @@ public final class Group implements Addressable {
      * @param host host that should be added
      */
     public void addHost(DTNHost host){
-        if (!members.contains(host.getAddress())) {
-            members.add(host.getAddress());
+        int hostAddress = host.getAddress();
+        int insertionPoint = Arrays.binarySearch(this.memberAddresses, hostAddress);
+        if (insertionPoint >= 0) {
+            return;
+        }
+        insertionPoint = -insertionPoint - 1;
+
+        int[] newMemberAddresses = new int[this.memberAddresses.length + 1];
+        System.arraycopy(this.memberAddresses, 0, newMemberAddresses, 0, insertionPoint);
+        newMemberAddresses[insertionPoint] = hostAddress;
+        System.arraycopy(this.memberAddresses, insertionPoint, newMemberAddresses, insertionPoint + 1,
+                this.memberAddresses.length - insertionPoint);
+        this.memberAddresses = newMemberAddresses;
+
+        this.membersInJoinOrder = Arrays.copyOf(this.membersInJoinOrder, this.membersInJoinOrder.length + 1);
+        this.membersInJoinOrder[this.membersInJoinOrder.length - 1] = hostAddress;
+
+        int wordIndex = hostAddress / ADDRESSES_PER_WORD;
+        if (wordIndex >= this.memberWords.length) {
+            this.memberWords = Arrays.copyOf(this.memberWords, wordIndex + 1);
         }
+        this.memberWords[wordIndex] |= 1L << hostAddress;
     }
 
     /**
-     * Returns the addresses of the nodes joined to the group
+     * Returns the addresses of the nodes joined to the group in the order they joined
      * @return list of addresses of nodes in the group
      */
     public Integer[] getMembers(){
-        return members.toArray(new Integer[0]);
+        Integer[] members = new Integer[this.membersInJoinOrder.length];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = this.membersInJoinOrder[i];
+        }
+        return members;
+    }
+
+    /**
+     * Returns the sorted addresses of the nodes joined to the group without copying them. The returned array is
+     * shared and must not be modified. It does not reflect hosts joining the group later on.
+     *
+     * @return sorted addresses of nodes in the group
+     */
+    public int[] getMemberAddresses() {
+        return this.memberAddresses;
     }
 
+    /**
+     * Returns the number of nodes joined to the group
+     *
+     * @return the number of group members
+     */
+    public int getNumberOfMembers() {
+        return this.memberAddresses.length;
+    }
 
     /**
      *Check, if a node is in the group
@@ -126,7 +181,32 @@ public final class Group implements Addressable {
      * @return true, if the group contains the node address
      */
     public boolean contains(int address){
-        return members.contains(address);
+        int wordIndex = address / ADDRESSES_PER_WORD;
+        return address >= 0
+                && wordIndex < this.memberWords.length
+                && (this.memberWords[wordIndex] & (1L << address)) != 0;
+    }
+
+    /**
+     * Returns a word of the member bitset, see {@link #memberWords}.
+     *
+     * @param wordIndex index of the word
+     * @return the word, or 0 if the index is beyond the bitset's length
+     */
+    long getMemberWord(int wordIndex) {
+        if (wordIndex >= this.memberWords.length) {
+            return 0;
+        }
+        return this.memberWords[wordIndex];
+    }
+
+    /**
+     * Returns the number of words in the member bitset, see {@link #memberWords}.
+     *
+     * @return the number of words
+     */
+    int getNumberOfMemberWords() {
+        return this.memberWords.length;
     }
 
     /**
@@ -146,7 +226,7 @@ public final class Group implements Addressable {
      */
     @Override
     public String toString(){
-        return "Group " + address + ", Members="+ Arrays.toString(members.toArray());
+        return "Group " + address + ", Members="+ Arrays.toString(this.membersInJoinOrder);
     }
 
 
@@ -3,13 +3,12 @@ package core;
 import util.Tuple;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.DoubleSummaryStatistics;
 import java.util.EnumMap;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Local database which stores {@link DisasterData} along with
@@ -17,6 +16,19 @@ import java.util.stream.Collectors;
  * while dynamically setting the deletion threshold depending on how full the
  * database is.
  *
+ * Utilities are evaluated w. r. t. the time and location of the last utility refresh, which happens at most every
+ * {@link #UTILITY_COMPUTATION_INTERVAL} seconds; data added since then keeps the utility it had when it was added.
+ * Utilities are only computed when they are read, and at most once per refresh.
+ *
+ * Data is stored per data type in columns of primitive arrays which are sorted by reference utilities computed for a
+ * fixed reference time and location. As utilities are products of a distance and an aging term, the current utility
+ * of every item lies within known factors of its reference utility, and these factors only depend on how far the
+ * host has moved and how much time has passed since the reference was taken. Deleting data below the deletion
+ * threshold and querying data above a minimum utility therefore only have to compute the utilities of items close to
+ * the threshold. Once the factors become too loose, the reference utilities are recomputed.
+ * Data items are referenced by their id (see {@link DisasterData#getId()}), and their immutable properties are read
+ * from the {@link DisasterDataRegistry}, so that items known to many hosts are not duplicated per host.
+ *
  * Created by melanie on 07.04.17.
  */
 public class LocalDatabase {
@@ -27,6 +39,14 @@ public class LocalDatabase {
     /* Interval until utilities are recomputed in seconds */
     private static final int UTILITY_COMPUTATION_INTERVAL = 1;
 
+    /**
+     * Maximum ratio between the upper and the lower bound factor of current utilities w. r. t. reference utilities.
+     * If the ratio gets larger, reference utilities are recomputed.
+     */
+    private static final double MAXIMUM_UTILITY_BOUND_RATIO = 1.1;
+    /** Relative margin added to utility bound factors s.t. rounding errors never lead to wrong decisions. */
+    private static final double UTILITY_BOUND_MARGIN = 1E-9;
+
     /* Parameters for utility function: Distance base. */
     private static final double DEFAULT_DISTANCE_BASE = 1.2;
     private static final double MORE_SENSITIVE_DISTANCE_BASE = 1.25;
@@ -52,12 +72,31 @@ public class LocalDatabase {
     /** The database's owner. */
     private DTNHost owner;
 
-    /** All stored data with its cached utility (cache for performance reasons) */
-    private HashMap<DisasterData, Double> data = new HashMap<>();
+    /**
+     * All stored data, split up by data type. Each column stores its data in primitive arrays sorted by reference
+     * utility.
+     */
+    private EnumMap<DisasterData.DataType, DataColumn> columns = new EnumMap<>(DisasterData.DataType.class);
+    /** Ids of all stored data items, used to detect data that is added twice. */
+    private BitSet storedItemIds = new BitSet();
+    /** Number of stored data items. */
+    private int numberOfItems;
 
     /** Last sim time we recomputed the utilities */
     private double utilitiesLastComputed;
 
+    /** Number of changes made to the database's content. */
+    private long version;
+
+    /** Sum of the distances of all items to the location the distance aggregates were computed for. */
+    private double distanceSum;
+    /** Maximum distance of all items to the location the distance aggregates were computed for. */
+    private double maximumDistance;
+    /** Database version the distance aggregates were computed for. */
+    private long distanceAggregatesVersion;
+    /** Location the distance aggregates were computed for. Null if they have never been computed. */
+    private Coord distanceAggregatesLocation;
+
     /**
      * Initializes a new instance of the {@link LocalDatabase} class.
      *
@@ -67,6 +106,9 @@ public class LocalDatabase {
     public LocalDatabase(DTNHost owner, long totalSize) {
         this.owner = owner;
         this.totalSize = totalSize;
+        for (DisasterData.DataType type : DisasterData.DataType.values()) {
+            this.columns.put(type, new DataColumn(type));
+        }
     }
 
     /**
@@ -78,9 +120,55 @@ public class LocalDatabase {
     public void add (DisasterData newDataItem){
         double currentTime = SimClock.getTime();
         Coord currentLocation = this.owner.getLocation();
-        this.data.put(newDataItem, computeUtility(newDataItem, currentLocation, currentTime));
+        DataColumn column = this.columns.get(newDataItem.getType());
+        if (this.storedItemIds.get(newDataItem.getId())) {
+            column.remove(newDataItem.getId());
+        } else {
+            this.storedItemIds.set(newDataItem.getId());
+            this.numberOfItems++;
+        }
+        column.insert(newDataItem.getId(), currentLocation, currentTime);
         this.usedSize += newDataItem.getSize();
         this.deleteIrrelevantData();
+        this.version++;
+    }
+
+    /**
+     * Checks whether the provided data item is stored in the database.
+     *
+     * @param dataItem The data item to check.
+     * @return True iff the data item is stored.
+     */
+    public boolean contains(DisasterData dataItem) {
+        return this.storedItemIds.get(dataItem.getId());
+    }
+
+    /**
+     * Gets the ids of all data items stored in the database, see {@link DisasterData#getId()}.
+     *
+     * @return A copy of the stored ids.
+     */
+    public BitSet getStoredItemIds() {
+        return (BitSet)this.storedItemIds.clone();
+    }
+
+    /**
+     * Gets the number of data items stored in the database.
+     *
+     * @return The number of stored data items.
+     */
+    public int getNumberOfItems() {
+        return this.numberOfItems;
+    }
+
+    /**
+     * Gets the version of the database's content. The version changes each time data is added, and with it possibly
+     * deleted. It can therefore be used to find out whether a digest of the database is outdated.
+     *
+     * @return The current version.
+     */
+    public long getVersion() {
+        return this.version;
     }
 
     /**
@@ -92,19 +180,17 @@ public class LocalDatabase {
 
         recomputeUtilitiesIfNecessary();
 
-        Iterator<Map.Entry<DisasterData, Double>> dataIterator = data.entrySet().iterator();
-        while (dataIterator.hasNext()){
-            Map.Entry<DisasterData, Double> dataWithUtility = dataIterator.next();
-            if (dataWithUtility.getValue()<=deletionThreshold){
-                this.usedSize -= dataWithUtility.getKey().getSize();
-                dataIterator.remove();
-            }
+        // Columns are sorted by reference utility, so only items close to their tails have to be checked.
+        for (DataColumn column : this.columns.values()) {
+            int numberOfItemsInColumn = column.count();
+            this.usedSize -= column.removeDataWithUtilityAtMost(deletionThreshold, this.storedItemIds);
+            this.numberOfItems -= numberOfItemsInColumn - column.count();
         }
 
         // Make sure to set used size to 0 if database is empty. Without this check, an empty database could use up a
         // positive amount of size due to rounding errors.
         // This behavior is important when (indirectly) using this field to check whether the database is empty.
-        if (this.data.isEmpty()) {
+        if (this.numberOfItems == 0) {
             this.usedSize = 0;
         }
     }
@@ -132,12 +218,11 @@ public class LocalDatabase {
 
         recomputeUtilitiesIfNecessary();
 
-        for (Map.Entry<DisasterData, Double> dataWithUtility: data.entrySet()){
-
-            if (dataWithUtility.getValue()>=minUtility &&
-                    dataWithUtility.getKey().getType() != DisasterData.DataType.MAP){
-                dataWithMinUtility.add(new Tuple<>(dataWithUtility.getKey(), dataWithUtility.getValue()));
+        for (DataColumn column : this.columns.values()) {
+            if (column.type == DisasterData.DataType.MAP) {
+                continue;
             }
+            column.collectDataWithUtilityAtLeast(minUtility, dataWithMinUtility);
         }
         return dataWithMinUtility;
     }
@@ -148,14 +233,10 @@ public class LocalDatabase {
      * @return All map data.
      */
     public List<DisasterData> getMapData() {
-
-        recomputeUtilitiesIfNecessary();
-
-        List<DisasterData> mapData = new ArrayList<>();
-        for (Map.Entry<DisasterData, Double> dataWithUtility: data.entrySet()){
-            if (dataWithUtility.getKey().getType() == DisasterData.DataType.MAP){
-                mapData.add(dataWithUtility.getKey());
-            }
+        DataColumn maps = this.columns.get(DisasterData.DataType.MAP);
+        List<DisasterData> mapData = new ArrayList<>(maps.count());
+        for (int i = 0; i < maps.count(); i++) {
+            mapData.add(DisasterDataRegistry.getData(maps.idAt(i)));
         }
         return mapData;
     }
@@ -170,92 +251,41 @@ public class LocalDatabase {
     }
 
     /**
-     * Recomputes the utilities if they are needed and at most every {@link LocalDatabase#UTILITY_COMPUTATION_INTERVAL}
+     * Refreshes the utilities if they are needed and at most every {@link LocalDatabase#UTILITY_COMPUTATION_INTERVAL}
      * seconds in sim time.
      * The reason the utilities are cached and not computed every time is performance.
      * A host may meet multiple neighbors it may send data within short time.
      * Neither the time nor the location of the host could have changed much,
      * so utilities can be reused.
+     * A refresh only changes the time and location utilities are evaluated for; the utilities themselves are computed
+     * when they are read.
      */
     private void recomputeUtilitiesIfNecessary(){
         double currentTime = SimClock.getTime();
 
         if ((currentTime- utilitiesLastComputed)>= UTILITY_COMPUTATION_INTERVAL){
 
-            Coord currentLocation = this.owner.getLocation();
-            for (Map.Entry<DisasterData, Double> dataWithUtility: data.entrySet()){
-                double utility = computeUtility(dataWithUtility.getKey(), currentLocation, currentTime);
-                data.put(dataWithUtility.getKey(), utility);
+            Coord currentLocation = this.owner.getLocation().clone();
+            for (DataColumn column : this.columns.values()) {
+                column.startEvaluationPeriod(currentLocation, currentTime);
             }
             utilitiesLastComputed =currentTime;
         }
     }
 
-    /**
-     * Computes the utility value of a data item given the current location and time.
-     *
-     * @param dataItem The item to compute the utility value for.
-     * @param location The current location.
-     * @param time The current time.
-     * @return The computed utility value, a value between 0 and 1.
-     */
-    private static double computeUtility(DisasterData dataItem, Coord location, double time) {
-        // Factor how sensitive the utility function is to distance. The higher the beta, the more sensitive.
-        double beta = DEFAULT_DISTANCE_BASE;
-        // Factor how fast aging occurs, the higher gamma, the faster the aging.
-        double gamma = DEFAULT_AGING_BASE;
-        // Number of hours after which aging stops.
-        double maxAging = HOURS_IN_WEEK;
-
-        /* Adapt alpha and gamma depending on type. */
-        switch (dataItem.getType()){
-            case MAP:
-                // For maps we just regard the distance, as map data does not become outdated
-                // within the disaster time frame.
-                gamma = ZERO_AGING_BASE;
-                maxAging = 0;
-                break;
-            case MARKER:
-                // For markers, both distance and age are important.
-                // We assume that markers age for a while, but markers older than 2.5 days are not more or less useful
-                // depending on age only.
-                beta = MORE_SENSITIVE_DISTANCE_BASE;
-                maxAging = HOURS_IN_TWO_AND_A_HALF_DAYS;
-                break;
-            case SKILL:
-                // For skills, the aging is slower, as skills will likely not fade
-                // The importance on distance is high because you won't ask people for help that are very far away.
-                beta = VERY_SENSITIVE_DISTANCE_BASE;
-                gamma = VERY_SLOW_AGING_BASE;
-                break;
-            case RESOURCE:
-                // Resources also need some time to age, but may age faster than skills.
-                gamma = SLOW_AGING_BASE;
-                break;
-            default:
-                throw new UnsupportedOperationException("No implementation for data type " + dataItem.getType() + ".");
-        }
-
-        /* Determine properties to compute utility. */
-
-        //Distance between data and current location
-        //The farther away an item is, the lower its utility
-        double distance = dataItem.getLocation().distance(location) / METERS_IN_KILOMETER;
-        //How long it has been since the data item has been created
-        //The older an item is, the lower its utility
-        double age = (time - dataItem.getCreation()) / SECONDS_IN_HOUR;
-
-        /* Compute utility. */
-        return Math.pow(beta, -(distance/SLOWER_DECREASE_DIVISOR)) * Math.pow(gamma,-Math.min(maxAging, age));
-    }
-
     /**
      * Computes statistics about the utility of all {@link DisasterData} items in this database
      * @return statistics about the utility across all {@link DisasterData} items
      */
     public DoubleSummaryStatistics getDataUtilityStatistics(){
         recomputeUtilitiesIfNecessary();
-        return data.values().stream().collect(Collectors.summarizingDouble(Double::doubleValue));
+        DoubleSummaryStatistics statistics = new DoubleSummaryStatistics();
+        for (DataColumn column : this.columns.values()) {
+            for (int i = 0; i < column.count(); i++) {
+                statistics.accept(column.utilityAt(i));
+            }
+        }
+        return statistics;
     }
 
     /**
@@ -265,14 +295,16 @@ public class LocalDatabase {
      */
     public DoubleSummaryStatistics getDataAgeStatistics(){
         double currentTime = SimClock.getTime();
-        List<Double> ages = new ArrayList<>();
-        for (DisasterData dataItem : data.keySet()){
-            if (dataItem.getType()==DisasterData.DataType.MAP){
+        DoubleSummaryStatistics statistics = new DoubleSummaryStatistics();
+        for (DataColumn column : this.columns.values()) {
+            if (column.type == DisasterData.DataType.MAP) {
                 continue;
             }
-            ages.add(currentTime-dataItem.getCreation());
+            for (int i = 0; i < column.count(); i++) {
+                statistics.accept(currentTime - DisasterDataRegistry.getCreation(column.idAt(i)));
+            }
         }
-        return ages.stream().mapToDouble(Double::doubleValue).summaryStatistics();
+        return statistics;
     }
 
     /**
@@ -281,11 +313,130 @@ public class LocalDatabase {
      */
     public DoubleSummaryStatistics getDataDistanceStatistics(){
         Coord currentLocation = this.owner.getLocation();
-        List<Double> distances = new ArrayList<>();
-        for (DisasterData dataItem : data.keySet()){
-            distances.add(dataItem.getLocation().distance(currentLocation));
+        DoubleSummaryStatistics statistics = new DoubleSummaryStatistics();
+        for (DataColumn column : this.columns.values()) {
+            for (int i = 0; i < column.count(); i++) {
+                statistics.accept(computeDistance(column.idAt(i), currentLocation));
+            }
         }
-        return distances.stream().mapToDouble(Double::doubleValue).summaryStatistics();
+        return statistics;
+    }
+
+    /**
+     * Gets the average utility of all {@link DisasterData} items in this database. Needs to read the utilities of all
+     * items, but each of them is only computed once per utility refresh.
+     * @return The average utility, or 0 for an empty database.
+     */
+    public double getAverageDataUtility() {
+        recomputeUtilitiesIfNecessary();
+        double utilitySum = 0;
+        for (DataColumn column : this.columns.values()) {
+            for (int i = 0; i < column.count(); i++) {
+                utilitySum += column.utilityAt(i);
+            }
+        }
+        return averageOrZero(utilitySum, this.numberOfItems);
+    }
+
+    /**
+     * Gets the number of {@link DisasterData} items in this database which are not of {@link DisasterData.DataType}
+     * MAP.
+     * @return The number of non-map items.
+     */
+    public int getNumberOfNonMapItems() {
+        return this.numberOfItems - this.columns.get(DisasterData.DataType.MAP).count();
+    }
+
+    /**
+     * Gets the average age of all {@link DisasterData} items in this database which are not of
+     * {@link DisasterData.DataType} MAP. The age is derived from the running sum of creation times.
+     * @return The average age in seconds, or 0 if there are no non-map items.
+     */
+    public double getAverageDataAge() {
+        double creationTimeSum = 0;
+        for (DataColumn column : this.columns.values()) {
+            if (column.type != DisasterData.DataType.MAP) {
+                creationTimeSum += column.creationTimeSum;
+            }
+        }
+        int numberOfItems = this.getNumberOfNonMapItems();
+        if (numberOfItems == 0) {
+            return 0;
+        }
+        return SimClock.getTime() - creationTimeSum / numberOfItems;
+    }
+
+    /**
+     * Gets the maximum age of all {@link DisasterData} items in this database which are not of
+     * {@link DisasterData.DataType} MAP.
+     * @return The maximum age in seconds, or 0 if there are no non-map items.
+     */
+    public double getMaximumDataAge() {
+        double minimumCreationTime = Double.POSITIVE_INFINITY;
+        for (DataColumn column : this.columns.values()) {
+            if (column.type != DisasterData.DataType.MAP) {
+                minimumCreationTime = Math.min(minimumCreationTime, column.getMinimumCreationTime());
+            }
+        }
+        if (this.getNumberOfNonMapItems() == 0) {
+            return 0;
+        }
+        return SimClock.getTime() - minimumCreationTime;
+    }
+
+    /**
+     * Gets the average distance of all {@link DisasterData} items in this database to the host.
+     * @return The average distance in meters, or 0 for an empty database.
+     */
+    public double getAverageDataDistance() {
+        this.recomputeDistanceAggregatesIfNecessary();
+        return averageOrZero(this.distanceSum, this.numberOfItems);
+    }
+
+    /**
+     * Gets the maximum distance of all {@link DisasterData} items in this database to the host.
+     * @return The maximum distance in meters, or 0 for an empty database.
+     */
+    public double getMaximumDataDistance() {
+        this.recomputeDistanceAggregatesIfNecessary();
+        return this.maximumDistance;
+    }
+
+    /**
+     * Recomputes the distance aggregates if the database's content or the host's location changed since they were
+     * last computed. Distances depend on the host's location, so they cannot be maintained on add and delete.
+     */
+    private void recomputeDistanceAggregatesIfNecessary() {
+        Coord currentLocation = this.owner.getLocation();
+        if (this.distanceAggregatesVersion == this.version
+                && this.distanceAggregatesLocation != null && currentLocation.equals(this.distanceAggregatesLocation)) {
+            return;
+        }
+
+        this.distanceSum = 0;
+        this.maximumDistance = 0;
+        for (DataColumn column : this.columns.values()) {
+            for (int i = 0; i < column.count(); i++) {
+                double distance = computeDistance(column.idAt(i), currentLocation);
+                this.distanceSum += distance;
+                this.maximumDistance = Math.max(this.maximumDistance, distance);
+            }
+        }
+        this.distanceAggregatesVersion = this.version;
+        this.distanceAggregatesLocation = currentLocation.clone();
+    }
+
+    /**
+     * Computes an average, returning 0 if there are no values.
+     * @param sum The sum of all values.
+     * @param count The number of values.
+     * @return The average.
+     */
+    private static double averageOrZero(double sum, int count) {
+        if (count == 0) {
+            return 0;
+        }
+        return sum / count;
     }
 
     /**
@@ -303,22 +454,573 @@ public class LocalDatabase {
      */
     public Map<DisasterData.DataType, Double> getRatioOfItemsPerDataType(){
         EnumMap<DisasterData.DataType, Double> ratioPerType = new EnumMap<>(DisasterData.DataType.class);
-        for (DisasterData.DataType type : DisasterData.DataType.values()){
-            ratioPerType.put(type, 0.0);
-        }
-        int totalNoOfItems = data.size();
-        //If we have no items, we can stop
-        if (totalNoOfItems >0){
-            //Count the number of items per DataType
-            for (DisasterData dataItem : data.keySet()){
-                ratioPerType.put(dataItem.getType(), ratioPerType.get(dataItem.getType())+1);
-            }
-            //Calculate the ratio by dividing by the total number of items
-            for (DisasterData.DataType type : DisasterData.DataType.values()) {
-                ratioPerType.put(type, ratioPerType.get(type) / totalNoOfItems);
+        int totalNoOfItems = this.numberOfItems;
+        for (DataColumn column : this.columns.values()) {
+            //If we have no items, all ratios are 0
+            double ratio = 0.0;
+            if (totalNoOfItems > 0) {
+                ratio = (double)column.count() / totalNoOfItems;
             }
+            ratioPerType.put(column.type, ratio);
         }
         return ratioPerType;
     }
 
-}
\ No newline at end of file
+    /**
+     * Computes the distance between the data item with the provided id and the provided location.
+     *
+     * @param id The item's id.
+     * @param location The location.
+     * @return The distance in meters.
+     */
+    private static double computeDistance(int id, Coord location) {
+        double dx = DisasterDataRegistry.getX(id) - location.getX();
+        double dy = DisasterDataRegistry.getY(id) - location.getY();
+        return Math.sqrt(dx*dx + dy*dy);
+    }
+
+    /**
+     * Stores all data items of a certain {@link DisasterData.DataType} in primitive arrays. The utility function's
+     * parameters only depend on the data type, and the utility is a product of a distance term and an aging term.
+     *
+     * Items are sorted by descending reference utility, i. e. their utility w. r. t. a fixed reference location and
+     * time. Items added since the last utility refresh are kept in a small pending list with the utility they had when
+     * they were added. Utilities w. r. t. the current evaluation location and time are computed on first access and
+     * cached until the next refresh.
+     */
+    private static final class DataColumn {
+        /** Initial capacity of the arrays. */
+        private static final int INITIAL_CAPACITY = 16;
+
+        /** The data type of all items in this column. */
+        private final DisasterData.DataType type;
+
+        /** Factor how sensitive the utility function is to distance. The higher the beta, the more sensitive. */
+        private double beta = DEFAULT_DISTANCE_BASE;
+        /** Factor how fast aging occurs, the higher gamma, the faster the aging. */
+        private double gamma = DEFAULT_AGING_BASE;
+        /** Number of hours after which aging stops. */
+        private double maxAging = HOURS_IN_WEEK;
+
+        /** Ids of the sorted data items. */
+        private int[] ids = new int[INITIAL_CAPACITY];
+        /** Utilities of the items at the same index w. r. t. the reference location and time. Sorted descendingly. */
+        private double[] referenceUtilities = new double[INITIAL_CAPACITY];
+        /** Cached utilities of the items at the same index w. r. t. the evaluation location and time. */
+        private double[] utilities = new double[INITIAL_CAPACITY];
+        /** Evaluation periods the cached utilities were computed in. Cache entries of other periods are outdated. */
+        private int[] utilityPeriods = new int[INITIAL_CAPACITY];
+        /** Number of sorted items. */
+        private int size;
+
+        /** Ids of the items added since the last utility refresh. */
+        private int[] pendingIds = new int[INITIAL_CAPACITY];
+        /** Utilities of the pending items at the time they were added. */
+        private double[] pendingUtilities = new double[INITIAL_CAPACITY];
+        /** Number of pending items. */
+        private int pendingSize;
+
+        /** Location reference utilities are computed for. Null as long as no reference has been taken. */
+        private Coord referenceLocation;
+        /** Time reference utilities are computed for. */
+        private double referenceTime;
+        /** Location utilities are currently evaluated for. */
+        private Coord evaluationLocation;
+        /** Time utilities are currently evaluated for. */
+        private double evaluationTime;
+        /** Current evaluation period. Starts at 1 s.t. the zero-initialized cache entries are outdated. */
+        private int evaluationPeriod = 1;
+        /** Factor s.t. reference utility times factor is at most the current utility. */
+        private double lowerBoundFactor = 1;
+        /** Factor s.t. reference utility times factor is at least the current utility. */
+        private double upperBoundFactor = 1;
+
+        /** Sum of the creation times of all stored items. */
+        private double creationTimeSum;
+        /** Minimum creation time of all stored items. Only up to date if {@link #minimumCreationTimeValid} is set. */
+        private double minimumCreationTime = Double.POSITIVE_INFINITY;
+        /** Whether {@link #minimumCreationTime} is up to date. */
+        private boolean minimumCreationTimeValid = true;
+
+        /**
+         * Initializes a new, empty column for the provided data type.
+         * @param type The data type.
+         */
+        private DataColumn(DisasterData.DataType type) {
+            this.type = type;
+
+            /* Adapt alpha and gamma depending on type. */
+            switch (type){
+                case MAP:
+                    // For maps we just regard the distance, as map data does not become outdated
+                    // within the disaster time frame.
+                    this.gamma = ZERO_AGING_BASE;
+                    this.maxAging = 0;
+                    break;
+                case MARKER:
+                    // For markers, both distance and age are important.
+                    // We assume that markers age for a while, but markers older than 2.5 days are not more or less
+                    // useful depending on age only.
+                    this.beta = MORE_SENSITIVE_DISTANCE_BASE;
+                    this.maxAging = HOURS_IN_TWO_AND_A_HALF_DAYS;
+                    break;
+                case SKILL:
+                    // For skills, the aging is slower, as skills will likely not fade
+                    // The importance on distance is high because you won't ask people for help that are very far
+                    // away.
+                    this.beta = VERY_SENSITIVE_DISTANCE_BASE;
+                    this.gamma = VERY_SLOW_AGING_BASE;
+                    break;
+                case RESOURCE:
+                    // Resources also need some time to age, but may age faster than skills.
+                    this.gamma = SLOW_AGING_BASE;
+                    break;
+                default:
+                    throw new UnsupportedOperationException("No implementation for data type " + type + ".");
+            }
+        }
+
+        /**
+         * Returns the number of stored items.
+         * @return The number of items.
+         */
+        private int count() {
+            return this.size + this.pendingSize;
+        }
+
+        /**
+         * Returns the id of the item at the provided index. Indices from {@link #size} on refer to pending items.
+         *
+         * @param index The item's index, between 0 and {@link #count()}.
+         * @return The item's id.
+         */
+        private int idAt(int index) {
+            if (index < this.size) {
+                return this.ids[index];
+            }
+            return this.pendingIds[index - this.size];
+        }
+
+        /**
+         * Returns the current utility of the item at the provided index, computing it if it has not been computed in
+         * the current evaluation period yet. Indices from {@link #size} on refer to pending items.
+         *
+         * @param index The item's index, between 0 and {@link #count()}.
+         * @return The item's utility.
+         */
+        private double utilityAt(int index) {
+            if (index >= this.size) {
+                return this.pendingUtilities[index - this.size];
+            }
+            if (this.utilityPeriods[index] != this.evaluationPeriod) {
+                this.utilities[index] =
+                        this.computeUtility(this.ids[index], this.evaluationLocation, this.evaluationTime);
+                this.utilityPeriods[index] = this.evaluationPeriod;
+            }
+            return this.utilities[index];
+        }
+
+        /**
+         * Adds a data item with its utility w. r. t. the current location and time. The item stays pending until the
+         * next evaluation period starts.
+         *
+         * @param id The id of the item to insert.
+         * @param location The current location.
+         * @param time The current time.
+         */
+        private void insert(int id, Coord location, double time) {
+            if (this.pendingSize == this.pendingIds.length) {
+                this.pendingIds = Arrays.copyOf(this.pendingIds, this.pendingSize * 2);
+                this.pendingUtilities = Arrays.copyOf(this.pendingUtilities, this.pendingSize * 2);
+            }
+            this.pendingIds[this.pendingSize] = id;
+            this.pendingUtilities[this.pendingSize] = this.computeUtility(id, location, time);
+            this.pendingSize++;
+            this.addToAggregates(id);
+        }
+
+        /**
+         * Removes a data item from the column.
+         * @param id The id of the item to remove.
+         */
+        private void remove(int id) {
+            for (int i = 0; i < this.pendingSize; i++) {
+                if (this.pendingIds[i] == id) {
+                    this.removeFromAggregates(id);
+                    int numberMoved = this.pendingSize - i - 1;
+                    System.arraycopy(this.pendingIds, i + 1, this.pendingIds, i, numberMoved);
+                    System.arraycopy(this.pendingUtilities, i + 1, this.pendingUtilities, i, numberMoved);
+                    this.pendingSize--;
+                    this.resetAggregatesIfEmpty();
+                    return;
+                }
+            }
+
+            // The item's reference utility is deterministic, so it can be found by binary search.
+            double referenceUtility = this.computeUtility(id, this.referenceLocation, this.referenceTime);
+            for (int i = this.countReferenceUtilitiesAbove(referenceUtility);
+                 i < this.size && this.referenceUtilities[i] == referenceUtility; i++) {
+                if (this.ids[i] == id) {
+                    this.removeAt(i);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Starts a new evaluation period: All utilities are evaluated w. r. t. the provided location and time from
+         * now on, and pending items are added to the sorted items.
+         * If the current utilities could differ too much from the reference utilities, all reference utilities are
+         * recomputed.
+         *
+         * @param location The new evaluation location.
+         * @param time The new evaluation time.
+         */
+        private void startEvaluationPeriod(Coord location, double time) {
+            this.evaluationLocation = location;
+            this.evaluationTime = time;
+            this.evaluationPeriod++;
+
+            if (this.referenceLocation != null) {
+                double maximumChange = this.referenceLocation.distance(location) / METERS_IN_KILOMETER;
+                double hoursPassed = (time - this.referenceTime) / SECONDS_IN_HOUR;
+                this.lowerBoundFactor = Math.pow(this.beta, -(maximumChange / SLOWER_DECREASE_DIVISOR))
+                        * Math.pow(this.gamma, -hoursPassed) * (1 - UTILITY_BOUND_MARGIN);
+                this.upperBoundFactor =
+                        Math.pow(this.beta, maximumChange / SLOWER_DECREASE_DIVISOR) * (1 + UTILITY_BOUND_MARGIN);
+            }
+            if (this.referenceLocation == null
+                    || this.upperBoundFactor / this.lowerBoundFactor > MAXIMUM_UTILITY_BOUND_RATIO) {
+                this.rebase();
+                return;
+            }
+
+            for (int i = 0; i < this.pendingSize; i++) {
+                this.insertSorted(this.pendingIds[i]);
+            }
+            this.pendingSize = 0;
+        }
+
+        /**
+         * Takes the current evaluation location and time as new reference, adds all pending items to the sorted items
+         * and sorts all items by their new reference utilities.
+         */
+        private void rebase() {
+            for (int i = 0; i < this.pendingSize; i++) {
+                this.ensureCapacity(this.size + 1);
+                this.ids[this.size] = this.pendingIds[i];
+                this.size++;
+            }
+            this.pendingSize = 0;
+
+            this.referenceLocation = this.evaluationLocation;
+            this.referenceTime = this.evaluationTime;
+            this.lowerBoundFactor = 1 - UTILITY_BOUND_MARGIN;
+            this.upperBoundFactor = 1 + UTILITY_BOUND_MARGIN;
+
+            for (int i = 0; i < this.size; i++) {
+                this.referenceUtilities[i] =
+                        this.computeUtility(this.ids[i], this.referenceLocation, this.referenceTime);
+            }
+            this.sortByReferenceUtility();
+            System.arraycopy(this.referenceUtilities, 0, this.utilities, 0, this.size);
+            Arrays.fill(this.utilityPeriods, 0, this.size, this.evaluationPeriod);
+        }
+
+        /**
+         * Sorts the items by descending reference utility using a stable bottom-up merge sort on their indices.
+         */
+        private void sortByReferenceUtility() {
+            int[] order = new int[this.size];
+            for (int i = 0; i < this.size; i++) {
+                order[i] = i;
+            }
+            int[] buffer = new int[this.size];
+            for (int width = 1; width < this.size; width *= 2) {
+                for (int start = 0; start < this.size; start += 2 * width) {
+                    int middle = Math.min(start + width, this.size);
+                    int end = Math.min(start + 2 * width, this.size);
+                    int left = start;
+                    int right = middle;
+                    for (int k = start; k < end; k++) {
+                        if (right >= end || (left < middle
+                                && this.referenceUtilities[order[left]] >= this.referenceUtilities[order[right]])) {
+                            buffer[k] = order[left++];
+                        } else {
+                            buffer[k] = order[right++];
+                        }
+                    }
+                }
+                int[] sorted = buffer;
+                buffer = order;
+                order = sorted;
+            }
+
+            int[] sortedIds = new int[this.ids.length];
+            double[] sortedReferenceUtilities = new double[this.referenceUtilities.length];
+            for (int i = 0; i < this.size; i++) {
+                sortedIds[i] = this.ids[order[i]];
+                sortedReferenceUtilities[i] = this.referenceUtilities[order[i]];
+            }
+            this.ids = sortedIds;
+            this.referenceUtilities = sortedReferenceUtilities;
+        }
+
+        /**
+         * Inserts a data item into the sorted items at the position matching its reference utility.
+         * @param id The id of the item to insert.
+         */
+        private void insertSorted(int id) {
+            this.ensureCapacity(this.size + 1);
+            double referenceUtility = this.computeUtility(id, this.referenceLocation, this.referenceTime);
+            int index = this.countReferenceUtilitiesAtLeast(referenceUtility);
+            int numberMoved = this.size - index;
+            System.arraycopy(this.ids, index, this.ids, index + 1, numberMoved);
+            System.arraycopy(this.referenceUtilities, index, this.referenceUtilities, index + 1, numberMoved);
+            System.arraycopy(this.utilities, index, this.utilities, index + 1, numberMoved);
+            System.arraycopy(this.utilityPeriods, index, this.utilityPeriods, index + 1, numberMoved);
+            this.ids[index] = id;
+            this.referenceUtilities[index] = referenceUtility;
+            this.utilityPeriods[index] = 0;
+            this.size++;
+        }
+
+        /**
+         * Adds all data items with a utility of at least the provided threshold to the provided list. Only the
+         * utilities of items whose reference utility does not rule them out are computed.
+         *
+         * @param threshold The threshold.
+         * @param result The list to add the items and their utilities to.
+         */
+        private void collectDataWithUtilityAtLeast(double threshold, List<Tuple<DisasterData, Double>> result) {
+            int candidates = this.countWithBoundNotBelow(this.upperBoundFactor, threshold);
+            for (int i = 0; i < candidates; i++) {
+                double utility = this.utilityAt(i);
+                if (utility >= threshold) {
+                    result.add(new Tuple<>(DisasterDataRegistry.getData(this.ids[i]), utility));
+                }
+            }
+            for (int i = 0; i < this.pendingSize; i++) {
+                if (this.pendingUtilities[i] >= threshold) {
+                    result.add(new Tuple<>(DisasterDataRegistry.getData(this.pendingIds[i]), this.pendingUtilities[i]));
+                }
+            }
+        }
+
+        /**
+         * Removes all data items with a utility of at most the provided threshold. Items whose upper utility bound is
+         * at most the threshold are removed without computing their utility, and items whose lower utility bound is
+         * above it are kept without computing their utility.
+         *
+         * @param threshold The threshold. May be NaN for databases of size 0, in which case no items are removed.
+         * @param storedItemIds The ids of all stored items to remove the items' ids from, too.
+         * @return The total size of the removed items.
+         */
+        private long removeDataWithUtilityAtMost(double threshold, BitSet storedItemIds) {
+            long removedSize = 0;
+            int keptForSure = this.countWithBoundAbove(this.lowerBoundFactor, threshold);
+            int maybeKept = this.countWithBoundAbove(this.upperBoundFactor, threshold);
+
+            int newSize = keptForSure;
+            for (int i = keptForSure; i < this.size; i++) {
+                if (i < maybeKept && !(this.utilityAt(i) <= threshold)) {
+                    this.ids[newSize] = this.ids[i];
+                    this.referenceUtilities[newSize] = this.referenceUtilities[i];
+                    this.utilities[newSize] = this.utilities[i];
+                    this.utilityPeriods[newSize] = this.utilityPeriods[i];
+                    newSize++;
+                } else {
+                    removedSize += this.removeItem(this.ids[i], storedItemIds);
+                }
+            }
+            this.size = newSize;
+
+            int newPendingSize = 0;
+            for (int i = 0; i < this.pendingSize; i++) {
+                if (!(this.pendingUtilities[i] <= threshold)) {
+                    this.pendingIds[newPendingSize] = this.pendingIds[i];
+                    this.pendingUtilities[newPendingSize] = this.pendingUtilities[i];
+                    newPendingSize++;
+                } else {
+                    removedSize += this.removeItem(this.pendingIds[i], storedItemIds);
+                }
+            }
+            this.pendingSize = newPendingSize;
+
+            this.resetAggregatesIfEmpty();
+            return removedSize;
+        }
+
+        /**
+         * Removes an item which is dropped from the arrays from the aggregates and the stored ids.
+         *
+         * @param id The item's id.
+         * @param storedItemIds The ids of all stored items.
+         * @return The item's size.
+         */
+        private long removeItem(int id, BitSet storedItemIds) {
+            storedItemIds.clear(id);
+            this.removeFromAggregates(id);
+            return DisasterDataRegistry.getSize(id);
+        }
+
+        /**
+         * Returns the number of sorted items whose reference utility times the provided factor is not below the
+         * threshold. These are the first sorted items.
+         *
+         * @param factor The factor.
+         * @param threshold The threshold.
+         * @return The number of items.
+         */
+        private int countWithBoundNotBelow(double factor, double threshold) {
+            int low = 0;
+            int high = this.size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (!(this.referenceUtilities[middle] * factor < threshold)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Returns the number of sorted items whose reference utility times the provided factor is not at most the
+         * threshold. These are the first sorted items.
+         *
+         * @param factor The factor.
+         * @param threshold The threshold. May be NaN, in which case all items are counted.
+         * @return The number of items.
+         */
+        private int countWithBoundAbove(double factor, double threshold) {
+            int low = 0;
+            int high = this.size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (!(this.referenceUtilities[middle] * factor <= threshold)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Returns the number of sorted items with a reference utility above the provided one.
+         * @param referenceUtility The reference utility.
+         * @return The number of items.
+         */
+        private int countReferenceUtilitiesAbove(double referenceUtility) {
+            return this.countWithBoundAbove(1, referenceUtility);
+        }
+
+        /**
+         * Returns the number of sorted items with a reference utility of at least the provided one.
+         * @param referenceUtility The reference utility.
+         * @return The number of items.
+         */
+        private int countReferenceUtilitiesAtLeast(double referenceUtility) {
+            return this.countWithBoundNotBelow(1, referenceUtility);
+        }
+
+        /**
+         * Returns the minimum creation time of all stored items, recomputing it if the item with the minimum creation
+         * time has been removed since it was last computed.
+         *
+         * @return The minimum creation time, or positive infinity for an empty column.
+         */
+        private double getMinimumCreationTime() {
+            if (!this.minimumCreationTimeValid) {
+                this.minimumCreationTime = Double.POSITIVE_INFINITY;
+                for (int i = 0; i < this.count(); i++) {
+                    this.minimumCreationTime =
+                            Math.min(this.minimumCreationTime, DisasterDataRegistry.getCreation(this.idAt(i)));
+                }
+                this.minimumCreationTimeValid = true;
+            }
+            return this.minimumCreationTime;
+        }
+
+        /**
+         * Adds the item with the provided id to the running aggregates.
+         * @param id The item's id.
+         */
+        private void addToAggregates(int id) {
+            double creationTime = DisasterDataRegistry.getCreation(id);
+            this.creationTimeSum += creationTime;
+            this.minimumCreationTime = Math.min(this.minimumCreationTime, creationTime);
+        }
+
+        /**
+         * Removes the item with the provided id from the running aggregates.
+         * @param id The item's id.
+         */
+        private void removeFromAggregates(int id) {
+            double creationTime = DisasterDataRegistry.getCreation(id);
+            this.creationTimeSum -= creationTime;
+            if (creationTime <= this.minimumCreationTime) {
+                this.minimumCreationTimeValid = false;
+            }
+        }
+
+        /**
+         * Resets the running aggregates if the column is empty, s.t. rounding errors do not accumulate.
+         */
+        private void resetAggregatesIfEmpty() {
+            if (this.count() == 0) {
+                this.creationTimeSum = 0;
+                this.minimumCreationTime = Double.POSITIVE_INFINITY;
+                this.minimumCreationTimeValid = true;
+            }
+        }
+
+        /**
+         * Computes the utility of the data item with the provided id w. r. t. the provided location and time.
+         * The farther away and the older an item is, the lower its utility.
+         *
+         * @param id The item's id.
+         * @param location The location.
+         * @param time The time.
+         * @return The utility.
+         */
+        private double computeUtility(int id, Coord location, double time) {
+            double distance = computeDistance(id, location) / METERS_IN_KILOMETER;
+            double age = (time - DisasterDataRegistry.getCreation(id)) / SECONDS_IN_HOUR;
+            return Math.pow(this.beta, -(distance/SLOWER_DECREASE_DIVISOR))
+                    * Math.pow(this.gamma, -Math.min(this.maxAging, age));
+        }
+
+        /**
+         * Removes the sorted item at the provided index, keeping the order of all other items.
+         * @param index The item's index.
+         */
+        private void removeAt(int index) {
+            this.removeFromAggregates(this.ids[index]);
+            int numberMoved = this.size - index - 1;
+            System.arraycopy(this.ids, index + 1, this.ids, index, numberMoved);
+            System.arraycopy(this.referenceUtilities, index + 1, this.referenceUtilities, index, numberMoved);
+            System.arraycopy(this.utilities, index + 1, this.utilities, index, numberMoved);
+            System.arraycopy(this.utilityPeriods, index + 1, this.utilityPeriods, index, numberMoved);
+            this.size--;
+            this.resetAggregatesIfEmpty();
+        }
+
+        /**
+         * Makes sure the arrays of sorted items can hold at least the provided number of items.
+         * @param capacity The required capacity.
+         */
+        private void ensureCapacity(int capacity) {
+            if (capacity <= this.ids.length) {
+                return;
+            }
+            int newCapacity = Math.max(capacity, this.ids.length * 2);
+            this.ids = Arrays.copyOf(this.ids, newCapacity);
+            this.referenceUtilities = Arrays.copyOf(this.referenceUtilities, newCapacity);
+            this.utilities = Arrays.copyOf(this.utilities, newCapacity);
+            this.utilityPeriods = Arrays.copyOf(this.utilityPeriods, newCapacity);
+        }
+    }
+}
@@ -4,12 +4,11 @@
  */
 package core;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
 
 /**
  * A message that is created at a node or passed between nodes.
@@ -30,14 +29,18 @@ public class Message implements Comparable<Message> {
     protected String id;
     /** Size of the message (bytes) */
     protected int size;
-    /** List of hosts this message has passed */
-    private List<DTNHost> path;
+    /** Hosts this message has passed, shared with the message's replicates */
+    private MessagePath path;
     /** Amount of hosts this message has passed */
     private int hopCount;
     /** Next unique identifier to be given */
     private static int nextUniqueId;
     /** Unique ID of this message */
     private int uniqueId;
+    /** Handles given to message identifiers so far */
+    private static Map<String, Integer> handlesById;
+    /** Handle of the message identifier (the same for all replicates of the message) */
+    private int handle;
     /** The time this message was received */
     private double timeReceived;
     /** The time when this message was created */
@@ -54,11 +57,12 @@ public class Message implements Comparable<Message> {
     private Message requestMsg;
 
     /**
-     * Container for generic message properties. Note that all values stored in
-     * the properties should be immutable because only a shallow copy of the
-     * properties is made when replicating messages
+     * Values of the message's attributes, indexed by attribute slot (see
+     * {@link MessageAttribute}). Note that all values stored in the attributes
+     * should be immutable because only a shallow copy of the attributes is
+     * made when replicating messages
      */
-    private Map<String, Object> properties;
+    private Object[] attributes;
 
     /** Application ID of the application that created the message */
     private String appID;
@@ -133,9 +137,10 @@ public class Message implements Comparable<Message> {
         this.to = to;
         this.id = id;
         this.size = size;
-        this.path = new ArrayList<DTNHost>();
+        this.path = MessagePath.EMPTY;
         this.hopCount = 0;
         this.uniqueId = nextUniqueId;
+        this.handle = getHandleFor(id);
         if (prio >= -1) {
             this.priority = prio;
         } else {
@@ -148,7 +153,7 @@ public class Message implements Comparable<Message> {
         this.initTtl = INFINITE_TTL;
         this.responseSize = 0;
         this.requestMsg = null;
-        this.properties = null;
+        this.attributes = null;
         this.appID = null;
 
         Message.nextUniqueId++;
@@ -197,6 +202,33 @@ public class Message implements Comparable<Message> {
         return this.uniqueId;
     }
 
+    /**
+     * Returns a dense non-negative integer handle for the message identifier. All replicates of a message share the
+     * same handle, so it can be used instead of {@link #getId()} in primitive data structures.
+     *
+     * @return The handle of the message id
+     */
+    public int getHandle() {
+        return this.handle;
+    }
+
+    /**
+     * Returns the handle for the provided message identifier, creating a new one if the identifier is unknown so far.
+     *
+     * @param id
+     *            The message identifier
+     * @return The handle of the message identifier
+     */
+    public static int getHandleFor(String id) {
+        Integer knownHandle = handlesById.get(id);
+        if (knownHandle != null) {
+            return knownHandle;
+        }
+        int newHandle = handlesById.size();
+        handlesById.put(id, newHandle);
+        return newHandle;
+    }
+
     /**
      * Returns the size of the message (in bytes)
      * 
@@ -214,15 +246,16 @@ public class Message implements Comparable<Message> {
      */
     public void addNodeOnPath(DTNHost node) {
         if (storeFullMsgPath){
-            this.path.add(node);
+            this.path = this.path.append(node);
         }
         this.hopCount++;
     }
 
     /**
-     * Returns a list of nodes this message has passed so far
+     * Returns a list of nodes this message has passed so far. The list is
+     * immutable and only supports efficient iteration, not index access.
      * 
-     * @return The list as vector
+     * @return The list of nodes
      */
     public List<DTNHost> getHops() {
         return this.path;
@@ -362,9 +395,7 @@ public class Message implements Comparable<Message> {
      */
     protected void copyFrom(Message m) {
         hopCount = m.hopCount;
-        if (storeFullMsgPath){
-            this.path = new ArrayList<>(m.path);
-        }
+        this.path = m.path;
 
         this.timeCreated = m.timeCreated;
         this.responseSize = m.responseSize;
@@ -373,12 +404,54 @@ public class Message implements Comparable<Message> {
         this.appID = m.appID;
         this.priority = m.priority;
 
-        if (m.properties != null) {
-            Set<String> keys = m.properties.keySet();
-            for (String key : keys) {
-                updateProperty(key, m.getProperty(key));
-            }
+        if (m.attributes != null) {
+            this.attributes = m.attributes.clone();
+        }
+    }
+
+    /**
+     * Returns the value of an attribute of this message.
+     *
+     * @param attribute
+     *            The attribute to look up
+     * @param <T>
+     *            Type of the attribute's values
+     * @return The stored value or null if no value is stored
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getAttribute(MessageAttribute<T> attribute) {
+        int slot = attribute.getSlot();
+        if (this.attributes == null || slot >= this.attributes.length) {
+            return null;
+        }
+        // only values of the attribute's type are stored in its slot
+        return (T)this.attributes[slot];
+    }
+
+    /**
+     * Sets the value of an attribute of this message. It's good idea to store
+     * only immutable objects because when message is replicated, only a
+     * shallow copy of the attributes is made.
+     *
+     * @param attribute
+     *            The attribute to set
+     * @param value
+     *            The value to store
+     * @param <T>
+     *            Type of the attribute's values
+     */
+    public <T> void setAttribute(MessageAttribute<T> attribute, T value) {
+        int slot = attribute.getSlot();
+        if (this.attributes == null) {
+            /*
+             * lazy creation to prevent performance overhead for classes that
+             * don't use the attribute feature
+             */
+            this.attributes = new Object[slot + 1];
+        } else if (slot >= this.attributes.length) {
+            this.attributes = Arrays.copyOf(this.attributes, slot + 1);
         }
+        this.attributes[slot] = value;
     }
 
     /**
@@ -387,7 +460,14 @@ public class Message implements Comparable<Message> {
      * value can be any object but it's good idea to store only immutable
      * objects because when message is replicated, only a shallow copy of the
      * properties is made.
-     * 
+     *
+     * Properties are stored as message attributes: A key that does not belong
+     * to a registered {@link MessageAttribute} yet is registered as untyped
+     * attribute of type {@link Object}, which a typed attribute registered
+     * later on takes over. Classes accessing a property frequently should
+     * register a typed attribute and use {@link #getAttribute(MessageAttribute)}
+     * instead.
+     *
      * @param key
      *            The key which is used to lookup the value
      * @param value
@@ -396,7 +476,7 @@ public class Message implements Comparable<Message> {
      *             if the message already has a value for the given key
      */
     public void addProperty(String key, Object value) throws SimError {
-        if (this.properties != null && this.properties.containsKey(key)) {
+        if (this.getProperty(key) != null) {
             /* check to prevent accidental name space collisions */
             throw new SimError("Message " + this + " already contains value " + "for a key " + key);
         }
@@ -413,10 +493,11 @@ public class Message implements Comparable<Message> {
      * @return The stored object or null if it isn't found
      */
     public Object getProperty(String key) {
-        if (this.properties == null) {
+        MessageAttribute<?> attribute = MessageAttribute.find(key);
+        if (attribute == null) {
             return null;
         }
-        return this.properties.get(key);
+        return this.getAttribute(attribute);
     }
 
     /**
@@ -430,15 +511,28 @@ public class Message implements Comparable<Message> {
      *            The new value to store
      */
     public void updateProperty(String key, Object value) throws SimError {
-        if (this.properties == null) {
-            /*
-             * lazy creation to prevent performance overhead for classes that
-             * don't use the property feature
-             */
-            this.properties = new HashMap<String, Object>();
-        }
+        this.setCheckedAttribute(MessageAttribute.registerUntyped(key), value);
+    }
 
-        this.properties.put(key, value);
+    /**
+     * Sets the value of an attribute after checking it has the attribute's
+     * type.
+     *
+     * @param attribute
+     *            The attribute to set
+     * @param value
+     *            The value to store
+     * @param <T>
+     *            Type of the attribute's values
+     * @throws SimError
+     *             if the value does not have the attribute's type
+     */
+    private <T> void setCheckedAttribute(MessageAttribute<T> attribute, Object value) throws SimError {
+        if (value != null && !attribute.getType().isInstance(value)) {
+            throw new SimError("Value " + value + " does not have type " + attribute.getType().getName()
+                    + " of message attribute " + attribute + ".");
+        }
+        this.setAttribute(attribute, attribute.getType().cast(value));
     }
 
     /**
@@ -508,6 +602,7 @@ public class Message implements Comparable<Message> {
      */
     public static void reset() {
         nextUniqueId = 0;
+        handlesById = new HashMap<>();
     }
 
     /**
@@ -0,0 +1,138 @@
+package core;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A typed key for a per-copy attribute of a {@link Message}.
+ *
+ * Attributes are registered once, typically when the declaring class is initialized, and are assigned a dense slot
+ * number. Messages store attribute values in an array indexed by slot, so reading and writing an attribute does not
+ * need any hashing, and replicating a message only copies that array.
+ *
+ * Registering an attribute name a second time with the same type returns the attribute registered first. The
+ * registry is not reset between simulation runs, as attributes are usually kept in static final fields.
+ *
+ * Property keys used via {@link Message#updateProperty(String, Object)} before a typed attribute of that name is
+ * registered get an untyped attribute of type {@link Object}. A later typed registration takes over its slot, so the
+ * order in which classes are initialized does not matter.
+ *
+ * @param <T> Type of the attribute's values.
+ */
+public final class MessageAttribute<T> {
+    /** All registered attributes by name. */
+    private static final Map<String, MessageAttribute<?>> attributesByName = new HashMap<>();
+
+    /** Name of the attribute, used by {@link Message#getProperty(String)} and similar methods. */
+    private final String name;
+    /** Type of the attribute's values. */
+    private final Class<T> type;
+    /** Index of the attribute's value in a message's attribute array. */
+    private final int slot;
+    /** Whether the attribute was registered implicitly for a property key and may be taken over by a typed one. */
+    private final boolean untyped;
+
+    /**
+     * Initializes a new instance of the {@link MessageAttribute} class.
+     * @param name Name of the attribute.
+     * @param type Type of the attribute's values.
+     * @param slot Index of the attribute's value in a message's attribute array.
+     * @param untyped Whether the attribute was registered implicitly for a property key.
+     */
+    private MessageAttribute(String name, Class<T> type, int slot, boolean untyped) {
+        this.name = name;
+        this.type = type;
+        this.slot = slot;
+        this.untyped = untyped;
+    }
+
+    /**
+     * Registers an attribute with the provided name and type, or returns the existing one if an attribute of the same
+     * name and type has already been registered. If only an untyped attribute has been registered for the name, see
+     * {@link #registerUntyped(String)}, the new attribute takes over its slot. Values stored in that slot before must
+     * then have the new type.
+     *
+     * @param name Name of the attribute. Should be chosen such that no other class accidentally uses the same one.
+     * @param type Type of the attribute's values.
+     * @param <T> Type of the attribute's values.
+     * @return The registered attribute.
+     * @throws IllegalArgumentException if an attribute of the same name but a different type exists.
+     */
+    public static synchronized <T> MessageAttribute<T> register(String name, Class<T> type) {
+        MessageAttribute<?> existingAttribute = attributesByName.get(name);
+        if (existingAttribute != null && existingAttribute.untyped) {
+            MessageAttribute<T> attribute = new MessageAttribute<>(name, type, existingAttribute.slot, false);
+            attributesByName.put(name, attribute);
+            return attribute;
+        }
+        if (existingAttribute != null) {
+            if (existingAttribute.type != type) {
+                throw new IllegalArgumentException("Message attribute " + name + " has already been registered with"
+                        + " type " + existingAttribute.type.getName() + " instead of " + type.getName() + ".");
+            }
+            @SuppressWarnings("unchecked")
+            MessageAttribute<T> attribute = (MessageAttribute<T>)existingAttribute;
+            return attribute;
+        }
+
+        MessageAttribute<T> attribute = new MessageAttribute<>(name, type, attributesByName.size(), false);
+        attributesByName.put(name, attribute);
+        return attribute;
+    }
+
+    /**
+     * Returns the attribute registered with the provided name, or registers an untyped attribute of type
+     * {@link Object} for it if there is none. Used for property keys no typed attribute has been registered for yet.
+     *
+     * @param name Name of the attribute.
+     * @return The registered attribute.
+     */
+    static synchronized MessageAttribute<?> registerUntyped(String name) {
+        MessageAttribute<?> existingAttribute = attributesByName.get(name);
+        if (existingAttribute != null) {
+            return existingAttribute;
+        }
+
+        MessageAttribute<Object> attribute = new MessageAttribute<>(name, Object.class, attributesByName.size(), true);
+        attributesByName.put(name, attribute);
+        return attribute;
+    }
+
+    /**
+     * Returns the attribute registered with the provided name.
+     * @param name Name of the attribute.
+     * @return The attribute or null if no attribute of that name has been registered.
+     */
+    static synchronized MessageAttribute<?> find(String name) {
+        return attributesByName.get(name);
+    }
+
+    /**
+     * Returns the attribute's name.
+     * @return The name.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Returns the type of the attribute's values.
+     * @return The type.
+     */
+    public Class<T> getType() {
+        return this.type;
+    }
+
+    /**
+     * Returns the index of the attribute's value in a message's attribute array.
+     * @return The slot.
+     */
+    int getSlot() {
+        return this.slot;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+}
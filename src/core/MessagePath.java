@@ -0,0 +1,127 @@
+package core;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * The hosts a {@link Message} has passed, stored as an immutable persistent list.
+ *
+ * Each path only stores its last host and a reference to the path before that host. Appending a host therefore
+ * creates a single new node, and all replicates of a message share the common part of their paths instead of copying
+ * it. As a consequence, accessing a host by index takes time linear in the distance from the path's end, so paths
+ * should be iterated instead.
+ */
+final class MessagePath extends AbstractList<DTNHost> {
+    /** The empty path. */
+    static final MessagePath EMPTY = new MessagePath(null, null, 0);
+
+    /** Last host on the path. */
+    private final DTNHost lastHost;
+    /** Path before {@link #lastHost}. */
+    private final MessagePath previous;
+    /** Number of hosts on the path. */
+    private final int size;
+
+    /**
+     * Initializes a new instance of the {@link MessagePath} class.
+     * @param lastHost Last host on the path.
+     * @param previous Path before the last host.
+     * @param size Number of hosts on the path.
+     */
+    private MessagePath(DTNHost lastHost, MessagePath previous, int size) {
+        this.lastHost = lastHost;
+        this.previous = previous;
+        this.size = size;
+    }
+
+    /**
+     * Returns a path consisting of this path followed by the provided host. This path is not changed.
+     * @param host The host to append.
+     * @return The new path.
+     */
+    MessagePath append(DTNHost host) {
+        return new MessagePath(host, this, this.size + 1);
+    }
+
+    @Override
+    public DTNHost get(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index " + index + " for path of size " + this.size + ".");
+        }
+
+        MessagePath path = this;
+        for (int i = this.size - 1; i > index; i--) {
+            path = path.previous;
+        }
+        return path.lastHost;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        for (MessagePath path = this; path.size > 0; path = path.previous) {
+            if (Objects.equals(path.lastHost, o)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Object[] toArray() {
+        DTNHost[] hosts = new DTNHost[this.size];
+        MessagePath path = this;
+        for (int i = this.size - 1; i >= 0; i--) {
+            hosts[i] = path.lastHost;
+            path = path.previous;
+        }
+        return hosts;
+    }
+
+    /**
+     * Returns an iterator over the hosts from the start of the path to its end.
+     *
+     * As each node only links to the path before it, the iterator copies all hosts into an array when the first host
+     * is requested. A full iteration therefore takes time and memory linear in the path's size, but creating an
+     * iterator and iterating an empty path are free. Use {@link #contains(Object)} to look for a host without copying.
+     *
+     * @return The iterator.
+     */
+    @Override
+    public Iterator<DTNHost> iterator() {
+        return new Iterator<DTNHost>() {
+            /** Hosts on the path, copied when the first host is requested. */
+            private Object[] hosts;
+            /** Index of the next host to return. */
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return this.next < MessagePath.this.size;
+            }
+
+            @Override
+            public DTNHost next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (this.hosts == null) {
+                    this.hosts = MessagePath.this.toArray();
+                }
+                return (DTNHost)this.hosts[this.next++];
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(this.toArray());
+    }
+}
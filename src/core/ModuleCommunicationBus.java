@@ -5,14 +5,23 @@
 package core;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Intermodule communication bus. Works as a blackboard where modules can
  * post data, subscribe to data changes and also poll for data values.
  * This is fairly similar to Message class' property interface, but these
  * values are shared for a node instead of message.
+ * <P>Frequently used double values can be registered once as a
+ * {@link DoubleKey}. Their values are kept in primitive arrays indexed by the
+ * key, so that reading and updating them via the key does not need any
+ * hashing or boxing. The string keyed methods can be used for these values as
+ * well.</P>
+ * <P>Listeners are only notified if a value actually changes.</P>
  */
 public class ModuleCommunicationBus {
 	/** Initial capacity for the listener lists (instead of 10) */
@@ -22,6 +31,21 @@ public class ModuleCommunicationBus {
 	/** Subscribed listeners (or null if none)*/
 	private HashMap<String, List<ModuleCommunicationListener>> listeners;
 
+	/** Values of registered double keys, indexed by key slot (or null if
+	 * none) */
+	private double[] doubleValues;
+	/** Whether a value exists for the registered double key with the same
+	 * slot (or null if no values exist) */
+	private boolean[] hasDoubleValues;
+	/** Subscribed listeners of registered double keys, indexed by key slot
+	 * (or null if none) */
+	private List<List<ModuleCommunicationListener>> doubleListeners;
+	/** Lowest slot of the double keys that might have been registered only
+	 * after a value or listener was stored by their name. Such values and
+	 * listeners are moved to the key's slot on first use of any of these
+	 * keys, which raises this slot again. */
+	private int firstUnmigratedSlot = Integer.MAX_VALUE;
+
 	/**
 	 * Constructor.
 	 */
@@ -40,7 +64,7 @@ public class ModuleCommunicationBus {
 	 * @throws SimError if there is already a value for the given key
 	 */
 	public void addProperty(String key, Object value) throws SimError {
-		if (this.values != null && this.values.containsKey(key)) {
+		if (this.containsProperty(key)) {
 			/* check to prevent accidental name space collisions */
 			throw new SimError("A value for the key " + key +
 					" already exists");
@@ -56,6 +80,10 @@ public class ModuleCommunicationBus {
 	 * @return The stored object or null if it isn't found
 	 */
 	public Object getProperty(String key) {
+		DoubleKey doubleKey = DoubleKey.find(key);
+		if (doubleKey != null && this.containsProperty(doubleKey)) {
+			return this.doubleValues[doubleKey.slot];
+		}
 		if (this.values == null) {
 			return null;
 		}
@@ -68,6 +96,10 @@ public class ModuleCommunicationBus {
 	 * @return true if the value exists, false if not
 	 */
 	public boolean containsProperty(String key) {
+		DoubleKey doubleKey = DoubleKey.find(key);
+		if (doubleKey != null && this.containsProperty(doubleKey)) {
+			return true;
+		}
 		if (this.values == null) {
 			return false;
 		}
@@ -80,16 +112,34 @@ public class ModuleCommunicationBus {
 	 * checks for name space clashes.
 	 * @param key The key which is used to lookup the value
 	 * @param value The new value to store
+	 * @throws SimError if the key is a registered {@link DoubleKey} but the
+	 * value is not a Double
 	 */
 	public void updateProperty(String key, Object value) throws SimError {
+		DoubleKey doubleKey = DoubleKey.find(key);
+		if (doubleKey != null) {
+			if (!(value instanceof Double)) {
+				throw new SimError("No Double value for key " + key);
+			}
+			this.setDouble(doubleKey, (Double)value);
+			return;
+		}
+
 		if (this.values == null) {
 			/* lazy creation to prevent performance overhead for classes
 			   that don't use the property feature  */
 			this.values = new HashMap<String, Object>();
 		}
 
-		this.values.put(key, value);
-		notifyListeners(key, value);
+		boolean existed = this.values.containsKey(key);
+		Object oldValue = this.values.put(key, value);
+		if (value instanceof Double) {
+			/* the key may be registered as double key later on */
+			this.markUnmigrated();
+		}
+		if (!existed || !Objects.equals(oldValue, value)) {
+			notifyListeners(key, value);
+		}
 	}
 
 	/**
@@ -155,12 +205,85 @@ public class ModuleCommunicationBus {
 		}
 	}
 
+	/**
+	 * Returns true if the bus contains a value for the given key
+	 * @param key The key for which a value's existence is checked
+	 * @return true if the value exists, false if not
+	 */
+	public boolean containsProperty(DoubleKey key) {
+		if (key.slot >= this.firstUnmigratedSlot) {
+			this.migrateRegisteredKeys();
+		}
+		return this.hasDoubleValues != null &&
+			key.slot < this.hasDoubleValues.length &&
+			this.hasDoubleValues[key.slot];
+	}
+
+	/**
+	 * Adds a new double value for this node.
+	 * @param key The key which is used to lookup the value
+	 * @param value The value to store
+	 * @throws SimError if there is already a value for the given key
+	 */
+	public void addDouble(DoubleKey key, double value) throws SimError {
+		if (this.containsProperty(key)) {
+			/* check to prevent accidental name space collisions */
+			throw new SimError("A value for the key " + key +
+					" already exists");
+		}
+
+		this.setDouble(key, value);
+	}
+
+	/**
+	 * Returns a double value from the communication bus.
+	 * @param key The key of the variable
+	 * @param naValue The value to return if there is no value for the key
+	 * @return The value of the key, or the naValue if they key was not found
+	 */
+	public double getDouble(DoubleKey key, double naValue) {
+		if (!this.containsProperty(key)) {
+			return naValue;
+		}
+		return this.doubleValues[key.slot];
+	}
+
+	/**
+	 * Sets the double value for the given key. Listeners are notified if the
+	 * value changed.
+	 * @param key The key which is used to lookup the value
+	 * @param value The new value to store
+	 */
+	public void setDouble(DoubleKey key, double value) {
+		boolean existed = this.containsProperty(key);
+		int slot = key.slot;
+		ensureDoubleCapacity(slot);
+
+		double oldValue = this.doubleValues[slot];
+		this.doubleValues[slot] = value;
+		this.hasDoubleValues[slot] = true;
+		if (!existed ||
+				Double.doubleToLongBits(oldValue) !=
+				Double.doubleToLongBits(value)) {
+			notifyListeners(key, value);
+		}
+	}
+
 	/**
 	 * Subscribes a module to changes of a certain value.
 	 * @param key The key of the value whose changes the module is interested of
 	 * @param module The module to subscribe.
 	 */
 	public void subscribe(String key, ModuleCommunicationListener module) {
+		DoubleKey doubleKey = DoubleKey.find(key);
+		if (doubleKey != null) {
+			if (doubleKey.slot >= this.firstUnmigratedSlot) {
+				this.migrateRegisteredKeys();
+			}
+			getDoubleListeners(doubleKey, true).add(module);
+			return;
+		}
+
 		if (this.listeners == null) {
 			/* first listener for the whole node */
 			this.listeners =
@@ -175,6 +298,8 @@ public class ModuleCommunicationBus {
 		}
 
 		list.add(module);
+		/* the key may be registered as double key later on */
+		this.markUnmigrated();
 	}
 
 	/**
@@ -185,6 +310,18 @@ public class ModuleCommunicationBus {
 	public void unsubscribe(String key, ModuleCommunicationListener module) {
 		List<ModuleCommunicationListener> list;
 
+		DoubleKey doubleKey = DoubleKey.find(key);
+		if (doubleKey != null) {
+			if (doubleKey.slot >= this.firstUnmigratedSlot) {
+				this.migrateRegisteredKeys();
+			}
+			list = getDoubleListeners(doubleKey, false);
+			if (list != null) {
+				list.remove(module);
+			}
+			return;
+		}
+
 		if (this.listeners == null) {
 			return; /* no subscriptions */
 		}
@@ -197,6 +334,121 @@ public class ModuleCommunicationBus {
 		list.remove(module);
 	}
 
+	/**
+	 * Makes sure the double value arrays are large enough for the given slot.
+	 * @param slot The slot of a double key
+	 */
+	private void ensureDoubleCapacity(int slot) {
+		if (this.doubleValues == null) {
+			this.doubleValues = new double[slot + 1];
+			this.hasDoubleValues = new boolean[slot + 1];
+		} else if (slot >= this.doubleValues.length) {
+			this.doubleValues = Arrays.copyOf(this.doubleValues, slot + 1);
+			this.hasDoubleValues =
+				Arrays.copyOf(this.hasDoubleValues, slot + 1);
+		}
+	}
+
+	/**
+	 * Returns the listeners subscribed to the given double key.
+	 * @param key The double key
+	 * @param create Whether to create the list if it doesn't exist yet
+	 * @return The listeners or null if there are none and create is false
+	 */
+	private List<ModuleCommunicationListener> getDoubleListeners(
+			DoubleKey key, boolean create) {
+		if (this.doubleListeners == null) {
+			if (!create) {
+				return null;
+			}
+			this.doubleListeners =
+				new ArrayList<List<ModuleCommunicationListener>>();
+		}
+		while (create && this.doubleListeners.size() <= key.slot) {
+			this.doubleListeners.add(null);
+		}
+		if (key.slot >= this.doubleListeners.size()) {
+			return null;
+		}
+
+		List<ModuleCommunicationListener> list =
+			this.doubleListeners.get(key.slot);
+		if (list == null && create) {
+			list = new ArrayList<ModuleCommunicationListener>(INIT_CAPACITY);
+			this.doubleListeners.set(key.slot, list);
+		}
+		return list;
+	}
+
+	/**
+	 * Remembers that double keys registered from now on might have a value or
+	 * listeners stored by their name.
+	 */
+	private void markUnmigrated() {
+		this.firstUnmigratedSlot = Math.min(
+				this.firstUnmigratedSlot, DoubleKey.count());
+	}
+
+	/**
+	 * Moves values and listeners stored by the name of double keys which were
+	 * registered only afterwards to the keys' slots. Afterwards, only keys
+	 * registered from now on might have values or listeners stored by their
+	 * name, and only if there are any values or listeners left which could
+	 * belong to a double key.
+	 */
+	private void migrateRegisteredKeys() {
+		int count = DoubleKey.count();
+		for (int slot = this.firstUnmigratedSlot; slot < count; slot++) {
+			this.moveToDoubleValues(DoubleKey.get(slot));
+		}
+
+		if (this.hasValuesOrListenersForUnregisteredKeys()) {
+			this.firstUnmigratedSlot = count;
+		} else {
+			this.firstUnmigratedSlot = Integer.MAX_VALUE;
+		}
+	}
+
+	/**
+	 * Checks whether there are Double values or listeners stored by name that
+	 * might belong to a double key registered later on.
+	 * @return True iff there are such values or listeners
+	 */
+	private boolean hasValuesOrListenersForUnregisteredKeys() {
+		if (this.listeners != null && !this.listeners.isEmpty()) {
+			return true;
+		}
+		if (this.values != null) {
+			for (Object value : this.values.values()) {
+				if (value instanceof Double) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Moves a value and listeners that were stored by the key's name before
+	 * the key was registered to the key's slot.
+	 * @param key The double key
+	 */
+	private void moveToDoubleValues(DoubleKey key) {
+		if (this.values != null && this.values.containsKey(key.name)) {
+			Object value = this.values.remove(key.name);
+			if (!(value instanceof Double)) {
+				throw new SimError("No Double value for key " + key);
+			}
+			int slot = key.slot;
+			ensureDoubleCapacity(slot);
+			this.doubleValues[slot] = (Double)value;
+			this.hasDoubleValues[slot] = true;
+		}
+		if (this.listeners != null && this.listeners.containsKey(key.name)) {
+			getDoubleListeners(key, true).addAll(
+					this.listeners.remove(key.name));
+		}
+	}
 
 	/**
 	 * Notifies all listeners that have subscribed to the given key
@@ -220,10 +472,131 @@ public class ModuleCommunicationBus {
 		}
 	}
 
+	/**
+	 * Notifies all listeners that have subscribed to the given double key
+	 * @param key The key which got new value
+	 * @param newValue The new value for the key
+	 */
+	private void notifyListeners(DoubleKey key, double newValue) {
+		List<ModuleCommunicationListener> list =
+			getDoubleListeners(key, false);
+		if (list == null || list.isEmpty()) {
+			return;
+		}
+
+		Double boxedValue = newValue;
+		for (ModuleCommunicationListener mcl : list) {
+			mcl.moduleValueChanged(key.name, boxedValue);
+		}
+	}
 
 	@Override
 	public String toString() {
-		return "ComBus with mapping: " + (this.values != null ?
-				this.values.toString() : "n/a");
+		Map<String, Object> mapping = new HashMap<String, Object>();
+		if (this.values != null) {
+			mapping.putAll(this.values);
+		}
+		if (this.hasDoubleValues != null) {
+			for (DoubleKey key : DoubleKey.getAll()) {
+				if (key.slot < this.hasDoubleValues.length &&
+						this.hasDoubleValues[key.slot]) {
+					mapping.put(key.name, this.doubleValues[key.slot]);
+				}
+			}
+		}
+		return "ComBus with mapping: " + (!mapping.isEmpty() ?
+				mapping.toString() : "n/a");
+	}
+
+	/**
+	 * A key for double values which is resolved to an array slot once when
+	 * it is registered. Registering a key name a second time returns the key
+	 * registered first. Keys are not reset between simulation runs, as they
+	 * are usually kept in static final fields.
+	 */
+	public static final class DoubleKey {
+		/** All registered keys by name */
+		private static final Map<String, DoubleKey> keysByName =
+			new HashMap<String, DoubleKey>();
+		/** All registered keys by slot */
+		private static final List<DoubleKey> keys = new ArrayList<DoubleKey>();
+
+		/** Name of the key, used by the string keyed methods */
+		private final String name;
+		/** Index of the key's value in the bus arrays */
+		private final int slot;
+
+		/**
+		 * Creates a new key.
+		 * @param name Name of the key
+		 * @param slot Index of the key's value in the bus arrays
+		 */
+		private DoubleKey(String name, int slot) {
+			this.name = name;
+			this.slot = slot;
+		}
+
+		/**
+		 * Registers a key with the given name, or returns the existing one if
+		 * the name has already been registered.
+		 * @param name Name of the key
+		 * @return The registered key
+		 */
+		public static synchronized DoubleKey register(String name) {
+			DoubleKey key = keysByName.get(name);
+			if (key == null) {
+				key = new DoubleKey(name, keys.size());
+				keysByName.put(name, key);
+				keys.add(key);
+			}
+			return key;
+		}
+
+		/**
+		 * Returns the key registered with the given name.
+		 * @param name Name of the key
+		 * @return The key or null if no key of that name has been registered
+		 */
+		private static synchronized DoubleKey find(String name) {
+			return keysByName.get(name);
+		}
+
+		/**
+		 * Returns the number of registered keys.
+		 * @return The number of keys
+		 */
+		private static synchronized int count() {
+			return keys.size();
+		}
+
+		/**
+		 * Returns the key registered for the given slot.
+		 * @param slot The slot
+		 * @return The key
+		 */
+		private static synchronized DoubleKey get(int slot) {
+			return keys.get(slot);
+		}
+
+		/**
+		 * Returns all registered keys.
+		 * @return The keys
+		 */
+		private static synchronized List<DoubleKey> getAll() {
+			return new ArrayList<DoubleKey>(keys);
+		}
+
+		/**
+		 * Returns the name of the key.
+		 * @return The name
+		 */
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public String toString() {
+			return this.name;
+		}
 	}
 }
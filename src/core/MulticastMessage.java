@@ -1,8 +1,8 @@
 package core;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
 
 /**
@@ -18,9 +18,10 @@ public class MulticastMessage extends Message {
     private Group group;
 
     /**
-     * Recipients that have been reached on this message copy's path.
+     * Bitset of recipients that have been reached on this message copy's path, organized like the group's member
+     * bitset (see {@link Group#getMemberWord(int)}).
      */
-    private HashSet<Integer> reachedRecipients = new HashSet<>();
+    private long[] reachedRecipients;
 
     /**
      * Creates a new Message.
@@ -52,7 +53,8 @@ public class MulticastMessage extends Message {
                     " but host "+ from + " is not " + to);
         }
         this.group = to;
-        this.reachedRecipients.add(from.getAddress());
+        this.reachedRecipients = new long[to.getNumberOfMemberWords()];
+        this.addReachedRecipient(from.getAddress());
     }
 
     /**
@@ -78,25 +80,100 @@ public class MulticastMessage extends Message {
      * Gets the addresses of all group members that neither have been passed on this message copy's path before nor
      * have received a direct copy of this message copy.
      *
+     * Allocates a new collection. Use {@link #nextRemainingRecipient(int)} to iterate without allocating.
+     *
      * @return Addresses of all group members that haven't been reached so far.
      */
     public Collection<Integer> getRemainingRecipients() {
         List<Integer> remainingRecipients = new ArrayList<>();
-        for (Integer address : this.group.getMembers()) {
-            if (!this.reachedRecipients.contains(address)) {
-                remainingRecipients.add(address);
-            }
+        for (int address = this.nextRemainingRecipient(0);
+             address >= 0;
+             address = this.nextRemainingRecipient(address + 1)) {
+            remainingRecipients.add(address);
         }
         return remainingRecipients;
     }
 
+    /**
+     * Returns the lowest address of a remaining recipient (see {@link #getRemainingRecipients()}) that is at least
+     * the provided address. Iterating over all remaining recipients this way does not allocate any objects and checks
+     * 64 addresses at once.
+     *
+     * @param fromAddress The address to start searching at (inclusive).
+     * @return The found address, or -1 if there is no such remaining recipient.
+     */
+    public int nextRemainingRecipient(int fromAddress) {
+        int wordIndex = fromAddress / Group.ADDRESSES_PER_WORD;
+        if (fromAddress < 0 || wordIndex >= this.group.getNumberOfMemberWords()) {
+            return -1;
+        }
+
+        long remaining = this.getRemainingWord(wordIndex) & (-1L << fromAddress);
+        while (remaining == 0) {
+            wordIndex++;
+            if (wordIndex >= this.group.getNumberOfMemberWords()) {
+                return -1;
+            }
+            remaining = this.getRemainingWord(wordIndex);
+        }
+        return wordIndex * Group.ADDRESSES_PER_WORD + Long.numberOfTrailingZeros(remaining);
+    }
+
+    /**
+     * Returns the number of remaining recipients (see {@link #getRemainingRecipients()}).
+     *
+     * @return The number of group members that haven't been reached so far.
+     */
+    public int getNumberOfRemainingRecipients() {
+        int count = 0;
+        for (int wordIndex = 0; wordIndex < this.group.getNumberOfMemberWords(); wordIndex++) {
+            count += Long.bitCount(this.getRemainingWord(wordIndex));
+        }
+        return count;
+    }
+
+    /**
+     * Returns the bits of group members that haven't been reached so far for a single word of the member bitset.
+     *
+     * @param wordIndex Index of the word.
+     * @return The bits of remaining recipients.
+     */
+    private long getRemainingWord(int wordIndex) {
+        long reached = wordIndex < this.reachedRecipients.length ? this.reachedRecipients[wordIndex] : 0;
+        return this.group.getMemberWord(wordIndex) & ~reached;
+    }
+
+    /**
+     * Checks whether the provided address has been marked as reached recipient.
+     *
+     * @param address The address to check.
+     * @return Whether the address was reached.
+     */
+    private boolean isReachedRecipient(int address) {
+        int wordIndex = address / Group.ADDRESSES_PER_WORD;
+        return wordIndex < this.reachedRecipients.length && (this.reachedRecipients[wordIndex] & (1L << address)) != 0;
+    }
+
+    /**
+     * Marks the provided address as reached recipient.
+     *
+     * @param address The address to mark.
+     */
+    private void addReachedRecipient(int address) {
+        int wordIndex = address / Group.ADDRESSES_PER_WORD;
+        if (wordIndex >= this.reachedRecipients.length) {
+            this.reachedRecipients = Arrays.copyOf(this.reachedRecipients, wordIndex + 1);
+        }
+        this.reachedRecipients[wordIndex] |= 1L << address;
+    }
+
     /**
      * Adds a {@link DTNHost} to reached recipients if it is a final recipient of the message.
      * @param host {@link DTNHost} to add.
      */
     public void addReachedHost(DTNHost host) {
         if (this.isFinalRecipient(host)) {
-            this.reachedRecipients.add(host.getAddress());
+            this.addReachedRecipient(host.getAddress());
         }
     }
 
@@ -118,15 +195,15 @@ public class MulticastMessage extends Message {
     @Override
     public boolean completesDelivery(DTNHost receiver) {
         // Check whether all hosts have already been reached.
-        int groupSize = this.group.getMembers().length;
-        if (this.reachedRecipients.size() == groupSize) {
+        int numberOfRemainingRecipients = this.getNumberOfRemainingRecipients();
+        if (numberOfRemainingRecipients == 0) {
             return true;
         }
 
         // Then check if only the current receiver is missing.
-        return this.reachedRecipients.size() == groupSize - 1
+        return numberOfRemainingRecipients == 1
                 && this.isFinalRecipient(receiver)
-                && !this.reachedRecipients.contains(receiver.getAddress());
+                && !this.isReachedRecipient(receiver.getAddress());
     }
 
     /**
@@ -142,7 +219,7 @@ public class MulticastMessage extends Message {
         // We cannot add reached recipients in initialization because the necessary fields are not yet set. However,
         // adding the single host this message was created by is handled in constructor.
         if (this.reachedRecipients != null && this.isFinalRecipient(node)) {
-            this.reachedRecipients.add(node.getAddress());
+            this.addReachedRecipient(node.getAddress());
         }
     }
 
@@ -174,7 +251,7 @@ public class MulticastMessage extends Message {
     public void copyFrom(MulticastMessage m){
         super.copyFrom(m);
         this.group = m.group;
-        this.reachedRecipients = new HashSet<>(m.reachedRecipients);
+        this.reachedRecipients = m.reachedRecipients.clone();
     }
 
     /**
@@ -45,6 +45,12 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 	/** {@link ModuleCommunicationBus} identifier for the "transmission speed"
     variable. Value type: integer */
 	public static final String SPEED_ID = "Network.speed";
+	/** Key for the "scanning interval" variable */
+	public static final ModuleCommunicationBus.DoubleKey SCAN_INTERVAL_KEY =
+		ModuleCommunicationBus.DoubleKey.register(SCAN_INTERVAL_ID);
+	/** Key for the "radio range" variable */
+	public static final ModuleCommunicationBus.DoubleKey RANGE_KEY =
+		ModuleCommunicationBus.DoubleKey.register(RANGE_ID);
 
 	private static final int CON_UP = 1;
 	private static final int CON_DOWN = 2;
@@ -142,12 +148,12 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 		this.host = host;
 		ModuleCommunicationBus comBus = host.getComBus();
 
-		if (!comBus.containsProperty(SCAN_INTERVAL_ID) &&
-		    !comBus.containsProperty(RANGE_ID)) {
+		if (!comBus.containsProperty(SCAN_INTERVAL_KEY) &&
+		    !comBus.containsProperty(RANGE_KEY)) {
 			/* add properties and subscriptions only for the 1st interface */
 			/* TODO: support for multiple interfaces */
-			comBus.addProperty(SCAN_INTERVAL_ID, this.scanInterval);
-			comBus.addProperty(RANGE_ID, this.transmitRange);
+			comBus.addDouble(SCAN_INTERVAL_KEY, this.scanInterval);
+			comBus.addDouble(RANGE_KEY, this.transmitRange);
 			comBus.addProperty(SPEED_ID, this.transmitSpeed);
 			comBus.subscribe(SCAN_INTERVAL_ID, this);
 			comBus.subscribe(RANGE_ID, this);
@@ -237,7 +243,7 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 
 		active = ah.isActive(this.activenessJitterValue);
 
-		if (active && host.getComBus().getDouble(EnergyModel.ENERGY_VALUE_ID,
+		if (active && host.getComBus().getDouble(EnergyModel.ENERGY_VALUE_KEY,
 					1) <= 0) {
 			/* TODO: better way to check battery level */
 			/* no battery -> inactive */
@@ -247,11 +253,10 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 		if (active == false && this.transmitRange > 0) {
 			/* not active -> make range 0 */
 			this.oldTransmitRange = this.transmitRange;
-			host.getComBus().updateProperty(RANGE_ID, 0.0);
+			host.getComBus().setDouble(RANGE_KEY, 0.0);
 		} else if (active == true && this.transmitRange == 0.0) {
 			/* active, but range == 0 -> restore range  */
-			host.getComBus().updateProperty(RANGE_ID,
-					this.oldTransmitRange);
+			host.getComBus().setDouble(RANGE_KEY, this.oldTransmitRange);
 		}
 		return active;
 	}
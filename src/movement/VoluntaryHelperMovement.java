@@ -558,7 +558,7 @@ public class VoluntaryHelperMovement extends ExtendedMovementModel implements Vh
      * schedules that recharge as needed.
      */
     void possiblyRecharge() {
-        boolean batteryIsEmpty = this.comBus.getDouble(EnergyModel.ENERGY_VALUE_ID, 1) <= 0;
+        boolean batteryIsEmpty = this.comBus.getDouble(EnergyModel.ENERGY_VALUE_KEY, 1) <= 0;
         if (!batteryIsEmpty) {
             // Do nothing if host still has battery.
             return;
@@ -574,8 +574,8 @@ public class VoluntaryHelperMovement extends ExtendedMovementModel implements Vh
         // Check if we should recharge at current time. Then:
         if (SimClock.getTime() >= this.nextScheduledRecharge) {
             // Recharge battery.
-            this.comBus.updateProperty(
-                    EnergyModel.ENERGY_VALUE_ID,
+            this.comBus.setDouble(
+                    EnergyModel.ENERGY_VALUE_KEY,
                     EnergyModel.chooseRandomEnergyLevel(this.properties.getInitEnergy(), rng));
 
             // And reset next scheduled recharge.
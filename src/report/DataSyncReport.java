@@ -6,7 +6,6 @@ import core.DisasterData;
 import routing.util.DatabaseApplicationUtil;
 
 import java.util.ArrayList;
-import java.util.DoubleSummaryStatistics;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
@@ -83,20 +82,18 @@ public class DataSyncReport extends SamplingReport{
             }
             //Get used percentage of database, i.e., how much memory is used
             usedDataBasePercentage.add(app.getUsedMemoryPercentage()* RATIO_TO_PERCENT);
-            //We get statistics about age, distance and utility for all data the host has
-            DoubleSummaryStatistics ageStats = app.getDataAgeStatistics();
-            DoubleSummaryStatistics distanceStats = app.getDataDistanceStatistics();
-            DoubleSummaryStatistics utilityStats = app.getDataUtilityStatistics();
+            //Statistics about age, distance and utility for all data the host has are maintained by the database, so
+            //we only read them where needed
             //Only add statistics if there are any data items
             if (app.getUsedMemoryPercentage()>0){
                 //Even if we have data, we might only have map data, so no age stats
-                if (ageStats.getCount()>0){
-                    averageDataAges.add(ageStats.getAverage());
-                    highestAges.add(ageStats.getMax());
+                if (app.getNumberOfNonMapItems()>0){
+                    averageDataAges.add(app.getAverageDataAge());
+                    highestAges.add(app.getMaximumDataAge());
                 }
-                averageDataDistance.add(distanceStats.getAverage());
-                averageDataUtility.add(utilityStats.getAverage());
-                highestDistance.add(distanceStats.getMax());
+                averageDataDistance.add(app.getAverageDataDistance());
+                averageDataUtility.add(app.getAverageDataUtility());
+                highestDistance.add(app.getMaximumDataDistance());
                 Map<DisasterData.DataType, Double> ratios = app.getRatioOfItemsPerDataType();
                 for (DisasterData.DataType type : DisasterData.DataType.values()){
                     List<Double> doubles = ratioByType.get(type);
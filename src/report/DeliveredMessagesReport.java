@@ -4,7 +4,7 @@
  */
 package report;
 
-import java.util.List;
+import java.util.Iterator;
 
 import core.DTNHost;
 import core.Message;
@@ -38,11 +38,14 @@ public class DeliveredMessagesReport extends Report implements MessageListener {
 	 * @return hop path as a string
 	 */
 	private String getPathString(Message m) {
-		List<DTNHost> hops = m.getHops();
+		Iterator<DTNHost> hops = m.getHops().iterator();
 		String str = m.getFrom().toString();
 
-		for (int i=1; i<hops.size(); i++) {
-			str += "->" + hops.get(i);
+		if (hops.hasNext()) {
+			hops.next(); /* skip the start node */
+		}
+		while (hops.hasNext()) {
+			str += "->" + hops.next();
 		}
 
 		return str;
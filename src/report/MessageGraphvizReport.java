@@ -4,7 +4,6 @@
  */
 package report;
 
-import java.util.List;
 import java.util.Vector;
 
 import core.DTNHost;
@@ -60,11 +59,14 @@ public class MessageGraphvizReport extends Report implements MessageListener {
 		setPrefix("\t"); // indent following lines by one tab
 
 		for (Message m : deliveredMessages) {
-			List<DTNHost> path = m.getHops();
-			String pathString = path.remove(0).toString(); // start node
+			String pathString = null;
 
-			for (DTNHost next : path) {
-				pathString += "->" + next.toString();
+			for (DTNHost next : m.getHops()) {
+				if (pathString == null) {
+					pathString = next.toString(); // start node
+				} else {
+					pathString += "->" + next.toString();
+				}
 			}
 
 			write (pathString + ";");
@@ -135,7 +135,7 @@ public class MessageStatsReport extends Report implements MessageListener {
                 numberOfRecipients = this.simScenario.getHosts().size() - 1;
                 break;
             case MULTICAST:
-                numberOfRecipients = ((MulticastMessage)m).getGroup().getMembers().length - 1;
+                numberOfRecipients = ((MulticastMessage)m).getGroup().getNumberOfMembers() - 1;
                 break;
             default:
                 throw new UnsupportedOperationException("No implementation for message type " + m.getType() + ".");
@@ -10,6 +10,7 @@ import java.util.Iterator;
 import java.util.List;
 
 import core.MulticastMessage;
+import routing.util.DatabaseApplicationUtil;
 import routing.util.EnergyModel;
 import routing.util.MessageTransferAcceptPolicy;
 import routing.util.RoutingInfo;
@@ -17,6 +18,7 @@ import util.Tuple;
 
 import core.Connection;
 import core.DTNHost;
+import core.DataMessage;
 import core.Message;
 import core.MessageListener;
 import core.NetworkInterface;
@@ -137,7 +139,8 @@ public abstract class ActiveRouter extends MessageRouter {
 	/**
 	 * Called when a connection's state changes. If energy modeling is enabled,
 	 * and a new connection is created to this node, reduces the energy for the
-	 * device discovery (scan response) amount
+	 * device discovery (scan response) amount. If the connection went down,
+	 * database digests received over it are forgotten.
 	 * @param con The connection whose state changed
 	 */
 	@Override
@@ -145,6 +148,9 @@ public abstract class ActiveRouter extends MessageRouter {
 		if (this.energy != null && con.isUp() && !con.isInitiator(getHost())) {
 			this.energy.reduceDiscoveryEnergy();
 		}
+		if (!con.isUp()) {
+			DatabaseApplicationUtil.handleConnectionDown(this, con.getOtherNode(getHost()));
+		}
 	}
 
 	@Override
@@ -249,6 +255,11 @@ public abstract class ActiveRouter extends MessageRouter {
 			return TRY_LATER_BUSY;
 		}
 
+		/* data message prototypes are only instantiated once they are sent */
+		if (m instanceof DataMessage && ((DataMessage)m).isPrototype()) {
+			m = ((DataMessage)m).instantiateFor(con.getOtherNode(getHost()));
+		}
+
 		if (!policy.acceptSending(getHost(),
 				con.getOtherNode(getHost()), con, m)) {
 			return MessageRouter.DENIED_POLICY;
@@ -257,6 +268,8 @@ public abstract class ActiveRouter extends MessageRouter {
 		retVal = con.startTransfer(getHost(), m);
 		if (retVal == RCV_OK) { // started transfer
 			addToSendingConnections(con);
+			DatabaseApplicationUtil.handleTransferStart(
+					this, m, con.getOtherNode(getHost()));
 		}
 		else if (deleteDelivered && retVal == DENIED_OLD &&
 				m.completesDelivery(con.getOtherNode(this.getHost()))) {
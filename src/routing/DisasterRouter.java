@@ -16,13 +16,14 @@ import routing.util.DatabaseApplicationUtil;
 import routing.util.DeliveryPredictabilityStorage;
 import routing.util.DisasterBufferComparator;
 import routing.util.EncounterValueManager;
+import routing.util.MessageHistory;
 import routing.util.ReplicationsDensityManager;
 import util.Tuple;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -40,6 +41,17 @@ public class DisasterRouter extends ActiveRouter {
      */
     public static final String POWER_THRESHOLD = "powerThreshold";
 
+    /**
+     * Number of message / host pairs which are remembered such that they are not sent again -setting id ({@value}).
+     * Optional, defaults to {@link #DEFAULT_MESSAGE_HISTORY_SIZE}.
+     */
+    public static final String MESSAGE_HISTORY_SIZE_S = "messageHistorySize";
+
+    /**
+     * Default number of message / host pairs which are remembered such that they are not sent again.
+     */
+    public static final int DEFAULT_MESSAGE_HISTORY_SIZE = 1000;
+
     /* Comparators to sort direct messages. */
     private Comparator<Message> directMessageComparator;
     private Comparator<Tuple<Message, Connection>> directMessageTupleComparator;
@@ -48,6 +60,13 @@ public class DisasterRouter extends ActiveRouter {
     private MessageChoosingStrategy messageChooser;
     private MessagePrioritizationStrategy messagePrioritizer;
 
+    /**
+     * Message choosers {@link #messageChooser} switches between depending on the {@link DTNHost}'s remaining power.
+     * Both are created once from settings and then kept, so that switching modes does not parse settings again.
+     */
+    private UtilityMessageChooser utilityMessageChooser;
+    private RescueModeMessageChooser rescueModeMessageChooser;
+
     /* Buffer management strategy. */
     private Comparator<Message> rankComparator;
 
@@ -58,13 +77,14 @@ public class DisasterRouter extends ActiveRouter {
 
     /**
      * A cache for non-direct messages to all neighbors, sorted in the order in which they should be sent.
-     * The cache is recomputed every {@link #messageOrderingInterval} seconds or in the case that a new connection comes
-     * up. As soon as a connection breaks, the respective messages are removed from this cache.
+     * The cache is fully recomputed every {@link #messageOrderingInterval} seconds. In between, it is maintained
+     * incrementally: If a new connection comes up, only messages to the new neighbor are chosen and merged into the
+     * cache. The same happens for new messages in buffer. As soon as a connection breaks or a message is removed from
+     * buffer, the respective entries are removed from this cache.
      *
      * The introduction of this cache leads to higher memory usage, but more efficiency. It also has the downside that
-     * newly created or received messages are not directly sent to other hosts as they are not in the cache yet, while
-     * messages deleted from cache might still be sent. We can tolerate this as long as {@link #messageOrderingInterval}
-     * is not chosen too high.
+     * changes in the rating mechanisms are only reflected in the order of cached messages after the next full
+     * recomputation. We can tolerate this as long as {@link #messageOrderingInterval} is not chosen too high.
      */
     private List<Tuple<Message, Connection>> cachedNonDirectMessages = new ArrayList<>();
 
@@ -74,19 +94,15 @@ public class DisasterRouter extends ActiveRouter {
      */
     private double powerThreshold;
     
-    /**
-     * Number of tuples of messages/hosts which are remembered, such that they are not sent again
-     */
-    private static final int MESSAGE_HISTORY_SIZE = 1000;
-    
     /**
      * Constant indicating that a message is not sent because it is contained in the history
      */
     private static final int DENIED_IN_HISTORY = -110;
     /**
-     * List storing the last x message IDs and host IDs that are not sent again. The size of the list is restricted to {@link #MESSAGE_HISTORY_SIZE}. 
+     * History storing the last message / host pairs that are not sent again. The size of the history is restricted
+     * to the value of the {@link #MESSAGE_HISTORY_SIZE_S} setting.
      */
-    private List<Tuple<String, Integer>> messageSentToHostHistory = new ArrayList<>();
+    private MessageHistory messageSentToHostHistory;
     
     /**
      * Initializes a new instance of the {@link DisasterRouter} class.
@@ -100,8 +116,10 @@ public class DisasterRouter extends ActiveRouter {
         this.replicationsDensityManager = new ReplicationsDensityManager();
         this.deliveryPredictabilityStorage = new DeliveryPredictabilityStorage();
 
-        // Initialize message chooser.
-        this.messageChooser = new UtilityMessageChooser(this);
+        // Initialize message choosers.
+        this.utilityMessageChooser = new UtilityMessageChooser(this);
+        this.rescueModeMessageChooser = new RescueModeMessageChooser();
+        this.messageChooser = this.utilityMessageChooser;
 
         // Initialize message orderers.
         this.messagePrioritizer = new DisasterPrioritizationStrategy(this);
@@ -115,6 +133,11 @@ public class DisasterRouter extends ActiveRouter {
         if (this.powerThreshold < 0 || this.powerThreshold > 1) {
             throw new SettingsError("Power threshold should be in [0, 1], but is " + this.powerThreshold + "!");
         }
+        int messageHistorySize = s.getInt(MESSAGE_HISTORY_SIZE_S, DEFAULT_MESSAGE_HISTORY_SIZE);
+        if (messageHistorySize <= 0) {
+            throw new SettingsError("Message history size should be positive, but is " + messageHistorySize + "!");
+        }
+        this.messageSentToHostHistory = new MessageHistory(messageHistorySize);
         s.restoreNameSpace();
     }
 
@@ -129,17 +152,22 @@ public class DisasterRouter extends ActiveRouter {
         this.replicationsDensityManager = new ReplicationsDensityManager(router.replicationsDensityManager);
         this.deliveryPredictabilityStorage = new DeliveryPredictabilityStorage(router.deliveryPredictabilityStorage);
 
-        // Copy message chooser.
-        this.messageChooser = router.messageChooser.replicate(this);
+        // Copy message choosers.
+        this.utilityMessageChooser = (UtilityMessageChooser)router.utilityMessageChooser.replicate(this);
+        this.rescueModeMessageChooser = (RescueModeMessageChooser)router.rescueModeMessageChooser.replicate(this);
+        this.messageChooser = this.utilityMessageChooser;
 
         // Copy message orderers.
         this.messagePrioritizer = router.messagePrioritizer.replicate(this);
         this.directMessageComparator = router.directMessageComparator;
         this.directMessageTupleComparator = router.directMessageTupleComparator;
-        this.rankComparator = new DisasterBufferComparator(this);
+        this.rankComparator = new DisasterBufferComparator((DisasterBufferComparator)router.rankComparator, this);
 
         // Copy power threshold.
         this.powerThreshold = router.powerThreshold;
+
+        // Create an empty history of the same size.
+        this.messageSentToHostHistory = new MessageHistory(router.messageSentToHostHistory.getCapacity());
     }
 
     /**
@@ -167,7 +195,8 @@ public class DisasterRouter extends ActiveRouter {
         super.init(host, mListeners);
         this.deliveryPredictabilityStorage.setAttachedHost(host);
         this.messagePrioritizer.setAttachedHost(host);
-        this.messageChooser.setAttachedHost(host);
+        this.utilityMessageChooser.setAttachedHost(host);
+        this.rescueModeMessageChooser.setAttachedHost(host);
     }
 
     /**
@@ -208,7 +237,7 @@ public class DisasterRouter extends ActiveRouter {
             }
 
             // Add messages to this new neighbor to message cache.
-            this.recomputeMessageCache();
+            this.addConnectionToMessageCache(con);
         } else {
             // For broken connections, clean up message cache.
             this.removeConnectionFromMessageCache(con);
@@ -254,14 +283,10 @@ public class DisasterRouter extends ActiveRouter {
      */
     private void switchBetweenStrategiesDependingOnEnergy() {
         boolean rescueModeRequired = this.remainingEnergyRatio() < this.powerThreshold;
-        boolean inRescueMode = this.messageChooser instanceof RescueModeMessageChooser;
-        if (rescueModeRequired && !inRescueMode) {
-            this.messageChooser = new RescueModeMessageChooser();
-            this.messageChooser.setAttachedHost(this.getHost());
-        }
-        if (!rescueModeRequired && inRescueMode) {
-            this.messageChooser = new UtilityMessageChooser(this);
-            this.messageChooser.setAttachedHost(this.getHost());
+        if (rescueModeRequired) {
+            this.messageChooser = this.rescueModeMessageChooser;
+        } else {
+            this.messageChooser = this.utilityMessageChooser;
         }
     }
     
@@ -274,7 +299,7 @@ public class DisasterRouter extends ActiveRouter {
     @Override
     protected void transferDone(Connection con) {
         super.transferDone(con);
-        addMessageAndHostToHistory(con.getMessage(), con.getOtherNode(getHost()));
+        this.messageSentToHostHistory.add(con.getMessage(), con.getOtherNode(getHost()));
 
         /* was the message delivered to the final recipient? */
         Message ownCopy = this.getMessage(con.getMessage().getId());
@@ -313,17 +338,57 @@ public class DisasterRouter extends ActiveRouter {
         this.lastMessageOrdering = SimClock.getTime();
     }
 
+    /**
+     * Chooses non-direct messages for the provided new connection and merges them into
+     * {@link #cachedNonDirectMessages}.
+     * @param con Connection which came up.
+     */
+    private void addConnectionToMessageCache(Connection con) {
+        this.mergeIntoMessageCache(this.messageChooser.chooseNonDirectMessages(
+                this.getMessageCollection(), Collections.singletonList(con)));
+    }
+
+    /**
+     * Chooses the neighbors the provided new message should be sent to and merges the resulting message-connection
+     * pairs into {@link #cachedNonDirectMessages}.
+     * @param m Message which was added to buffer.
+     */
+    private void addMessageToMessageCache(Message m) {
+        this.mergeIntoMessageCache(this.messageChooser.chooseConnectionsForMessage(m, this.getConnections()));
+    }
+
+    /**
+     * Merges the provided message-connection pairs into {@link #cachedNonDirectMessages}. Only the new pairs are
+     * sorted, and they are then merged into the already sorted cache in linear time.
+     * @param messages Pairs to add to the cache.
+     */
+    private void mergeIntoMessageCache(Collection<Tuple<Message, Connection>> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        this.cachedNonDirectMessages = this.messagePrioritizer.mergeMessages(this.cachedNonDirectMessages, messages);
+    }
+
     /**
      * Removes all message-connection pairs with the provided connection from {@link #cachedNonDirectMessages}.
      * @param con Connection which should not get any messages anymore.
      */
     private void removeConnectionFromMessageCache(Connection con) {
-        Iterator<Tuple<Message,Connection>> it = this.cachedNonDirectMessages.listIterator();
-        while (it.hasNext()){
-            if (it.next().getValue().equals(con)){
-                it.remove();
-            }
+        this.cachedNonDirectMessages.removeIf(tuple -> tuple.getValue().equals(con));
+    }
+
+    /**
+     * Removes all message-connection pairs with the provided message from {@link #cachedNonDirectMessages}.
+     * Pairs are identified by message handle, which is cheaper to compare than the identifier.
+     * @param id Identifier of the message which should not be sent anymore.
+     */
+    private void removeMessageFromMessageCache(String id) {
+        Message m = this.getMessage(id);
+        if (m == null || this.cachedNonDirectMessages.isEmpty()) {
+            return;
         }
+        int handle = m.getHandle();
+        this.cachedNonDirectMessages.removeIf(tuple -> tuple.getKey().getHandle() == handle);
     }
 
     /**
@@ -364,6 +429,7 @@ public class DisasterRouter extends ActiveRouter {
     protected void addToMessages(Message m, boolean newMessage) {
         super.addToMessages(m, newMessage);
         this.replicationsDensityManager.addMessage(m.getId());
+        this.addMessageToMessageCache(m);
     }
 
     /**
@@ -375,25 +441,10 @@ public class DisasterRouter extends ActiveRouter {
     @Override
     protected Message removeFromMessages(String id) {
         this.replicationsDensityManager.removeMessage(id);
+        this.removeMessageFromMessageCache(id);
         return super.removeFromMessages(id);
     }
     
-    /**
-     * Adds a message / host pair to the message history. Also deletes messages until the list has reached its 
-     * maximum size
-     * @param message: Message to be added
-     * @param host: Host to be added
-     */
-    private void addMessageAndHostToHistory(Message message, DTNHost host) {
-        Tuple<String, Integer> historyItem = new Tuple<>(message.getId(), host.getAddress());
-        
-        while (this.messageSentToHostHistory.size() >= MESSAGE_HISTORY_SIZE) {
-            this.messageSentToHostHistory.remove(this.messageSentToHostHistory.size() - 1);
-        }
-            
-        this.messageSentToHostHistory.add(0, historyItem);
-    }
-    
     /**
      * Computes a ratio between the encounter value of this router and the one of the provided router.
      * A ratio less than 0.5 signifies that the other host is less social than this one, a
@@ -457,8 +508,7 @@ public class DisasterRouter extends ActiveRouter {
     
     @Override
     protected int startTransfer(Message m, Connection con) {
-        if (messageSentToHostHistory.contains(new Tuple<String, Integer>(m.getId(), 
-                con.getOtherNode(getHost()).getAddress()))) {
+        if (this.messageSentToHostHistory.contains(m, con.getOtherNode(getHost()))) {
             return DENIED_IN_HISTORY;
         }
         
@@ -474,18 +524,20 @@ public class DisasterRouter extends ActiveRouter {
     }
     
     /**
-     * Returns the last {@link #MESSAGE_HISTORY_SIZE} messages that were already sent by this host
-     * @return message history
+     * Checks whether the provided message / host pair is contained in the history of recently sent messages.
+     * @param message The message.
+     * @param host The host the message might have been sent to.
+     * @return True iff the pair is in the message history.
      */
-    public List<Tuple<String, Integer>> getMessageSentToHostHistory() {
-        return new ArrayList<>(messageSentToHostHistory);
+    public boolean messageHistoryContains(Message message, DTNHost host) {
+        return this.messageSentToHostHistory.contains(message, host);
     }
     
     /**
-     * Returns the number of messages in the history
+     * Returns the maximum number of message / host pairs in the history
      * @return size of the history
      */
-    public static int getMessageHistorySize() {
-        return MESSAGE_HISTORY_SIZE;
+    public int getMessageHistorySize() {
+        return this.messageSentToHostHistory.getCapacity();
     }
 }
@@ -4,10 +4,14 @@
  */
 package routing;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Queue;
 
 import core.*;
+import util.Tuple;
 
 import static core.Constants.DEBUG;
 
@@ -17,12 +21,27 @@ import static core.Constants.DEBUG;
  * and that message is then removed from all nodes that use this routing module.
  * This router also <B>ignores message size and all messages are delivered
  * immediately</B>.</P><P>
+ * Messages spread through the sender's connected component breadth-first,
+ * so dissemination takes time proportional to the component and does not
+ * recurse once per hop. For every message, the oracle remembers which routers
+ * hold a copy, so removing delivered messages only visits those routers.</P><P>
  * <B>Note:</B> This router module also bypasses ActiveRouter.update()
  */
 public class EpidemicOracleRouter extends ActiveRouter {
 
 	/** List of all routers in this node group */
 	private static List<EpidemicOracleRouter> allRouters;
+	/** For each message handle (see {@link Message#getHandle()}), the
+	 * indexes in {@link #allRouters} of the routers holding the message */
+	private static List<BitSet> messageHolders;
+	/** Routers that received a message and still need to forward it to
+	 * their connections, paired with the message ID */
+	private static Queue<Tuple<EpidemicOracleRouter, String>> pendingForwards;
+	/** Whether {@link #pendingForwards} is currently being processed */
+	private static boolean disseminating;
+
+	/** Index of this router in {@link #allRouters}, -1 for prototypes */
+	private int routerIndex = -1;
 
 	static {
 		DTNSim.registerForReset(EpidemicOracleRouter.class.getCanonicalName());
@@ -44,6 +63,7 @@ public class EpidemicOracleRouter extends ActiveRouter {
 	 */
 	protected EpidemicOracleRouter(EpidemicOracleRouter r) {
 		super(r);
+		this.routerIndex = allRouters.size();
 		allRouters.add(this);
 	}
 
@@ -69,9 +89,42 @@ public class EpidemicOracleRouter extends ActiveRouter {
 		}
 	}
 
-	private void sendMessageToConnected(Message m) {
-		DTNHost host = getHost();
+	/**
+	 * Sends the message with the given ID to all hosts reachable from this
+	 * router's host. If a dissemination is already running, the message is
+	 * only queued and sent by the running dissemination.
+	 * @param id ID of the message to send
+	 */
+	private void sendMessageToConnected(String id) {
+		pendingForwards.add(new Tuple<EpidemicOracleRouter, String>(this, id));
+		if (disseminating) {
+			return;
+		}
+
+		disseminating = true;
+		try {
+			while (!pendingForwards.isEmpty()) {
+				Tuple<EpidemicOracleRouter, String> forward =
+					pendingForwards.poll();
+				forward.getKey().forwardToConnected(forward.getValue());
+			}
+		} finally {
+			disseminating = false;
+		}
+	}
+
+	/**
+	 * Transfers the message with the given ID to all connected hosts. The
+	 * receivers queue further forwards in {@link #pendingForwards}.
+	 * @param id ID of the message to send
+	 */
+	private void forwardToConnected(String id) {
+		Message m = this.getMessage(id);
+		if (m == null) {
+			return; /* message was removed in the meantime */
+		}
 
+		DTNHost host = getHost();
 		for (Connection c : getConnections()) {
 			if (c.isReadyForTransfer() && c.startTransfer(host, m) == RCV_OK) {
 				c.finalizeTransfer(); /* and finalize it right away */
@@ -86,7 +139,7 @@ public class EpidemicOracleRouter extends ActiveRouter {
 			throw new SimError("Can't create message " + m);
 		}
 
-		sendMessageToConnected(m);
+		sendMessageToConnected(m.getId());
 
 		return true;
 	}
@@ -114,13 +167,16 @@ public class EpidemicOracleRouter extends ActiveRouter {
 		Message m = super.messageTransferred(id, from);
 
 		if (m.getTo() == this.getHost()) {
-			for (EpidemicOracleRouter r : allRouters) {
+			BitSet holders = getHolders(m.getHandle());
+			for (int i = holders.nextSetBit(0); i >= 0;
+					i = holders.nextSetBit(i + 1)) {
+				EpidemicOracleRouter r = allRouters.get(i);
 				if (r != this && r != from.getRouter()) {
 					r.removeDeliveredMessage(id);
 				}
 			}
 		} else {
-			sendMessageToConnected(m);
+			sendMessageToConnected(id);
 		}
 
 		return m;
@@ -160,6 +216,45 @@ public class EpidemicOracleRouter extends ActiveRouter {
 		}
 	}
 
+	@Override
+	protected void addToMessages(Message m, boolean newMessage) {
+		super.addToMessages(m, newMessage);
+		if (this.routerIndex >= 0) {
+			getHolders(m.getHandle()).set(this.routerIndex);
+		}
+	}
+
+	@Override
+	protected Message removeFromMessages(String id) {
+		Message m = super.removeFromMessages(id);
+		if (this.routerIndex >= 0) {
+			BitSet holders = getHolders(m.getHandle());
+			holders.clear(this.routerIndex);
+			if (holders.isEmpty()) {
+				messageHolders.set(m.getHandle(), null);
+			}
+		}
+		return m;
+	}
+
+	/**
+	 * Returns the indexes of the routers holding the message with the given
+	 * handle.
+	 * @param handle The message handle
+	 * @return The router indexes as a bitset
+	 */
+	private static BitSet getHolders(int handle) {
+		while (messageHolders.size() <= handle) {
+			messageHolders.add(null);
+		}
+		BitSet holders = messageHolders.get(handle);
+		if (holders == null) {
+			holders = new BitSet();
+			messageHolders.set(handle, holders);
+		}
+		return holders;
+	}
+
 	@Override
 	public void update() {
 		/* nothing to do; all transfers are started only when new connections
@@ -174,10 +269,13 @@ public class EpidemicOracleRouter extends ActiveRouter {
 	}
 
 	/**
-	 * Resets the static router list
+	 * Resets the static router list and message bookkeeping
 	 */
 	public static void reset() {
 		allRouters = new ArrayList<EpidemicOracleRouter>();
+		messageHolders = new ArrayList<BitSet>();
+		pendingForwards = new ArrayDeque<Tuple<EpidemicOracleRouter, String>>();
+		disseminating = false;
 	}
 
 }
@@ -23,6 +23,15 @@ public interface MessageChoosingStrategy {
     Collection<Tuple<Message, Connection>> chooseNonDirectMessages(
             Collection<Message> messages, List<Connection> connections);
 
+    /**
+     * Chooses the neighbors a single non-direct message should be sent to. In contrast to
+     * {@link #chooseNonDirectMessages(Collection, List)}, no additional messages (e.g. wrapping data) are created.
+     * @param message A message in buffer.
+     * @param connections All connections the host has.
+     * @return Which neighbors the message should be sent to.
+     */
+    Collection<Tuple<Message, Connection>> chooseConnectionsForMessage(Message message, List<Connection> connections);
+
     /**
      * Creates a replicate of this message choosing strategy. The replicate has the same settings as this message
      * choosing strategy but is attached to the provided router and has no attached host.
@@ -21,6 +21,16 @@ public interface MessagePrioritizationStrategy {
      */
     List<Tuple<Message, Connection>> sortMessages(Collection<Tuple<Message, Connection>> messages);
 
+    /**
+     * Merges new message - connection tuples into tuples that have been sorted by this strategy before. Only the new
+     * tuples are sorted, so this is cheaper than sorting all tuples again.
+     * @param sortedMessages Tuples in the order returned by {@link #sortMessages(Collection)}. Not changed.
+     * @param newMessages The new message - connection tuples.
+     * @return All provided tuples in sorted order, most important messages first.
+     */
+    List<Tuple<Message, Connection>> mergeMessages(
+            List<Tuple<Message, Connection>> sortedMessages, Collection<Tuple<Message, Connection>> newMessages);
+
     /**
      * Creates a replicate of this message prioritization strategy. The replicate has the same settings as this message
      * prioritization strategy but is attached to the provided router and has no attached host.
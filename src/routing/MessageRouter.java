@@ -13,6 +13,7 @@ import core.Settings;
 import core.SettingsError;
 import core.SimClock;
 import core.SimError;
+import routing.util.BufferSummary;
 import routing.util.RoutingInfo;
 import util.Tuple;
 
@@ -97,6 +98,8 @@ public abstract class MessageRouter {
 	private HashMap<String, Message> incomingMessages;
 	/** The messages this router is carrying */
 	private HashMap<String, Message> messages;
+	/** Summary of the handles of the messages this router is carrying */
+	private BufferSummary bufferSummary;
 	/** The messages this router has received as the final recipient */
 	private HashMap<String, Message> deliveredMessages;
 	/** The messages that Applications on this router have blacklisted */
@@ -174,6 +177,7 @@ public abstract class MessageRouter {
 	public void init(DTNHost host, List<MessageListener> mListeners) {
 		this.incomingMessages = new HashMap<String, Message>();
 		this.messages = new HashMap<String, Message>();
+		this.bufferSummary = new BufferSummary();
 		this.deliveredMessages = new HashMap<String, Message>();
 		this.blacklistedMessages = new HashMap<String, Object>();
 		this.mListeners = mListeners;
@@ -234,6 +238,17 @@ public abstract class MessageRouter {
 		return this.messages.containsKey(id);
 	}
 
+	/**
+	 * Returns a summary of the messages this router has buffered. The summary
+	 * is updated whenever a message is added to or removed from the buffer,
+	 * so other routers may keep the reference and check it on each contact
+	 * instead of probing {@link #hasMessage(String)} message by message.
+	 * @return The buffer summary
+	 */
+	public BufferSummary getBufferSummary() {
+		return this.bufferSummary;
+	}
+
 	/**
 	 * Returns true if a full message with same ID as the given message has been
 	 * received by this host as the <strong>final</strong> recipient
@@ -462,6 +477,7 @@ public abstract class MessageRouter {
         //Add the current size of the message to the occupancy
         occupancy += m.getSize();
 		this.messages.put(m.getId(), m);
+		this.bufferSummary.add(m.getHandle());
 
 		if (newMessage) {
 			for (MessageListener ml : this.mListeners) {
@@ -484,6 +500,7 @@ public abstract class MessageRouter {
 	protected Message removeFromMessages(String id) {
 		Message m = this.messages.remove(id);
 		occupancy-=m.getSize();
+		this.bufferSummary.remove(m.getHandle());
 		return m;
 	}
 
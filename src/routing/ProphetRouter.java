@@ -5,9 +5,8 @@
 package routing;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -16,6 +15,7 @@ import core.BroadcastMessage;
 import core.DataMessage;
 import core.MulticastMessage;
 import routing.util.DatabaseApplicationUtil;
+import routing.util.ForwardingCandidateQueues;
 import routing.util.RoutingInfo;
 
 import util.Tuple;
@@ -63,6 +63,12 @@ public class ProphetRouter extends ActiveRouter {
 	/** last delivery predictability update (sim)time */
 	private double lastAgeUpdate;
 
+	/** forwarding candidates by connection */
+	private ForwardingCandidateQueues candidateQueues;
+	/** incremented whenever the buffer, the delivery predictabilities or
+	 * the remaining recipients of a buffered multicast change */
+	private long candidateVersion;
+
 	/**
 	 * Constructor. Creates a new message router based on the settings in
 	 * the given Settings object.
@@ -80,6 +86,7 @@ public class ProphetRouter extends ActiveRouter {
 		}
 
 		initPreds();
+		this.candidateQueues = new ForwardingCandidateQueues();
 	}
 
 	/**
@@ -91,6 +98,7 @@ public class ProphetRouter extends ActiveRouter {
 		this.secondsInTimeUnit = r.secondsInTimeUnit;
 		this.beta = r.beta;
 		initPreds();
+		this.candidateQueues = new ForwardingCandidateQueues();
 	}
 
 	/**
@@ -108,6 +116,28 @@ public class ProphetRouter extends ActiveRouter {
 			DTNHost otherHost = con.getOtherNode(getHost());
 			updateDeliveryPredFor(otherHost);
 			updateTransitivePreds(otherHost);
+			this.candidateVersion++;
+		}
+	}
+
+	@Override
+	protected void addToMessages(Message m, boolean newMessage) {
+		super.addToMessages(m, newMessage);
+		this.candidateVersion++;
+	}
+
+	@Override
+	protected Message removeFromMessages(String id) {
+		this.candidateVersion++;
+		return super.removeFromMessages(id);
+	}
+
+	@Override
+	protected void transferDone(Connection con) {
+		super.transferDone(con);
+		if (con.getMessage() instanceof MulticastMessage) {
+			// the remaining recipients of our copy may have changed
+			this.candidateVersion++;
 		}
 	}
 
@@ -133,7 +163,7 @@ public class ProphetRouter extends ActiveRouter {
                 return this.getPredFor(message.getTo());
             case MULTICAST:
                 MulticastMessage multicast = (MulticastMessage)message;
-                return this.getMaxPredFor(multicast.getRemainingRecipients());
+                return this.getMaxPredFor(multicast);
             default:
                 throw new IllegalArgumentException(
                         "No delivery predictability for messages of type " + message.getType() + " defined!");
@@ -141,17 +171,19 @@ public class ProphetRouter extends ActiveRouter {
     }
 
     /**
-     * Returns the maximum prediction (P) value for all hosts matching the provided addresses. If no such P values
-     * exist, returns 0.
-     * @param addresses The addresses to check.
+     * Returns the maximum prediction (P) value for all remaining recipients of the provided multicast. If no such P
+     * values exist, returns 0.
+     * @param multicast The multicast to check.
      * @return The maximum P value.
      */
-    private double getMaxPredFor(Collection<Integer> addresses) {
+    private double getMaxPredFor(MulticastMessage multicast) {
         // Make sure preds are updated once before getting.
         this.ageDeliveryPreds();
 
         double maxPred = 0;
-        for (int address : addresses) {
+        for (int address = multicast.nextRemainingRecipient(0);
+             address >= 0;
+             address = multicast.nextRemainingRecipient(address + 1)) {
             double predForAddress = this.preds.getOrDefault(address, 0D);
             maxPred = Math.max(maxPred, predForAddress);
         }
@@ -268,10 +300,7 @@ public class ProphetRouter extends ActiveRouter {
 	 * @return The return value of {@link #tryMessagesForConnected(List)}
 	 */
 	private Tuple<Message, Connection> tryOtherMessages() {
-		List<Tuple<Message, Connection>> messages =
-			new ArrayList<Tuple<Message, Connection>>();
-
-		Collection<Message> msgCollection = getMessageCollection();
+		List<List<Tuple<Message, Connection>>> queues = new ArrayList<>();
 
 		/* for all connected hosts collect all messages that have a higher
 		   probability of delivery by the other host */
@@ -284,74 +313,102 @@ public class ProphetRouter extends ActiveRouter {
 				continue; // skip hosts that are transferring
 			}
 			availableConnections.add(con);
-
-			for (Message m : msgCollection) {
-				if (othRouter.hasMessage(m.getId()) || m instanceof BroadcastMessage) {
-					// Ignore both messages that the other one has and all broadcast messages.
-					// (Broadcasts should be sent via exchangeDeliverableMessages.)
-					// The latter check may not be caught by the former because of caching (direct messages may be
-					// sent belatedly; see explanation at ActiveRouter#cachedMessagesForConnected.).
-					continue;
-				}
-				if (othRouter.getPredFor(m) > getPredFor(m)) {
-					// the other node has higher probability of delivery
-					messages.add(new Tuple<Message, Connection>(m,con));
-				}
-			}
+			queues.add(getCandidateQueue(con, othRouter));
 		}
+		this.candidateQueues.retainConnections(getConnections());
 
 		/* For all available connections, add useful data messages. */
-		messages.addAll(DatabaseApplicationUtil.wrapUsefulDataIntoMessages(
-		        this, this.getHost(), availableConnections));
+		List<Tuple<Message, Connection>> dataMessages =
+				DatabaseApplicationUtil.wrapUsefulDataIntoMessages(
+						this, this.getHost(), availableConnections);
+		double[] dataUtilities = new double[dataMessages.size()];
+		for (int i = 0; i < dataUtilities.length; i++) {
+			dataUtilities[i] = computeUtility(dataMessages.get(i));
+		}
+		ForwardingCandidateQueues.sortByDescendingUtility(
+				dataMessages, dataUtilities, this::compareByQueueMode);
+		queues.add(dataMessages);
 
+		// merge the sorted message-connection tuples
+		List<Tuple<Message, Connection>> messages =
+				ForwardingCandidateQueues.merge(
+						queues, this::computeUtility, this::compareByQueueMode);
 		if (messages.size() == 0) {
 			return null;
 		}
-
-		// sort the message-connection tuples
-		Collections.sort(messages, new TupleComparator());
 		return tryMessagesForConnected(messages);	// try to send messages
 	}
 
 	/**
-	 * Comparator for Message-Connection-Tuples that orders the tuples by the utility computed by
-     * {@link #computeUtility(Tuple)}, higher utilities first.
+	 * Returns all messages that have a higher probability of delivery by the
+	 * other host, ordered by {@link #computeUtility(Tuple)}, higher utilities
+	 * first. The queue is only recomputed if our or the other router's
+	 * buffer or delivery predictabilities changed since the last call.
+	 * Aging multiplies all predictabilities by the same factor and therefore
+	 * does not change the queue as long as both routers use the same time
+	 * unit.
+	 * @param con The connection to the other host
+	 * @param othRouter The other host's router
+	 * @return The sorted message-connection tuples for the connection
 	 */
-	private class TupleComparator implements Comparator
-		<Tuple<Message, Connection>> {
-
-		public int compare(Tuple<Message, Connection> tuple1,
-				Tuple<Message, Connection> tuple2) {
-            double utility1 = this.computeUtility(tuple1);
-            double utility2 = this.computeUtility(tuple2);
-
-            // bigger utility should come first
-            int utilityComparison = (-1) * Double.compare(utility1, utility2);
-            if (utilityComparison == 0) {
-                /* equal utilities -> let queue mode decide */
-				return compareByQueueMode(tuple1.getKey(), tuple2.getKey());
+	private List<Tuple<Message, Connection>> getCandidateQueue(
+			Connection con, ProphetRouter othRouter) {
+		boolean agesUniformly =
+				othRouter.secondsInTimeUnit == this.secondsInTimeUnit;
+		if (agesUniformly) {
+			List<Tuple<Message, Connection>> queue =
+					this.candidateQueues.getQueue(con, this.candidateVersion,
+							othRouter.candidateVersion);
+			if (queue != null) {
+				return queue;
 			}
-            return utilityComparison;
 		}
 
-        /**
-         * Computes a utility value for a Message-Connection tuple. This is
-         * - either the delivery probability by the host on the other side of the connection (GRTRMax) if the message is
-         *   not a data message, or
-         * - the data message's utility.
-         * @param tuple Tuple to compute utility for.
-         * @return The tuple's utility.
-         */
-        private double computeUtility(Tuple<Message, Connection> tuple) {
-            Message message = tuple.getKey();
-            if (message instanceof DataMessage) {
-                return ((DataMessage) message).getUtility();
-            }
-
-            DTNHost neighbor = tuple.getValue().getOtherNode(getHost());
-            return ((ProphetRouter)neighbor.getRouter()).getPredFor(message);
-        }
-    }
+		Collection<Message> msgCollection = getMessageCollection();
+		List<Tuple<Message, Connection>> queue = new ArrayList<>();
+		double[] utilities = new double[msgCollection.size()];
+		for (Message m : msgCollection) {
+			if (othRouter.hasMessage(m.getId()) || m instanceof BroadcastMessage) {
+				// Ignore both messages that the other one has and all broadcast messages.
+				// (Broadcasts should be sent via exchangeDeliverableMessages.)
+				// The latter check may not be caught by the former because of caching (direct messages may be
+				// sent belatedly; see explanation at ActiveRouter#cachedMessagesForConnected.).
+				continue;
+			}
+			double othPred = othRouter.getPredFor(m);
+			if (othPred > getPredFor(m)) {
+				// the other node has higher probability of delivery
+				utilities[queue.size()] = othPred;
+				queue.add(new Tuple<Message, Connection>(m,con));
+			}
+		}
+
+		ForwardingCandidateQueues.sortByDescendingUtility(queue,
+				Arrays.copyOf(utilities, queue.size()), this::compareByQueueMode);
+		if (agesUniformly) {
+			this.candidateQueues.putQueue(con, queue, this.candidateVersion,
+					othRouter.candidateVersion);
+		}
+		return queue;
+	}
+
+	/**
+	 * Computes a utility value for a Message-Connection tuple. This is
+	 * - either the delivery probability by the host on the other side of the connection (GRTRMax) if the message is
+	 *   not a data message, or
+	 * - the data message's utility.
+	 * @param tuple Tuple to compute utility for.
+	 * @return The tuple's utility.
+	 */
+	private double computeUtility(Tuple<Message, Connection> tuple) {
+		Message message = tuple.getKey();
+		if (message instanceof DataMessage) {
+			return ((DataMessage) message).getUtility();
+		}
+
+		DTNHost neighbor = tuple.getValue().getOtherNode(getHost());
+		return ((ProphetRouter)neighbor.getRouter()).getPredFor(message);
+	}
 
 	@Override
 	public RoutingInfo getRoutingInfo() {
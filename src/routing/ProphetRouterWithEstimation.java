@@ -5,13 +5,13 @@
 package routing;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import routing.util.ForwardingCandidateQueues;
 import routing.util.RoutingInfo;
 
 import util.Tuple;
@@ -422,10 +422,7 @@ public class ProphetRouterWithEstimation extends ActiveRouter {
 	 * @return The return value of {@link #tryMessagesForConnected(List)}
 	 */
 	private Tuple<Message, Connection> tryOtherMessages() {
-		List<Tuple<Message, Connection>> messages =
-			new ArrayList<Tuple<Message, Connection>>();
-
-		Collection<Message> msgCollection = getMessageCollection();
+		List<List<Tuple<Message, Connection>>> queues = new ArrayList<>();
 
 		/* for all connected hosts collect all messages that have a higher
 		   probability of delivery by the other host */
@@ -436,58 +433,61 @@ public class ProphetRouterWithEstimation extends ActiveRouter {
 			if (othRouter.isTransferring()) {
 				continue; // skip hosts that are transferring
 			}
-
-			for (Message m : msgCollection) {
-				if (othRouter.hasMessage(m.getId())) {
-					continue; // skip messages that the other one has
-				}
-				if (othRouter.getPredFor(m.getTo()) > getPredFor(m.getTo())) {
-					// the other node has higher probability of delivery
-					messages.add(new Tuple<Message, Connection>(m,con));
-				}
-			}
+			queues.add(getCandidateQueue(con, othRouter));
 		}
 
+		// merge the sorted message-connection tuples
+		List<Tuple<Message, Connection>> messages =
+				ForwardingCandidateQueues.merge(
+						queues, this::computeUtility, this::compareByQueueMode);
 		if (messages.size() == 0) {
 			return null;
 		}
-
-		// sort the message-connection tuples
-		Collections.sort(messages, new TupleComparator());
 		return tryMessagesForConnected(messages);	// try to send messages
 	}
 
 	/**
-	 * Comparator for Message-Connection-Tuples that orders the tuples by
-	 * their delivery probability by the host on the other side of the
-	 * connection (GRTRMax)
+	 * Returns all messages that have a higher probability of delivery by the
+	 * other host, ordered by their delivery probability by the other host
+	 * (GRTRMax). Unlike the other PRoPHET routers, the queue is not kept
+	 * between updates: Each router ages its predictabilities with its own
+	 * estimated gamma, so aging alone may change which messages qualify.
+	 * @param con The connection to the other host
+	 * @param othRouter The other host's router
+	 * @return The sorted message-connection tuples for the connection
 	 */
-	private class TupleComparator implements Comparator
-	<Tuple<Message, Connection>> {
-
-		public int compare(Tuple<Message, Connection> tuple1,
-				Tuple<Message, Connection> tuple2) {
-			// delivery probability of tuple1's message with tuple1's connection
-			double p1 = ((ProphetRouterWithEstimation)tuple1.getValue().
-					getOtherNode(getHost()).getRouter()).getPredFor(
-							tuple1.getKey().getTo());
-			// -"- tuple2...
-			double p2 = ((ProphetRouterWithEstimation)tuple2.getValue().
-					getOtherNode(getHost()).getRouter()).getPredFor(
-							tuple2.getKey().getTo());
-
-			// bigger probability should come first
-			if (p2-p1 == 0) {
-				/* equal probabilities -> let queue mode decide */
-				return compareByQueueMode(tuple1.getKey(), tuple2.getKey());
-			}
-			else if (p2-p1 < 0) {
-				return -1;
+	private List<Tuple<Message, Connection>> getCandidateQueue(
+			Connection con, ProphetRouterWithEstimation othRouter) {
+		Collection<Message> msgCollection = getMessageCollection();
+		List<Tuple<Message, Connection>> queue = new ArrayList<>();
+		double[] utilities = new double[msgCollection.size()];
+		for (Message m : msgCollection) {
+			if (othRouter.hasMessage(m.getId())) {
+				continue; // skip messages that the other one has
 			}
-			else {
-				return 1;
+			double othPred = othRouter.getPredFor(m.getTo());
+			if (othPred > getPredFor(m.getTo())) {
+				// the other node has higher probability of delivery
+				utilities[queue.size()] = othPred;
+				queue.add(new Tuple<Message, Connection>(m,con));
 			}
 		}
+
+		ForwardingCandidateQueues.sortByDescendingUtility(queue,
+				Arrays.copyOf(utilities, queue.size()), this::compareByQueueMode);
+		return queue;
+	}
+
+	/**
+	 * Returns the delivery probability of the tuple's message by the host on
+	 * the other side of the tuple's connection (GRTRMax).
+	 * @param tuple Tuple to compute the delivery probability for
+	 * @return The tuple's delivery probability
+	 */
+	private double computeUtility(Tuple<Message, Connection> tuple) {
+		DTNHost neighbor = tuple.getValue().getOtherNode(getHost());
+		return ((ProphetRouterWithEstimation)neighbor.getRouter()).getPredFor(
+				tuple.getKey().getTo());
 	}
 
 	@Override
@@ -7,15 +7,15 @@
 package routing;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import java.util.Random;
 
+import routing.util.ForwardingCandidateQueues;
 import routing.util.RoutingInfo;
 
 
@@ -69,6 +69,12 @@ public class ProphetV2Router extends ActiveRouter {
 	/** last delivery predictability update (sim)time */
 	private double lastAgeUpdate;
 
+	/** forwarding candidates by connection */
+	private ForwardingCandidateQueues candidateQueues;
+	/** incremented whenever the buffer or the delivery predictabilities
+	 * change */
+	private long candidateVersion;
+
 	/**
 	 * Constructor. Creates a new message router based on the settings in
 	 * the given Settings object.
@@ -87,7 +93,7 @@ public class ProphetV2Router extends ActiveRouter {
 
 		initPreds();
 		initEncTimes();
-
+		this.candidateQueues = new ForwardingCandidateQueues();
 	}
 
 	/**
@@ -100,6 +106,7 @@ public class ProphetV2Router extends ActiveRouter {
 		this.beta = r.beta;
 		initPreds();
 		initEncTimes();
+		this.candidateQueues = new ForwardingCandidateQueues();
 	}
 
 	/**
@@ -122,9 +129,22 @@ public class ProphetV2Router extends ActiveRouter {
 			DTNHost otherHost = con.getOtherNode(getHost());
 			updateDeliveryPredFor(otherHost);
 			updateTransitivePreds(otherHost);
+			this.candidateVersion++;
 		}
 	}
 
+	@Override
+	protected void addToMessages(Message m, boolean newMessage) {
+		super.addToMessages(m, newMessage);
+		this.candidateVersion++;
+	}
+
+	@Override
+	protected Message removeFromMessages(String id) {
+		this.candidateVersion++;
+		return super.removeFromMessages(id);
+	}
+
 	/**
 	 * Updates delivery predictions for a host.
 	 * <CODE>P(a,b) = P(a,b)_old + (1 - P(a,b)_old) * PEnc
@@ -265,10 +285,7 @@ public class ProphetV2Router extends ActiveRouter {
 	 * @return The return value of {@link #tryMessagesForConnected(List)}
 	 */
 	private Tuple<Message, Connection> tryOtherMessages() {
-		List<Tuple<Message, Connection>> messages =
-			new ArrayList<Tuple<Message, Connection>>();
-
-		Collection<Message> msgCollection = getMessageCollection();
+		List<List<Tuple<Message, Connection>>> queues = new ArrayList<>();
 
 		/* for all connected hosts collect all messages that have a higher
 		   probability of delivery by the other host */
@@ -279,59 +296,78 @@ public class ProphetV2Router extends ActiveRouter {
 			if (othRouter.isTransferring()) {
 				continue; // skip hosts that are transferring
 			}
-
-			for (Message m : msgCollection) {
-				if (othRouter.hasMessage(m.getId())) {
-					continue; // skip messages that the other one has
-				}
-				if((othRouter.getPredFor(m.getTo()) >= getPredFor(m.getTo())))
-				{
-
-					messages.add(new Tuple<Message, Connection>(m,con));
-				}
-			}
+			queues.add(getCandidateQueue(con, othRouter));
 		}
+		this.candidateQueues.retainConnections(getConnections());
 
+		// merge the sorted message-connection tuples
+		List<Tuple<Message, Connection>> messages =
+				ForwardingCandidateQueues.merge(
+						queues, this::computeUtility, this::compareByQueueMode);
 		if (messages.size() == 0) {
 			return null;
 		}
-
-		// sort the message-connection tuples
-		Collections.sort(messages, new TupleComparator());
 		return tryMessagesForConnected(messages);	// try to send messages
 	}
 
 	/**
-	 * Comparator for Message-Connection-Tuples that orders the tuples by
-	 * their delivery probability by the host on the other side of the
-	 * connection (GRTRMax)
+	 * Returns all messages that have at least the same probability of
+	 * delivery by the other host, ordered by their delivery probability by
+	 * the other host (GRTRMax). The queue is only recomputed if our or the
+	 * other router's buffer or delivery predictabilities changed since the
+	 * last call. Aging multiplies all predictabilities by the same factor and
+	 * therefore does not change the queue as long as both routers use the
+	 * same time unit.
+	 * @param con The connection to the other host
+	 * @param othRouter The other host's router
+	 * @return The sorted message-connection tuples for the connection
 	 */
-	private class TupleComparator implements Comparator
-		<Tuple<Message, Connection>> {
-
-		public int compare(Tuple<Message, Connection> tuple1,
-				Tuple<Message, Connection> tuple2) {
-			// delivery probability of tuple1's message with tuple1's connection
-			double p1 = ((ProphetV2Router)tuple1.getValue().
-					getOtherNode(getHost()).getRouter()).getPredFor(
-					tuple1.getKey().getTo());
-			// -"- tuple2...
-			double p2 = ((ProphetV2Router)tuple2.getValue().
-					getOtherNode(getHost()).getRouter()).getPredFor(
-					tuple2.getKey().getTo());
-
-			// bigger probability should come first
-			if (p2-p1 == 0) {
-				/* equal probabilities -> let queue mode decide */
-				return compareByQueueMode(tuple1.getKey(), tuple2.getKey());
+	private List<Tuple<Message, Connection>> getCandidateQueue(
+			Connection con, ProphetV2Router othRouter) {
+		boolean agesUniformly =
+				othRouter.secondsInTimeUnit == this.secondsInTimeUnit;
+		if (agesUniformly) {
+			List<Tuple<Message, Connection>> queue =
+					this.candidateQueues.getQueue(con, this.candidateVersion,
+							othRouter.candidateVersion);
+			if (queue != null) {
+				return queue;
 			}
-			else if (p2-p1 < 0) {
-				return -1;
+		}
+
+		Collection<Message> msgCollection = getMessageCollection();
+		List<Tuple<Message, Connection>> queue = new ArrayList<>();
+		double[] utilities = new double[msgCollection.size()];
+		for (Message m : msgCollection) {
+			if (othRouter.hasMessage(m.getId())) {
+				continue; // skip messages that the other one has
 			}
-			else {
-				return 1;
+			double othPred = othRouter.getPredFor(m.getTo());
+			if (othPred >= getPredFor(m.getTo())) {
+				utilities[queue.size()] = othPred;
+				queue.add(new Tuple<Message, Connection>(m,con));
 			}
 		}
+
+		ForwardingCandidateQueues.sortByDescendingUtility(queue,
+				Arrays.copyOf(utilities, queue.size()), this::compareByQueueMode);
+		if (agesUniformly) {
+			this.candidateQueues.putQueue(con, queue, this.candidateVersion,
+					othRouter.candidateVersion);
+		}
+		return queue;
+	}
+
+	/**
+	 * Returns the delivery probability of the tuple's message by the host on
+	 * the other side of the tuple's connection (GRTRMax).
+	 * @param tuple Tuple to compute the delivery probability for
+	 * @return The tuple's delivery probability
+	 */
+	private double computeUtility(Tuple<Message, Connection> tuple) {
+		DTNHost neighbor = tuple.getValue().getOtherNode(getHost());
+		return ((ProphetV2Router)neighbor.getRouter()).getPredFor(
+				tuple.getKey().getTo());
 	}
 
 	@Override
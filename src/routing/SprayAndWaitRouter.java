@@ -10,6 +10,7 @@ import java.util.List;
 import core.Connection;
 import core.DTNHost;
 import core.Message;
+import core.MessageAttribute;
 import core.Settings;
 
 /**
@@ -28,6 +29,9 @@ public class SprayAndWaitRouter extends ActiveRouter {
 	/** Message property key */
 	public static final String MSG_COUNT_PROPERTY = SPRAYANDWAIT_NS + "." +
 		"copies";
+	/** Message attribute holding the number of copies left */
+	private static final MessageAttribute<Integer> MSG_COUNT_ATTRIBUTE =
+		MessageAttribute.register(MSG_COUNT_PROPERTY, Integer.class);
 
 	protected int initialNrofCopies;
 	protected boolean isBinary;
@@ -58,7 +62,7 @@ public class SprayAndWaitRouter extends ActiveRouter {
 	@Override
 	public Message messageTransferred(String id, DTNHost from) {
 		Message msg = super.messageTransferred(id, from);
-		Integer nrofCopies = (Integer)msg.getProperty(MSG_COUNT_PROPERTY);
+		Integer nrofCopies = msg.getAttribute(MSG_COUNT_ATTRIBUTE);
 
 		assert nrofCopies != null : "Not a SnW message: " + msg;
 
@@ -71,7 +75,7 @@ public class SprayAndWaitRouter extends ActiveRouter {
 			nrofCopies = 1;
 		}
 
-		msg.updateProperty(MSG_COUNT_PROPERTY, nrofCopies);
+		msg.setAttribute(MSG_COUNT_ATTRIBUTE, nrofCopies);
 		return msg;
 	}
 
@@ -80,7 +84,7 @@ public class SprayAndWaitRouter extends ActiveRouter {
 		makeRoomForNewMessage(msg.getSize());
 
 		msg.setTtl(this.msgTtl);
-		msg.addProperty(MSG_COUNT_PROPERTY, new Integer(initialNrofCopies));
+		msg.setAttribute(MSG_COUNT_ATTRIBUTE, initialNrofCopies);
 		addToMessages(msg, true);
 		return true;
 	}
@@ -115,7 +119,7 @@ public class SprayAndWaitRouter extends ActiveRouter {
 		List<Message> list = new ArrayList<Message>();
 
 		for (Message m : getMessageCollection()) {
-			Integer nrofCopies = (Integer)m.getProperty(MSG_COUNT_PROPERTY);
+			Integer nrofCopies = m.getAttribute(MSG_COUNT_ATTRIBUTE);
 			assert nrofCopies != null : "SnW message " + m + " didn't have " +
 				"nrof copies property!";
 			if (nrofCopies > 1) {
@@ -145,7 +149,7 @@ public class SprayAndWaitRouter extends ActiveRouter {
 		}
 
 		/* reduce the amount of copies left */
-		nrofCopies = (Integer)msg.getProperty(MSG_COUNT_PROPERTY);
+		nrofCopies = msg.getAttribute(MSG_COUNT_ATTRIBUTE);
 		if (isBinary) {
 			/* in binary S'n'W the sending node keeps ceil(n/2) copies */
 			nrofCopies = (int)Math.ceil(nrofCopies/2.0);
@@ -153,7 +157,7 @@ public class SprayAndWaitRouter extends ActiveRouter {
 		else {
 			nrofCopies--;
 		}
-		msg.updateProperty(MSG_COUNT_PROPERTY, nrofCopies);
+		msg.setAttribute(MSG_COUNT_ATTRIBUTE, nrofCopies);
 	}
 
 	@Override
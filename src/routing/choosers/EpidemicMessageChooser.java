@@ -63,6 +63,27 @@ public class EpidemicMessageChooser implements MessageChoosingStrategy {
         return chosenMessages;
     }
 
+    /**
+     * Chooses the neighbors a single non-direct message should be sent to. In contrast to
+     * {@link #chooseNonDirectMessages(Collection, List)}, no data messages are created.
+     *
+     * @param message     A message in buffer.
+     * @param connections All connections the host has.
+     * @return Which neighbors the message should be sent to.
+     */
+    @Override
+    public Collection<Tuple<Message, Connection>> chooseConnectionsForMessage(
+            Message message, List<Connection> connections) {
+        Collection<Tuple<Message, Connection>> chosenMessages = new ArrayList<>();
+        for (Connection con : connections) {
+            // Only choose non-direct messages.
+            if (!message.isFinalRecipient(con.getOtherNode(this.attachedHost))) {
+                chosenMessages.add(new Tuple<>(message, con));
+            }
+        }
+        return chosenMessages;
+    }
+
     /**
      * Creates a replicate of this message choosing strategy. The replicate has the same settings as this message
      * choosing strategy but is attached to the provided router and has no attached host.
@@ -8,6 +8,7 @@ import core.SettingsError;
 import routing.DisasterRouter;
 import routing.MessageChoosingStrategy;
 import routing.MessageRouter;
+import routing.util.BufferSummary;
 import routing.util.DatabaseApplicationUtil;
 import util.Tuple;
 
@@ -87,16 +88,15 @@ public class RescueModeMessageChooser implements MessageChoosingStrategy{
         // Add ordinary messages: Send everything to all available connections.
         for (Connection con : connections) {
             DTNHost neighbor = con.getOtherNode(this.attachedHost);
-            DisasterRouter.checkRouterIsDisasterRouter(neighbor.getRouter());
-            DisasterRouter neighborRouter = (DisasterRouter)neighbor.getRouter();
-
-            if (neighborRouter.isTransferring() || neighborRouter.remainingEnergyRatio() < this.powerThreshold) {
+            DisasterRouter neighborRouter = this.getAvailableNeighborRouter(neighbor);
+            if (neighborRouter == null) {
                 continue;
             }
 
             availableConnections.add(con);
+            BufferSummary neighborBuffer = neighborRouter.getBufferSummary();
             for (Message m : messages) {
-                if (!m.isFinalRecipient(neighbor) && !neighborRouter.hasMessage(m.getId())) {
+                if (!m.isFinalRecipient(neighbor) && !neighborBuffer.contains(m.getHandle())) {
                     chosenMessages.add(new Tuple<>(m, con));
                 }
             }
@@ -110,6 +110,46 @@ public class RescueModeMessageChooser implements MessageChoosingStrategy{
         return chosenMessages;
     }
 
+    /**
+     * Chooses the neighbors a single non-direct message should be sent to. In contrast to
+     * {@link #chooseNonDirectMessages(Collection, List)}, no data messages are created.
+     *
+     * @param message     A message in buffer.
+     * @param connections All connections the host has.
+     * @return Which neighbors the message should be sent to.
+     */
+    @Override
+    public Collection<Tuple<Message, Connection>> chooseConnectionsForMessage(
+            Message message, List<Connection> connections) {
+        Collection<Tuple<Message, Connection>> chosenMessages = new ArrayList<>();
+        for (Connection con : connections) {
+            DTNHost neighbor = con.getOtherNode(this.attachedHost);
+            DisasterRouter neighborRouter = this.getAvailableNeighborRouter(neighbor);
+            if (neighborRouter != null
+                    && !message.isFinalRecipient(neighbor)
+                    && !neighborRouter.getBufferSummary().contains(message.getHandle())) {
+                chosenMessages.add(new Tuple<>(message, con));
+            }
+        }
+        return chosenMessages;
+    }
+
+    /**
+     * Returns the router of the provided neighbor if that neighbor may currently get messages, i.e. if it is not
+     * transferring and has sufficient power.
+     * @param neighbor The neighbor.
+     * @return The neighbor's router, or {@code null} if no messages should be sent to it.
+     */
+    private DisasterRouter getAvailableNeighborRouter(DTNHost neighbor) {
+        DisasterRouter.checkRouterIsDisasterRouter(neighbor.getRouter());
+        DisasterRouter neighborRouter = (DisasterRouter)neighbor.getRouter();
+
+        if (neighborRouter.isTransferring() || neighborRouter.remainingEnergyRatio() < this.powerThreshold) {
+            return null;
+        }
+        return neighborRouter;
+    }
+
     /**
      * Creates a replicate of this message choosing strategy. The replicate has the same settings as this message
      * choosing strategy but is attached to the provided router and has no attached host.
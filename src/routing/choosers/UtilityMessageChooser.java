@@ -8,6 +8,7 @@ import core.SettingsError;
 import routing.DisasterRouter;
 import routing.MessageChoosingStrategy;
 import routing.MessageRouter;
+import routing.util.BufferSummary;
 import routing.util.DatabaseApplicationUtil;
 import util.Tuple;
 
@@ -209,22 +210,20 @@ public class UtilityMessageChooser implements MessageChoosingStrategy {
         Collection<Tuple<Message, Connection>> chosenMessages = new ArrayList<>();
         List<Connection> relevantConnections = new ArrayList<>();
 
+        // Compute the message dependent utility terms only once for all neighbors.
+        Message[] messageArray = messages.toArray(new Message[messages.size()]);
+        double[] replicationsDensityTerms = this.computeReplicationsDensityTerms(messageArray);
+
         // Add ordinary messages.
         for (Connection con : connections) {
             DTNHost neighbor = con.getOtherNode(this.attachedHost);
-            DisasterRouter.checkRouterIsDisasterRouter(neighbor.getRouter());
-            DisasterRouter neighborRouter = (DisasterRouter)neighbor.getRouter();
-
-            if (neighborRouter.isTransferring() || neighborRouter.remainingEnergyRatio() < this.powerThreshold) {
+            DisasterRouter neighborRouter = this.getRelevantNeighborRouter(neighbor);
+            if (neighborRouter == null) {
                 continue;
             }
 
             relevantConnections.add(con);
-            for (Message m : messages) {
-                if (!m.isFinalRecipient(neighbor) && this.shouldBeSent(m, neighborRouter)) {
-                    chosenMessages.add(new Tuple<>(m, con));
-                }
-            }
+            this.chooseMessagesForNeighbor(messageArray, replicationsDensityTerms, con, neighborRouter, chosenMessages);
         }
 
         // Wrap useful data stored at host in data messages to neighbors and add them to the messages to sent.
@@ -235,28 +234,104 @@ public class UtilityMessageChooser implements MessageChoosingStrategy {
     }
 
     /**
-     * Computes the utility of a message - neighbor pair.
-     * @param m The message.
-     * @param otherRouter The neighbor's router object.
-     * @return The computed utility.
+     * Chooses the neighbors a single non-direct message should be sent to. In contrast to
+     * {@link #chooseNonDirectMessages(Collection, List)}, no data messages are created.
+     *
+     * @param message     A message in buffer.
+     * @param connections All connections the host has.
+     * @return Which neighbors the message should be sent to.
      */
-    private double computeUtility(Message m, DisasterRouter otherRouter) {
-        return this.deliveryPredictabilityWeight * otherRouter.getDeliveryPredictability(m)
-                + this.powerWeight * otherRouter.remainingEnergyRatio()
-                + this.replicationsDensityWeight * (1 - this.attachedRouter.getReplicationsDensity(m))
-                + this.encounterValueWeight * this.attachedRouter.computeEncounterValueRatio(otherRouter);
+    @Override
+    public Collection<Tuple<Message, Connection>> chooseConnectionsForMessage(
+            Message message, List<Connection> connections) {
+        Collection<Tuple<Message, Connection>> chosenMessages = new ArrayList<>();
+        Message[] messageArray = { message };
+        double[] replicationsDensityTerms = this.computeReplicationsDensityTerms(messageArray);
+        for (Connection con : connections) {
+            DisasterRouter neighborRouter = this.getRelevantNeighborRouter(con.getOtherNode(this.attachedHost));
+            if (neighborRouter != null) {
+                this.chooseMessagesForNeighbor(
+                        messageArray, replicationsDensityTerms, con, neighborRouter, chosenMessages);
+            }
+        }
+        return chosenMessages;
     }
 
     /**
-     * Determines whether the provided message should be sent to the provided router right now.
-     * This is only the case if the router does not know the message yet, and the message - host
-     * pair's utility is sufficiently high.
-     * @param m Message to check.
-     * @param otherRouter Router to check.
-     * @return True iff the message should be sent.
+     * Returns the router of the provided neighbor if that neighbor may currently get messages, i.e. if it is not
+     * transferring and has sufficient power.
+     * @param neighbor The neighbor.
+     * @return The neighbor's router, or {@code null} if no messages should be sent to it.
      */
-    private boolean shouldBeSent(Message m, DisasterRouter otherRouter) {
-        return !otherRouter.hasMessage(m.getId()) && this.computeUtility(m, otherRouter) > this.utilityThreshold;
+    private DisasterRouter getRelevantNeighborRouter(DTNHost neighbor) {
+        DisasterRouter.checkRouterIsDisasterRouter(neighbor.getRouter());
+        DisasterRouter neighborRouter = (DisasterRouter)neighbor.getRouter();
+
+        if (neighborRouter.isTransferring() || neighborRouter.remainingEnergyRatio() < this.powerThreshold) {
+            return null;
+        }
+        return neighborRouter;
+    }
+
+    /**
+     * Computes the weighted replications density term of the utility function for each of the provided messages.
+     * These terms only depend on the message and can therefore be reused for all neighbors.
+     * @param messages The messages.
+     * @return The replications density terms, in the order of the provided messages.
+     */
+    private double[] computeReplicationsDensityTerms(Message[] messages) {
+        double[] replicationsDensityTerms = new double[messages.length];
+        for (int i = 0; i < messages.length; i++) {
+            replicationsDensityTerms[i] =
+                    this.replicationsDensityWeight * (1 - this.attachedRouter.getReplicationsDensity(messages[i]));
+        }
+        return replicationsDensityTerms;
+    }
+
+    /**
+     * Adds all (message, connection) pairs to the provided collection for which the message should be sent to the
+     * neighbor at the other end of the connection right now.
+     *
+     * This is only the case if the neighbor is no final recipient, does not know the message yet, and the message -
+     * neighbor pair's utility is sufficiently high. The neighbor dependent terms of the utility function are only
+     * computed once. As the delivery predictability is in [0, 1], the remaining terms yield lower and upper bounds
+     * for the utility. The delivery predictability is only looked up if the threshold lies between them, and the
+     * neighbor's buffer is only checked if the upper bound is above the threshold.
+     *
+     * @param messages Messages to check.
+     * @param replicationsDensityTerms The messages' replications density terms as computed by
+     *                                 {@link #computeReplicationsDensityTerms(Message[])}.
+     * @param con Connection to the neighbor.
+     * @param neighborRouter The neighbor's router object.
+     * @param chosenMessages Collection to add the chosen pairs to.
+     */
+    private void chooseMessagesForNeighbor(
+            Message[] messages, double[] replicationsDensityTerms, Connection con, DisasterRouter neighborRouter,
+            Collection<Tuple<Message, Connection>> chosenMessages) {
+        DTNHost neighbor = con.getOtherNode(this.attachedHost);
+        double powerTerm = this.powerWeight * neighborRouter.remainingEnergyRatio();
+        double encounterValueTerm =
+                this.encounterValueWeight * this.attachedRouter.computeEncounterValueRatio(neighborRouter);
+        BufferSummary neighborBuffer = neighborRouter.getBufferSummary();
+
+        for (int i = 0; i < messages.length; i++) {
+            Message m = messages[i];
+            // Sum up in the same order as for the full utility to get exact bounds.
+            double maximumUtility =
+                    this.deliveryPredictabilityWeight + powerTerm + replicationsDensityTerms[i] + encounterValueTerm;
+            if (maximumUtility <= this.utilityThreshold
+                    || m.isFinalRecipient(neighbor)
+                    || neighborBuffer.contains(m.getHandle())) {
+                continue;
+            }
+
+            double minimumUtility = powerTerm + replicationsDensityTerms[i] + encounterValueTerm;
+            if (minimumUtility > this.utilityThreshold
+                    || this.deliveryPredictabilityWeight * neighborRouter.getDeliveryPredictability(m) + powerTerm
+                    + replicationsDensityTerms[i] + encounterValueTerm > this.utilityThreshold) {
+                chosenMessages.add(new Tuple<>(m, con));
+            }
+        }
     }
 
     /**
@@ -4,6 +4,7 @@
  */
 package routing.maxprop;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -15,11 +16,33 @@ import static core.Constants.DEBUG;
 /**
  * Class for storing and manipulating the meeting probabilities for the MaxProp
  * router module.
+ *
+ * Probabilities are stored as a sparse vector: node indexes are kept sorted in
+ * an int array, and a parallel double array holds weights that yield the
+ * probabilities when multiplied by a common scale factor. Normalizing all
+ * probabilities thus only changes the scale factor. Replicas share the arrays
+ * with their original until either of them is changed (copy-on-write).
  */
 public class MeetingProbabilitySet {
 	public static final int INFINITE_SET_SIZE = Integer.MAX_VALUE;
-	/** meeting probabilities (probability that the next node one meets is X) */
-	private Map<Integer, Double> probs;
+	/** Initial capacity of the arrays of probability sets */
+	private static final int INIT_CAPACITY = 8;
+	/** If the scale factor drops below this value, it is multiplied into the
+	 * weights to prevent underflows */
+	private static final double MIN_SCALE = 1e-100;
+
+	/** Sorted indexes of nodes that have a meeting probability */
+	private int[] nodes;
+	/** weights of the meeting probabilities (probability that the next node
+	 * one meets is X) for the nodes at the same positions in {@link #nodes} */
+	private double[] weights;
+	/** number of stored probabilities */
+	private int size;
+	/** factor to multiply weights by to get probabilities */
+	private double scale;
+	/** whether {@link #nodes} and {@link #weights} may be shared with
+	 * replicas and therefore need to be copied before they are changed */
+	private boolean arraysShared;
 	/** the time when this MPS was last updated */
 	private double lastUpdateTime;
 	/** the alpha parameter */
@@ -34,14 +57,17 @@ public class MeetingProbabilitySet {
 	 */
 	public MeetingProbabilitySet(int maxSetSize, double alpha) {
 		this.alpha = alpha;
-		this.probs = new HashMap<Integer, Double>();
         if (maxSetSize == INFINITE_SET_SIZE || maxSetSize < 1) {
-	this.probs = new HashMap<Integer, Double>();
 	this.maxSetSize = INFINITE_SET_SIZE;
         } else {
-	this.probs = new HashMap<Integer, Double>(maxSetSize);
             this.maxSetSize = maxSetSize;
         }
+		int capacity = Math.min(INIT_CAPACITY, this.maxSetSize);
+		this.nodes = new int[capacity];
+		this.weights = new double[capacity];
+		this.size = 0;
+		this.scale = 1;
+		this.arraysShared = false;
 		this.lastUpdateTime = 0;
 	}
 
@@ -62,7 +88,7 @@ public class MeetingProbabilitySet {
 		this(INFINITE_SET_SIZE, alpha);
 		double prob = 1.0/initiallyKnownNodes.size();
 		for (Integer i : initiallyKnownNodes) {
-			this.probs.put(i, prob);
+			this.setProbFor(i, prob);
 		}
 	}
 
@@ -75,38 +101,34 @@ public class MeetingProbabilitySet {
 	 * @param index The node index to update the probability for
 	 */
 	public void updateMeetingProbFor(Integer index) {
-        Map.Entry<Integer, Double> smallestEntry = null;
-        double smallestValue = Double.MAX_VALUE;
-
 		this.lastUpdateTime = SimClock.getTime();
 
-		if (probs.size() == 0) { // first entry
-			probs.put(index, 1.0);
+		if (this.size == 0) { // first entry
+			setProbFor(index, 1.0);
 			return;
 		}
 
 		double newValue = getProbFor(index) + alpha;
-		probs.put(index, newValue);
+		setProbFor(index, newValue);
 
 		/* now the sum of all entries is 1+alpha;
 		 * normalize to one by dividing all the entries by 1+alpha */
-		for (Map.Entry<Integer, Double> entry : probs.entrySet()) {
-			entry.setValue(entry.getValue() / (1+alpha));
-            if (entry.getValue() < smallestValue) {
-                smallestEntry = entry;
-                smallestValue = entry.getValue();
-            }
-
+		this.scale /= (1 + alpha);
+		if (this.scale < MIN_SCALE) {
+			for (int i = 0; i < this.size; i++) {
+				this.weights[i] *= this.scale;
+			}
+			this.scale = 1;
 		}
 
-        if (probs.size() >= maxSetSize) {
-            if (DEBUG) core.Debug.p("Probsize: " + probs.size() + " dropping " +
-					probs.remove(smallestEntry.getKey()));
+        if (DEBUG && this.size >= maxSetSize) {
+            core.Debug.p("Probsize: " + this.size + " dropping " +
+					this.removeSmallestProb());
         }
 	}
 
 	public void updateMeetingProbFor(Integer index, double iet)	{
-		probs.put(index, iet);
+		setProbFor(index, iet);
 	}
 
 	/**
@@ -115,8 +137,9 @@ public class MeetingProbabilitySet {
 	 * @return the current delivery probability value
 	 */
 	public double getProbFor(Integer index) {
-		if (probs.containsKey(index)) {
-			return probs.get(index);
+		int position = Arrays.binarySearch(this.nodes, 0, this.size, index);
+		if (position >= 0) {
+			return this.weights[position] * this.scale;
 		}
 		else {
 			/* the node with the given index has not been met */
@@ -125,11 +148,42 @@ public class MeetingProbabilitySet {
 	}
 
 	/**
-	 * Returns a reference to the probability map of this probability set
-	 * @return a reference to the probability map of this probability set
+	 * Returns the number of nodes that have a meeting probability
+	 * @return the number of nodes that have a meeting probability
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the node index at the given position. Node indexes are sorted
+	 * by position.
+	 * @param position The position, in [0, {@link #size()})
+	 * @return the node index at the given position
+	 */
+	public int getNodeAt(int position) {
+		return this.nodes[position];
+	}
+
+	/**
+	 * Returns the meeting probability of the node at the given position.
+	 * @param position The position, in [0, {@link #size()})
+	 * @return the meeting probability of the node at the given position
+	 */
+	public double getProbAt(int position) {
+		return this.weights[position] * this.scale;
+	}
+
+	/**
+	 * Returns a copy of the probabilities of this probability set as map
+	 * @return a mapping from node indexes to meeting probabilities
 	 */
 	public Map<Integer, Double> getAllProbs() {
-		return this.probs;
+		Map<Integer, Double> probs = new HashMap<Integer, Double>(this.size);
+		for (int i = 0; i < this.size; i++) {
+			probs.put(this.nodes[i], this.getProbAt(i));
+		}
+		return probs;
 	}
 
 	/**
@@ -148,28 +202,96 @@ public class MeetingProbabilitySet {
 	}
 
 	/**
-	 * Returns a deep copy of the probability set
-	 * @return a deep copy of the probability set
+	 * Returns a copy of the probability set. The copy shares its arrays with
+	 * this set until one of them changes, so replicating is cheap.
+	 * @return a copy of the probability set
 	 */
 	public MeetingProbabilitySet replicate() {
 		MeetingProbabilitySet replica = new MeetingProbabilitySet(
 				this.maxSetSize, alpha);
 
-		// do a deep copy
-		for (Map.Entry<Integer, Double> e : probs.entrySet()) {
-			replica.probs.put(e.getKey(), e.getValue().doubleValue());
-		}
+		replica.nodes = this.nodes;
+		replica.weights = this.weights;
+		replica.size = this.size;
+		replica.scale = this.scale;
+		replica.arraysShared = true;
+		this.arraysShared = true;
 
 		replica.lastUpdateTime = this.lastUpdateTime;
 		return replica;
 	}
 
+	/**
+	 * Sets the probability for the given node index, adding the node if it
+	 * does not have a probability yet.
+	 * @param index The node index
+	 * @param prob The new probability
+	 */
+	private void setProbFor(int index, double prob) {
+		int position = Arrays.binarySearch(this.nodes, 0, this.size, index);
+		if (position < 0) {
+			position = -position - 1;
+			int capacity = this.nodes.length;
+			if (this.size == capacity) {
+				capacity = Math.max(2 * capacity, INIT_CAPACITY);
+			}
+			if (this.arraysShared || capacity != this.nodes.length) {
+				this.copyArrays(capacity);
+			}
+			System.arraycopy(this.nodes, position, this.nodes, position + 1,
+					this.size - position);
+			System.arraycopy(this.weights, position, this.weights,
+					position + 1, this.size - position);
+			this.nodes[position] = index;
+			this.size++;
+		}
+		else if (this.arraysShared) {
+			this.copyArrays(this.nodes.length);
+		}
+		this.weights[position] = prob / this.scale;
+	}
+
+	/**
+	 * Removes the smallest probability.
+	 * @return the node index whose probability was removed
+	 */
+	private int removeSmallestProb() {
+		int smallest = 0;
+		for (int i = 1; i < this.size; i++) {
+			if (this.weights[i] < this.weights[smallest]) {
+				smallest = i;
+			}
+		}
+
+		if (this.arraysShared) {
+			this.copyArrays(this.nodes.length);
+		}
+		int node = this.nodes[smallest];
+		System.arraycopy(this.nodes, smallest + 1, this.nodes, smallest,
+				this.size - smallest - 1);
+		System.arraycopy(this.weights, smallest + 1, this.weights, smallest,
+				this.size - smallest - 1);
+		this.size--;
+		return node;
+	}
+
+	/**
+	 * Replaces {@link #nodes} and {@link #weights} by private copies of the
+	 * given capacity.
+	 * @param capacity The capacity of the copies
+	 */
+	private void copyArrays(int capacity) {
+		this.nodes = Arrays.copyOf(this.nodes, capacity);
+		this.weights = Arrays.copyOf(this.weights, capacity);
+		this.arraysShared = false;
+	}
+
 	/**
 	 * Returns a String presentation of the probabilities
 	 * @return a String presentation of the probabilities
 	 */
     @Override
 	public String toString() {
-		return "probs: " +	this.probs.toString();
+		return "probs: " +	this.getAllProbs().toString();
 	}
 }
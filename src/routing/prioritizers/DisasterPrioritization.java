@@ -9,11 +9,14 @@ import core.SettingsError;
 import core.SimClock;
 import routing.DisasterRouter;
 import routing.MessageRouter;
-import routing.util.MessageConnectionTuple;
+import routing.util.EpochStampedScores;
 import util.Tuple;
 
+import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * A message-connection tuple prioritization depending on delivery predictability and replications density. Also uses
@@ -39,11 +42,15 @@ public class DisasterPrioritization implements Comparator<Tuple<Message, Connect
     private DisasterRouter attachedRouter;
 
     /**
-     * Caches priority function evaluations. Very useful because comparators may be called multiple times for each
-     * item.
-     * Invalidated every timestep to ensure correct value.
+     * Caches priority function evaluations by connection slot and message handle. Very useful because comparators may
+     * be called multiple times for each item.
+     * Invalidated every timestep to ensure correct value. Slots are reused in later timesteps.
      */
-    private HashMap<MessageConnectionTuple, Double> priorityFunctionValueCache = new HashMap<>();
+    private List<EpochStampedScores> priorityFunctionValueCache = new ArrayList<>();
+    /**
+     * Slots in {@link #priorityFunctionValueCache} given to connections in the current timestep.
+     */
+    private Map<Connection, EpochStampedScores> cachedConnections = new IdentityHashMap<>();
     /**
      * The simulation time the current {@link #priorityFunctionValueCache} is for.
      */
@@ -113,16 +120,144 @@ public class DisasterPrioritization implements Comparator<Tuple<Message, Connect
         return (-1) * Double.compare(this.computePriorityFunction(t1), this.computePriorityFunction(t2));
     }
 
+    /**
+     * Sorts the provided message-connection tuples by priority, most important first. The result is the same as
+     * sorting with this comparator, but each priority function is only evaluated once and the sort works on an array
+     * of primitive keys.
+     *
+     * @param messages The message-connection tuples to sort.
+     */
+    public void sortByPriority(List<Tuple<Message, Connection>> messages) {
+        int numberOfMessages = messages.size();
+        double[] priorities = new double[numberOfMessages];
+        int[] order = new int[numberOfMessages];
+        for (int i = 0; i < numberOfMessages; i++) {
+            priorities[i] = this.computePriorityFunction(messages.get(i));
+            order[i] = i;
+        }
+
+        // Merge sort is stable like List#sort.
+        DisasterPrioritization.sortIndicesByDescendingKey(order, new int[numberOfMessages], priorities);
+
+        List<Tuple<Message, Connection>> sortedMessages = new ArrayList<>(numberOfMessages);
+        for (int index : order) {
+            sortedMessages.add(messages.get(index));
+        }
+        for (int i = 0; i < numberOfMessages; i++) {
+            messages.set(i, sortedMessages.get(i));
+        }
+    }
+
+    /**
+     * Merges message-connection tuples into a list that has been sorted by priority before. For equal priorities,
+     * tuples of the sorted list come first, just like they would when sorting both lists together.
+     *
+     * The insertion points are found by binary search, so the priority function is only evaluated for a logarithmic
+     * number of tuples of the sorted list per new tuple.
+     *
+     * @param sortedMessages Tuples sorted by priority, most important first. Not changed.
+     * @param newMessages New tuples, sorted by priority, most important first.
+     * @return All provided tuples sorted by priority.
+     */
+    public List<Tuple<Message, Connection>> mergeByPriority(
+            List<Tuple<Message, Connection>> sortedMessages, List<Tuple<Message, Connection>> newMessages) {
+        if (newMessages.isEmpty()) {
+            return sortedMessages;
+        }
+
+        List<Tuple<Message, Connection>> mergedMessages =
+                new ArrayList<>(sortedMessages.size() + newMessages.size());
+        int start = 0;
+        for (Tuple<Message, Connection> newMessage : newMessages) {
+            // Find the first sorted tuple with a lower priority.
+            double priority = this.computePriorityFunction(newMessage);
+            int low = start;
+            int high = sortedMessages.size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (this.computePriorityFunction(sortedMessages.get(middle)) >= priority) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            mergedMessages.addAll(sortedMessages.subList(start, low));
+            mergedMessages.add(newMessage);
+            start = low;
+        }
+        mergedMessages.addAll(sortedMessages.subList(start, sortedMessages.size()));
+        return mergedMessages;
+    }
+
+    /**
+     * Sorts indices by descending key using a stable bottom-up merge sort.
+     *
+     * @param indices The indices to sort.
+     * @param buffer Buffer of the same length as indices.
+     * @param keys The keys, indexed by the values in indices.
+     */
+    private static void sortIndicesByDescendingKey(int[] indices, int[] buffer, double[] keys) {
+        int[] source = indices;
+        int[] target = buffer;
+        for (int width = 1; width < indices.length; width *= 2) {
+            for (int start = 0; start < indices.length; start += 2 * width) {
+                int middle = Math.min(start + width, indices.length);
+                int end = Math.min(start + 2 * width, indices.length);
+                int left = start;
+                int right = middle;
+                for (int i = start; i < end; i++) {
+                    boolean takeLeft = right >= end
+                            || (left < middle && Double.compare(keys[source[left]], keys[source[right]]) >= 0);
+                    if (takeLeft) {
+                        target[i] = source[left++];
+                    } else {
+                        target[i] = source[right++];
+                    }
+                }
+            }
+            int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        if (source != indices) {
+            System.arraycopy(source, 0, indices, 0, indices.length);
+        }
+    }
+
     /**
      * Invalidates the {@link #priorityFunctionValueCache} if it is obsolete.
      */
     private void possiblyInvalidateCache() {
         if (SimClock.getTime() > this.cacheTime) {
-            this.priorityFunctionValueCache.clear();
+            for (EpochStampedScores connectionCache : this.priorityFunctionValueCache) {
+                connectionCache.clear();
+            }
+            this.cachedConnections.clear();
             this.cacheTime = SimClock.getTime();
         }
     }
 
+    /**
+     * Returns the cache for the provided connection, assigning it a free slot if it does not have one in the current
+     * timestep.
+     *
+     * @param connection The connection to find the cache for.
+     * @return The connection's cache.
+     */
+    private EpochStampedScores findCache(Connection connection) {
+        EpochStampedScores cache = this.cachedConnections.get(connection);
+        if (cache == null) {
+            int slot = this.cachedConnections.size();
+            if (slot == this.priorityFunctionValueCache.size()) {
+                this.priorityFunctionValueCache.add(new EpochStampedScores());
+            }
+            cache = this.priorityFunctionValueCache.get(slot);
+            this.cachedConnections.put(connection, cache);
+        }
+        return cache;
+    }
+
     /**
      * Computes the value used for messages-connection prioritization.
      * @param t The message-connection tuple to compute the value for.
@@ -163,10 +298,10 @@ public class DisasterPrioritization implements Comparator<Tuple<Message, Connect
         this.possiblyInvalidateCache();
 
         // Then: If we already have the function value cached, don't compute it.
-        MessageConnectionTuple cacheKey = new MessageConnectionTuple(t);
-        Double cachedValue = this.priorityFunctionValueCache.get(cacheKey);
-        if (cachedValue != null) {
-            return cachedValue;
+        EpochStampedScores cache = this.findCache(t.getValue());
+        int handle = t.getKey().getHandle();
+        if (cache.contains(handle)) {
+            return cache.get(handle);
         }
 
         // Else: Compute the value...
@@ -178,7 +313,7 @@ public class DisasterPrioritization implements Comparator<Tuple<Message, Connect
                 + this.replicationsDensityWeight * (1 - replicationsDensity);
 
         // ...and cache it before returning.
-        this.priorityFunctionValueCache.put(cacheKey, priorityFunctionValue);
+        cache.put(handle, priorityFunctionValue);
         return priorityFunctionValue;
     }
 
@@ -14,6 +14,7 @@ import util.Tuple;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 
@@ -44,6 +45,13 @@ public class DisasterPrioritizationStrategy implements MessagePrioritizationStra
      */
     private static final int INDEX_NOT_FOUND = -1;
 
+    /** Order of important messages: Higher priorities first. */
+    private static final Comparator<Tuple<Message, Connection>> IMPORTANT_MESSAGE_ORDER =
+            Comparator.comparingInt(t -> (-1) * t.getKey().getPriority());
+    /** Order of head start messages: Newer messages first. */
+    private static final Comparator<Tuple<Message, Connection>> HEAD_START_MESSAGE_ORDER =
+            Comparator.comparingDouble(t -> (-1) * t.getKey().getCreationTime());
+
     /**
      * Maximum time since creation for which a message is a allowed a head start, i.e. is sorted before all messages not
      * meeting the threshold.
@@ -116,38 +124,105 @@ public class DisasterPrioritizationStrategy implements MessagePrioritizationStra
      */
     @Override
     public List<Tuple<Message, Connection>> sortMessages(Collection<Tuple<Message, Connection>> messages) {
+        return this.mergeMessages(Collections.emptyList(), messages);
+    }
+
+    /**
+     * Merges new message - connection tuples into tuples that have been sorted by this strategy before.
+     *
+     * Both the sorted and the new tuples are split into head start, important and other messages. Only the new tuples
+     * are sorted, and they are then merged into the matching part of the sorted tuples, which keeps its order.
+     *
+     * @param sortedMessages Tuples in the order returned by {@link #sortMessages(Collection)}. Not changed.
+     * @param newMessages The new message - connection tuples.
+     * @return All provided tuples in sorted order, most important messages first.
+     */
+    @Override
+    public List<Tuple<Message, Connection>> mergeMessages(
+            List<Tuple<Message, Connection>> sortedMessages, Collection<Tuple<Message, Connection>> newMessages) {
         // Differentiate between head start and non head start messages.
-        List<Tuple<Message, Connection>> headStartMessages = new ArrayList<>();
-        List<Tuple<Message, Connection>> importantMessages = new ArrayList<>();
-        List<Tuple<Message, Connection>> otherMessages = new ArrayList<>();
-        for (Tuple<Message, Connection> m : messages) {
-            if (this.isHeadStartMessage(m.getKey())) {
-                headStartMessages.add(m);
-            } else if (m.getKey().getPriority() >= this.priorityThreshold) {
-                importantMessages.add(m);
-            } else {
-                otherMessages.add(m);
-            }
-        }
+        PartitionedMessages sortedPartitions = this.partition(sortedMessages);
+        PartitionedMessages newPartitions = this.partition(newMessages);
+
+        // Sort new non head start messages and merge them into the sorted ones.
+        this.nonHeadStartPrioritization.sortByPriority(newPartitions.otherMessages);
+        List<Tuple<Message, Connection>> otherMessages = this.nonHeadStartPrioritization.mergeByPriority(
+                sortedPartitions.otherMessages, newPartitions.otherMessages);
 
-        // Sort non head start messages.
-        otherMessages.sort(this.nonHeadStartPrioritization);
+        // Sort new important messages and merge them into the sorted ones.
+        newPartitions.importantMessages.sort(IMPORTANT_MESSAGE_ORDER);
+        List<Tuple<Message, Connection>> importantMessages = DisasterPrioritizationStrategy.merge(
+                sortedPartitions.importantMessages, newPartitions.importantMessages, IMPORTANT_MESSAGE_ORDER);
 
-        // Sort important messages and add them in front of other messages.
-        importantMessages.sort(Comparator.comparingInt(t -> (-1) * t.getKey().getPriority()));
-        otherMessages.addAll(0, importantMessages);
+        // Sort new head start messages by creation time, newer messages first, and merge them into the sorted ones.
+        newPartitions.headStartMessages.sort(HEAD_START_MESSAGE_ORDER);
+        List<Tuple<Message, Connection>> headStartMessages = DisasterPrioritizationStrategy.merge(
+                sortedPartitions.headStartMessages, newPartitions.headStartMessages, HEAD_START_MESSAGE_ORDER);
+
+        // Add important messages in front of other messages.
+        List<Tuple<Message, Connection>> result = new ArrayList<>(
+                importantMessages.size() + otherMessages.size() + headStartMessages.size());
+        result.addAll(importantMessages);
+        result.addAll(otherMessages);
 
-        // Sort head start messages by creation time, newer messages first.
-        headStartMessages.sort(Comparator.comparingDouble(t -> (-1) * t.getKey().getCreationTime()));
         // Insert head start messages before all other ordinary messages.
-        int headStartMessagesIndex = DisasterPrioritizationStrategy.findFirstNonDataMessageIndex(otherMessages);
+        int headStartMessagesIndex = DisasterPrioritizationStrategy.findFirstNonDataMessageIndex(result);
         if (headStartMessagesIndex == INDEX_NOT_FOUND) {
-            headStartMessagesIndex = otherMessages.size();
+            headStartMessagesIndex = result.size();
         }
-        otherMessages.addAll(headStartMessagesIndex, headStartMessages);
+        result.addAll(headStartMessagesIndex, headStartMessages);
 
         // Return the sorted messages.
-        return otherMessages;
+        return result;
+    }
+
+    /**
+     * Splits the provided message - connection tuples into head start, important and other messages. Each part keeps
+     * the order of the provided tuples.
+     * @param messages The message - connection tuples to split.
+     * @return The parts.
+     */
+    private PartitionedMessages partition(Collection<Tuple<Message, Connection>> messages) {
+        PartitionedMessages partitions = new PartitionedMessages();
+        for (Tuple<Message, Connection> m : messages) {
+            if (this.isHeadStartMessage(m.getKey())) {
+                partitions.headStartMessages.add(m);
+            } else if (m.getKey().getPriority() >= this.priorityThreshold) {
+                partitions.importantMessages.add(m);
+            } else {
+                partitions.otherMessages.add(m);
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * Merges two lists which are sorted by the provided order. For equal items, those of the first list come first,
+     * just like they would when sorting the concatenation of both lists.
+     * @param sortedMessages First sorted list.
+     * @param newMessages Second sorted list.
+     * @param order The order both lists are sorted by.
+     * @return The merged list.
+     */
+    private static List<Tuple<Message, Connection>> merge(
+            List<Tuple<Message, Connection>> sortedMessages, List<Tuple<Message, Connection>> newMessages,
+            Comparator<Tuple<Message, Connection>> order) {
+        if (newMessages.isEmpty()) {
+            return sortedMessages;
+        }
+        List<Tuple<Message, Connection>> result = new ArrayList<>(sortedMessages.size() + newMessages.size());
+        int sortedIndex = 0;
+        int newIndex = 0;
+        while (sortedIndex < sortedMessages.size() && newIndex < newMessages.size()) {
+            if (order.compare(newMessages.get(newIndex), sortedMessages.get(sortedIndex)) < 0) {
+                result.add(newMessages.get(newIndex++));
+            } else {
+                result.add(sortedMessages.get(sortedIndex++));
+            }
+        }
+        result.addAll(sortedMessages.subList(sortedIndex, sortedMessages.size()));
+        result.addAll(newMessages.subList(newIndex, newMessages.size()));
+        return result;
     }
 
     /**
@@ -200,4 +275,16 @@ public class DisasterPrioritizationStrategy implements MessagePrioritizationStra
     public MessagePrioritizationStrategy replicate(MessageRouter attachedRouter) {
         return new DisasterPrioritizationStrategy(this, attachedRouter);
     }
+
+    /**
+     * Message - connection tuples split into head start, important and other messages.
+     */
+    private static class PartitionedMessages {
+        /** Messages getting a head start because they are new. */
+        private List<Tuple<Message, Connection>> headStartMessages = new ArrayList<>();
+        /** Messages meeting the priority threshold. */
+        private List<Tuple<Message, Connection>> importantMessages = new ArrayList<>();
+        /** All other messages. */
+        private List<Tuple<Message, Connection>> otherMessages = new ArrayList<>();
+    }
 }
@@ -6,33 +6,35 @@
 package routing.schedule;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Queue;
-import java.util.Set;
+
+import util.IndexedMinHeap;
 
 /**
- * Dijkstra's shortest path implementation for schedule data
+ * Dijkstra's shortest path implementation for schedule data.
+ *
+ * Unvisited nodes are kept in an {@link IndexedMinHeap} ordered by arrival
+ * time, whose node indexed arrays are reused between searches.
  */
 /* TODO: combine this with movement.map.DijkstraPathFinder? */
 public class ScheduleDijkstra {
-	/** Value for infinite distance  */
-	private static final Double INFINITY = Double.MAX_VALUE;
-	/** Initial size of the priority queue */
-	private static final int PQ_INIT_SIZE = 11;
-
-	/** Map of the times when one could be at certain node */
-	private TimeMap times;
-	/** Set of already visited nodes (where the shortest path is known) */
-	private Set<Integer> visited;
-	/** Priority queue of unvisited nodes discovered so far */
-	private Queue<Integer> unvisited;
-	/** Map of previous schedule on the shortest path(s) */
-	private Map<Integer, ScheduleEntry> prevHops;
+	/** Initial size of the node indexed arrays */
+	private static final int INIT_SIZE = 16;
+
+	/** Unvisited nodes discovered so far ordered by the time when one could
+	 * be there, and the visited nodes */
+	private IndexedMinHeap nodes = new IndexedMinHeap();
+	/** Whether the node is one of the requested destinations. Only valid for
+	 * nodes touched in the current search. */
+	private boolean[] isTarget = new boolean[INIT_SIZE];
+	/** Previous schedule on the shortest path(s) */
+	private ScheduleEntry[] prevHops = new ScheduleEntry[INIT_SIZE];
+
 	/** Oracle that know all schedules */
 	private ScheduleOracle oracle;
 
@@ -50,15 +52,10 @@ public class ScheduleDijkstra {
 	 * @param node The path's source node
 	 * @param time The time when the path starts
 	 */
-	private void initWith(Integer node, double time) {
-		this.unvisited = new PriorityQueue<Integer>(PQ_INIT_SIZE,
-				new DurationComparator());
-		this.visited = new HashSet<Integer>();
-		this.prevHops = new HashMap<Integer, ScheduleEntry>();
-		this.times = new TimeMap();
-
-		this.times.put(node, time);
-		this.unvisited.add(node);
+	private void initWith(int node, double time) {
+		this.nodes.startSearch();
+
+		setTime(node, time);
 	}
 
 	/**
@@ -71,141 +68,120 @@ public class ScheduleDijkstra {
 	 */
 	public List<ScheduleEntry> getShortestPath(Integer from, Integer to,
 			double time){
-		List<ScheduleEntry> path = new ArrayList<ScheduleEntry>();
-		assert time >= 0.0 : "Can't use negative start time";
+		List<Integer> destinations = new ArrayList<Integer>(1);
+		destinations.add(to);
+		return getShortestPaths(from, destinations, time).get(to);
+	}
 
-		if (from.compareTo(to) == 0) {
-			return path;
-		}
+	/**
+	 * Finds the fastest paths from one source to many destinations in a
+	 * single search.
+	 * @param from The source of the paths
+	 * @param to The destinations of the paths
+	 * @param time The time when the paths start
+	 * @return a mapping from each destination to a shortest path between the
+	 * source and that destination, or an empty list if such path is not
+	 * available
+	 */
+	public Map<Integer, List<ScheduleEntry>> getShortestPaths(int from,
+			Collection<Integer> to, double time) {
+		Map<Integer, List<ScheduleEntry>> paths =
+			new HashMap<Integer, List<ScheduleEntry>>();
+		assert time >= 0.0 : "Can't use negative start time";
 
 		initWith(from, time);
-		Integer node = null;
+		int nrofNodesToFind = 0;
+		for (int destination : to) {
+			paths.put(destination, new ArrayList<ScheduleEntry>());
+			touch(destination);
+			if (destination != from && !this.isTarget[destination]) {
+				this.isTarget[destination] = true;
+				nrofNodesToFind++;
+			}
+		}
 
-		while ((node = unvisited.poll()) != null) {
-			if (node.equals(to)) {
-				break;
+		while (nrofNodesToFind > 0 && !this.nodes.isEmpty()) {
+			int node = this.nodes.poll(); // also marks the node as visited
+			if (this.isTarget[node]) {
+				fillPath(from, node, paths.get(node));
+				nrofNodesToFind--;
 			}
 
-			visited.add(node);
 			relax(node);
 		}
 
-		if (node != null) { // found a path
-			ScheduleEntry prev = prevHops.get(to);
-			while (prev.getFrom() != from) {
-				path.add(0, prev);
-				prev = prevHops.get(prev.getFrom());
-			}
+		return paths;
+	}
 
-			path.add(0, prev);
+	/**
+	 * Adds the schedule entries on the shortest path found to a visited node
+	 * to the given list.
+	 * @param from The source of the path
+	 * @param to The visited node
+	 * @param path The list to fill
+	 */
+	private void fillPath(int from, int to, List<ScheduleEntry> path) {
+		ScheduleEntry prev = this.prevHops[to];
+		while (prev.getFrom() != from) {
+			path.add(prev);
+			prev = this.prevHops[prev.getFrom()];
 		}
-
-		return path;
+		path.add(prev);
+		Collections.reverse(path);
 	}
 
 	/**
 	 * Relaxes the neighbors of a node (updates the shortest distances).
 	 * @param node The node whose neighbors are relaxed
 	 */
-	private void relax(Integer node) {
-		double timeNow = times.get(node);
-		int to;
-		double timeTo;
-
-		for (ScheduleEntry se : oracle.getConnected(node, timeNow)) {
-			to = se.getTo();
-			if (visited.contains(to)) {
+	private void relax(int node) {
+		double timeNow = this.nodes.getKey(node);
+		List<ScheduleEntry> departures = oracle.getDepartures(node);
+
+		for (int i = ScheduleOracle.findFirstDeparture(departures, timeNow);
+				i < departures.size(); i++) {
+			ScheduleEntry se = departures.get(i);
+			int to = se.getTo();
+			touch(to);
+			if (this.nodes.wasPolled(to)) {
 				continue; // skip visited nodes
 			}
 
-			timeTo = se.getTime() +  se.getDuration();
+			double timeTo = se.getTime() +  se.getDuration();
 
-			if (timeTo < times.get(to)) {
-				prevHops.put(to, se);
+			if (timeTo < this.nodes.getKey(to)) {
+				this.prevHops[to] = se;
 				setTime(to, timeTo);
 			}
 		}
 	}
 
 	/**
-	 * Sets the time when at a node
+	 * Sets the time when at a node and inserts the node into or moves it up
+	 * in the heap of unvisited nodes. The time must not be later than the
+	 * previous one.
 	 * @param n The node whose time is set
 	 * @param time The time when at given node
 	 */
-	private void setTime(Integer n, double time) {
-		unvisited.remove(n);
-		times.put(n, time);
-		unvisited.add(n);
+	private void setTime(int n, double time) {
+		touch(n);
+		this.nodes.decreaseKey(n, time);
 	}
 
 	/**
-	 * Comparator that compares two nodes by their journey duration
+	 * Makes sure the node's slots belong to the current search, growing the
+	 * arrays and resetting the slots if necessary.
+	 * @param n The node
 	 */
-	private class DurationComparator implements Comparator<Integer> {
-
-		/**
-		 * Compares two nodes by their time to get there
-		 * @return -1, 0 or 1 if node1's time is smaller, equal to, or
-		 * bigger than node2's
-		 */
-		public int compare(Integer node1, Integer node2) {
-			double time1 = times.get(node1);
-			double time2 = times.get(node2);
-
-			if (time1 > time2) {
-				return 1;
-			}
-			else if (time1 < time2) {
-				return -1;
+	private void touch(int n) {
+		if (this.nodes.touch(n)) {
+			if (n >= this.isTarget.length) {
+				int newSize = this.nodes.getCapacity();
+				this.isTarget = Arrays.copyOf(this.isTarget, newSize);
+				this.prevHops = Arrays.copyOf(this.prevHops, newSize);
 			}
-			else {
-				return 0;
-			}
-		}
-	}
-
-	private class TimeMap {
-		private HashMap<Integer, Double> map;
-
-		/**
-		 * Constructor. Creates an empty map
-		 */
-		public TimeMap() {
-			this.map = new HashMap<Integer, Double>();
-		}
-
-		/**
-		 * Returns the currently known smallest time one has a path for to the
-		 * given node. If no time value is found, returns
-		 * {@link ScheduleDijkstra#INFINITY} as the value.
-		 * @param node The node whose time is requested
-		 * @return The time when one could be at that node
-		 */
-		public double get(Integer node) {
-			Double value = map.get(node);
-			if (value != null) {
-				return value;
-			}
-			else {
-				return INFINITY;
-			}
-		}
-
-		/**
-		 * Puts a new time value for a node
-		 * @param node The node
-		 * @param time Time at that node
-		 */
-		public void put(Integer node, double time) {
-			map.put(node, time);
-		}
-
-		/**
-		 * Returns a string representation of the map's contents
-		 * @return a string representation of the map's contents
-		 */
-		public String toString() {
-			return map.toString();
+			this.isTarget[n] = false;
+			this.prevHops[n] = null;
 		}
 	}
 }
@@ -6,13 +6,20 @@ package routing.schedule;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Oracle that knows the schedules of all nodes. The schedule entries of each
+ * node are kept sorted by start time, so the departures after a given time
+ * are found by binary search.
+ */
 public class ScheduleOracle implements Serializable{
 	private static final long serialVersionUID = 42L;
 
+	/** Schedule entries by source node, sorted by start time */
 	Map<Integer, List<ScheduleEntry>> schedules;
 
 	public ScheduleOracle() {
@@ -36,7 +43,9 @@ public class ScheduleOracle implements Serializable{
 			schedules.put(from, list);
 		}
 
-		list.add(new ScheduleEntry(start, from, via, to, duration));
+		/* insert after all entries that do not start later */
+		int index = findFirstDeparture(list, Math.nextUp(start));
+		list.add(index, new ScheduleEntry(start, from, via, to, duration));
 	}
 
 	/**
@@ -58,20 +67,47 @@ public class ScheduleOracle implements Serializable{
 	 * @return List of reachable nodes
 	 */
 	public List<ScheduleEntry> getConnected(int from, double time) {
-		List<ScheduleEntry> connected = new ArrayList<ScheduleEntry>();
-		List<ScheduleEntry> all = schedules.get(from);
+		List<ScheduleEntry> all = getDepartures(from);
+		return new ArrayList<ScheduleEntry>(
+				all.subList(findFirstDeparture(all, time), all.size()));
+	}
 
+	/**
+	 * Returns all schedule entries starting at the given node, sorted by start
+	 * time. The returned list must not be modified.
+	 * @param from The source node
+	 * @return The sorted schedule entries of the node
+	 */
+	public List<ScheduleEntry> getDepartures(int from) {
+		List<ScheduleEntry> all = schedules.get(from);
 		if (all == null) {
-			return connected;
+			return Collections.emptyList();
 		}
+		return all;
+	}
 
-		for (ScheduleEntry s : all) {
-			if (s.getTime() >= time) {
-				connected.add(s);
+	/**
+	 * Returns the index of the first entry in a list sorted by start time
+	 * (see {@link #getDepartures(int)}) that starts at or after the given time.
+	 * @param departures The sorted schedule entries
+	 * @param time Time to start
+	 * @return Index of the first entry starting at or after the time, or the
+	 * size of the list if there is no such entry
+	 */
+	public static int findFirstDeparture(List<ScheduleEntry> departures,
+			double time) {
+		int low = 0;
+		int high = departures.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (departures.get(middle).getTime() < time) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
 			}
 		}
-
-		return connected;
+		return low;
 	}
 
 	/**
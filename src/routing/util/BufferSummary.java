@@ -0,0 +1,249 @@
+package routing.util;
+
+import core.Message;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compact summary of the messages stored in a router's buffer, represented as a set of message handles
+ * (see {@link Message#getHandle()}).
+ *
+ * The handles are stored in a sparse bitset: Each 64 consecutive handles share a long word, and only non-zero words are
+ * kept in an open addressing hash table mapping word indices to words. Memory usage therefore depends on the number of
+ * buffered messages, not on the total number of messages in the simulation. Membership tests take constant time and do
+ * not allocate any objects, and intersections between two summaries are computed word by word.
+ *
+ * Every change to the summary increments its version, which allows other components to find out whether a summary
+ * changed since they last looked at it.
+ */
+public class BufferSummary {
+    /** Marks an empty slot in {@link #wordIndices}. Word indices are non-negative as handles are. */
+    private static final int EMPTY = -1;
+
+    /** Size of the hash table of a newly created summary. Has to be a power of two. */
+    private static final int INITIAL_TABLE_SIZE = 16;
+
+    /** Number of bits a handle has to be shifted by to get its word index. */
+    private static final int WORD_SHIFT = 6;
+    /** Mask extracting the bit position inside a word from a handle. */
+    private static final int BIT_MASK = Long.SIZE - 1;
+
+    /** Golden ratio constant used to spread word indices over the hash table. */
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+    /** Number of bits the upper half of the hash is shifted by when mixing it into the lower half. */
+    private static final int HASH_SHIFT = 16;
+
+    /** Hash table keys: Word indices or {@link #EMPTY}. */
+    private int[] wordIndices;
+    /** Words belonging to the word indices at the same index in {@link #wordIndices}. Never zero for used slots. */
+    private long[] words;
+    /** Mask used to map hashes into {@link #wordIndices}. */
+    private int tableMask;
+    /** Number of used slots in the hash table. */
+    private int usedSlots;
+
+    /** Number of handles in the summary. */
+    private int size;
+    /** Number of changes made to the summary. */
+    private long version;
+
+    /**
+     * Initializes a new, empty instance of the {@link BufferSummary} class.
+     */
+    public BufferSummary() {
+        this.initTable(INITIAL_TABLE_SIZE);
+    }
+
+    /**
+     * Adds a message handle to the summary.
+     * @param handle The handle to add.
+     * @return True iff the handle was not contained in the summary before.
+     */
+    public boolean add(int handle) {
+        int wordIndex = handle >>> WORD_SHIFT;
+        long bit = 1L << (handle & BIT_MASK);
+        int slot = this.findSlot(wordIndex);
+        if (this.wordIndices[slot] == EMPTY) {
+            this.wordIndices[slot] = wordIndex;
+            this.words[slot] = bit;
+            this.usedSlots++;
+            this.growIfNecessary();
+        } else if ((this.words[slot] & bit) == 0) {
+            this.words[slot] |= bit;
+        } else {
+            return false;
+        }
+
+        this.size++;
+        this.version++;
+        return true;
+    }
+
+    /**
+     * Removes a message handle from the summary.
+     * @param handle The handle to remove.
+     * @return True iff the handle was contained in the summary.
+     */
+    public boolean remove(int handle) {
+        long bit = 1L << (handle & BIT_MASK);
+        int slot = this.findSlot(handle >>> WORD_SHIFT);
+        if (this.wordIndices[slot] == EMPTY || (this.words[slot] & bit) == 0) {
+            return false;
+        }
+
+        this.words[slot] &= ~bit;
+        if (this.words[slot] == 0) {
+            this.deleteSlot(slot);
+        }
+        this.size--;
+        this.version++;
+        return true;
+    }
+
+    /**
+     * Checks whether the summary contains the provided message handle.
+     * @param handle The handle to check.
+     * @return True iff the handle is contained.
+     */
+    public boolean contains(int handle) {
+        return (this.getWord(handle >>> WORD_SHIFT) & (1L << (handle & BIT_MASK))) != 0;
+    }
+
+    /**
+     * Calls the provided action for each message handle contained in both this and the other summary.
+     * Neither summary may be changed by the action.
+     *
+     * @param other The summary to intersect this summary with.
+     * @param action Action to call for each handle in the intersection.
+     */
+    public void forEachInIntersection(BufferSummary other, IntConsumer action) {
+        // Iterate over the smaller table and look up words in the larger one.
+        BufferSummary smaller = this;
+        BufferSummary larger = other;
+        if (other.usedSlots < this.usedSlots) {
+            smaller = other;
+            larger = this;
+        }
+
+        for (int slot = 0; slot < smaller.wordIndices.length; slot++) {
+            int wordIndex = smaller.wordIndices[slot];
+            if (wordIndex == EMPTY) {
+                continue;
+            }
+            long common = smaller.words[slot] & larger.getWord(wordIndex);
+            while (common != 0) {
+                action.accept((wordIndex << WORD_SHIFT) | Long.numberOfTrailingZeros(common));
+                common &= common - 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of message handles in the summary.
+     * @return The number of handles.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Checks whether the summary is empty.
+     * @return True iff the summary does not contain any handles.
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Returns the version of the summary. The version changes each time a handle is added or removed.
+     * @return The current version.
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Creates an empty hash table of the provided size.
+     */
+    private void initTable(int tableSize) {
+        this.wordIndices = new int[tableSize];
+        this.words = new long[tableSize];
+        this.tableMask = tableSize - 1;
+        this.usedSlots = 0;
+        Arrays.fill(this.wordIndices, EMPTY);
+    }
+
+    /**
+     * Returns the preferred slot for a word index.
+     */
+    private int hash(int wordIndex) {
+        int hash = wordIndex * HASH_MULTIPLIER;
+        return (hash ^ (hash >>> HASH_SHIFT)) & this.tableMask;
+    }
+
+    /**
+     * Returns the slot containing the word index, or the empty slot it would be inserted into.
+     */
+    private int findSlot(int wordIndex) {
+        int slot = this.hash(wordIndex);
+        while (this.wordIndices[slot] != EMPTY && this.wordIndices[slot] != wordIndex) {
+            slot = (slot + 1) & this.tableMask;
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the word stored for the word index, or 0 if there is none.
+     */
+    private long getWord(int wordIndex) {
+        int slot = this.findSlot(wordIndex);
+        if (this.wordIndices[slot] == EMPTY) {
+            return 0;
+        }
+        return this.words[slot];
+    }
+
+    /**
+     * Doubles the hash table size if it is more than half full.
+     */
+    private void growIfNecessary() {
+        if (this.usedSlots * 2 <= this.wordIndices.length) {
+            return;
+        }
+
+        int[] oldWordIndices = this.wordIndices;
+        long[] oldWords = this.words;
+        this.initTable(oldWordIndices.length * 2);
+        for (int oldSlot = 0; oldSlot < oldWordIndices.length; oldSlot++) {
+            if (oldWordIndices[oldSlot] != EMPTY) {
+                int slot = this.findSlot(oldWordIndices[oldSlot]);
+                this.wordIndices[slot] = oldWordIndices[oldSlot];
+                this.words[slot] = oldWords[oldSlot];
+                this.usedSlots++;
+            }
+        }
+    }
+
+    /**
+     * Removes the entry at the provided slot and shifts back following entries of the probe sequence so that lookups
+     * stay correct.
+     */
+    private void deleteSlot(int slot) {
+        int emptySlot = slot;
+        int current = (slot + 1) & this.tableMask;
+        while (this.wordIndices[current] != EMPTY) {
+            int preferred = this.hash(this.wordIndices[current]);
+            boolean canMove = ((current - preferred) & this.tableMask) >= ((current - emptySlot) & this.tableMask);
+            if (canMove) {
+                this.wordIndices[emptySlot] = this.wordIndices[current];
+                this.words[emptySlot] = this.words[current];
+                emptySlot = current;
+            }
+            current = (current + 1) & this.tableMask;
+        }
+        this.wordIndices[emptySlot] = EMPTY;
+        this.words[emptySlot] = 0;
+        this.usedSlots--;
+    }
+}
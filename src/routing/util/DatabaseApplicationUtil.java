@@ -1,7 +1,6 @@
 package routing.util;
 
 import applications.DatabaseApplication;
-import core.Application;
 import core.Connection;
 import core.DTNHost;
 import core.DataMessage;
@@ -43,7 +42,8 @@ public final class DatabaseApplicationUtil {
      * @param router The router to do this for.
      * @param host The DTNHost the router is attached to.
      * @param connections Connections to find data messages for.
-     * @return The created messages and the connection they should be sent over.
+     * @return The created message prototypes and the connection they should be sent over. The prototypes are
+     * instantiated for their receiver once they are sent.
      */
     public static List<Tuple<Message, Connection>> wrapUsefulDataIntoMessages(
             MessageRouter router, DTNHost host, List<Connection> connections) {
@@ -53,11 +53,18 @@ public final class DatabaseApplicationUtil {
             return new ArrayList<>(0);
         }
 
-        // Then fetch prototypes of the important messages ...
+        // If the application reconciles databases with its neighbors, fetch messages tailored to each of them.
+        if (application.usesDigestSync()) {
+            List<DataMessage> messages = application.wrapUsefulDataIntoMessages(
+                    host, DatabaseApplicationUtil.findNeighbors(host, connections));
+            return DatabaseApplicationUtil.pairMessagesWithConnections(messages, host, connections);
+        }
+
+        // Else fetch prototypes of the important messages ...
         List<DataMessage> messagePrototypes = application.wrapUsefulDataIntoMessages(host);
 
-        // ... and create real instances for each of them:
-        return DatabaseApplicationUtil.wrapPrototypesIntoConcreteMessages(messagePrototypes, connections, host);
+        // ... and pair each of them with all connections:
+        return DatabaseApplicationUtil.pairPrototypesWithConnections(messagePrototypes, connections);
     }
 
     /**
@@ -68,7 +75,8 @@ public final class DatabaseApplicationUtil {
      * @param connections Connections to find data messages for.
      * @param maximumNumberSecondsSinceModification The maximum number of seconds since the modification of the wrapped
      *                                              data items.
-     * @return The created messages and the connection they should be sent over.
+     * @return The created message prototypes and the connection they should be sent over. The prototypes are
+     * instantiated for their receiver once they are sent.
      */
     public static List<Tuple<Message, Connection>> wrapRecentUsefulDataIntoMessages(
             DTNHost host, List<Connection> connections, int maximumNumberSecondsSinceModification) {
@@ -78,40 +86,132 @@ public final class DatabaseApplicationUtil {
             return new ArrayList<>(0);
         }
 
-        // Then fetch prototypes of messages containing recently modified useful data items...
+        // If the application reconciles databases with its neighbors, fetch messages tailored to each of them.
+        if (application.usesDigestSync()) {
+            List<DataMessage> messages = application.wrapRecentUsefulDataIntoMessages(
+                    host, maximumNumberSecondsSinceModification,
+                    DatabaseApplicationUtil.findNeighbors(host, connections));
+            return DatabaseApplicationUtil.pairMessagesWithConnections(messages, host, connections);
+        }
+
+        // Else fetch prototypes of messages containing recently modified useful data items...
         List<DataMessage> messagePrototypes =
                 application.wrapRecentUsefulDataIntoMessages(host, maximumNumberSecondsSinceModification);
 
-        // ... and create real instances for each of them:
-        return DatabaseApplicationUtil.wrapPrototypesIntoConcreteMessages(messagePrototypes, connections, host);
+        // ... and pair each of them with all connections:
+        return DatabaseApplicationUtil.pairPrototypesWithConnections(messagePrototypes, connections);
     }
 
     /**
-     * Creates real messages out of each {@link DataMessage} prototype by instantiating them for every receiver provided
-     * by the provided connections.
+     * Pairs each {@link DataMessage} prototype with every provided connection.
+     *
+     * The prototypes are not instantiated for the receivers here, as usually only few of the returned pairs are
+     * actually sent. Instead, {@link routing.ActiveRouter} instantiates a prototype via
+     * {@link DataMessage#instantiateFor(DTNHost)} once its transfer is started.
      *
      * @param messagePrototypes The {@link DataMessage} prototypes.
      * @param connections All connections for which messages should be generated.
-     * @param host The sending {@link DTNHost}.
-     * @return Instantiated messages with explicitly given connection.
+     * @return Message prototypes with explicitly given connection.
      */
-    private static List<Tuple<Message, Connection>> wrapPrototypesIntoConcreteMessages(
-            List<DataMessage> messagePrototypes, List<Connection> connections, DTNHost host) {
+    private static List<Tuple<Message, Connection>> pairPrototypesWithConnections(
+            List<DataMessage> messagePrototypes, List<Connection> connections) {
         List<Tuple<Message, Connection>> messages = new ArrayList<>(messagePrototypes.size() * connections.size());
         for (DataMessage dataMessage : messagePrototypes) {
-            // For each receiver ...
             for (Connection connection : connections) {
-                DTNHost receiver = connection.getOtherNode(host);
-
-                // ... copy the message.
-                DataMessage message = dataMessage.instantiateFor(receiver);
-                messages.add(new Tuple<>(message, connection));
+                messages.add(new Tuple<>(dataMessage, connection));
             }
         }
 
         return messages;
     }
 
+    /**
+     * Pairs each addressed {@link DataMessage} with the connection to its receiver.
+     *
+     * Like {@link #pairPrototypesWithConnections(List, List)}, the pairs are ordered by message rank first, i.e. the
+     * first message of each neighbor is returned before any second message.
+     *
+     * @param messages The addressed {@link DataMessage}s, grouped by receiver.
+     * @param host The DTNHost sending the messages.
+     * @param connections Connections to the receivers.
+     * @return Messages with explicitly given connection.
+     */
+    private static List<Tuple<Message, Connection>> pairMessagesWithConnections(
+            List<DataMessage> messages, DTNHost host, List<Connection> connections) {
+        // Find each connection's messages.
+        List<List<DataMessage>> messagesPerConnection = new ArrayList<>(connections.size());
+        int maximumNumberMessages = 0;
+        int messageIndex = 0;
+        for (Connection connection : connections) {
+            DTNHost neighbor = connection.getOtherNode(host);
+            List<DataMessage> connectionMessages = new ArrayList<>();
+            while (messageIndex < messages.size() && messages.get(messageIndex).getTo() == neighbor) {
+                connectionMessages.add(messages.get(messageIndex));
+                messageIndex++;
+            }
+            messagesPerConnection.add(connectionMessages);
+            maximumNumberMessages = Math.max(maximumNumberMessages, connectionMessages.size());
+        }
+
+        // Then interleave them.
+        List<Tuple<Message, Connection>> pairs = new ArrayList<>(messages.size());
+        for (int rank = 0; rank < maximumNumberMessages; rank++) {
+            for (int i = 0; i < connections.size(); i++) {
+                if (rank < messagesPerConnection.get(i).size()) {
+                    pairs.add(new Tuple<>(messagesPerConnection.get(i).get(rank), connections.get(i)));
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Finds the neighbors reached by the provided connections.
+     *
+     * @param host The DTNHost the connections belong to.
+     * @param connections The connections.
+     * @return The other host of each connection, in the same order.
+     */
+    private static List<DTNHost> findNeighbors(DTNHost host, List<Connection> connections) {
+        List<DTNHost> neighbors = new ArrayList<>(connections.size());
+        for (Connection connection : connections) {
+            neighbors.add(connection.getOtherNode(host));
+        }
+        return neighbors;
+    }
+
+    /**
+     * Handles the start of a message transfer to the provided receiver: If the message carries the receiver's
+     * database digest, the sender's {@link DatabaseApplication} receives that digest.
+     *
+     * @param router The sending router.
+     * @param message The transferred message.
+     * @param receiver The message's receiver.
+     */
+    public static void handleTransferStart(MessageRouter router, Message message, DTNHost receiver) {
+        if (!(message instanceof DataMessage) || ((DataMessage)message).getOverheadBytes() <= 0) {
+            return;
+        }
+        DatabaseApplication application = DatabaseApplicationUtil.findDatabaseApplication(router);
+        if (application != null) {
+            application.receiveDigestOf(receiver);
+        }
+    }
+
+    /**
+     * Handles a connection to the provided neighbor going down: The router's {@link DatabaseApplication} forgets the
+     * digest received from that neighbor.
+     *
+     * @param router The router whose connection went down.
+     * @param neighbor The host at the other end of the connection.
+     */
+    public static void handleConnectionDown(MessageRouter router, DTNHost neighbor) {
+        DatabaseApplication application = DatabaseApplicationUtil.findDatabaseApplication(router);
+        if (application != null) {
+            application.forgetDigestOf(neighbor);
+        }
+    }
+
     /**
      * Returns the {@link DatabaseApplication} instance of the provided {@link MessageRouter}, if it has one.
      *
@@ -119,11 +219,6 @@ public final class DatabaseApplicationUtil {
      * @return The found {@link DatabaseApplication} or null if there is none.
      */
     public static DatabaseApplication findDatabaseApplication(MessageRouter router) {
-        for (Application application : router.getApplications(DatabaseApplication.APP_ID)) {
-            if (application instanceof DatabaseApplication) {
-                return (DatabaseApplication)application;
-            }
-        }
-        return null;
+        return DatabaseApplication.findDatabaseApplication(router);
     }
 }
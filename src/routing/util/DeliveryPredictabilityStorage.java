@@ -7,9 +7,11 @@ import core.Settings;
 import core.SettingsError;
 import core.SimClock;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -24,6 +26,18 @@ import java.util.Map;
  *  2) additionally decay the delivery predictabilities after every time window. This is required as we may make use of
  *  predictabilities between meetings when deleting messages from buffer.
  *
+ * Delivery predictabilities are stored in a primitive open addressing hash table. Decaying them is done lazily: All
+ * values are stored relative to a table-wide decay factor, so that aging the table only means updating that factor.
+ * Values which have decayed below the threshold are treated as zero on read and dropped during compaction passes,
+ * which happen whenever the decay factor gets small or the table would have to grow.
+ *
+ * Each stored predictability remembers the version of the storage at the time it was last changed, and each storage
+ * remembers the versions of its peers at the last exchange. On a re-encounter, only predictabilities changed since
+ * then are used for transitive updates if all skipped updates are guaranteed to be small. Each storage keeps an upper
+ * bound on how far its predictabilities may be off from those computed with full exchanges. The bound grows by the
+ * maximum change of every skipped update and decays together with the predictabilities. Only changed predictabilities
+ * are exchanged while the bound stays within a configurable tolerance. Otherwise, all predictabilities are exchanged.
+ *
  * Created by Britta Heymann on 18.05.2017.
  */
 public class DeliveryPredictabilityStorage extends AbstractIntervalRatingMechanism {
@@ -45,6 +59,15 @@ public class DeliveryPredictabilityStorage extends AbstractIntervalRatingMechani
      * Constant in [0, 1] indicating the importance of transitivity updates.
      */
     public static final String BETA_S = "dpBeta";
+    /**
+     * Maximum change of a delivery predictability that may be skipped in a transitive update -setting id ({@value}).
+     * Constant in [0, 1]. If it is 0, all delivery predictabilities are exchanged on every encounter. Defaults to
+     * {@link #DEFAULT_DELTA_EXCHANGE_TOLERANCE}.
+     */
+    public static final String DELTA_EXCHANGE_TOLERANCE_S = "dpDeltaTolerance";
+
+    /** Default value for {@link #DELTA_EXCHANGE_TOLERANCE_S}. */
+    private static final double DEFAULT_DELTA_EXCHANGE_TOLERANCE = 0;
 
     /**
      * The minimum delivery predictability we store. If a predictability falls below this value, we set it to zero
@@ -52,20 +75,65 @@ public class DeliveryPredictabilityStorage extends AbstractIntervalRatingMechani
      */
     private static final double MINIMUM_POSITIVE_DELIVERY_PREDICTABILITY = 0.01;
 
+    /** Marks an empty slot in {@link #addresses}. Host addresses are non-negative. */
+    private static final int EMPTY = -1;
+    /** Minimum size of the delivery predictability hash table. Has to be a power of two. */
+    private static final int MINIMUM_TABLE_SIZE = 16;
+    /** Factor between the number of stored predictabilities and the table size after a compaction pass. */
+    private static final int TABLE_SIZE_FACTOR = 4;
+    /** Golden ratio constant used to spread host addresses over the hash table. */
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+    /** Number of bits the upper half of the hash is shifted by when mixing it into the lower half. */
+    private static final int HASH_SHIFT = 16;
+
     /** Constant in [0, 1] used in direct updates, also known as DP_init. */
     private double summand;
     /** Constant in [0, 1] that determines how fast delivery predictabilities decay. */
     private double gamma;
     /** Constant in [0, 1] indicating the importance of transitivity updates. */
     private double beta;
+    /** Constant in [0, 1] indicating the maximum change that may be skipped in transitive updates. */
+    private double deltaExchangeTolerance;
 
     /** Address of the host attached to this storage. */
     private int ownAddress;
 
+    /** Hash table keys: Host addresses or {@link #EMPTY}. */
+    private int[] addresses;
+    /**
+     * Delivery predictabilities of the addresses at the same index in {@link #addresses}, divided by
+     * {@link #decayFactor}.
+     */
+    private double[] normalizedPredictabilities;
+    /** Value of {@link #numberDecays} when the predictability at the same index in {@link #addresses} was set. */
+    private int[] numberDecaysAtLastChange;
+    /** Value of {@link #version} when the predictability at the same index in {@link #addresses} was set. */
+    private long[] versionsAtLastChange;
+    /** Upper bound on all values in {@link #normalizedPredictabilities}. */
+    private double maximumNormalizedPredictability;
+    /** Mask used to map hashes into {@link #addresses}. */
+    private int tableMask;
+    /** Number of used slots in the hash table, including those with decayed values not yet dropped. */
+    private int usedSlots;
+    /**
+     * Decay that has been applied to all delivery predictabilities since the last compaction pass. Always at least
+     * {@link #MINIMUM_POSITIVE_DELIVERY_PREDICTABILITY}.
+     */
+    private double decayFactor;
     /**
-     * Maps host addresses to delivery predictabilities.
+     * Number of times the delivery predictabilities have been decayed. Predictabilities are only dropped if they have
+     * been decayed since they were last set.
      */
-    private Map<Integer, Double> deliveryPredictabilites = new HashMap<>();
+    private int numberDecays;
+    /** Number of times a delivery predictability has been set. */
+    private long version;
+    /**
+     * Upper bound on the difference between any delivery predictability and the value it would have if all
+     * predictabilities had been exchanged on every encounter.
+     */
+    private double skippedChangeBound;
+    /** Maps addresses of hosts we exchanged delivery predictabilities with to their storage's version at that time. */
+    private Map<Integer, Long> exchangedVersions = new HashMap<>();
     /** The last time delivery predictabilities have been updated. */
     private double lastUpdate;
 
@@ -82,6 +150,11 @@ public class DeliveryPredictabilityStorage extends AbstractIntervalRatingMechani
         assertValueBetweenZeroAndOne(this.gamma, GAMMA_S);
         this.beta = s.getDouble(BETA_S);
         assertValueBetweenZeroAndOne(this.beta, BETA_S);
+        this.deltaExchangeTolerance =
+                s.getDouble(DELTA_EXCHANGE_TOLERANCE_S, DEFAULT_DELTA_EXCHANGE_TOLERANCE);
+        assertValueBetweenZeroAndOne(this.deltaExchangeTolerance, DELTA_EXCHANGE_TOLERANCE_S);
+
+        this.initTable(MINIMUM_TABLE_SIZE);
     }
 
     /**
@@ -92,6 +165,9 @@ public class DeliveryPredictabilityStorage extends AbstractIntervalRatingMechani
         this.summand = storage.summand;
         this.gamma = storage.gamma;
         this.beta = storage.beta;
+        this.deltaExchangeTolerance = storage.deltaExchangeTolerance;
+
+        this.initTable(MINIMUM_TABLE_SIZE);
     }
 
     /**
@@ -139,14 +215,50 @@ public class DeliveryPredictabilityStorage extends AbstractIntervalRatingMechani
         storage2.updateOnConnection(storage1.getAttachedHostAddress());
 
         // Exchange information.
-        // Make sure to copy the delivery predictabilites which are used to update the second host s.t. it is not
-        // dependent the first host's update.
-        Map<Integer, Double> currentPredictabilities1 = new HashMap<>(storage1.deliveryPredictabilites);
-        Map<Integer, Double> currentPredictabilities2 = storage2.deliveryPredictabilites;
-
-        // Use it to update transitive delivery predictabilities.
-        storage1.updateTransitiveDeliveryPredictabilities(storage2.getAttachedHostAddress(), currentPredictabilities2);
-        storage2.updateTransitiveDeliveryPredictabilities(storage1.getAttachedHostAddress(), currentPredictabilities1);
+        // Make sure to collect the delivery predictabilites of both hosts before updating any of them s.t. the updates
+        // are not dependent on each other.
+        PredictabilityEntries entries1 = storage1.collectEntriesToExchangeWith(storage2);
+        PredictabilityEntries entries2 = storage2.collectEntriesToExchangeWith(storage1);
+
+        // Use them to update transitive delivery predictabilities.
+        storage1.updateTransitiveDeliveryPredictabilities(storage2.getAttachedHostAddress(), entries2);
+        storage2.updateTransitiveDeliveryPredictabilities(storage1.getAttachedHostAddress(), entries1);
+
+        // Remember what has been exchanged.
+        storage1.exchangedVersions.put(storage2.getAttachedHostAddress(), storage2.version);
+        storage2.exchangedVersions.put(storage1.getAttachedHostAddress(), storage1.version);
+    }
+
+    /**
+     * Collects the delivery predictabilities the provided storage should use for its transitive updates.
+     *
+     * If the storages have exchanged predictabilities before, and skipping the transitive updates for all
+     * predictabilities unchanged since then keeps the other storage's {@link #skippedChangeBound} within its tolerance,
+     * only changed predictabilities are collected. Otherwise, all of them are.
+     *
+     * @param other The storage of the host we just met.
+     * @return The delivery predictabilities to use for transitive updates.
+     */
+    private PredictabilityEntries collectEntriesToExchangeWith(DeliveryPredictabilityStorage other) {
+        // A transitive update changes a predictability by at most the predictability to the neighbor times the
+        // neighbor's predictability times beta.
+        Long versionAtLastExchange = other.exchangedVersions.get(this.ownAddress);
+        double maximumSkippedChange = other.getDeliveryPredictability(this.ownAddress) * other.beta
+                * this.maximumNormalizedPredictability * this.decayFactor;
+        long changedSince = -1;
+        if (versionAtLastExchange != null
+                && other.skippedChangeBound + maximumSkippedChange <= other.deltaExchangeTolerance) {
+            changedSince = versionAtLastExchange;
+            other.skippedChangeBound += maximumSkippedChange;
+        }
+
+        PredictabilityEntries entries = new PredictabilityEntries();
+        for (int slot = 0; slot < this.addresses.length; slot++) {
+            if (this.versionsAtLastChange[slot] > changedSince && this.isStored(slot)) {
+                entries.add(this.addresses[slot], this.getStoredValue(slot));
+            }
+        }
+        return entries;
     }
 
     /**
@@ -168,24 +280,18 @@ public class DeliveryPredictabilityStorage extends AbstractIntervalRatingMechani
 
     /**
      * Decays all entries in the delivery predictabilities.
+     *
+     * This only updates the table-wide decay factor and the {@link #skippedChangeBound}. If the factor becomes so small
+     * that all values stored before the last compaction pass have fallen below the threshold, the table is compacted.
      */
     private void decayDeliveryPredictabilities() {
         double timeDiff = (SimClock.getTime() - this.lastUpdate) / this.windowLength;
         double decay = Math.pow(this.gamma, timeDiff);
-
-        // For each stored predictability:
-        Iterator<Map.Entry<Integer, Double>> dpIterator = this.deliveryPredictabilites.entrySet().iterator();
-        while (dpIterator.hasNext()) {
-            Map.Entry<Integer, Double> entry = dpIterator.next();
-
-            // Update the value to a decayed version.
-            double agedValue = entry.getValue() * decay;
-            if (agedValue >= MINIMUM_POSITIVE_DELIVERY_PREDICTABILITY) {
-                entry.setValue(agedValue);
-            } else {
-                // If the aged value is small enough, we just set it to zero = delete it.
-                dpIterator.remove();
-            }
+        this.decayFactor *= decay;
+        this.skippedChangeBound *= decay;
+        this.numberDecays++;
+        if (this.decayFactor < MINIMUM_POSITIVE_DELIVERY_PREDICTABILITY) {
+            this.compact();
         }
 
         this.lastUpdate = SimClock.getTime();
@@ -197,19 +303,21 @@ public class DeliveryPredictabilityStorage extends AbstractIntervalRatingMechani
      */
     private void updateDirectDeliveryPredictabilityTo(int hostAddress) {
         double oldValue = this.getDeliveryPredictability(hostAddress);
-        this.deliveryPredictabilites.put(hostAddress, oldValue + (1 - oldValue) * this.summand);
+        this.setDeliveryPredictability(hostAddress, oldValue + (1 - oldValue) * this.summand);
     }
 
     /**
      * Updates transitive (A->B->C) delivery predictabilities.
      * @param othersAddress Address of the host B we just met.
-     * @param otherDeliveryPredictabilities The delivery predictability storage of the B host who we just met.
+     * @param otherDeliveryPredictabilities The delivery predictabilities of the B host who we just met.
      */
     private void updateTransitiveDeliveryPredictabilities(
-            int othersAddress, Map<Integer, Double> otherDeliveryPredictabilities) {
+            int othersAddress, PredictabilityEntries otherDeliveryPredictabilities) {
+        double predictabilityToNeighbor = this.getDeliveryPredictability(othersAddress);
+
         // Change probabilities for all host the other knows...
-        for (Map.Entry<Integer, Double> addressToDeliveryPredictability : otherDeliveryPredictabilities.entrySet()) {
-            int knownAddress = addressToDeliveryPredictability.getKey();
+        for (int i = 0; i < otherDeliveryPredictabilities.size; i++) {
+            int knownAddress = otherDeliveryPredictabilities.addresses[i];
             if (knownAddress == this.ownAddress) {
                 // ...safe for yourself.
                 continue;
@@ -217,9 +325,8 @@ public class DeliveryPredictabilityStorage extends AbstractIntervalRatingMechani
 
             // Change them using the transitive delivery predictability equation:
             double oldValue = this.getDeliveryPredictability(knownAddress);
-            double predictabilityToNeighbor = this.getDeliveryPredictability(othersAddress);
-            double neighborsValue = addressToDeliveryPredictability.getValue();
-            this.deliveryPredictabilites.put(
+            double neighborsValue = otherDeliveryPredictabilities.values[i];
+            this.setDeliveryPredictability(
                     knownAddress, oldValue + (1 - oldValue) * predictabilityToNeighbor * neighborsValue * this.beta);
         }
     }
@@ -229,7 +336,13 @@ public class DeliveryPredictabilityStorage extends AbstractIntervalRatingMechani
      * @return All known host addresses.
      */
     public Collection<Integer> getKnownAddresses() {
-        return this.deliveryPredictabilites.keySet();
+        List<Integer> knownAddresses = new ArrayList<>();
+        for (int slot = 0; slot < this.addresses.length; slot++) {
+            if (this.isStored(slot)) {
+                knownAddresses.add(this.addresses[slot]);
+            }
+        }
+        return knownAddresses;
     }
 
     /**
@@ -254,7 +367,7 @@ public class DeliveryPredictabilityStorage extends AbstractIntervalRatingMechani
                 return this.getDeliveryPredictability(message.getTo());
             case MULTICAST:
                 MulticastMessage multicast = (MulticastMessage)message;
-                return this.getMaximumDeliveryPredictability(multicast.getRemainingRecipients());
+                return this.getMaximumDeliveryPredictability(multicast);
             default:
                 throw new IllegalArgumentException(
                         "No delivery predictability for messages of type " + message.getType() + " defined!");
@@ -262,13 +375,15 @@ public class DeliveryPredictabilityStorage extends AbstractIntervalRatingMechani
     }
 
     /**
-     * Returns the maximum delivery predictability to any of the provided addresses.
-     * @param addresses The addresses to check the delivery predictability for.
+     * Returns the maximum delivery predictability to any of the remaining recipients of the provided multicast.
+     * @param multicast The multicast to check the delivery predictability for.
      * @return The maximum delivery predictability.
      */
-    private double getMaximumDeliveryPredictability(Collection<Integer> addresses) {
+    private double getMaximumDeliveryPredictability(MulticastMessage multicast) {
         double maxDeliveryPred = 0;
-        for (int address : addresses) {
+        for (int address = multicast.nextRemainingRecipient(0);
+             address >= 0;
+             address = multicast.nextRemainingRecipient(address + 1)) {
             maxDeliveryPred = Math.max(maxDeliveryPred, this.getDeliveryPredictability(address));
         }
         return maxDeliveryPred;
@@ -280,7 +395,124 @@ public class DeliveryPredictabilityStorage extends AbstractIntervalRatingMechani
      * @return The delivery predictability.
      */
     private double getDeliveryPredictability(int address) {
-        return this.deliveryPredictabilites.getOrDefault(address, 0D);
+        int slot = this.findSlot(address);
+        if (!this.isStored(slot)) {
+            return 0;
+        }
+        return this.getStoredValue(slot);
+    }
+
+    /**
+     * Stores the delivery predictability for the provided address.
+     * @param address The address to store the delivery predictability for.
+     * @param predictability The delivery predictability.
+     */
+    private void setDeliveryPredictability(int address, double predictability) {
+        int slot = this.findSlot(address);
+        if (this.addresses[slot] == EMPTY) {
+            this.addresses[slot] = address;
+            this.usedSlots++;
+        }
+        this.normalizedPredictabilities[slot] = predictability / this.decayFactor;
+        this.numberDecaysAtLastChange[slot] = this.numberDecays;
+        this.version++;
+        this.versionsAtLastChange[slot] = this.version;
+        this.maximumNormalizedPredictability =
+                Math.max(this.maximumNormalizedPredictability, this.normalizedPredictabilities[slot]);
+
+        if (this.usedSlots * 2 > this.addresses.length) {
+            this.compact();
+        }
+    }
+
+    /**
+     * Checks whether the provided slot stores a delivery predictability which has not been dropped yet, i.e. which has
+     * not been decayed below the threshold.
+     * @param slot The slot to check.
+     * @return True iff the predictability at that slot should be considered.
+     */
+    private boolean isStored(int slot) {
+        return this.addresses[slot] != EMPTY
+                && (this.numberDecaysAtLastChange[slot] == this.numberDecays
+                    || this.getStoredValue(slot) >= MINIMUM_POSITIVE_DELIVERY_PREDICTABILITY);
+    }
+
+    /**
+     * Returns the current delivery predictability stored at the provided slot.
+     * @param slot The slot to look at.
+     * @return The delivery predictability.
+     */
+    private double getStoredValue(int slot) {
+        return this.normalizedPredictabilities[slot] * this.decayFactor;
+    }
+
+    /**
+     * Creates an empty hash table of the provided size.
+     * @param tableSize The table size. Has to be a power of two.
+     */
+    private void initTable(int tableSize) {
+        this.addresses = new int[tableSize];
+        this.normalizedPredictabilities = new double[tableSize];
+        this.numberDecaysAtLastChange = new int[tableSize];
+        this.versionsAtLastChange = new long[tableSize];
+        this.maximumNormalizedPredictability = 0;
+        this.tableMask = tableSize - 1;
+        this.usedSlots = 0;
+        this.decayFactor = 1;
+        Arrays.fill(this.addresses, EMPTY);
+    }
+
+    /**
+     * Returns the slot containing the address, or the empty slot it would be inserted into.
+     * @param address The address to find.
+     * @return The slot.
+     */
+    private int findSlot(int address) {
+        int hash = address * HASH_MULTIPLIER;
+        int slot = (hash ^ (hash >>> HASH_SHIFT)) & this.tableMask;
+        while (this.addresses[slot] != EMPTY && this.addresses[slot] != address) {
+            slot = (slot + 1) & this.tableMask;
+        }
+        return slot;
+    }
+
+    /**
+     * Rebuilds the hash table: Applies the decay factor to all stored values, drops those which have been decayed below
+     * the threshold and resizes the table according to the number of remaining values.
+     */
+    private void compact() {
+        int[] oldAddresses = this.addresses;
+        double[] oldValues = new double[oldAddresses.length];
+        int[] oldNumberDecaysAtLastChange = this.numberDecaysAtLastChange;
+        long[] oldVersionsAtLastChange = this.versionsAtLastChange;
+
+        int remaining = 0;
+        for (int slot = 0; slot < oldAddresses.length; slot++) {
+            if (this.isStored(slot)) {
+                oldValues[slot] = this.getStoredValue(slot);
+                remaining++;
+            } else {
+                oldAddresses[slot] = EMPTY;
+            }
+        }
+        int tableSize = MINIMUM_TABLE_SIZE;
+        while (tableSize < remaining * TABLE_SIZE_FACTOR) {
+            tableSize <<= 1;
+        }
+
+        this.initTable(tableSize);
+        for (int oldSlot = 0; oldSlot < oldAddresses.length; oldSlot++) {
+            if (oldAddresses[oldSlot] != EMPTY) {
+                int slot = this.findSlot(oldAddresses[oldSlot]);
+                this.addresses[slot] = oldAddresses[oldSlot];
+                this.normalizedPredictabilities[slot] = oldValues[oldSlot];
+                this.numberDecaysAtLastChange[slot] = oldNumberDecaysAtLastChange[oldSlot];
+                this.versionsAtLastChange[slot] = oldVersionsAtLastChange[oldSlot];
+                this.maximumNormalizedPredictability =
+                        Math.max(this.maximumNormalizedPredictability, oldValues[oldSlot]);
+                this.usedSlots++;
+            }
+        }
     }
 
     /**
@@ -314,4 +546,34 @@ public class DeliveryPredictabilityStorage extends AbstractIntervalRatingMechani
     public int getAttachedHostAddress() {
         return this.ownAddress;
     }
+
+    /**
+     * Delivery predictabilities collected from a storage to be used in transitive updates.
+     */
+    private static final class PredictabilityEntries {
+        /** Initial capacity of the arrays. */
+        private static final int INITIAL_CAPACITY = 16;
+
+        /** Host addresses. */
+        private int[] addresses = new int[INITIAL_CAPACITY];
+        /** Delivery predictabilities to the host addresses at the same index. */
+        private double[] values = new double[INITIAL_CAPACITY];
+        /** Number of collected delivery predictabilities. */
+        private int size;
+
+        /**
+         * Adds a delivery predictability.
+         * @param address The host address.
+         * @param value The delivery predictability to that host.
+         */
+        private void add(int address, double value) {
+            if (this.size == this.addresses.length) {
+                this.addresses = Arrays.copyOf(this.addresses, this.size * 2);
+                this.values = Arrays.copyOf(this.values, this.size * 2);
+            }
+            this.addresses[this.size] = address;
+            this.values[this.size] = value;
+            this.size++;
+        }
+    }
 }
@@ -9,7 +9,6 @@ import routing.DisasterRouter;
 import routing.MessageRouter;
 
 import java.util.Comparator;
-import java.util.HashMap;
 
 /**
  * Compares two messages deciding which one should be deleted first, if the need occurs.
@@ -78,11 +77,11 @@ public class DisasterBufferComparator implements Comparator<Message> {
             Comparator.<Message> comparingInt(m -> (-1) * m.getHopCount()).thenComparing(Message::getReceiveTime);
 
     /**
-     * Caches deletion rank values for messages not having a high rank. Very useful because comparators may be called
-     * multiple times for each item.
+     * Caches deletion rank values for messages not having a high rank by message handle. Very useful because
+     * comparators may be called multiple times for each item.
      * Invalidated every timestep to ensure correct value.
      */
-    private HashMap<Message, Double> deletionRankCache = new HashMap<>();
+    private EpochStampedScores deletionRankCache = new EpochStampedScores();
     /**
      * The simulation time the current {@link #deletionRankCache} is for.
      */
@@ -114,6 +113,7 @@ public class DisasterBufferComparator implements Comparator<Message> {
     public DisasterBufferComparator(DisasterBufferComparator bufferComparator, MessageRouter attachedRouter) {
         this.hopThreshold = bufferComparator.hopThreshold;
         this.ageThreshold = bufferComparator.ageThreshold;
+        this.deliveryPredictabilityWeight = bufferComparator.deliveryPredictabilityWeight;
 
         DisasterBufferComparator.checkRouterIsDisasterRouter(attachedRouter);
         this.attachedRouter = (DisasterRouter)attachedRouter;
@@ -174,13 +174,13 @@ public class DisasterBufferComparator implements Comparator<Message> {
         this.possiblyInvalidateCache();
 
         // Then: If we already have the deletion rank cached, don't compute it.
-        Double cachedValue = this.deletionRankCache.get(m);
-        if (cachedValue != null) {
-            return cachedValue;
+        int handle = m.getHandle();
+        if (this.deletionRankCache.contains(handle)) {
+            return this.deletionRankCache.get(handle);
         }
 
         // Else: Compute the value...
-        Double deletionRank;
+        double deletionRank;
         double inverseReplicationsDensity = 1 - this.attachedRouter.getReplicationsDensity(m);
         if (m instanceof BroadcastMessage) {
             deletionRank = inverseReplicationsDensity;
@@ -191,7 +191,7 @@ public class DisasterBufferComparator implements Comparator<Message> {
         }
 
         // ...and cache it before returning.
-        this.deletionRankCache.put(m, deletionRank);
+        this.deletionRankCache.put(handle, deletionRank);
         return deletionRank;
     }
 
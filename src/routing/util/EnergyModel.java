@@ -40,9 +40,26 @@ public class EnergyModel implements ModuleCommunicationListener {
 	 * {@value report.Report#REPORT_NS}. */
 	public static final String WARMUP_S = "energyWarmup";
 
+	/** Lazy energy accounting -setting id ({@value}). Boolean, false by
+	 * default. If true, the energy level is not written to the
+	 * {@link ModuleCommunicationBus} after every update round. Instead, the
+	 * model keeps the current drain rate, which only changes when the
+	 * interface starts or stops scanning or transmitting, computes the energy
+	 * level on demand and predicts the time the battery is depleted at. The
+	 * value on the bus is then only updated once the battery is depleted, so
+	 * components which compare it against 0 still work, but e.g.
+	 * {@link report.EnergyLevelReport} does not see intermediate levels.
+	 * {@link #getEnergy()} and {@link #getEnergyRatio()} are always up to
+	 * date, so thresholds on them are crossed at the same update round as
+	 * without lazy accounting. */
+	public static final String LAZY_ENERGY_S = "lazyEnergy";
+
 	/** {@link ModuleCommunicationBus} identifier for the "current amount of
 	 * energy left" variable. Value type: double */
 	public static final String ENERGY_VALUE_ID = "Energy.value";
+	/** Key for the "current amount of energy left" variable */
+	public static final ModuleCommunicationBus.DoubleKey ENERGY_VALUE_KEY =
+		ModuleCommunicationBus.DoubleKey.register(ENERGY_VALUE_ID);
 
 	/** Initial energy levels from the settings */
 	private final double[] initEnergy;
@@ -57,6 +74,14 @@ public class EnergyModel implements ModuleCommunicationListener {
 	private double scanResponseEnergy;
 	/** sim time of the last energy updated */
 	private double lastUpdate;
+	/** whether energy is accounted lazily, see {@link #LAZY_ENERGY_S} */
+	private boolean lazy;
+	/** lazy accounting: sim time {@link #currentEnergy} is the level at */
+	private double settledTime;
+	/** lazy accounting: energy used per second since {@link #settledTime} */
+	private double drainRate;
+	/** lazy accounting: predicted sim time the battery is depleted at */
+	private double depletionTime = Double.POSITIVE_INFINITY;
 	private ModuleCommunicationBus comBus;
 	private static Random rng = null;
 
@@ -70,6 +95,7 @@ public class EnergyModel implements ModuleCommunicationListener {
 		this.scanEnergy = s.getDouble(SCAN_ENERGY_S);
 		this.transmitEnergy = s.getDouble(TRANSMIT_ENERGY_S);
 		this.scanResponseEnergy = s.getDouble(SCAN_RSP_ENERGY_S);
+		this.lazy = s.getBoolean(LAZY_ENERGY_S, false);
 
 		if (s.contains(WARMUP_S)) {
 			this.warmupTime = s.getInt(WARMUP_S);
@@ -94,6 +120,7 @@ public class EnergyModel implements ModuleCommunicationListener {
 		this.transmitEnergy = proto.transmitEnergy;
 		this.warmupTime  = proto.warmupTime;
 		this.scanResponseEnergy = proto.scanResponseEnergy;
+		this.lazy = proto.lazy;
 		this.comBus = null;
 		this.lastUpdate = 0;
 	}
@@ -154,6 +181,9 @@ public class EnergyModel implements ModuleCommunicationListener {
 	 * @return the current energy level
 	 */
 	public double getEnergy() {
+		if (this.lazy) {
+			return this.energyAt(this.lastUpdate);
+		}
 		return this.currentEnergy;
 	}
 
@@ -163,7 +193,7 @@ public class EnergyModel implements ModuleCommunicationListener {
      * @return Percentage as a value between 0 and 1.
      */
 	public double getEnergyRatio() {
-        return this.currentEnergy / this.initEnergy[this.initEnergy.length - 1];
+        return this.getEnergy() / this.initEnergy[this.initEnergy.length - 1];
     }
 
 	/**
@@ -181,10 +211,19 @@ public class EnergyModel implements ModuleCommunicationListener {
 			return; /* model not initialized (via update) yet */
 		}
 
+		if (this.lazy) {
+			settle(this.lastUpdate, this.drainRate, amount);
+			return;
+		}
+
+		if (this.currentEnergy <= 0) {
+			return; /* already depleted, no need to notify the listeners again */
+		}
+
 		if (amount >= this.currentEnergy) {
-			comBus.updateProperty(ENERGY_VALUE_ID, 0.0);
+			comBus.setDouble(ENERGY_VALUE_KEY, 0.0);
 		} else {
-			comBus.updateDouble(ENERGY_VALUE_ID, -amount);
+			comBus.setDouble(ENERGY_VALUE_KEY, this.currentEnergy - amount);
 		}
 
 	}
@@ -199,7 +238,9 @@ public class EnergyModel implements ModuleCommunicationListener {
 
 	/**
 	 * Reduces the energy reserve for the amount that is used by sending data
-	 * and scanning for the other nodes.
+	 * and scanning for the other nodes. The energy used in this update round
+	 * is summed up first, so that the energy value on the bus (and all of its
+	 * listeners) is updated at most once per round.
 	 */
 	public void update(NetworkInterface iface, ModuleCommunicationBus comBus) {
 		double simTime = SimClock.getTime();
@@ -207,26 +248,113 @@ public class EnergyModel implements ModuleCommunicationListener {
 
 		if (this.comBus == null) {
 			this.comBus = comBus;
-			this.comBus.addProperty(ENERGY_VALUE_ID, this.currentEnergy);
+			this.comBus.addDouble(ENERGY_VALUE_KEY, this.currentEnergy);
 			this.comBus.subscribe(ENERGY_VALUE_ID, this);
 		}
 
+		/* energy used per second of this round, and energy used once */
+		double transmitDrain = 0;
+		double scanDrain = 0;
+		double fixedUsage = 0;
 		if (simTime > this.lastUpdate && iface.isTransferring()) {
 			/* sending or receiving data */
-			reduceEnergy(delta * this.transmitEnergy);
+			transmitDrain = this.transmitEnergy;
 		}
-		this.lastUpdate = simTime;
 
 		if (iface.isScanning()) {
 			/* scanning at this update round */
 			if (iface.getTransmitRange() > 0) {
 				if (delta < 1) {
-					reduceEnergy(this.scanEnergy * delta);
+					scanDrain = this.scanEnergy;
 				} else {
-					reduceEnergy(this.scanEnergy);
+					fixedUsage = this.scanEnergy;
 				}
 			}
 		}
+
+		if (this.lazy) {
+			updateLazily(simTime, transmitDrain + scanDrain, fixedUsage);
+			return;
+		}
+		this.lastUpdate = simTime;
+
+		double usedEnergy =
+			delta * transmitDrain + scanDrain * delta + fixedUsage;
+		if (usedEnergy > 0) {
+			reduceEnergy(usedEnergy);
+		}
+	}
+
+	/**
+	 * Lazy accounting: Charges the round since the last update. The energy
+	 * level is only settled if the drain rate changed or energy was used
+	 * once, otherwise it suffices to check the predicted depletion time.
+	 * @param simTime The current sim time
+	 * @param drain Energy used per second of this round
+	 * @param fixedUsage Energy used once in this round
+	 */
+	private void updateLazily(double simTime, double drain, double fixedUsage) {
+		/* no energy is used before the warmup time, see reduceEnergy */
+		if (simTime >= this.warmupTime) {
+			if (drain != this.drainRate || fixedUsage > 0) {
+				settle(simTime, drain, fixedUsage);
+			} else if (simTime >= this.depletionTime && this.currentEnergy > 0) {
+				/* the predicted depletion happened in this round */
+				this.comBus.setDouble(ENERGY_VALUE_KEY, 0.0);
+			}
+		}
+		this.lastUpdate = simTime;
+	}
+
+	/**
+	 * Lazy accounting: Settles the energy level at the given time. The time
+	 * since the last update is charged with the given drain rate, which is
+	 * used from then on, and the given amount is used on top. If the battery
+	 * is depleted by that, this is published on the bus.
+	 * @param time The time to settle the energy level at
+	 * @param drain Energy used per second since the last update
+	 * @param amount Energy used once
+	 */
+	private void settle(double time, double drain, double amount) {
+		double energy = energyAt(this.lastUpdate);
+		if (energy <= 0) {
+			return; /* already depleted, no need to notify the listeners again */
+		}
+
+		this.currentEnergy = energy - drain * (time - this.lastUpdate) - amount;
+		this.settledTime = time;
+		this.drainRate = drain;
+		predictDepletion();
+
+		if (this.currentEnergy <= 0) {
+			this.comBus.setDouble(ENERGY_VALUE_KEY, 0.0);
+		}
+	}
+
+	/**
+	 * Lazy accounting: Computes the energy level at the given time from the
+	 * last settled level and the drain rate since then.
+	 * @param time The time to compute the energy level for
+	 * @return The energy level, never below 0
+	 */
+	private double energyAt(double time) {
+		return Math.max(0,
+				this.currentEnergy - this.drainRate * (time - this.settledTime));
+	}
+
+	/**
+	 * Lazy accounting: Predicts the time the battery is depleted at if the
+	 * drain rate does not change.
+	 */
+	private void predictDepletion() {
+		if (this.currentEnergy <= 0) {
+			this.depletionTime = this.settledTime;
+		} else if (this.drainRate > 0) {
+			this.depletionTime =
+				this.settledTime + this.currentEnergy / this.drainRate;
+		} else {
+			this.depletionTime = Double.POSITIVE_INFINITY;
+		}
 	}
 
 	/**
@@ -236,6 +364,11 @@ public class EnergyModel implements ModuleCommunicationListener {
 	 */
 	public void moduleValueChanged(String key, Object newValue) {
 		this.currentEnergy = (Double)newValue;
+		if (this.lazy) {
+			/* value was set from outside (e.g. recharged) or depleted */
+			this.settledTime = this.lastUpdate;
+			predictDepletion();
+		}
 	}
 
 }
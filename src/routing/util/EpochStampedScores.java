@@ -0,0 +1,61 @@
+package routing.util;
+
+import core.Message;
+
+/**
+ * A cache of scores indexed by message handle (see {@link Message#getHandle()}).
+ *
+ * The handles are stored in an {@link EpochStampedSet}, and each score is stored in an array at its handle's slot.
+ * Clearing the cache just starts a new epoch. Reading and writing scores therefore takes expected constant time and
+ * does not allocate any objects unless the table grows.
+ *
+ * Message handles are global and therefore grow with the total number of messages in the simulation. The table's size
+ * only depends on the number of scores stored in a single epoch instead.
+ */
+public class EpochStampedScores extends EpochStampedSet {
+    /** Cached scores, indexed by the slot of their handle. */
+    private double[] scores;
+
+    /**
+     * Initializes a new, empty instance of the {@link EpochStampedScores} class.
+     */
+    public EpochStampedScores() {
+        super();
+        this.scores = new double[this.getTableSize()];
+    }
+
+    /**
+     * Returns the score stored for the provided message handle. Only valid if {@link #contains(long)} is true.
+     * @param handle The message handle.
+     * @return The stored score.
+     */
+    public double get(int handle) {
+        return this.scores[this.findSlot(handle)];
+    }
+
+    /**
+     * Stores a score for the provided message handle in the current epoch.
+     * @param handle The message handle.
+     * @param score The score to store.
+     */
+    public void put(int handle, double score) {
+        // Find the slot first: Adding the handle may replace the scores array.
+        int slot = this.addAndFindSlot(handle);
+        this.scores[slot] = score;
+    }
+
+    /**
+     * Moves the scores to the new slots of their handles.
+     * @param newSlots The new slot of each key by its old slot, or -1 for old slots which did not contain a key.
+     */
+    @Override
+    protected void tableGrown(int[] newSlots) {
+        double[] oldScores = this.scores;
+        this.scores = new double[this.getTableSize()];
+        for (int oldSlot = 0; oldSlot < newSlots.length; oldSlot++) {
+            if (newSlots[oldSlot] >= 0) {
+                this.scores[newSlots[oldSlot]] = oldScores[oldSlot];
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package routing.util;
+
+import java.util.Arrays;
+
+/**
+ * A set of long keys which can be cleared in constant time.
+ *
+ * Keys are stored in an open addressing hash table in which every slot is stamped with the epoch it was filled in.
+ * Clearing the set just starts a new epoch, which turns all slots filled in earlier epochs into empty ones. Adding keys
+ * and checking for membership therefore take constant time and do not allocate any objects unless the table grows.
+ *
+ * Subclasses may store a value for each key in arrays indexed by slot, see {@link EpochStampedScores}.
+ */
+public class EpochStampedSet {
+    /** Size of the hash table of a newly created set. Has to be a power of two. */
+    private static final int INITIAL_TABLE_SIZE = 16;
+
+    /** Golden ratio constant used to spread keys over the hash table. */
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+    /** Number of bits the hash is shifted by to use its upper half. */
+    private static final int HASH_SHIFT = 32;
+
+    /** Hash table keys. Only valid for slots stamped with the current epoch. */
+    private long[] keys;
+    /** Epoch in which the slot at the same index in {@link #keys} was filled. */
+    private int[] epochs;
+    /** Mask used to map hashes into {@link #keys}. */
+    private int tableMask;
+
+    /** The current epoch. Never 0, so that newly created slots are empty. */
+    private int epoch = 1;
+    /** Number of keys added in the current epoch. */
+    private int size;
+
+    /**
+     * Initializes a new, empty instance of the {@link EpochStampedSet} class.
+     */
+    public EpochStampedSet() {
+        this.initTable(INITIAL_TABLE_SIZE);
+    }
+
+    /**
+     * Adds a key to the set.
+     * @param key The key to add.
+     * @return True iff the key was not contained in the set before.
+     */
+    public boolean add(long key) {
+        int sizeBefore = this.size;
+        this.addAndFindSlot(key);
+        return this.size > sizeBefore;
+    }
+
+    /**
+     * Checks whether the set contains the provided key.
+     * @param key The key to check.
+     * @return True iff the key is contained.
+     */
+    public boolean contains(long key) {
+        return this.epochs[this.findSlot(key)] == this.epoch;
+    }
+
+    /**
+     * Returns the number of keys in the set.
+     * @return The number of keys.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Removes all keys from the set.
+     */
+    public void clear() {
+        if (this.epoch == Integer.MAX_VALUE) {
+            Arrays.fill(this.epochs, 0);
+            this.epoch = 0;
+        }
+        this.epoch++;
+        this.size = 0;
+    }
+
+    /**
+     * Adds a key to the set if it is not contained yet.
+     * @param key The key to add.
+     * @return The slot containing the key.
+     */
+    protected int addAndFindSlot(long key) {
+        int slot = this.findSlot(key);
+        if (this.epochs[slot] == this.epoch) {
+            return slot;
+        }
+
+        if ((this.size + 1) * 2 > this.keys.length) {
+            this.grow();
+            slot = this.findSlot(key);
+        }
+        this.keys[slot] = key;
+        this.epochs[slot] = this.epoch;
+        this.size++;
+        return slot;
+    }
+
+    /**
+     * Returns the size of the hash table.
+     * @return The number of slots.
+     */
+    protected int getTableSize() {
+        return this.keys.length;
+    }
+
+    /**
+     * Called after the hash table grew. Subclasses storing values by slot have to move them to their new slots.
+     * @param newSlots The new slot of each key by its old slot, or -1 for old slots which did not contain a key.
+     */
+    protected void tableGrown(int[] newSlots) {
+        // Nothing to move.
+    }
+
+    /**
+     * Creates an empty hash table of the provided size.
+     */
+    private void initTable(int tableSize) {
+        this.keys = new long[tableSize];
+        this.epochs = new int[tableSize];
+        this.tableMask = tableSize - 1;
+    }
+
+    /**
+     * Returns the slot containing the key, or the empty slot it would be inserted into.
+     * @param key The key to look for.
+     * @return The slot.
+     */
+    protected int findSlot(long key) {
+        int slot = (int)((key * HASH_MULTIPLIER) >>> HASH_SHIFT) & this.tableMask;
+        while (this.epochs[slot] == this.epoch && this.keys[slot] != key) {
+            slot = (slot + 1) & this.tableMask;
+        }
+        return slot;
+    }
+
+    /**
+     * Doubles the hash table size, keeping all keys of the current epoch.
+     */
+    private void grow() {
+        long[] oldKeys = this.keys;
+        int[] oldEpochs = this.epochs;
+        int[] newSlots = new int[oldKeys.length];
+        this.initTable(oldKeys.length * 2);
+        for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+            newSlots[oldSlot] = -1;
+            if (oldEpochs[oldSlot] == this.epoch) {
+                int slot = this.findSlot(oldKeys[oldSlot]);
+                this.keys[slot] = oldKeys[oldSlot];
+                this.epochs[slot] = this.epoch;
+                newSlots[oldSlot] = slot;
+            }
+        }
+        this.tableGrown(newSlots);
+    }
+}
@@ -0,0 +1,216 @@
+package routing.util;
+
+import core.Connection;
+import core.Message;
+import util.Tuple;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Per-connection queues of (message, connection) forwarding candidates, each sorted by descending utility.
+ *
+ * Routers like PRoPHET only forward a message over a connection if the neighbor is a better carrier, and try
+ * candidates with higher utilities first. Which messages qualify and in which order only changes if one of the two
+ * routers' buffers or delivery predictabilities change. Each queue is therefore stored together with version numbers
+ * of both routers and is reused as long as neither version changed. Routers are responsible for incrementing their
+ * version whenever something changes that affects their candidates.
+ *
+ * The queues of all connections are combined by {@link #merge(List, ToDoubleFunction, Comparator)}, which yields the
+ * same order as a stable sort of all candidates would, without sorting again.
+ */
+public class ForwardingCandidateQueues {
+    /** Queues by connection. */
+    private final Map<Connection, CandidateQueue> queues = new IdentityHashMap<>();
+
+    /**
+     * Returns the stored queue for the provided connection if it was stored with the provided versions.
+     * @param con The connection to get the queue for.
+     * @param ownVersion The current version of the router storing the queue.
+     * @param neighborVersion The current version of the router on the other side of the connection.
+     * @return The stored queue or null if no up to date queue exists.
+     */
+    public List<Tuple<Message, Connection>> getQueue(Connection con, long ownVersion, long neighborVersion) {
+        CandidateQueue queue = this.queues.get(con);
+        if (queue == null || queue.ownVersion != ownVersion || queue.neighborVersion != neighborVersion) {
+            return null;
+        }
+        return queue.candidates;
+    }
+
+    /**
+     * Stores a queue for the provided connection, replacing any queue stored before.
+     * @param con The connection to store the queue for.
+     * @param candidates The candidates, sorted by descending utility. The list must not be changed afterwards.
+     * @param ownVersion The current version of the router storing the queue.
+     * @param neighborVersion The current version of the router on the other side of the connection.
+     */
+    public void putQueue(
+            Connection con, List<Tuple<Message, Connection>> candidates, long ownVersion, long neighborVersion) {
+        this.queues.put(con, new CandidateQueue(candidates, ownVersion, neighborVersion));
+    }
+
+    /**
+     * Removes the queues of all connections which are not contained in the provided collection.
+     * @param connections The connections whose queues should be kept.
+     */
+    public void retainConnections(Collection<Connection> connections) {
+        if (this.queues.size() <= connections.size() && connections.containsAll(this.queues.keySet())) {
+            return;
+        }
+        Iterator<Connection> iterator = this.queues.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (!connections.contains(iterator.next())) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Stably sorts candidates by descending utility, using the provided comparator for candidates of equal utility.
+     *
+     * @param candidates The candidates to sort.
+     * @param utilities The candidates' utilities, at the same indices as the candidates. Will be sorted as well.
+     * @param tieBreaker Comparator used for candidates of equal utility.
+     */
+    public static void sortByDescendingUtility(
+            List<Tuple<Message, Connection>> candidates, double[] utilities, Comparator<Message> tieBreaker) {
+        int numberOfCandidates = candidates.size();
+        List<Tuple<Message, Connection>> source = new ArrayList<>(candidates);
+        List<Tuple<Message, Connection>> target = candidates;
+        double[] sourceUtilities = utilities.clone();
+        double[] targetUtilities = utilities;
+
+        // Bottom-up merge sort, alternating between the two buffers.
+        for (int width = 1; width < numberOfCandidates; width *= 2) {
+            for (int start = 0; start < numberOfCandidates; start += 2 * width) {
+                int middle = Math.min(start + width, numberOfCandidates);
+                int end = Math.min(start + 2 * width, numberOfCandidates);
+                int left = start;
+                int right = middle;
+                for (int i = start; i < end; i++) {
+                    boolean takeLeft = right >= end || (left < middle && !comesBefore(
+                            sourceUtilities[right], source.get(right), sourceUtilities[left], source.get(left),
+                            tieBreaker));
+                    int chosen = takeLeft ? left++ : right++;
+                    target.set(i, source.get(chosen));
+                    targetUtilities[i] = sourceUtilities[chosen];
+                }
+            }
+            List<Tuple<Message, Connection>> swap = source;
+            source = target;
+            target = swap;
+            double[] swapUtilities = sourceUtilities;
+            sourceUtilities = targetUtilities;
+            targetUtilities = swapUtilities;
+        }
+
+        if (source != candidates) {
+            for (int i = 0; i < numberOfCandidates; i++) {
+                candidates.set(i, source.get(i));
+            }
+            System.arraycopy(sourceUtilities, 0, utilities, 0, numberOfCandidates);
+        }
+    }
+
+    /**
+     * Merges queues sorted by descending utility into a single list sorted by descending utility. Candidates of equal
+     * utility are ordered by the provided comparator, and candidates which are equal in both respects keep the order of
+     * the queues they come from.
+     *
+     * The utility of each candidate is computed exactly once.
+     *
+     * @param queues The queues to merge.
+     * @param utility Function computing a candidate's current utility.
+     * @param tieBreaker Comparator used for candidates of equal utility.
+     * @return The merged list.
+     */
+    public static List<Tuple<Message, Connection>> merge(
+            List<List<Tuple<Message, Connection>>> queues, ToDoubleFunction<Tuple<Message, Connection>> utility,
+            Comparator<Message> tieBreaker) {
+        int numberOfQueues = queues.size();
+        int[] positions = new int[numberOfQueues];
+        double[] headUtilities = new double[numberOfQueues];
+        int numberOfCandidates = 0;
+        for (int i = 0; i < numberOfQueues; i++) {
+            List<Tuple<Message, Connection>> queue = queues.get(i);
+            numberOfCandidates += queue.size();
+            if (!queue.isEmpty()) {
+                headUtilities[i] = utility.applyAsDouble(queue.get(0));
+            }
+        }
+
+        List<Tuple<Message, Connection>> merged = new ArrayList<>(numberOfCandidates);
+        while (merged.size() < numberOfCandidates) {
+            int best = -1;
+            for (int i = 0; i < numberOfQueues; i++) {
+                if (positions[i] >= queues.get(i).size()) {
+                    continue;
+                }
+                if (best < 0 || comesBefore(
+                        headUtilities[i], queues.get(i).get(positions[i]),
+                        headUtilities[best], queues.get(best).get(positions[best]), tieBreaker)) {
+                    best = i;
+                }
+            }
+
+            List<Tuple<Message, Connection>> bestQueue = queues.get(best);
+            merged.add(bestQueue.get(positions[best]));
+            positions[best]++;
+            if (positions[best] < bestQueue.size()) {
+                headUtilities[best] = utility.applyAsDouble(bestQueue.get(positions[best]));
+            }
+        }
+
+        return merged;
+    }
+
+    /**
+     * Checks whether the first candidate strictly comes before the second one.
+     * @param utility1 The first candidate's utility.
+     * @param candidate1 The first candidate.
+     * @param utility2 The second candidate's utility.
+     * @param candidate2 The second candidate.
+     * @param tieBreaker Comparator used for candidates of equal utility.
+     * @return True iff the first candidate has a higher utility, or an equal one and is ordered first by the
+     * comparator.
+     */
+    private static boolean comesBefore(
+            double utility1, Tuple<Message, Connection> candidate1,
+            double utility2, Tuple<Message, Connection> candidate2, Comparator<Message> tieBreaker) {
+        if (utility1 != utility2) {
+            return utility1 > utility2;
+        }
+        return tieBreaker.compare(candidate1.getKey(), candidate2.getKey()) < 0;
+    }
+
+    /**
+     * A queue of candidates together with the router versions it was computed for.
+     */
+    private static final class CandidateQueue {
+        /** The candidates, sorted by descending utility. */
+        private final List<Tuple<Message, Connection>> candidates;
+        /** Version of the router storing the queue when the queue was computed. */
+        private final long ownVersion;
+        /** Version of the neighboring router when the queue was computed. */
+        private final long neighborVersion;
+
+        /**
+         * Initializes a new instance of the {@link CandidateQueue} class.
+         * @param candidates The candidates, sorted by descending utility.
+         * @param ownVersion Version of the router storing the queue.
+         * @param neighborVersion Version of the neighboring router.
+         */
+        private CandidateQueue(List<Tuple<Message, Connection>> candidates, long ownVersion, long neighborVersion) {
+            this.candidates = candidates;
+            this.ownVersion = ownVersion;
+            this.neighborVersion = neighborVersion;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package routing.util;
+
+import core.DTNHost;
+import core.Message;
+
+import java.util.Arrays;
+
+/**
+ * Remembers the most recent (message, host) pairs, e.g. to avoid sending a message to the same host twice.
+ *
+ * The pairs are packed into longs consisting of the message handle (see {@link Message#getHandle()}) and the host
+ * address. They are stored in a ring buffer which evicts the oldest pair once the capacity is reached, and in an open
+ * addressing hash table counting the occurrences of each pair. Both adding a pair and checking for membership
+ * therefore take constant time and do not allocate any objects.
+ */
+public class MessageHistory {
+    /** Marks an empty slot in {@link #keys}. No valid pair is packed into this value as handles are non-negative. */
+    private static final long EMPTY = -1L;
+
+    /** Golden ratio constant used to spread packed pairs over the hash table. */
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /** Number of bits the message handle is shifted by when packing a pair. */
+    private static final int HANDLE_SHIFT = 32;
+
+    /** Mask extracting the lower 32 bits, i. e. the host address part of a packed pair. */
+    private static final long ADDRESS_MASK = 0xFFFFFFFFL;
+
+    /** Maximum number of pairs remembered. */
+    private final int capacity;
+
+    /** Ring buffer of remembered pairs, oldest pair at {@link #oldestIndex}. */
+    private final long[] ring;
+    /** Index of the oldest pair in {@link #ring}. */
+    private int oldestIndex;
+    /** Number of pairs currently remembered. */
+    private int size;
+
+    /** Hash table keys: Packed pairs or {@link #EMPTY}. */
+    private final long[] keys;
+    /** Number of times the pair at the same index in {@link #keys} is contained in {@link #ring}. */
+    private final int[] counts;
+    /** Mask used to map hashes into {@link #keys}. */
+    private final int tableMask;
+
+    /**
+     * Initializes a new instance of the {@link MessageHistory} class.
+     * @param capacity Maximum number of pairs to remember. Must be positive.
+     */
+    public MessageHistory(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("History capacity must be positive, but is " + capacity + "!");
+        }
+        this.capacity = capacity;
+        this.ring = new long[capacity];
+
+        // Keep the load factor at 0.5 or below.
+        int tableSize = Integer.highestOneBit(capacity) << 2;
+        this.keys = new long[tableSize];
+        this.counts = new int[tableSize];
+        this.tableMask = tableSize - 1;
+        Arrays.fill(this.keys, EMPTY);
+    }
+
+    /**
+     * Adds a pair to the history. If the history is full, the oldest pair is evicted.
+     * @param message The message.
+     * @param host The host.
+     */
+    public void add(Message message, DTNHost host) {
+        long pair = pack(message.getHandle(), host.getAddress());
+        if (this.size == this.capacity) {
+            this.decrement(this.ring[this.oldestIndex]);
+            this.ring[this.oldestIndex] = pair;
+            this.oldestIndex = (this.oldestIndex + 1) % this.capacity;
+        } else {
+            this.ring[(this.oldestIndex + this.size) % this.capacity] = pair;
+            this.size++;
+        }
+        this.increment(pair);
+    }
+
+    /**
+     * Checks whether the history contains the provided pair.
+     * @param message The message.
+     * @param host The host.
+     * @return True iff the pair is in the history.
+     */
+    public boolean contains(Message message, DTNHost host) {
+        return this.keys[this.findSlot(pack(message.getHandle(), host.getAddress()))] != EMPTY;
+    }
+
+    /**
+     * Returns the number of pairs currently in the history.
+     * @return The number of pairs.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the maximum number of pairs that are remembered.
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Packs a message handle and a host address into a single long.
+     */
+    private static long pack(int messageHandle, int hostAddress) {
+        return ((long)messageHandle << HANDLE_SHIFT) | (hostAddress & ADDRESS_MASK);
+    }
+
+    /**
+     * Returns the preferred slot for a packed pair.
+     */
+    private int hash(long pair) {
+        return (int)((pair * HASH_MULTIPLIER) >>> HANDLE_SHIFT) & this.tableMask;
+    }
+
+    /**
+     * Returns the slot containing the packed pair, or the empty slot it would be inserted into.
+     */
+    private int findSlot(long pair) {
+        int slot = this.hash(pair);
+        while (this.keys[slot] != EMPTY && this.keys[slot] != pair) {
+            slot = (slot + 1) & this.tableMask;
+        }
+        return slot;
+    }
+
+    /**
+     * Increases the count of the packed pair in the hash table.
+     */
+    private void increment(long pair) {
+        int slot = this.findSlot(pair);
+        this.keys[slot] = pair;
+        this.counts[slot]++;
+    }
+
+    /**
+     * Decreases the count of the packed pair in the hash table and removes it if it reaches zero.
+     */
+    private void decrement(long pair) {
+        int slot = this.findSlot(pair);
+        this.counts[slot]--;
+        if (this.counts[slot] > 0) {
+            return;
+        }
+
+        // Remove the key and shift back following entries of the probe sequence so that lookups stay correct.
+        int emptySlot = slot;
+        int current = (slot + 1) & this.tableMask;
+        while (this.keys[current] != EMPTY) {
+            int preferred = this.hash(this.keys[current]);
+            boolean canMove = ((current - preferred) & this.tableMask) >= ((current - emptySlot) & this.tableMask);
+            if (canMove) {
+                this.keys[emptySlot] = this.keys[current];
+                this.counts[emptySlot] = this.counts[current];
+                emptySlot = current;
+            }
+            current = (current + 1) & this.tableMask;
+        }
+        this.keys[emptySlot] = EMPTY;
+        this.counts[emptySlot] = 0;
+    }
+}
@@ -7,14 +7,16 @@ package routing.util;
 import core.ArithmeticCondition;
 import core.Connection;
 import core.DTNHost;
+import core.Group;
 import core.Message;
 import core.ModuleCommunicationBus;
 import core.MulticastMessage;
 import core.Settings;
 import util.Range;
-import util.Tuple;
 
-import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 /**
  * <P> Message transfer accepting policy module. Can be used to decide whether
@@ -40,6 +42,10 @@ import java.util.ArrayList;
  * or matches to message's hop count, transfer is accepted.  Otherwise transfer
  * is denied.
  * </P>
+ * <P>The policies are compiled when they are read from the settings: Whether
+ * an address is listed in a simple policy is evaluated at most once per
+ * address and then kept in a bit set, and for multicasts, whether any group
+ * member is accepted is kept per group until the group's members change.</P>
  * @author Ari
  */
 public class MessageTransferAcceptPolicy {
@@ -109,11 +115,17 @@ public class MessageTransferAcceptPolicy {
 	 * to other nodes, unless it would be delivered to the final destination. */
 	public static final String HOPCOUNT_SPOLICY_S = "hopCountSendPolicy";
 
-	private ArrayList<Tuple<String,ArithmeticCondition>> recvConditions = null;
-	private ArrayList<Tuple<String,ArithmeticCondition>> sendConditions = null;
-
-	private Range[] toSendPolicy = null;
-	private Range[] fromSendPolicy = null;
+	/** Bus IDs of the receiving conditions, or null if there are none */
+	private String[] recvConditionIds = null;
+	/** Receiving conditions, at the same indices as their bus IDs */
+	private ArithmeticCondition[] recvConditions = null;
+	/** Bus IDs of the sending conditions, or null if there are none */
+	private String[] sendConditionIds = null;
+	/** Sending conditions, at the same indices as their bus IDs */
+	private ArithmeticCondition[] sendConditions = null;
+
+	private AddressPolicy toSendPolicy = null;
+	private AddressPolicy fromSendPolicy = null;
 	private ArithmeticCondition hopCountSendPolicy = null;
 	private ArithmeticCondition hopCountReceivePolicy = null;
 
@@ -128,10 +140,11 @@ public class MessageTransferAcceptPolicy {
 		addMCBCs(s);
 
 		if (s.contains(TO_SPOLICY_S)) {
-			this.toSendPolicy = s.getCsvRanges(TO_SPOLICY_S);
+			this.toSendPolicy = new AddressPolicy(s.getCsvRanges(TO_SPOLICY_S));
 		}
 		if (s.contains(FROM_SPOLICY_S)) {
-			this.fromSendPolicy = s.getCsvRanges(FROM_SPOLICY_S);
+			this.fromSendPolicy =
+				new AddressPolicy(s.getCsvRanges(FROM_SPOLICY_S));
 		}
 		if (s.contains(HOPCOUNT_SPOLICY_S)) {
 			hopCountSendPolicy = s.getCondition(HOPCOUNT_SPOLICY_S);
@@ -151,34 +164,33 @@ public class MessageTransferAcceptPolicy {
 		}
 
 		int[] nrof = s.getCsvInts(NROF_MCBCS_S);
-		if (nrof[0] > 0) { /* create lists only if needed */
-			this.recvConditions =
-				new ArrayList<Tuple<String,ArithmeticCondition>>();
+		if (nrof[0] > 0) { /* create arrays only if needed */
+			this.recvConditionIds = new String[nrof[0]];
+			this.recvConditions = new ArithmeticCondition[nrof[0]];
+			addConditions(s, MCBACR_S, MCBCVR_S, this.recvConditionIds,
+					this.recvConditions);
 		}
 		if (nrof[1] > 0) {
-			this.sendConditions =
-				new ArrayList<Tuple<String,ArithmeticCondition>>();
+			this.sendConditionIds = new String[nrof[1]];
+			this.sendConditions = new ArithmeticCondition[nrof[1]];
+			addConditions(s, MCBACS_S, MCBCVS_S, this.sendConditionIds,
+					this.sendConditions);
 		}
-
-		addConditions(s, MCBACR_S, MCBCVR_S, this.recvConditions,  nrof[0]);
-		addConditions(s, MCBACS_S, MCBCVS_S, this.sendConditions,  nrof[1]);
 	}
 
 	/**
-	 * Read conditions from the settings and add them to the given list
+	 * Read conditions from the settings and add them to the given arrays
 	 * @param s The settings object
 	 * @param cPrefix Condition setting prefix
 	 * @param vPrefix Value setting prefix
-	 * @param list The list to add conditions
-	 * @param nrof The number of settings to read
+	 * @param ids The array to put the bus IDs to
+	 * @param conditions The array to put the conditions to
 	 */
 	private void addConditions(Settings s, String cPrefix, String vPrefix,
-			ArrayList<Tuple<String,ArithmeticCondition>> list,
-			int nrof) {
-		for (int i=1; i<=nrof; i++) {
-			ArithmeticCondition ac = s.getCondition(cPrefix + i);
-			String mcbValue = s.getSetting(vPrefix + i);
-			list.add(new Tuple<String, ArithmeticCondition>(mcbValue, ac));
+			String[] ids, ArithmeticCondition[] conditions) {
+		for (int i=1; i<=conditions.length; i++) {
+			conditions[i - 1] = s.getCondition(cPrefix + i);
+			ids[i - 1] = s.getSetting(vPrefix + i);
 		}
 	}
 
@@ -192,18 +204,20 @@ public class MessageTransferAcceptPolicy {
 	 */
 	private boolean checkMcbConditions(ModuleCommunicationBus mcb,
 									   boolean receiving) {
-		ArrayList<Tuple<String,ArithmeticCondition>> list =
-			(receiving ? this.recvConditions : this.sendConditions);
+		String[] ids = (receiving ? this.recvConditionIds :
+			this.sendConditionIds);
+		ArithmeticCondition[] conditions = (receiving ? this.recvConditions :
+			this.sendConditions);
 
-		if (list == null) {
+		if (conditions == null) {
 			return true;
 		}
 
-		for (Tuple<String,ArithmeticCondition> t : list) {
-			if (!mcb.containsProperty(t.getKey())) {
+		for (int i = 0; i < conditions.length; i++) {
+			if (!mcb.containsProperty(ids[i])) {
 				continue; /* no value in the bus; can't fail condition */
 			}
-			if (t.getValue().isTrueFor(mcb.getDouble(t.getKey(), 0))){
+			if (conditions[i].isTrueFor(mcb.getDouble(ids[i], 0))){
 				return false;
 			}
 		}
@@ -245,14 +259,10 @@ public class MessageTransferAcceptPolicy {
      * @return true, if the policy holds for at least one of the group members
      */
     private boolean checkSimplePolicyForGroupMembers(MulticastMessage m, int ownAddress){
-        boolean checkRecipients = false;
-        for (int address : m.getGroup().getMembers()){
-            if (checkSimplePolicy(address,this.toSendPolicy,ownAddress)){
-                checkRecipients = true;
-                break;
-            }
+        if (this.toSendPolicy == null) {
+            return m.getGroup().getNumberOfMembers() > 0;
         }
-        return checkRecipients;
+        return this.toSendPolicy.acceptsAnyMemberOf(m.getGroup(), ownAddress);
     }
 
 	/**
@@ -260,28 +270,17 @@ public class MessageTransferAcceptPolicy {
 	 * (or {@value #TO_ME_VALUE} is contained and the address matches to
 	 * thisHost parameter)
 	 * @param hostAddress The address to check
-	 * @param policy The list of accepted addresses
+	 * @param policy The accepted addresses
 	 * @param thisHost The address of this host
 	 * @return True if the address was in the policy list, or the policy list
 	 * was null
 	 */
-	private boolean checkSimplePolicy(int hostAddress, Range [] policy,
+	private boolean checkSimplePolicy(int hostAddress, AddressPolicy policy,
 									  int thisHost) {
-
 		if (policy == null) {
 			return true;
 		}
-
-
-		for (Range r : policy) {
-            if (r.isInRange(TO_ME_VALUE) && hostAddress == thisHost) {
-				return true;
-			}
-			 else if (r.isInRange(hostAddress)) {
-				return true;
-			}
-		}
-		return false;
+		return policy.accepts(hostAddress, thisHost);
 	}
 
 	/**
@@ -350,4 +349,97 @@ public class MessageTransferAcceptPolicy {
 		return true;
 	}
 
+	/**
+	 * A simple policy list of accepted host addresses. Each address is
+	 * checked against the list's ranges at most once, and the result is kept
+	 * in a bit set.
+	 */
+	private static final class AddressPolicy {
+		/** The accepted address ranges */
+		private final Range[] ranges;
+		/** Whether one of the ranges contains {@link #TO_ME_VALUE} */
+		private final boolean acceptsOwnAddress;
+
+		/** Addresses that have already been checked against the ranges */
+		private final BitSet evaluatedAddresses = new BitSet();
+		/** Checked addresses contained in one of the ranges */
+		private final BitSet addressesInRanges = new BitSet();
+		/** Group members the ranges were last checked for, by group */
+		private final Map<Group, int[]> evaluatedMembers =
+			new IdentityHashMap<>();
+		/** Groups which have a member contained in one of the ranges */
+		private final Map<Group, Boolean> groupsInRanges =
+			new IdentityHashMap<>();
+
+		/**
+		 * Creates a new policy accepting the addresses in the given ranges.
+		 * @param ranges The accepted address ranges
+		 */
+		private AddressPolicy(Range[] ranges) {
+			this.ranges = ranges;
+			this.acceptsOwnAddress = isInRanges(TO_ME_VALUE);
+		}
+
+		/**
+		 * Checks whether the policy accepts the given address.
+		 * @param address The address to check
+		 * @param ownAddress The address of this host
+		 * @return True if the address is accepted
+		 */
+		private boolean accepts(int address, int ownAddress) {
+			if (this.acceptsOwnAddress && address == ownAddress) {
+				return true;
+			}
+			if (address < 0) {
+				return isInRanges(address);
+			}
+			if (!this.evaluatedAddresses.get(address)) {
+				this.evaluatedAddresses.set(address);
+				this.addressesInRanges.set(address, isInRanges(address));
+			}
+			return this.addressesInRanges.get(address);
+		}
+
+		/**
+		 * Checks whether the policy accepts at least one member of the given
+		 * group.
+		 * @param group The group to check
+		 * @param ownAddress The address of this host
+		 * @return True if at least one member is accepted
+		 */
+		private boolean acceptsAnyMemberOf(Group group, int ownAddress) {
+			if (this.acceptsOwnAddress && group.contains(ownAddress)) {
+				return true;
+			}
+
+			// The member array is replaced whenever a host joins the group.
+			int[] members = group.getMemberAddresses();
+			if (this.evaluatedMembers.get(group) != members) {
+				boolean anyMemberInRanges = false;
+				for (int address : members) {
+					if (accepts(address, ownAddress)) {
+						anyMemberInRanges = true;
+						break;
+					}
+				}
+				this.evaluatedMembers.put(group, members);
+				this.groupsInRanges.put(group, anyMemberInRanges);
+			}
+			return this.groupsInRanges.get(group);
+		}
+
+		/**
+		 * Checks whether one of the ranges contains the given value.
+		 * @param value The value to check
+		 * @return True if the value is contained in a range
+		 */
+		private boolean isInRanges(int value) {
+			for (Range r : this.ranges) {
+				if (r.isInRange(value)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
 }
@@ -3,10 +3,7 @@ package routing.util;
 import core.DTNHost;
 import core.Message;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.Arrays;
 
 /**
  * Manages a host's replications densities. Replications density is a rating mechanism to measure the rate of hosts
@@ -16,6 +13,11 @@ import java.util.Set;
  * Epidemic Routing for Disruption Tolerant Networks, Fifth International Conference on Mobile Ad-hoc and Sensor
  * Networks, 424-429.
  *
+ * Tracked messages are kept in arrays sorted by message handle (see {@link Message#getHandle()}), together with their
+ * replications densities and the number of hosts seen with them in the current time window. Which (message, host)
+ * pairs and which hosts have already been counted in the time window is remembered in {@link EpochStampedSet}s, which
+ * can be cleared in constant time at the end of each window.
+ *
  * Created by Britta Heymann on 18.05.2017.
  */
 public class ReplicationsDensityManager extends AbstractIntervalRatingMechanism {
@@ -28,24 +30,46 @@ public class ReplicationsDensityManager extends AbstractIntervalRatingMechanism
      */
     private static final double UNKNOWN_REPLICATIONS_DENSITY = 0.5;
 
+    /** Initial capacity of the tracked message arrays. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Number of bits the message handle is shifted by when packing a (message, host) pair. */
+    private static final int HANDLE_SHIFT = 32;
+    /** Mask extracting the lower 32 bits, i. e. the host address part of a packed pair. */
+    private static final long ADDRESS_MASK = 0xFFFFFFFFL;
+
+    /** Handles of all messages we know a replications density for, sorted ascendingly. */
+    private int[] handles = new int[INITIAL_CAPACITY];
+    /** Replications densities of the messages at the same index in {@link #handles}. */
+    private double[] replicationsDensities = new double[INITIAL_CAPACITY];
+    /** Number of hosts carrying the message at the same index in {@link #handles} met in the time window. */
+    private int[] encounterCounts = new int[INITIAL_CAPACITY];
+    /**
+     * Whether the message at the same index in {@link #handles} is still stored. Removed messages are kept until the
+     * end of the time window s.t. their encounter counts are not lost if they are added again.
+     */
+    private boolean[] tracked = new boolean[INITIAL_CAPACITY];
+    /** Number of used entries in the arrays. */
+    private int size;
+
     /**
-     * Replications densities mapped to message IDs.
+     * Summary of the message handles that are tracked, used to intersect them with encountered hosts' buffers.
      */
-    private Map<String, Double> replicationsDensities = new HashMap<>();
+    private BufferSummary trackedMessages = new BufferSummary();
 
     /**
-     * Remembers which message IDs have been stored by which hosts we encountered in the time window.
+     * Remembers which (message handle, host address) pairs have been counted in the time window.
      *
      * It is not sufficient to just count the number of times we have seen the message here, because we might meet some
      * hosts multiple times and don't want to count the messages they carry more than once. We are also not able to just
      * look at messages of hosts we haven't met before in the time window, because a host's messages may change between
      * meetings and we might therefore miss messages if we do so.
      */
-    private Map<String, Set<DTNHost>> encounteredMessagesInTimeWindow = new HashMap<>();
+    private EpochStampedSet countedMessagesInTimeWindow = new EpochStampedSet();
     /**
-     * Remembers all hosts we have encountered in the time window.
+     * Remembers the addresses of all hosts we have encountered in the time window.
      */
-    private Set<DTNHost> uniqueEncountersInTimeWindow = new HashSet<>();
+    private EpochStampedSet uniqueEncountersInTimeWindow = new EpochStampedSet();
 
     /**
      * Initializes a new instance of the {@link ReplicationsDensityManager} class.
@@ -76,18 +100,18 @@ public class ReplicationsDensityManager extends AbstractIntervalRatingMechanism
      */
     public void addEncounter(DTNHost host) {
         // Update unique encounters.
-        this.uniqueEncountersInTimeWindow.add(host);
-
-        // For each known message ID we care about, update the encountered messages.
-        for (Message msg : host.getMessageCollection()) {
-            // Hosts only request the replications density for messages it has in its buffer, so we do not need to add
-            // any other messages.
-            if (this.replicationsDensities.containsKey(msg.getId())) {
-                this.encounteredMessagesInTimeWindow.putIfAbsent(msg.getId(), new HashSet<>());
-                Set<DTNHost> hostsWithMessages = this.encounteredMessagesInTimeWindow.get(msg.getId());
-                hostsWithMessages.add(host);
+        int address = host.getAddress();
+        this.uniqueEncountersInTimeWindow.add(address);
+
+        // Hosts only request the replications density for messages it has in its buffer, so we only need to look at
+        // messages both in the encountered host's buffer and in our tracked messages.
+        BufferSummary encounteredMessages = host.getRouter().getBufferSummary();
+        this.trackedMessages.forEachInIntersection(encounteredMessages, handle -> {
+            long pair = ((long)handle << HANDLE_SHIFT) | (address & ADDRESS_MASK);
+            if (this.countedMessagesInTimeWindow.add(pair)) {
+                this.encounterCounts[this.indexOf(handle)]++;
             }
-        }
+        });
     }
 
     /**
@@ -97,11 +121,11 @@ public class ReplicationsDensityManager extends AbstractIntervalRatingMechanism
      * @throws IllegalArgumentException if the host doesn't know the message ID after all.
      */
     public double getReplicationsDensity(String messageId) {
-        Double replicationsDensity = this.replicationsDensities.get(messageId);
-        if (replicationsDensity == null) {
+        int index = this.indexOf(Message.getHandleFor(messageId));
+        if (index < 0 || !this.tracked[index]) {
             throw new IllegalArgumentException("Asked for a non-stored message!");
         }
-        return replicationsDensity;
+        return this.replicationsDensities[index];
     }
 
     /**
@@ -110,26 +134,29 @@ public class ReplicationsDensityManager extends AbstractIntervalRatingMechanism
     @Override
     protected void updateRatingMechanism() {
         // Keep old values if node was isolated.
-        if (uniqueEncountersInTimeWindow.isEmpty()) {
+        if (this.uniqueEncountersInTimeWindow.size() == 0) {
             return;
         }
 
-        // Else, update all replications densities:
+        // Else, update all replications densities and drop removed messages:
         double numberUniqueEncounters = this.uniqueEncountersInTimeWindow.size();
-        for (String msgId : this.replicationsDensities.keySet()) {
-            // Set replications density for a message to the rate of hosts met with that message.
-            double newDensity = 0;
-            if (this.encounteredMessagesInTimeWindow.containsKey(msgId)) {
-                newDensity = this.encounteredMessagesInTimeWindow.get(msgId).size() / numberUniqueEncounters;
+        int newSize = 0;
+        for (int i = 0; i < this.size; i++) {
+            if (!this.tracked[i]) {
+                continue;
             }
-            this.replicationsDensities.put(msgId, newDensity);
+            // Set replications density for a message to the rate of hosts met with that message.
+            this.handles[newSize] = this.handles[i];
+            this.replicationsDensities[newSize] = this.encounterCounts[i] / numberUniqueEncounters;
+            this.encounterCounts[newSize] = 0;
+            this.tracked[newSize] = true;
+            newSize++;
         }
+        this.size = newSize;
 
         // Clear time window variables.
         this.uniqueEncountersInTimeWindow.clear();
-        for (Map.Entry<String, Set<DTNHost>> entry : this.encounteredMessagesInTimeWindow.entrySet()) {
-            entry.getValue().clear();
-        }
+        this.countedMessagesInTimeWindow.clear();
     }
 
     /**
@@ -139,7 +166,16 @@ public class ReplicationsDensityManager extends AbstractIntervalRatingMechanism
      * @param messageId Message ID to add.
      */
     public void addMessage(String messageId) {
-        this.replicationsDensities.putIfAbsent(messageId, UNKNOWN_REPLICATIONS_DENSITY);
+        int handle = Message.getHandleFor(messageId);
+        int index = this.indexOf(handle);
+        if (index < 0) {
+            index = this.insert(-index - 1, handle);
+        }
+        if (!this.tracked[index]) {
+            this.tracked[index] = true;
+            this.replicationsDensities[index] = UNKNOWN_REPLICATIONS_DENSITY;
+            this.trackedMessages.add(handle);
+        }
     }
 
     /**
@@ -149,6 +185,48 @@ public class ReplicationsDensityManager extends AbstractIntervalRatingMechanism
      * @param messageId Message ID to remove.
      */
     public void removeMessage(String messageId) {
-        this.replicationsDensities.remove(messageId);
+        int handle = Message.getHandleFor(messageId);
+        int index = this.indexOf(handle);
+        if (index >= 0) {
+            this.tracked[index] = false;
+            this.trackedMessages.remove(handle);
+        }
+    }
+
+    /**
+     * Finds the index of a message handle in {@link #handles}.
+     * @param handle The handle to find.
+     * @return The index if the handle is contained, else (-(insertion point) - 1).
+     */
+    private int indexOf(int handle) {
+        return Arrays.binarySearch(this.handles, 0, this.size, handle);
+    }
+
+    /**
+     * Inserts a new, untracked entry for the provided message handle.
+     * @param index The index to insert the entry at.
+     * @param handle The message handle.
+     * @return The index of the new entry.
+     */
+    private int insert(int index, int handle) {
+        if (this.size == this.handles.length) {
+            int newCapacity = this.size * 2;
+            this.handles = Arrays.copyOf(this.handles, newCapacity);
+            this.replicationsDensities = Arrays.copyOf(this.replicationsDensities, newCapacity);
+            this.encounterCounts = Arrays.copyOf(this.encounterCounts, newCapacity);
+            this.tracked = Arrays.copyOf(this.tracked, newCapacity);
+        }
+
+        int numberMoved = this.size - index;
+        System.arraycopy(this.handles, index, this.handles, index + 1, numberMoved);
+        System.arraycopy(this.replicationsDensities, index, this.replicationsDensities, index + 1, numberMoved);
+        System.arraycopy(this.encounterCounts, index, this.encounterCounts, index + 1, numberMoved);
+        System.arraycopy(this.tracked, index, this.tracked, index + 1, numberMoved);
+        this.size++;
+
+        this.handles[index] = handle;
+        this.encounterCounts[index] = 0;
+        this.tracked[index] = false;
+        return index;
     }
 }
@@ -208,6 +208,39 @@ public abstract class AbstractMessageChoosingStrategyTest {
                 this.messageToHostsExists(messages, idForDataMessage, otherHost));
     }
 
+    /**
+     * Checks that {@link MessageChoosingStrategy#chooseConnectionsForMessage(Message, List)} only returns tuples
+     * containing the provided message, skipping neighbors which already know the message or are final recipients, and
+     * does not add any data messages.
+     */
+    @Test
+    public void testChooseConnectionsForMessageOnlyReturnsProvidedMessage() {
+        // Give a data item and two messages to our host, one of them known by neighbor 1.
+        DisasterData data = new DisasterData(
+                DisasterData.DataType.MARKER, 0, SimClock.getTime(), this.attachedHost.getLocation());
+        DatabaseApplication app = DatabaseApplicationUtil.findDatabaseApplication(this.attachedHost.getRouter());
+        app.update(this.attachedHost);
+        app.disasterDataCreated(this.attachedHost, data);
+        DTNHost otherHost = this.utils.createHost();
+        Message m = new Message(this.attachedHost, otherHost, "M1", 0);
+        Message otherMessage = new Message(this.attachedHost, otherHost, "M2", 0);
+        this.attachedHost.createNewMessage(m);
+        this.attachedHost.createNewMessage(otherMessage);
+        this.neighbor1.createNewMessage(m);
+
+        // Call chooseConnectionsForMessage with connections to both neighbors and the recipient.
+        List<Connection> connections = new ArrayList<>();
+        connections.add(AbstractMessageChoosingStrategyTest.createConnection(this.attachedHost, neighbor1));
+        connections.add(AbstractMessageChoosingStrategyTest.createConnection(this.attachedHost, neighbor2));
+        connections.add(AbstractMessageChoosingStrategyTest.createConnection(this.attachedHost, otherHost));
+        Collection<Tuple<Message, Connection>> messages = this.chooser.chooseConnectionsForMessage(m, connections);
+
+        // Make sure only the message to neighbor 2 was returned.
+        Assert.assertEquals(UNEXPECTED_NUMBER_OF_CHOSEN_MESSAGES, 1, messages.size());
+        Assert.assertTrue(
+                "Message to second neighbor expected.", this.messageToHostsExists(messages, m.getId(), neighbor2));
+    }
+
     /**
      * Creates a {@link Connection} object.
      * @return The created connection object.
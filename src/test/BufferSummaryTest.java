@@ -0,0 +1,110 @@
+package test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import routing.util.BufferSummary;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contains tests for the {@link BufferSummary} class.
+ */
+public class BufferSummaryTest {
+    private static final int HANDLE = 3;
+    private static final int HANDLE_IN_OTHER_WORD = 130;
+    private static final int MANY_HANDLES = 5000;
+
+    private BufferSummary summary = new BufferSummary();
+
+    @Test
+    public void testNewSummaryIsEmpty() {
+        Assert.assertTrue("New summary should be empty.", this.summary.isEmpty());
+        Assert.assertFalse("New summary should not contain anything.", this.summary.contains(HANDLE));
+    }
+
+    @Test
+    public void testAddedHandleIsContained() {
+        Assert.assertTrue("Handle should have been added.", this.summary.add(HANDLE));
+        Assert.assertTrue("Added handle should be contained.", this.summary.contains(HANDLE));
+        Assert.assertFalse("Other handle should not be contained.", this.summary.contains(HANDLE + 1));
+        Assert.assertFalse(
+                "Handle with same bit in other word should not be contained.",
+                this.summary.contains(HANDLE + Long.SIZE));
+        Assert.assertEquals("Expected different size.", 1, this.summary.size());
+    }
+
+    @Test
+    public void testAddingHandleTwiceDoesNotChangeSummary() {
+        this.summary.add(HANDLE);
+        long version = this.summary.getVersion();
+        Assert.assertFalse("Handle should not have been added again.", this.summary.add(HANDLE));
+        Assert.assertEquals("Size should not have changed.", 1, this.summary.size());
+        Assert.assertEquals("Version should not have changed.", version, this.summary.getVersion());
+    }
+
+    @Test
+    public void testRemovedHandleIsNotContained() {
+        this.summary.add(HANDLE);
+        this.summary.add(HANDLE_IN_OTHER_WORD);
+        Assert.assertTrue("Handle should have been removed.", this.summary.remove(HANDLE));
+        Assert.assertFalse("Removed handle should not be contained.", this.summary.contains(HANDLE));
+        Assert.assertTrue("Other handle should still be contained.", this.summary.contains(HANDLE_IN_OTHER_WORD));
+        Assert.assertEquals("Expected different size.", 1, this.summary.size());
+    }
+
+    @Test
+    public void testRemovingUnknownHandleDoesNotChangeSummary() {
+        this.summary.add(HANDLE);
+        long version = this.summary.getVersion();
+        Assert.assertFalse("Unknown handle should not have been removed.", this.summary.remove(HANDLE + 1));
+        Assert.assertFalse("Unknown handle should not have been removed.", this.summary.remove(HANDLE_IN_OTHER_WORD));
+        Assert.assertEquals("Version should not have changed.", version, this.summary.getVersion());
+    }
+
+    @Test
+    public void testVersionChangesOnAddAndRemove() {
+        long initialVersion = this.summary.getVersion();
+        this.summary.add(HANDLE);
+        long versionAfterAdd = this.summary.getVersion();
+        this.summary.remove(HANDLE);
+        Assert.assertNotEquals("Version should change on add.", initialVersion, versionAfterAdd);
+        Assert.assertNotEquals("Version should change on remove.", versionAfterAdd, this.summary.getVersion());
+    }
+
+    @Test
+    public void testForEachInIntersectionVisitsCommonHandlesOnly() {
+        BufferSummary other = new BufferSummary();
+        this.summary.add(HANDLE);
+        this.summary.add(HANDLE + 1);
+        this.summary.add(HANDLE_IN_OTHER_WORD);
+        other.add(HANDLE + 1);
+        other.add(HANDLE_IN_OTHER_WORD);
+        other.add(HANDLE_IN_OTHER_WORD + 1);
+
+        List<Integer> intersection = new ArrayList<>();
+        this.summary.forEachInIntersection(other, intersection::add);
+        intersection.sort(Integer::compare);
+
+        List<Integer> expected = new ArrayList<>();
+        expected.add(HANDLE + 1);
+        expected.add(HANDLE_IN_OTHER_WORD);
+        Assert.assertEquals("Expected different intersection.", expected, intersection);
+    }
+
+    @Test
+    public void testManyAddsAndRemovesKeepMembershipConsistent() {
+        for (int handle = 0; handle < MANY_HANDLES; handle++) {
+            this.summary.add(handle * 7);
+        }
+        for (int handle = 0; handle < MANY_HANDLES; handle += 2) {
+            this.summary.remove(handle * 7);
+        }
+        for (int handle = 0; handle < MANY_HANDLES * 7; handle++) {
+            boolean expected = handle % 7 == 0 && (handle / 7) % 2 == 1;
+            Assert.assertEquals(
+                    "Unexpected membership for handle " + handle + ".", expected, this.summary.contains(handle));
+        }
+        Assert.assertEquals("Expected different size.", MANY_HANDLES / 2, this.summary.size());
+    }
+}
@@ -11,6 +11,7 @@ import org.junit.Test;
 import util.Tuple;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -69,6 +70,15 @@ public class DataMessageTest {
         TestCase.assertEquals("Expected different data.", this.data, this.message.getData());
     }
 
+    @Test
+    public void testGetDataIdsReturnsIdsOfData() {
+        int[] dataIds = this.message.getDataIds();
+        TestCase.assertEquals("Expected different number of ids.", this.data.size(), dataIds.length);
+        for (int i = 0; i < dataIds.length; i++) {
+            TestCase.assertEquals("Expected different id.", this.data.get(i).getId(), dataIds[i]);
+        }
+    }
+
     @Test
     public void testUtilityEqualsAverageUtility() {
         TestCase.assertEquals("Expected different utility.",
@@ -126,4 +136,19 @@ public class DataMessageTest {
         TestCase.assertEquals("Utility value should not have changed.",
                 this.message.getUtility(), instantiation.getUtility());
     }
+
+    @Test
+    public void testIsPrototypeReturnsFalseForMessageWithReceiver() {
+        TestCase.assertFalse("Message with receiver should not be a prototype.", this.message.isPrototype());
+    }
+
+    @Test
+    public void testIsPrototypeReturnsTrueForMessageWithoutReceiver() {
+        DataMessage prototype = new DataMessage(
+                this.utils.createHost(), null, "D2",
+                Collections.singletonList(new Tuple<>(this.data.get(0), UTILITY)), PRIORITY);
+        TestCase.assertTrue("Message without receiver should be a prototype.", prototype.isPrototype());
+        TestCase.assertFalse("Instantiation should not be a prototype.",
+                prototype.instantiateFor(this.utils.createHost()).isPrototype());
+    }
 }
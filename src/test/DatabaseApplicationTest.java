@@ -208,6 +208,11 @@ public class DatabaseApplicationTest {
                 ITEMS_PER_MESSAGE, this.app.getItemsPerMessage());
     }
 
+    @Test
+    public void testDigestSyncIsDisabledByDefault() {
+        TestCase.assertFalse("Digest sync should be disabled by default.", this.app.usesDigestSync());
+    }
+
     @Test
     public void testCopyConstructorRegistersToDisasterDataNotifier() {
         /* Use copy constructor. */
@@ -693,6 +698,8 @@ public class DatabaseApplicationTest {
                 Arrays.equals(original.getDatabaseSizeRange(), copy.getDatabaseSizeRange()));
         TestCase.assertEquals("Expected different number of database items per message.",
                 original.getItemsPerMessage(), copy.getItemsPerMessage());
+        TestCase.assertEquals(
+                "Expected different digest sync mode.", original.usesDigestSync(), copy.usesDigestSync());
     }
 
     /**
@@ -39,6 +39,9 @@ public class DatabaseApplicationUtilTest {
     /** The maximum number of database items per message. */
     private static final int ITEMS_PER_MESSAGE = 2;
 
+    /** Size of a digest entry for a single data item. */
+    private static final int DIGEST_BYTES_PER_ITEM = 4;
+
     /* Some more constants needed for tests. */
     private static final Coord FAR_AWAY = new Coord(10_000, 20_000);
     private static final int POSITIVE_TIMESPAN = 100;
@@ -139,8 +142,10 @@ public class DatabaseApplicationUtilTest {
 
         DataMessage message1 = (DataMessage)dataMessages.get(0).getKey();
         DataMessage message2 = (DataMessage)dataMessages.get(1).getKey();
-        TestCase.assertEquals(UNEXPECTED_RECEIVER, message1.getTo(), neighbor1);
-        TestCase.assertEquals(UNEXPECTED_RECEIVER, message2.getTo(), neighbor2);
+        TestCase.assertEquals(UNEXPECTED_RECEIVER, neighbor1, dataMessages.get(0).getValue().getOtherNode(host));
+        TestCase.assertEquals(UNEXPECTED_RECEIVER, neighbor2, dataMessages.get(1).getValue().getOtherNode(host));
+        TestCase.assertTrue("Messages should not be instantiated yet.", message1.isPrototype());
+        TestCase.assertTrue("Messages should not be instantiated yet.", message2.isPrototype());
         TestCase.assertEquals("Data should be the same for both messages.", message1.getData(), message2.getData());
         TestCase.assertEquals(
                 "Utility should be the same for both messages.", message1.getUtility(), message2.getUtility());
@@ -212,8 +217,10 @@ public class DatabaseApplicationUtilTest {
 
         DataMessage message1 = (DataMessage)dataMessages.get(0).getKey();
         DataMessage message2 = (DataMessage)dataMessages.get(1).getKey();
-        TestCase.assertEquals(UNEXPECTED_RECEIVER, message1.getTo(), neighbor1);
-        TestCase.assertEquals(UNEXPECTED_RECEIVER, message2.getTo(), neighbor2);
+        TestCase.assertEquals(UNEXPECTED_RECEIVER, neighbor1, dataMessages.get(0).getValue().getOtherNode(host));
+        TestCase.assertEquals(UNEXPECTED_RECEIVER, neighbor2, dataMessages.get(1).getValue().getOtherNode(host));
+        TestCase.assertTrue("Messages should not be instantiated yet.", message1.isPrototype());
+        TestCase.assertTrue("Messages should not be instantiated yet.", message2.isPrototype());
         TestCase.assertEquals("Data should be the same for both messages.", message1.getData(), message2.getData());
         TestCase.assertEquals(
                 "Utility should be the same for both messages.", message1.getUtility(), message2.getUtility());
@@ -257,6 +264,182 @@ public class DatabaseApplicationUtilTest {
                 message.getData().contains(recentAndUseful));
     }
 
+    @Test
+    public void testWrapUsefulDataIntoMessagesWithDigestSyncOnlySendsDataMissingAtNeighbor() {
+        this.addDatabaseApplicationWithDigestSync();
+        DTNHost host = this.utils.createHost();
+        DTNHost neighbor = this.utils.createHost();
+        DisasterDataNotifier.dataCreated(host, MARKER_DATA);
+        DisasterDataNotifier.dataCreated(host, RESOURCE_DATA);
+        DisasterDataNotifier.dataCreated(neighbor, MARKER_DATA);
+        DatabaseApplicationUtil.wrapUsefulDataIntoMessages(neighbor.getRouter(), neighbor, neighbor.getConnections());
+        host.connect(neighbor);
+        startTransfers(host,
+                DatabaseApplicationUtil.wrapUsefulDataIntoMessages(host.getRouter(), host, host.getConnections()));
+
+        List<Tuple<Message, Connection>> dataMessages =
+                DatabaseApplicationUtil.wrapUsefulDataIntoMessages(host.getRouter(), host, host.getConnections());
+        TestCase.assertEquals(UNEXPECTED_NUMBER_MESSAGES, 1, dataMessages.size());
+        DataMessage message = (DataMessage)dataMessages.get(0).getKey();
+        TestCase.assertEquals(UNEXPECTED_RECEIVER, neighbor, message.getTo());
+        TestCase.assertEquals(UNEXPECTED_RECEIVER, neighbor, dataMessages.get(0).getValue().getOtherNode(host));
+        TestCase.assertFalse("Message should already be addressed.", message.isPrototype());
+        TestCase.assertFalse("Neighbor already has the marker.", message.getData().contains(MARKER_DATA));
+        TestCase.assertTrue("Neighbor is missing the resource.", message.getData().contains(RESOURCE_DATA));
+    }
+
+    @Test
+    public void testWrapUsefulDataIntoMessagesWithDigestSyncReturnsNothingIfNeighborHasAllData() {
+        this.addDatabaseApplicationWithDigestSync();
+        DTNHost host = this.utils.createHost();
+        DTNHost neighbor = this.utils.createHost();
+        DisasterDataNotifier.dataCreated(host, MARKER_DATA);
+        DisasterDataNotifier.dataCreated(neighbor, MARKER_DATA);
+        DatabaseApplicationUtil.wrapUsefulDataIntoMessages(neighbor.getRouter(), neighbor, neighbor.getConnections());
+        host.connect(neighbor);
+        startTransfers(host,
+                DatabaseApplicationUtil.wrapUsefulDataIntoMessages(host.getRouter(), host, host.getConnections()));
+
+        List<Tuple<Message, Connection>> dataMessages =
+                DatabaseApplicationUtil.wrapUsefulDataIntoMessages(host.getRouter(), host, host.getConnections());
+        TestCase.assertEquals(EXPECTED_EMPTY_LIST, 0, dataMessages.size());
+    }
+
+    @Test
+    public void testWrapUsefulDataIntoMessagesWithDigestSyncFiltersWithChargedDigestBeforeItIsReceived() {
+        this.addDatabaseApplicationWithDigestSync();
+        DTNHost host = this.utils.createHost();
+        DTNHost neighbor = this.utils.createHost();
+        DisasterDataNotifier.dataCreated(host, MARKER_DATA);
+        DisasterDataNotifier.dataCreated(host, RESOURCE_DATA);
+        DisasterDataNotifier.dataCreated(neighbor, MARKER_DATA);
+        DatabaseApplicationUtil.wrapUsefulDataIntoMessages(neighbor.getRouter(), neighbor, neighbor.getConnections());
+        host.connect(neighbor);
+
+        List<Tuple<Message, Connection>> dataMessages =
+                DatabaseApplicationUtil.wrapUsefulDataIntoMessages(host.getRouter(), host, host.getConnections());
+        TestCase.assertEquals(UNEXPECTED_NUMBER_MESSAGES, 1, dataMessages.size());
+        DataMessage message = (DataMessage)dataMessages.get(0).getKey();
+        TestCase.assertFalse("Charged digest contains the marker.", message.getData().contains(MARKER_DATA));
+        TestCase.assertTrue("Neighbor is missing the resource.", message.getData().contains(RESOURCE_DATA));
+        TestCase.assertEquals(
+                "Message should carry the neighbor's digest.", DIGEST_BYTES_PER_ITEM, message.getOverheadBytes());
+    }
+
+    @Test
+    public void testWrapUsefulDataIntoMessagesWithDigestSyncFiltersWithNewDigestIfNeighborDatabaseChanged() {
+        this.addDatabaseApplicationWithDigestSync();
+        DTNHost host = this.utils.createHost();
+        DTNHost neighbor = this.utils.createHost();
+        DisasterDataNotifier.dataCreated(host, MARKER_DATA);
+        DisasterDataNotifier.dataCreated(host, RESOURCE_DATA);
+        DisasterDataNotifier.dataCreated(neighbor, MARKER_DATA);
+        DatabaseApplicationUtil.wrapUsefulDataIntoMessages(neighbor.getRouter(), neighbor, neighbor.getConnections());
+        host.connect(neighbor);
+        startTransfers(host,
+                DatabaseApplicationUtil.wrapUsefulDataIntoMessages(host.getRouter(), host, host.getConnections()));
+
+        // The old digest does not contain the resource, but the new one does.
+        DisasterDataNotifier.dataCreated(neighbor, RESOURCE_DATA);
+        List<Tuple<Message, Connection>> dataMessages =
+                DatabaseApplicationUtil.wrapUsefulDataIntoMessages(host.getRouter(), host, host.getConnections());
+        TestCase.assertEquals(EXPECTED_EMPTY_LIST, 0, dataMessages.size());
+    }
+
+    @Test
+    public void testWrapUsefulDataIntoMessagesWithDigestSyncChargesDigestAgainAfterReconnecting() {
+        this.addDatabaseApplicationWithDigestSync();
+        DTNHost host = this.utils.createHost();
+        DTNHost neighbor = this.utils.createHost();
+        DisasterDataNotifier.dataCreated(host, MARKER_DATA);
+        DisasterDataNotifier.dataCreated(neighbor, RESOURCE_DATA);
+        DatabaseApplicationUtil.wrapUsefulDataIntoMessages(neighbor.getRouter(), neighbor, neighbor.getConnections());
+        host.connect(neighbor);
+        startTransfers(host,
+                DatabaseApplicationUtil.wrapUsefulDataIntoMessages(host.getRouter(), host, host.getConnections()));
+
+        host.forceConnection(neighbor, null, false);
+        host.connect(neighbor);
+        List<Tuple<Message, Connection>> dataMessages =
+                DatabaseApplicationUtil.wrapUsefulDataIntoMessages(host.getRouter(), host, host.getConnections());
+        TestCase.assertEquals(UNEXPECTED_NUMBER_MESSAGES, 1, dataMessages.size());
+        TestCase.assertEquals(
+                "Digest should have been forgotten when the connection went down.",
+                DIGEST_BYTES_PER_ITEM, ((DataMessage)dataMessages.get(0).getKey()).getOverheadBytes());
+    }
+
+    @Test
+    public void testWrapUsefulDataIntoMessagesWithDigestSyncChargesDigestOncePerNeighborDatabaseVersion() {
+        this.addDatabaseApplicationWithDigestSync();
+        DTNHost host = this.utils.createHost();
+        DTNHost neighbor = this.utils.createHost();
+        DisasterDataNotifier.dataCreated(host, MARKER_DATA);
+        DisasterDataNotifier.dataCreated(neighbor, RESOURCE_DATA);
+        DatabaseApplicationUtil.wrapUsefulDataIntoMessages(neighbor.getRouter(), neighbor, neighbor.getConnections());
+        host.connect(neighbor);
+
+        List<Tuple<Message, Connection>> firstMessages =
+                DatabaseApplicationUtil.wrapUsefulDataIntoMessages(host.getRouter(), host, host.getConnections());
+        TestCase.assertEquals(
+                "Digest of the neighbor's single item should have been charged.",
+                DIGEST_BYTES_PER_ITEM, firstMessages.get(0).getKey().getSize());
+
+        List<Tuple<Message, Connection>> secondMessages =
+                DatabaseApplicationUtil.wrapUsefulDataIntoMessages(host.getRouter(), host, host.getConnections());
+        TestCase.assertEquals(
+                "Digest should be charged until a message carrying it is sent.",
+                DIGEST_BYTES_PER_ITEM, secondMessages.get(0).getKey().getSize());
+        startTransfers(host, secondMessages);
+
+        List<Tuple<Message, Connection>> thirdMessages =
+                DatabaseApplicationUtil.wrapUsefulDataIntoMessages(host.getRouter(), host, host.getConnections());
+        TestCase.assertEquals(
+                "Unchanged digest should not have been charged again.", 0, thirdMessages.get(0).getKey().getSize());
+    }
+
+    @Test
+    public void testWrapRecentUsefulDataIntoMessagesWithDigestSyncReturnsOneMessageForEachNeighborMissingData() {
+        this.addDatabaseApplicationWithDigestSync();
+        DTNHost host = this.utils.createHost();
+        DTNHost neighbor1 = this.utils.createHost();
+        DTNHost neighbor2 = this.utils.createHost();
+        DTNHost neighbor3 = this.utils.createHost();
+        DisasterDataNotifier.dataCreated(host, MARKER_DATA);
+        DisasterDataNotifier.dataCreated(neighbor2, MARKER_DATA);
+        DatabaseApplicationUtil.wrapUsefulDataIntoMessages(
+                neighbor2.getRouter(), neighbor2, neighbor2.getConnections());
+        host.connect(neighbor1);
+        host.connect(neighbor2);
+        host.connect(neighbor3);
+        startTransfers(host, DatabaseApplicationUtil.wrapRecentUsefulDataIntoMessages(host, host.getConnections(), 1));
+
+        List<Tuple<Message, Connection>> dataMessages =
+                DatabaseApplicationUtil.wrapRecentUsefulDataIntoMessages(host, host.getConnections(), 1);
+        TestCase.assertEquals(UNEXPECTED_NUMBER_MESSAGES, TWO_MESSAGES, dataMessages.size());
+        TestCase.assertEquals(UNEXPECTED_RECEIVER, neighbor1, dataMessages.get(0).getKey().getTo());
+        TestCase.assertEquals(UNEXPECTED_RECEIVER, neighbor1, dataMessages.get(0).getValue().getOtherNode(host));
+        TestCase.assertEquals(UNEXPECTED_RECEIVER, neighbor3, dataMessages.get(1).getKey().getTo());
+        TestCase.assertEquals(UNEXPECTED_RECEIVER, neighbor3, dataMessages.get(1).getValue().getOtherNode(host));
+    }
+
+    /**
+     * Notifies the provided host's router that transfers of all provided messages started.
+     *
+     * @param host The sending host.
+     * @param messages The messages and the connections they are sent over.
+     */
+    private static void startTransfers(DTNHost host, List<Tuple<Message, Connection>> messages) {
+        for (Tuple<Message, Connection> message : messages) {
+            DatabaseApplicationUtil.handleTransferStart(
+                    host.getRouter(), message.getKey(), message.getValue().getOtherNode(host));
+        }
+    }
+
+    private void addDatabaseApplicationWithDigestSync() {
+        this.testSettings.putSetting(DatabaseApplication.DIGEST_SYNC, "true");
+        this.addDatabaseApplication();
+    }
+
     private void addDatabaseApplication() {
         DatabaseApplicationUtilTest.addDummyValuesForDatabaseApplication(this.testSettings);
         this.testSettings.putSetting(DatabaseApplication.ITEMS_PER_MESSAGE, Integer.toString(ITEMS_PER_MESSAGE));
@@ -19,6 +19,7 @@ import util.Tuple;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 /**
  * Contains tests for the {@link routing.util.DeliveryPredictabilityStorage} class.
@@ -49,6 +50,11 @@ public class DeliveryPredictabilityStorageTest {
     /* Time span that induces a lot of decay. */
     private static final int TIME_SPAN_FOR_LARGE_DECAY = 90;
 
+    /* Number of meetings needed to let the first delivery predictabilities be dropped. */
+    private static final int MANY_MEETINGS = 150;
+    /* The minimum delivery predictability stored by a storage. */
+    private static final double MINIMUM_POSITIVE_DELIVERY_PREDICTABILITY = 0.01;
+
     private static final String EXPECTED_DIFFERENT_PREDICTABILITY = "Expected different delivery predictability.";
     private static final String EXPECTED_EMPTY_STORAGE = "No delivery predictabilities should have been set.";
 
@@ -113,6 +119,11 @@ public class DeliveryPredictabilityStorageTest {
         createDeliveryPredictabilityStorage(BETA, GAMMA, SUMMAND, 0, this.attachedHost);
     }
 
+    @Test(expected = SettingsError.class)
+    public void testConstructorThrowsForDeltaExchangeToleranceGreaterOne() {
+        createDeliveryPredictabilityStorage(GREATER_THAN_ONE, this.attachedHost);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testSetAttachedHostThrowsForMissingHost() {
         this.dpStorage.setAttachedHost(null);
@@ -299,6 +310,146 @@ public class DeliveryPredictabilityStorageTest {
                 DOUBLE_COMPARISON_DELTA);
     }
 
+    /**
+     * Tests that all delivery predictabilities are used for transitive updates on a re-encounter if no tolerance is
+     * given.
+     */
+    @Test
+    public void testReEncounterWithoutToleranceUsesAllPredictabilities() {
+        DTNHost b = this.testUtils.createHost();
+        DTNHost c = this.testUtils.createHost();
+        DeliveryPredictabilityStorage bStorage = createDeliveryPredictabilityStorage(b);
+        DeliveryPredictabilityStorage.updatePredictabilitiesForBothHosts(bStorage, createDeliveryPredictabilityStorage(c));
+
+        // Meet B twice.
+        DeliveryPredictabilityStorage.updatePredictabilitiesForBothHosts(this.dpStorage, bStorage);
+        DeliveryPredictabilityStorage.updatePredictabilitiesForBothHosts(this.dpStorage, bStorage);
+
+        // Check the transitive update was applied twice.
+        double firstTransitivePredictability = SUMMAND * SUMMAND * BETA;
+        double predictabilityToB = SUMMAND + (1 - SUMMAND) * SUMMAND;
+        double expectedPredictability = firstTransitivePredictability
+                + (1 - firstTransitivePredictability) * predictabilityToB * SUMMAND * BETA;
+        Assert.assertEquals(EXPECTED_DIFFERENT_PREDICTABILITY,
+                expectedPredictability, this.dpStorage.getDeliveryPredictability(c), DOUBLE_COMPARISON_DELTA);
+    }
+
+    /**
+     * Tests that delivery predictabilities which have not changed since the last exchange are not used for transitive
+     * updates on a re-encounter if the tolerance allows it.
+     */
+    @Test
+    public void testReEncounterWithToleranceSkipsUnchangedPredictabilities() {
+        DTNHost b = this.testUtils.createHost();
+        DTNHost c = this.testUtils.createHost();
+        DeliveryPredictabilityStorage ownStorage = createDeliveryPredictabilityStorage(1, this.attachedHost);
+        DeliveryPredictabilityStorage bStorage = createDeliveryPredictabilityStorage(1, b);
+        DeliveryPredictabilityStorage.updatePredictabilitiesForBothHosts(
+                bStorage, createDeliveryPredictabilityStorage(1, c));
+
+        // Meet B twice.
+        DeliveryPredictabilityStorage.updatePredictabilitiesForBothHosts(ownStorage, bStorage);
+        DeliveryPredictabilityStorage.updatePredictabilitiesForBothHosts(ownStorage, bStorage);
+
+        // Check the transitive update was only applied once.
+        Assert.assertEquals(EXPECTED_DIFFERENT_PREDICTABILITY,
+                SUMMAND * SUMMAND * BETA, ownStorage.getDeliveryPredictability(c), DOUBLE_COMPARISON_DELTA);
+    }
+
+    /**
+     * Tests that all delivery predictabilities are used for transitive updates again once the changes skipped on
+     * re-encounters add up to more than the tolerance.
+     */
+    @Test
+    public void testReEncountersWithToleranceUseAllPredictabilitiesOnceSkippedChangesExceedTolerance() {
+        // Choose a tolerance that allows skipping changes on the second, but not on the third encounter.
+        double predictabilityToBOnSecondEncounter = 1 - Math.pow(1 - SUMMAND, 2);
+        double predictabilityToBOnThirdEncounter = 1 - Math.pow(1 - SUMMAND, 3);
+        double skippedChangeOnSecondEncounter = predictabilityToBOnSecondEncounter * BETA
+                * predictabilityToBOnSecondEncounter;
+        double skippedChangeOnThirdEncounter = predictabilityToBOnThirdEncounter * BETA
+                * predictabilityToBOnThirdEncounter;
+        double tolerance = skippedChangeOnSecondEncounter + skippedChangeOnThirdEncounter / 2;
+
+        DTNHost b = this.testUtils.createHost();
+        DTNHost c = this.testUtils.createHost();
+        DeliveryPredictabilityStorage ownStorage = createDeliveryPredictabilityStorage(tolerance, this.attachedHost);
+        DeliveryPredictabilityStorage bStorage = createDeliveryPredictabilityStorage(tolerance, b);
+        DeliveryPredictabilityStorage.updatePredictabilitiesForBothHosts(
+                bStorage, createDeliveryPredictabilityStorage(tolerance, c));
+
+        // Meet B three times.
+        DeliveryPredictabilityStorage.updatePredictabilitiesForBothHosts(ownStorage, bStorage);
+        DeliveryPredictabilityStorage.updatePredictabilitiesForBothHosts(ownStorage, bStorage);
+        DeliveryPredictabilityStorage.updatePredictabilitiesForBothHosts(ownStorage, bStorage);
+
+        // Check the transitive update was skipped on the second encounter, but applied on the third one.
+        double firstTransitivePredictability = SUMMAND * SUMMAND * BETA;
+        double expectedPredictability = firstTransitivePredictability
+                + (1 - firstTransitivePredictability) * predictabilityToBOnThirdEncounter * SUMMAND * BETA;
+        Assert.assertEquals(EXPECTED_DIFFERENT_PREDICTABILITY,
+                expectedPredictability, ownStorage.getDeliveryPredictability(c), DOUBLE_COMPARISON_DELTA);
+    }
+
+    /**
+     * Tests that delivery predictabilities which have changed since the last exchange are used for transitive updates
+     * on a re-encounter even if the tolerance would allow skipping unchanged ones.
+     */
+    @Test
+    public void testReEncounterWithToleranceUsesChangedPredictabilities() {
+        DTNHost b = this.testUtils.createHost();
+        DTNHost d = this.testUtils.createHost();
+        DeliveryPredictabilityStorage ownStorage = createDeliveryPredictabilityStorage(1, this.attachedHost);
+        DeliveryPredictabilityStorage bStorage = createDeliveryPredictabilityStorage(1, b);
+
+        // Meet B, then let B meet D, then meet B again.
+        DeliveryPredictabilityStorage.updatePredictabilitiesForBothHosts(ownStorage, bStorage);
+        DeliveryPredictabilityStorage.updatePredictabilitiesForBothHosts(
+                bStorage, createDeliveryPredictabilityStorage(1, d));
+        DeliveryPredictabilityStorage.updatePredictabilitiesForBothHosts(ownStorage, bStorage);
+
+        // Check D is known.
+        double predictabilityToB = SUMMAND + (1 - SUMMAND) * SUMMAND;
+        Assert.assertEquals(EXPECTED_DIFFERENT_PREDICTABILITY,
+                predictabilityToB * SUMMAND * BETA, ownStorage.getDeliveryPredictability(d), DOUBLE_COMPARISON_DELTA);
+    }
+
+    /**
+     * Tests that delivery predictabilities to many hosts met at different times are decayed correctly, including
+     * those dropped in between.
+     */
+    @Test
+    public void testManyMetHostsAreDecayedCorrectly() {
+        // Meet a new host in each time window.
+        List<DTNHost> metHosts = new ArrayList<>();
+        for (int i = 0; i < MANY_MEETINGS; i++) {
+            this.clock.setTime(i * WINDOW_LENGTH);
+            DTNHost neighbor = this.testUtils.createHost();
+            DeliveryPredictabilityStorage.updatePredictabilitiesForBothHosts(
+                    this.dpStorage, createDeliveryPredictabilityStorage(neighbor));
+            metHosts.add(neighbor);
+        }
+
+        // Decay and check all predictabilities.
+        this.clock.setTime(MANY_MEETINGS * WINDOW_LENGTH);
+        this.dpStorage.update();
+        int numberKnownHosts = 0;
+        for (int i = 0; i < MANY_MEETINGS; i++) {
+            double expectedPredictability = SUMMAND * Math.pow(GAMMA, MANY_MEETINGS - i);
+            if (expectedPredictability < MINIMUM_POSITIVE_DELIVERY_PREDICTABILITY) {
+                expectedPredictability = 0;
+            } else {
+                numberKnownHosts++;
+            }
+            Assert.assertEquals(EXPECTED_DIFFERENT_PREDICTABILITY,
+                    expectedPredictability, this.dpStorage.getDeliveryPredictability(metHosts.get(i)),
+                    DOUBLE_COMPARISON_DELTA);
+        }
+        Assert.assertEquals(
+                "Dropped hosts should not be known anymore.",
+                numberKnownHosts, this.dpStorage.getKnownAddresses().size());
+    }
+
     /**
      * Tests that tiny delivery predictabilities are set to zero when decayed.
      */
@@ -496,6 +647,23 @@ public class DeliveryPredictabilityStorageTest {
         return createDeliveryPredictabilityStorage(BETA, GAMMA, SUMMAND, WINDOW_LENGTH, host);
     }
 
+    /**
+     * Creates a {@link DeliveryPredictabilityStorage} for the given host using the provided delta exchange tolerance
+     * and the default values specified by this test class for all other parameters.
+     * @param deltaExchangeTolerance Maximum change that may be skipped in transitive updates.
+     * @param host The host to be attached to the storage.
+     * @return The created {@link DeliveryPredictabilityStorage}.
+     */
+    private static DeliveryPredictabilityStorage createDeliveryPredictabilityStorage(
+            double deltaExchangeTolerance, DTNHost host) {
+        TestSettings settings = new TestSettings();
+        settings.setNameSpace(DeliveryPredictabilityStorage.DELIVERY_PREDICTABILITY_STORAGE_NS);
+        settings.putSetting(
+                DeliveryPredictabilityStorage.DELTA_EXCHANGE_TOLERANCE_S, Double.toString(deltaExchangeTolerance));
+        settings.restoreNameSpace();
+        return createDeliveryPredictabilityStorageWithExistingSettings(BETA, GAMMA, SUMMAND, WINDOW_LENGTH, host);
+    }
+
     /**
      * Creates a {@link DeliveryPredictabilityStorage}.
      * @param beta Constant indicating the importance of transitivity updates.
@@ -507,7 +675,22 @@ public class DeliveryPredictabilityStorageTest {
      */
     private static DeliveryPredictabilityStorage createDeliveryPredictabilityStorage(
             double beta, double gamma, double summand, double windowLength, DTNHost host) {
-        TestSettings settings = new TestSettings();
+        new TestSettings();
+        return createDeliveryPredictabilityStorageWithExistingSettings(beta, gamma, summand, windowLength, host);
+    }
+
+    /**
+     * Creates a {@link DeliveryPredictabilityStorage} without resetting settings that have been set before.
+     * @param beta Constant indicating the importance of transitivity updates.
+     * @param gamma Constant that determines how fast delivery predictabilities decay.
+     * @param summand Constant used in direct updates, also known as DP_init.
+     * @param windowLength Constant describing how many seconds are in a time unit.
+     * @param host The host to be attached to this storage.
+     * @return The created {@link DeliveryPredictabilityStorage}.
+     */
+    private static DeliveryPredictabilityStorage createDeliveryPredictabilityStorageWithExistingSettings(
+            double beta, double gamma, double summand, double windowLength, DTNHost host) {
+        TestSettings settings = new TestSettings(null);
         settings.setNameSpace(DeliveryPredictabilityStorage.DELIVERY_PREDICTABILITY_STORAGE_NS);
         settings.putSetting(DeliveryPredictabilityStorage.BETA_S, Double.toString(beta));
         settings.putSetting(DeliveryPredictabilityStorage.GAMMA_S, Double.toString(gamma));
@@ -139,6 +139,15 @@ public class DisasterBufferComparatorTest {
                 this.comparator.getHopThreshold(), copy.getHopThreshold());
     }
 
+    @Test
+    public void testCopyConstructorCopiesDeliveryPredictabilityWeight() {
+        DisasterBufferComparator copy =
+                new DisasterBufferComparator(this.comparator, (DisasterRouter)this.host.getRouter());
+        Assert.assertEquals("Expected different delivery predictability weight.",
+                this.comparator.getDeliveryPredictabilityWeight(), copy.getDeliveryPredictabilityWeight(),
+                DOUBLE_COMPARISON_DELTA);
+    }
+
     /**
      * Checks that if two messages are given:
      * - M1 with age in buffer 0 and hop count {@link #HOP_COUNT_BELOW_THRESHOLD} and
@@ -0,0 +1,69 @@
+package test;
+
+import core.Coord;
+import core.DisasterData;
+import core.DisasterDataRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Contains tests for the {@link DisasterDataRegistry} class.
+ */
+public class DisasterDataRegistryTest {
+    private static final double DOUBLE_COMPARING_DELTA = 0.0001;
+
+    /* Properties of the data used in tests. */
+    private static final int SIZE = 350;
+    private static final double CREATION = 20.4;
+    private static final Coord LOCATION = new Coord(2, 3);
+
+    /** Number of data items to create when checking ids. */
+    private static final int MANY_ITEMS = 2000;
+
+    @Test
+    public void testNewDataGetsNextId() {
+        DisasterData first = new DisasterData(DisasterData.DataType.MARKER, SIZE, CREATION, LOCATION);
+        DisasterData second = new DisasterData(DisasterData.DataType.SKILL, SIZE, CREATION, LOCATION);
+        Assert.assertEquals("Ids should be dense.", first.getId() + 1, second.getId());
+        Assert.assertEquals(
+                "Expected different number of registered data items.",
+                second.getId() + 1, DisasterDataRegistry.getNumberOfData());
+    }
+
+    @Test
+    public void testGetDataReturnsDataWithId() {
+        DisasterData data = null;
+        for (int i = 0; i < MANY_ITEMS; i++) {
+            data = new DisasterData(DisasterData.DataType.RESOURCE, i, i, LOCATION);
+            Assert.assertSame("Expected data with id.", data, DisasterDataRegistry.getData(data.getId()));
+        }
+        Assert.assertEquals(
+                "Expected different size.", MANY_ITEMS - 1, DisasterDataRegistry.getSize(data.getId()));
+    }
+
+    @Test
+    public void testRegistryStoresDataProperties() {
+        DisasterData data = new DisasterData(DisasterData.DataType.MARKER, SIZE, CREATION, LOCATION);
+        int id = data.getId();
+        Assert.assertEquals("Expected different size.", SIZE, DisasterDataRegistry.getSize(id));
+        Assert.assertEquals(
+                "Expected different creation time.",
+                CREATION, DisasterDataRegistry.getCreation(id), DOUBLE_COMPARING_DELTA);
+        Assert.assertEquals(
+                "Expected different x coordinate.",
+                LOCATION.getX(), DisasterDataRegistry.getX(id), DOUBLE_COMPARING_DELTA);
+        Assert.assertEquals(
+                "Expected different y coordinate.",
+                LOCATION.getY(), DisasterDataRegistry.getY(id), DOUBLE_COMPARING_DELTA);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetDataThrowsForUnknownId() {
+        DisasterDataRegistry.getData(DisasterDataRegistry.getNumberOfData());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetDataThrowsForNegativeId() {
+        DisasterDataRegistry.getData(-1);
+    }
+}
@@ -302,6 +302,56 @@ public class DisasterPrioritizationStrategyTest {
         Assert.assertArrayEquals("Expected different order.", expectedIdOrder, order);
     }
 
+    /**
+     * Checks that merging new messages into sorted ones results in the same order as sorting all messages.
+     */
+    @Test
+    public void testMergeMessagesMatchesSortingAllMessages() {
+        DTNHost neighbor = this.testUtils.createHost();
+        DTNHost knownHost = this.testUtils.createHost();
+        neighbor.forceConnection(knownHost, null, true);
+
+        // Create data messages, ordinary messages, an important message and head start messages.
+        DisasterData data = new DisasterData(DisasterData.DataType.MARKER, 0, 0, new Coord(0, 0));
+        Message highUtilityData = new DataMessage(
+                this.host, this.testUtils.createHost(), "D1", Collections.singleton(new Tuple<>(data, 1D)), 0);
+        Message lowUtilityData = new DataMessage(
+                this.host, this.testUtils.createHost(), "D2", Collections.singleton(new Tuple<>(data, LOW_UTILITY)), 0);
+        Message messageToKnownHost = new Message(this.host, knownHost, "M1", 0);
+        Message messageToUnknownHost = new Message(this.host, this.testUtils.createHost(), "M2", 0);
+        Message importantMessage = new Message(this.host, this.testUtils.createHost(), "M3", 0, VERY_HIGH_PRIO);
+        this.host.createNewMessage(messageToKnownHost);
+        this.host.createNewMessage(messageToUnknownHost);
+        this.host.createNewMessage(importantMessage);
+        this.clock.advance(DisasterRouterTestUtils.HEAD_START_THRESHOLD + SHORT_TIME_SPAN);
+        Message olderHeadStart = new Message(this.host, this.testUtils.createHost(), "M4", 0);
+        this.host.createNewMessage(olderHeadStart);
+        this.clock.advance(SHORT_TIME_SPAN);
+        Message newerHeadStart = new Message(this.host, this.testUtils.createHost(), "M5", 0);
+        this.host.createNewMessage(newerHeadStart);
+
+        // Sort some of them...
+        List<Tuple<Message, Connection>> sortedMessages = new ArrayList<>();
+        sortedMessages.add(this.messageToHost(lowUtilityData, neighbor));
+        sortedMessages.add(this.messageToHost(messageToUnknownHost, neighbor));
+        sortedMessages.add(this.messageToHost(olderHeadStart, neighbor));
+        sortedMessages = this.prioritization.sortMessages(sortedMessages);
+
+        // ...and merge the others into them.
+        List<Tuple<Message, Connection>> newMessages = new ArrayList<>();
+        newMessages.add(this.messageToHost(newerHeadStart, neighbor));
+        newMessages.add(this.messageToHost(highUtilityData, neighbor));
+        newMessages.add(this.messageToHost(importantMessage, neighbor));
+        newMessages.add(this.messageToHost(messageToKnownHost, neighbor));
+        List<Tuple<Message, Connection>> mergedMessages = this.prioritization.mergeMessages(sortedMessages, newMessages);
+
+        List<Tuple<Message, Connection>> allMessages = new ArrayList<>(sortedMessages);
+        allMessages.addAll(newMessages);
+        Assert.assertEquals("Expected same order as sorting.",
+                this.prioritization.sortMessages(allMessages), mergedMessages);
+        Assert.assertEquals("Sorted messages should not have been changed.", 3, sortedMessages.size());
+    }
+
     /**
      * Checks that multiple head start messages are sorted by creation, newer ones first.
      */
@@ -24,6 +24,7 @@ import util.Tuple;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 import static test.DisasterRouterTestUtils.RD_WINDOW_LENGTH;
 
@@ -386,6 +387,42 @@ public class DisasterPrioritizationTest {
                 this.prioritization.compare(highPriorityMessage, dataMessageToHost) < 0);
     }
 
+    @Test
+    public void testSortByPriorityMatchesSortingWithComparator() {
+        // Create messages with different priority values, among them two with the same one.
+        DTNHost neighbor = this.testUtils.createHost();
+        Message knownMessage = new Message(this.host, neighbor, "M1", 0);
+        Message unknownMessage = new Message(this.host, neighbor, "M2", 0);
+        Message otherUnknownMessage = new Message(this.host, neighbor, "M3", 0);
+        DisasterData data = new DisasterData(DisasterData.DataType.MARKER, 0, 0, new Coord(0, 0));
+        Message dataMessage = new DataMessage(
+                this.host, neighbor, "D1", Collections.singleton(new Tuple<>(data, MEDIUM_UTILITY)), 0);
+        neighbor.createNewMessage(knownMessage);
+        this.host.createNewMessage(knownMessage);
+        this.host.createNewMessage(unknownMessage);
+        this.host.createNewMessage(otherUnknownMessage);
+        this.host.forceConnection(neighbor, null, true);
+        this.clock.setTime(RD_WINDOW_LENGTH);
+        this.host.update(true);
+
+        Connection connection = DisasterPrioritizationTest.createConnection(this.host, neighbor);
+        List<Tuple<Message, Connection>> messages = new ArrayList<>();
+        messages.add(new Tuple<>(knownMessage, connection));
+        messages.add(new Tuple<>(otherUnknownMessage, connection));
+        messages.add(new Tuple<>(dataMessage, connection));
+        messages.add(new Tuple<>(unknownMessage, connection));
+
+        List<Tuple<Message, Connection>> sortedByComparator = new ArrayList<>(messages);
+        sortedByComparator.sort(this.prioritization);
+        this.prioritization.sortByPriority(messages);
+
+        Assert.assertEquals("Expected same order as with comparator.", sortedByComparator, messages);
+        Assert.assertEquals("Expected different first message.", otherUnknownMessage, messages.get(0).getKey());
+        Assert.assertEquals("Expected stable order.", unknownMessage, messages.get(1).getKey());
+        Assert.assertEquals(
+                "Expected different last message.", knownMessage, messages.get(messages.size() - 1).getKey());
+    }
+
     /**
      * Creates an instance of the {@link DisasterPrioritization} class using the provided parameters.
      * @param weight Weight for delivery predictability.
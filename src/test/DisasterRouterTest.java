@@ -890,6 +890,63 @@ public class DisasterRouterTest extends AbstractRouterTest {
         Assert.assertEquals("Message should have been sent to newly connected host.", h3, this.mc.getLastTo());
     }
 
+    /**
+     * Checks that new messages are added to the cache handling non direct messages without waiting for the message
+     * ordering interval.
+     */
+    public void testNewMessagesAreAddedToMessageCacheDirectly() throws Exception {
+        this.computeMessageCacheForNeighborKnowingAllMessages();
+
+        // Create new message shortly afterwards.
+        this.clock.advance(SHORT_TIME_SPAN);
+        Message m = new Message(h1, h0, "M1", 0);
+        h1.createNewMessage(m);
+
+        // Make sure it gets sent although the message ordering interval has not passed.
+        this.mc.reset();
+        this.updateAllNodes();
+        this.checkTransferStart(h1, h2, m.getId());
+    }
+
+    /**
+     * Checks that messages removed from buffer are removed from the cache handling non direct messages.
+     */
+    public void testDeletedMessagesAreRemovedFromMessageCache() throws Exception {
+        this.computeMessageCacheForNeighborKnowingAllMessages();
+
+        // Create new message and delete it before it gets sent.
+        this.clock.advance(SHORT_TIME_SPAN);
+        Message m = new Message(h1, h0, "M1", 0);
+        h1.createNewMessage(m);
+        h1.deleteMessage(m.getId(), false);
+
+        // Make sure it does not get sent.
+        this.mc.reset();
+        this.updateAllNodes();
+        Assert.assertFalse("Deleted message should not have been sent.", this.mc.next());
+    }
+
+    /**
+     * Sets a non-zero message ordering interval, connects h1 to h2 which knows all messages h1 has, and lets h1
+     * compute its message cache.
+     */
+    private void computeMessageCacheForNeighborKnowingAllMessages() throws Exception {
+        // Set the message ordering interval.
+        ts.putSetting(ActiveRouter.MESSAGE_ORDERING_INTERVAL_S, Double.toString(NON_ZERO_MESSAGE_ORDERING_INTERVAL));
+        this.setUp();
+
+        // Make sure h1 has something to send, but not to h2.
+        Message knownMessage = new Message(h1, h0, "M0", 0);
+        h1.createNewMessage(knownMessage);
+        h2.createNewMessage(knownMessage);
+
+        // Connect to h2 and let the message cache be computed.
+        h1.connect(h2);
+        this.mc.reset();
+        this.updateAllNodes();
+        Assert.assertFalse("No message should have been sent.", this.mc.next());
+    }
+
     /**
      * Checks that buffer management works as expected by executing a small scenario.
      */
@@ -1008,7 +1065,7 @@ public class DisasterRouterTest extends AbstractRouterTest {
         this.updateAllNodes();
 
         // Create as many messages as the history can contain
-        for (int i=0; i<DisasterRouter.getMessageHistorySize() - 1; i++ ) {
+        for (int i=0; i<((DisasterRouter)h2.getRouter()).getMessageHistorySize() - 1; i++ ) {
             h2.createNewMessage(new Message(h2, h3, "M" + (i+2), 1));
             this.clock.advance(1);
             this.updateAllNodes();
@@ -1209,9 +1266,6 @@ public class DisasterRouterTest extends AbstractRouterTest {
      * @return True if the current message history contains a pair of m and h
      */
     public boolean historyContainsMessageAndHost(DTNHost hostFrom, Message message, DTNHost hostTo) {
-        
-        List<Tuple<String, Integer>> history = ((DisasterRouter)hostFrom.getRouter()).getMessageSentToHostHistory();
-      
-        return history.contains(new Tuple<>(message.getId(), hostTo.getAddress()));
+        return ((DisasterRouter)hostFrom.getRouter()).messageHistoryContains(message, hostTo);
     }
 }
@@ -4,11 +4,15 @@ import core.ModuleCommunicationBus;
 import core.NetworkInterface;
 import core.Settings;
 import core.SettingsError;
+import core.SimClock;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Test;
 import routing.util.EnergyModel;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Random;
 import java.util.Set;
 
@@ -22,6 +26,7 @@ public class EnergyModelTest {
     private static final double MIN_ENERGY = 0.2;
     public static final double MAX_ENERGY = 0.7;
     private static final double SOME_ENERGY_LEVEL = 0.1;
+    private static final double SCAN_RESPONSE_ENERGY = 0.025;
 
     /** Acceptable delta in double comparisons. */
     private static final double DOUBLE_COMPARISON_DELTA = 0.00001;
@@ -29,9 +34,19 @@ public class EnergyModelTest {
     /** Number of repetitions executed for randomized tests. */
     private static final int NUM_TRIES_IN_RANDOMIZED_TEST = 100;
 
+    /* Update rounds used in tests for lazy energy accounting. */
+    private static final double UPDATE_INTERVAL = 0.1;
+    private static final int NUM_UPDATE_ROUNDS = 50;
+    private static final int DISCOVERY_ROUND = 20;
+
     private TestSettings settings = new TestSettings();
     private ModuleCommunicationBus comBus = new ModuleCommunicationBus();
 
+    @After
+    public void resetSimClock() {
+        SimClock.reset();
+    }
+
     @Test
     public void testReadInitEnergyForSingleValue() {
         this.settings.putSetting(EnergyModel.INIT_ENERGY_S, Double.toString(MIN_ENERGY));
@@ -142,6 +157,127 @@ public class EnergyModelTest {
                 SOME_ENERGY_LEVEL / MAX_ENERGY, energyModel.getEnergyRatio(), DOUBLE_COMPARISON_DELTA);
     }
 
+    /**
+     * Tests that {@link EnergyModel#reduceDiscoveryEnergy()} reduces the energy value on the bus by the scan response
+     * energy.
+     */
+    @Test
+    public void testReduceDiscoveryEnergyUpdatesBus() {
+        EnergyModel energyModel = this.createInitializedEnergyModel();
+
+        energyModel.reduceDiscoveryEnergy();
+        Assert.assertEquals("Expected different energy value on bus.",
+                MIN_ENERGY - SCAN_RESPONSE_ENERGY, this.comBus.getDouble(EnergyModel.ENERGY_VALUE_ID, 0),
+                DOUBLE_COMPARISON_DELTA);
+        Assert.assertEquals("Expected different energy.",
+                MIN_ENERGY - SCAN_RESPONSE_ENERGY, energyModel.getEnergy(), DOUBLE_COMPARISON_DELTA);
+    }
+
+    /**
+     * Tests that reducing the energy of a model that is already depleted does not notify bus listeners anymore.
+     */
+    @Test
+    public void testDepletedEnergyIsNotPublishedAgain() {
+        EnergyModel energyModel = this.createInitializedEnergyModel();
+        this.comBus.updateProperty(EnergyModel.ENERGY_VALUE_ID, 0.0);
+
+        final int[] notifications = new int[1];
+        this.comBus.subscribe(EnergyModel.ENERGY_VALUE_ID, (key, newValue) -> notifications[0]++);
+        energyModel.reduceDiscoveryEnergy();
+
+        Assert.assertEquals("Did not expect any notification.", 0, notifications[0]);
+        Assert.assertEquals("Energy should stay empty.", 0, energyModel.getEnergy(), DOUBLE_COMPARISON_DELTA);
+    }
+
+    /**
+     * Tests that lazy energy accounting results in the same energy levels as updating the energy in every round, up to
+     * and including the depletion of the battery.
+     */
+    @Test
+    public void testLazyEnergyMatchesEagerEnergy() {
+        EnergyModelTest.addAllEnergySettings(this.settings);
+        this.settings.putSetting(EnergyModel.INIT_ENERGY_S, Double.toString(MIN_ENERGY));
+        this.settings.putSetting(NetworkInterface.TRANSMIT_RANGE_S, "10");
+        this.settings.putSetting(NetworkInterface.TRANSMIT_SPEED_S, "1");
+        EnergyModel eagerModel = new EnergyModel(this.settings).replicate();
+        this.settings.putSetting(EnergyModel.LAZY_ENERGY_S, "true");
+        EnergyModel lazyModel = new EnergyModel(this.settings).replicate();
+        ModuleCommunicationBus lazyComBus = new ModuleCommunicationBus();
+        NetworkInterface iface = new TestInterface(this.settings);
+
+        for (int round = 0; round < NUM_UPDATE_ROUNDS; round++) {
+            SimClock.getInstance().setTime(round * UPDATE_INTERVAL);
+            eagerModel.update(iface, this.comBus);
+            lazyModel.update(iface, lazyComBus);
+            if (round == DISCOVERY_ROUND) {
+                eagerModel.reduceDiscoveryEnergy();
+                lazyModel.reduceDiscoveryEnergy();
+            }
+
+            Assert.assertEquals("Expected same energy in round " + round + ".",
+                    eagerModel.getEnergy(), lazyModel.getEnergy(), DOUBLE_COMPARISON_DELTA);
+            Assert.assertEquals("Expected battery to be depleted in the same round.",
+                    this.comBus.getDouble(EnergyModel.ENERGY_VALUE_KEY, 1) <= 0,
+                    lazyComBus.getDouble(EnergyModel.ENERGY_VALUE_KEY, 1) <= 0);
+        }
+        Assert.assertEquals("Battery should have been depleted.", 0, lazyModel.getEnergy(), DOUBLE_COMPARISON_DELTA);
+    }
+
+    /**
+     * Tests that lazy energy accounting only publishes the energy value on the bus once the battery is depleted.
+     */
+    @Test
+    public void testLazyEnergyOnlyPublishesDepletion() {
+        EnergyModelTest.addAllEnergySettings(this.settings);
+        this.settings.putSetting(EnergyModel.INIT_ENERGY_S, Double.toString(MIN_ENERGY));
+        this.settings.putSetting(NetworkInterface.TRANSMIT_RANGE_S, "10");
+        this.settings.putSetting(NetworkInterface.TRANSMIT_SPEED_S, "1");
+        this.settings.putSetting(EnergyModel.LAZY_ENERGY_S, "true");
+        EnergyModel energyModel = new EnergyModel(this.settings).replicate();
+        NetworkInterface iface = new TestInterface(this.settings);
+        energyModel.update(iface, this.comBus);
+
+        final List<Object> publishedValues = new ArrayList<>();
+        this.comBus.subscribe(EnergyModel.ENERGY_VALUE_ID, (key, newValue) -> publishedValues.add(newValue));
+        for (int round = 1; round < NUM_UPDATE_ROUNDS; round++) {
+            SimClock.getInstance().setTime(round * UPDATE_INTERVAL);
+            energyModel.update(iface, this.comBus);
+        }
+
+        Assert.assertEquals("Expected only the depletion to be published.", 1, publishedValues.size());
+        Assert.assertEquals("Expected depleted battery.", 0.0, (Double)publishedValues.get(0), DOUBLE_COMPARISON_DELTA);
+    }
+
+    /**
+     * Tests that an energy level set on the bus, e.g. by recharging, is picked up by lazy energy accounting.
+     */
+    @Test
+    public void testLazyEnergyUsesEnergySetOnBus() {
+        this.settings.putSetting(EnergyModel.LAZY_ENERGY_S, "true");
+        EnergyModel energyModel = this.createInitializedEnergyModel();
+
+        this.comBus.updateProperty(EnergyModel.ENERGY_VALUE_ID, SOME_ENERGY_LEVEL);
+        Assert.assertEquals(
+                "Expected energy from bus.", SOME_ENERGY_LEVEL, energyModel.getEnergy(), DOUBLE_COMPARISON_DELTA);
+        energyModel.reduceDiscoveryEnergy();
+        Assert.assertEquals("Expected reduced energy.",
+                SOME_ENERGY_LEVEL - SCAN_RESPONSE_ENERGY, energyModel.getEnergy(), DOUBLE_COMPARISON_DELTA);
+    }
+
+    /**
+     * Creates an {@link EnergyModel} with {@link #MIN_ENERGY} as initial energy that is attached to
+     * {@link #comBus}.
+     * @return The created energy model.
+     */
+    private EnergyModel createInitializedEnergyModel() {
+        EnergyModelTest.addNecessaryInterfaceSettings(this.settings);
+        EnergyModelTest.addAllEnergySettings(this.settings);
+        this.settings.putSetting(EnergyModel.INIT_ENERGY_S, Double.toString(MIN_ENERGY));
+        EnergyModel energyModel = new EnergyModel(this.settings).replicate();
+        energyModel.update(new TestInterface(this.settings), this.comBus);
+        return energyModel;
+    }
+
     /**
      * Adds values to all settings concerning energy.
      * @param settings The settings object to add settings to.
@@ -149,7 +285,7 @@ public class EnergyModelTest {
     static void addAllEnergySettings(TestSettings settings) {
         settings.putSetting(EnergyModel.INIT_ENERGY_S, MIN_ENERGY + "," + MAX_ENERGY);
         settings.putSetting(EnergyModel.SCAN_ENERGY_S, "0.05");
-        settings.putSetting(EnergyModel.SCAN_RSP_ENERGY_S, "0.025");
+        settings.putSetting(EnergyModel.SCAN_RSP_ENERGY_S, Double.toString(SCAN_RESPONSE_ENERGY));
         settings.putSetting(EnergyModel.TRANSMIT_ENERGY_S, "0.1");
         settings.putSetting(EnergyModel.WARMUP_S, "0");
     }
@@ -0,0 +1,76 @@
+package test;
+
+import core.DTNHost;
+import core.Message;
+import routing.EpidemicOracleRouter;
+import routing.MessageRouter;
+
+/**
+ * Contains tests for the {@link EpidemicOracleRouter} class.
+ */
+public class EpidemicOracleRouterTest extends AbstractRouterTest {
+    @Override
+    public void setUp() throws Exception {
+        EpidemicOracleRouter.reset();
+        ts.putSetting(MessageRouter.B_SIZE_S, Integer.toString(BUFFER_SIZE));
+        setRouterProto(new EpidemicOracleRouter(ts));
+        super.setUp();
+    }
+
+    /**
+     * Checks that a new message instantly reaches every host in the creator's connected component, but no other
+     * hosts.
+     */
+    public void testNewMessageReachesWholeComponent() {
+        h1.connect(h2);
+        h2.connect(h3);
+        h3.connect(h4);
+        h5.connect(h6);
+
+        h1.createNewMessage(new Message(h1, h0, MSG_ID1, 1));
+
+        for (DTNHost host : new DTNHost[] { h1, h2, h3, h4 }) {
+            assertTrue("Message should have reached " + host, host.getRouter().hasMessage(MSG_ID1));
+        }
+        for (DTNHost host : new DTNHost[] { h0, h5, h6 }) {
+            assertFalse("Message should not have reached " + host, host.getRouter().hasMessage(MSG_ID1));
+        }
+    }
+
+    /**
+     * Checks that connecting two components merges the messages of both.
+     */
+    public void testConnectingComponentsSpreadsMessages() {
+        h1.connect(h2);
+        h3.connect(h4);
+        h1.createNewMessage(new Message(h1, h0, MSG_ID1, 1));
+        h4.createNewMessage(new Message(h4, h0, MSG_ID2, 1));
+
+        h2.connect(h3);
+
+        for (DTNHost host : new DTNHost[] { h1, h2, h3, h4 }) {
+            assertTrue("First message should have reached " + host, host.getRouter().hasMessage(MSG_ID1));
+            assertTrue("Second message should have reached " + host, host.getRouter().hasMessage(MSG_ID2));
+        }
+    }
+
+    /**
+     * Checks that delivering a message removes it from all other hosts holding it, including ones in other
+     * components.
+     */
+    public void testDeliveryRemovesMessageEverywhere() {
+        h1.connect(h2);
+        h1.createNewMessage(new Message(h1, h3, MSG_ID1, 1));
+        disconnect(h1);
+        h4.connect(h1);
+        disconnect(h4);
+        assertTrue("Message should have reached h4.", h4.getRouter().hasMessage(MSG_ID1));
+
+        h2.connect(h3);
+
+        for (DTNHost host : new DTNHost[] { h1, h4 }) {
+            assertFalse("Delivered message should have been removed from " + host,
+                    host.getRouter().hasMessage(MSG_ID1));
+        }
+    }
+}
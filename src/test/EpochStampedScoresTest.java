@@ -0,0 +1,69 @@
+package test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import routing.util.EpochStampedScores;
+
+/**
+ * Contains tests for the {@link EpochStampedScores} class.
+ */
+public class EpochStampedScoresTest {
+    private static final int HANDLE = 3;
+    private static final int LARGE_HANDLE = 10_000;
+    private static final double SCORE = 0.7;
+    private static final double OTHER_SCORE = 0.2;
+
+    private static final double DOUBLE_COMPARISON_DELTA = 0.0001;
+
+    private EpochStampedScores scores = new EpochStampedScores();
+
+    @Test
+    public void testNewCacheContainsNothing() {
+        Assert.assertFalse("New cache should not contain any score.", this.scores.contains(HANDLE));
+        Assert.assertFalse("New cache should not contain any score.", this.scores.contains(LARGE_HANDLE));
+    }
+
+    @Test
+    public void testPutScoreIsReturned() {
+        this.scores.put(HANDLE, SCORE);
+        this.scores.put(LARGE_HANDLE, OTHER_SCORE);
+        Assert.assertTrue("Score should be contained.", this.scores.contains(HANDLE));
+        Assert.assertEquals("Expected different score.", SCORE, this.scores.get(HANDLE), DOUBLE_COMPARISON_DELTA);
+        Assert.assertTrue("Score for large handle should be contained.", this.scores.contains(LARGE_HANDLE));
+        Assert.assertEquals(
+                "Expected different score.", OTHER_SCORE, this.scores.get(LARGE_HANDLE), DOUBLE_COMPARISON_DELTA);
+        Assert.assertFalse("Other handle should not be contained.", this.scores.contains(HANDLE + 1));
+    }
+
+    @Test
+    public void testClearRemovesAllScores() {
+        this.scores.put(HANDLE, SCORE);
+        this.scores.put(LARGE_HANDLE, OTHER_SCORE);
+        this.scores.clear();
+        Assert.assertFalse("Score should have been cleared.", this.scores.contains(HANDLE));
+        Assert.assertFalse("Score should have been cleared.", this.scores.contains(LARGE_HANDLE));
+    }
+
+    @Test
+    public void testScoresCanBeStoredAgainAfterClearing() {
+        this.scores.put(HANDLE, SCORE);
+        this.scores.clear();
+        this.scores.put(HANDLE, OTHER_SCORE);
+        Assert.assertTrue("Score should be contained again.", this.scores.contains(HANDLE));
+        Assert.assertEquals("Expected new score.", OTHER_SCORE, this.scores.get(HANDLE), DOUBLE_COMPARISON_DELTA);
+    }
+
+    @Test
+    public void testManyScoresAreKeptWhenCacheGrows() {
+        final int numberOfScores = 1000;
+        for (int i = 0; i < numberOfScores; i++) {
+            this.scores.put(i * LARGE_HANDLE, i);
+        }
+        for (int i = 0; i < numberOfScores; i++) {
+            Assert.assertTrue("Score should be contained.", this.scores.contains(i * LARGE_HANDLE));
+            Assert.assertEquals(
+                    "Expected different score.", i, this.scores.get(i * LARGE_HANDLE), DOUBLE_COMPARISON_DELTA);
+        }
+        Assert.assertFalse("Other handle should not be contained.", this.scores.contains(HANDLE));
+    }
+}
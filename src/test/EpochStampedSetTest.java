@@ -0,0 +1,62 @@
+package test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import routing.util.EpochStampedSet;
+
+/**
+ * Contains tests for the {@link EpochStampedSet} class.
+ */
+public class EpochStampedSetTest {
+    private static final long KEY = 42L;
+    private static final int MANY_KEYS = 1000;
+
+    private EpochStampedSet set = new EpochStampedSet();
+
+    @Test
+    public void testNewSetIsEmpty() {
+        Assert.assertEquals("New set should be empty.", 0, this.set.size());
+        Assert.assertFalse("New set should not contain anything.", this.set.contains(KEY));
+    }
+
+    @Test
+    public void testAddedKeyIsContained() {
+        Assert.assertTrue("Key should have been added.", this.set.add(KEY));
+        Assert.assertTrue("Added key should be contained.", this.set.contains(KEY));
+        Assert.assertFalse("Other key should not be contained.", this.set.contains(KEY + 1));
+        Assert.assertEquals("Expected different size.", 1, this.set.size());
+    }
+
+    @Test
+    public void testAddingKeyTwiceDoesNotChangeSet() {
+        this.set.add(KEY);
+        Assert.assertFalse("Key should not have been added again.", this.set.add(KEY));
+        Assert.assertEquals("Expected different size.", 1, this.set.size());
+    }
+
+    @Test
+    public void testClearRemovesAllKeys() {
+        this.set.add(KEY);
+        this.set.add(KEY + 1);
+        this.set.clear();
+        Assert.assertEquals("Cleared set should be empty.", 0, this.set.size());
+        Assert.assertFalse("Cleared set should not contain old keys.", this.set.contains(KEY));
+        Assert.assertTrue("Old key should be added again after clearing.", this.set.add(KEY));
+        Assert.assertFalse("Other old key should not be contained.", this.set.contains(KEY + 1));
+    }
+
+    @Test
+    public void testManyKeysAcrossClearsKeepMembershipConsistent() {
+        for (int i = 0; i < MANY_KEYS; i++) {
+            this.set.add(i);
+        }
+        this.set.clear();
+        for (int i = 0; i < MANY_KEYS; i += 2) {
+            this.set.add(i);
+        }
+        for (int i = 0; i < MANY_KEYS; i++) {
+            Assert.assertEquals("Unexpected membership for key " + i + ".", i % 2 == 0, this.set.contains(i));
+        }
+        Assert.assertEquals("Expected different size.", MANY_KEYS / 2, this.set.size());
+    }
+}
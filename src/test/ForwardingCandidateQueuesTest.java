@@ -0,0 +1,160 @@
+package test;
+
+import core.CBRConnection;
+import core.Connection;
+import core.DTNHost;
+import core.Message;
+import org.junit.Assert;
+import org.junit.Test;
+import routing.util.ForwardingCandidateQueues;
+import util.Tuple;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Contains tests for the {@link ForwardingCandidateQueues} class.
+ */
+public class ForwardingCandidateQueuesTest {
+    private static final double DOUBLE_COMPARISON_DELTA = 0.0000001;
+
+    /* Versions used in tests. */
+    private static final long OWN_VERSION = 3;
+    private static final long NEIGHBOR_VERSION = 7;
+
+    /* Utilities used in tests. */
+    private static final double LOW_UTILITY = 0.2;
+    private static final double HIGH_UTILITY = 0.8;
+
+    /** Number of candidates used when comparing against a full sort. */
+    private static final int MANY_CANDIDATES = 200;
+    /** Number of queues used when comparing against a full sort. */
+    private static final int NUMBER_OF_QUEUES = 4;
+    /** Number of different utilities used when comparing against a full sort. Small to get many ties. */
+    private static final int NUMBER_OF_UTILITIES = 5;
+    /** Number of different priorities used when comparing against a full sort. */
+    private static final int NUMBER_OF_PRIORITIES = 3;
+    private static final int SEED = 42;
+
+    private TestUtils testUtils = new TestUtils(new ArrayList<>(), new ArrayList<>(), new TestSettings());
+    private DTNHost host = this.testUtils.createHost();
+
+    private ForwardingCandidateQueues queues = new ForwardingCandidateQueues();
+
+    /** Orders messages by descending priority. */
+    private Comparator<Message> tieBreaker = (m1, m2) -> Integer.compare(m2.getPriority(), m1.getPriority());
+
+    @Test
+    public void testGetQueueReturnsNullForUnknownConnection() {
+        Assert.assertNull("Expected no queue.",
+                this.queues.getQueue(this.createConnection(), OWN_VERSION, NEIGHBOR_VERSION));
+    }
+
+    @Test
+    public void testGetQueueReturnsQueueForSameVersions() {
+        Connection con = this.createConnection();
+        List<Tuple<Message, Connection>> queue = Collections.singletonList(new Tuple<>(this.createMessage(0), con));
+        this.queues.putQueue(con, queue, OWN_VERSION, NEIGHBOR_VERSION);
+        Assert.assertSame("Expected stored queue.", queue, this.queues.getQueue(con, OWN_VERSION, NEIGHBOR_VERSION));
+    }
+
+    @Test
+    public void testGetQueueReturnsNullForChangedVersions() {
+        Connection con = this.createConnection();
+        this.queues.putQueue(con, new ArrayList<>(), OWN_VERSION, NEIGHBOR_VERSION);
+        Assert.assertNull("Own version changed.", this.queues.getQueue(con, OWN_VERSION + 1, NEIGHBOR_VERSION));
+        Assert.assertNull("Neighbor version changed.", this.queues.getQueue(con, OWN_VERSION, NEIGHBOR_VERSION + 1));
+    }
+
+    @Test
+    public void testRetainConnectionsRemovesQueuesOfOtherConnections() {
+        Connection keptConnection = this.createConnection();
+        Connection removedConnection = this.createConnection();
+        this.queues.putQueue(keptConnection, new ArrayList<>(), OWN_VERSION, NEIGHBOR_VERSION);
+        this.queues.putQueue(removedConnection, new ArrayList<>(), OWN_VERSION, NEIGHBOR_VERSION);
+
+        this.queues.retainConnections(Collections.singletonList(keptConnection));
+        Assert.assertNotNull("Queue should have been kept.",
+                this.queues.getQueue(keptConnection, OWN_VERSION, NEIGHBOR_VERSION));
+        Assert.assertNull("Queue should have been removed.",
+                this.queues.getQueue(removedConnection, OWN_VERSION, NEIGHBOR_VERSION));
+    }
+
+    @Test
+    public void testSortByDescendingUtilityUsesTieBreakerAndIsStable() {
+        Connection con = this.createConnection();
+        Tuple<Message, Connection> lowUtility = new Tuple<>(this.createMessage(2), con);
+        Tuple<Message, Connection> lowPriority = new Tuple<>(this.createMessage(0), con);
+        Tuple<Message, Connection> highPriority = new Tuple<>(this.createMessage(1), con);
+        Tuple<Message, Connection> highPriority2 = new Tuple<>(this.createMessage(1), con);
+        List<Tuple<Message, Connection>> candidates =
+                new ArrayList<>(Arrays.asList(lowUtility, lowPriority, highPriority, highPriority2));
+        double[] utilities = { LOW_UTILITY, HIGH_UTILITY, HIGH_UTILITY, HIGH_UTILITY };
+
+        ForwardingCandidateQueues.sortByDescendingUtility(candidates, utilities, this.tieBreaker);
+        Assert.assertEquals("Expected different order.",
+                Arrays.asList(highPriority, highPriority2, lowPriority, lowUtility), candidates);
+        Assert.assertEquals("Utilities should have been sorted.", LOW_UTILITY, utilities[3], DOUBLE_COMPARISON_DELTA);
+    }
+
+    /**
+     * Checks that merging sorted queues results in the same order as a stable sort of all candidates does.
+     */
+    @Test
+    public void testMergeMatchesFullSort() {
+        Random random = new Random(SEED);
+        Map<Tuple<Message, Connection>, Double> utilities = new HashMap<>();
+        List<List<Tuple<Message, Connection>>> queues = new ArrayList<>();
+        List<Tuple<Message, Connection>> allCandidates = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_QUEUES; i++) {
+            Connection con = this.createConnection();
+            List<Tuple<Message, Connection>> queue = new ArrayList<>();
+            for (int j = 0; j < MANY_CANDIDATES / NUMBER_OF_QUEUES; j++) {
+                Tuple<Message, Connection> candidate =
+                        new Tuple<>(this.createMessage(random.nextInt(NUMBER_OF_PRIORITIES)), con);
+                utilities.put(candidate, (double)random.nextInt(NUMBER_OF_UTILITIES));
+                queue.add(candidate);
+            }
+            allCandidates.addAll(queue);
+
+            double[] queueUtilities = new double[queue.size()];
+            for (int j = 0; j < queue.size(); j++) {
+                queueUtilities[j] = utilities.get(queue.get(j));
+            }
+            ForwardingCandidateQueues.sortByDescendingUtility(queue, queueUtilities, this.tieBreaker);
+            queues.add(queue);
+        }
+
+        allCandidates.sort((t1, t2) -> {
+            int utilityComparison = Double.compare(utilities.get(t2), utilities.get(t1));
+            return utilityComparison != 0 ? utilityComparison : this.tieBreaker.compare(t1.getKey(), t2.getKey());
+        });
+        Assert.assertEquals("Expected same order as full sort.",
+                allCandidates, ForwardingCandidateQueues.merge(queues, utilities::get, this.tieBreaker));
+    }
+
+    /**
+     * Creates a message with the provided priority.
+     * @param priority Priority to use.
+     * @return The created message.
+     */
+    private Message createMessage(int priority) {
+        return new Message(this.host, this.host, "M", 0, priority);
+    }
+
+    /**
+     * Creates a {@link Connection} object.
+     * @return The created connection object.
+     */
+    private Connection createConnection() {
+        DTNHost from = this.testUtils.createHost();
+        DTNHost to = this.testUtils.createHost();
+        return new CBRConnection(from, from.getInterfaces().get(0), to, to.getInterfaces().get(0), 1);
+    }
+}
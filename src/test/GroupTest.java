@@ -18,6 +18,8 @@ import java.util.ArrayList;
 public class GroupTest {
 
     private static final int MAX_GROUP_ADDRESS = 3;
+    /** Number of hosts to use when membership should span several bitset words. */
+    private static final int MANY_HOSTS = 150;
     private TestUtils utils = new TestUtils(new ArrayList<ConnectionListener>(),
             new ArrayList<MessageListener>(), new TestSettings());
 
@@ -52,6 +54,52 @@ public class GroupTest {
         TestCase.assertEquals("Member should be the added host",host1.getAddress(),(int)group.getMembers()[0]);
     }
 
+    @Test
+    public void testGetMembersKeepsJoinOrder(){
+        Group group = Group.createGroup(0);
+        DTNHost host1 = utils.createHost();
+        DTNHost host2 = utils.createHost();
+        group.addHost(host2);
+        group.addHost(host1);
+        group.addHost(host2);
+        Integer[] members = group.getMembers();
+        TestCase.assertEquals("Group should contain both hosts exactly once", 2, members.length);
+        TestCase.assertEquals("First member should be the host that joined first",
+                host2.getAddress(), (int)members[0]);
+        TestCase.assertEquals("Second member should be the host that joined second",
+                host1.getAddress(), (int)members[1]);
+    }
+
+    @Test
+    public void testGetMemberAddressesIsSorted(){
+        Group group = Group.createGroup(0);
+        DTNHost[] hosts = new DTNHost[MANY_HOSTS];
+        for (int i = 0; i < MANY_HOSTS; i++) {
+            hosts[i] = utils.createHost();
+        }
+        for (int i = MANY_HOSTS - 1; i >= 0; i--) {
+            group.addHost(hosts[i]);
+        }
+        group.addHost(hosts[0]);
+
+        int[] addresses = group.getMemberAddresses();
+        TestCase.assertEquals("Group should contain all hosts exactly once", MANY_HOSTS, group.getNumberOfMembers());
+        for (int i = 0; i < MANY_HOSTS; i++) {
+            TestCase.assertEquals("Addresses should be sorted", hosts[i].getAddress(), addresses[i]);
+            TestCase.assertTrue("Group should contain added host", group.contains(hosts[i].getAddress()));
+        }
+    }
+
+    @Test
+    public void testContainsReturnsFalseForAddressesOutsideOfGroup(){
+        Group group = Group.createGroup(0);
+        DTNHost host1 = utils.createHost();
+        group.addHost(host1);
+        TestCase.assertFalse("Group should not contain negative address", group.contains(-1));
+        TestCase.assertFalse("Group should not contain unknown address",
+                group.contains(host1.getAddress() + MANY_HOSTS));
+    }
+
     @Test
     public void testContainsHost(){
         Group group = Group.createGroup(0);
@@ -0,0 +1,72 @@
+package test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import util.IndexedMinHeap;
+
+/**
+ * Contains tests for the {@link IndexedMinHeap} class.
+ */
+public class IndexedMinHeapTest {
+    private static final int NODE = 3;
+    private static final int OTHER_NODE = 5;
+    private static final int LARGE_NODE = 1000;
+    private static final double KEY = 2.0;
+    private static final double SMALLER_KEY = 1.0;
+
+    private static final double DOUBLE_COMPARISON_DELTA = 0.0001;
+
+    private IndexedMinHeap heap = new IndexedMinHeap();
+
+    public IndexedMinHeapTest() {
+        this.heap.startSearch();
+    }
+
+    @Test
+    public void testNewHeapIsEmpty() {
+        Assert.assertTrue("New heap should be empty.", this.heap.isEmpty());
+        Assert.assertEquals(
+                "Unreached node should have infinite key.",
+                IndexedMinHeap.INFINITY, this.heap.getKey(LARGE_NODE), DOUBLE_COMPARISON_DELTA);
+        Assert.assertFalse("Unreached node should not be polled.", this.heap.wasPolled(LARGE_NODE));
+    }
+
+    @Test
+    public void testPollReturnsNodesOrderedByKeyThenNode() {
+        this.heap.decreaseKey(LARGE_NODE, KEY);
+        this.heap.decreaseKey(OTHER_NODE, KEY);
+        this.heap.decreaseKey(NODE, KEY);
+        this.heap.decreaseKey(LARGE_NODE, SMALLER_KEY);
+
+        Assert.assertEquals("Node with decreased key should be first.", LARGE_NODE, this.heap.poll());
+        Assert.assertEquals("Smaller node should break the tie.", NODE, this.heap.poll());
+        Assert.assertEquals("Expected remaining node.", OTHER_NODE, this.heap.poll());
+        Assert.assertTrue("Heap should be empty.", this.heap.isEmpty());
+        Assert.assertTrue("Polled node should be marked.", this.heap.wasPolled(NODE));
+        Assert.assertEquals(
+                "Polled node should keep its key.", SMALLER_KEY, this.heap.getKey(LARGE_NODE),
+                DOUBLE_COMPARISON_DELTA);
+    }
+
+    @Test
+    public void testTouchReportsFirstTouchInSearch() {
+        Assert.assertTrue("Node was not touched yet.", this.heap.touch(LARGE_NODE));
+        Assert.assertFalse("Node was already touched.", this.heap.touch(LARGE_NODE));
+        Assert.assertTrue("Arrays should have grown.", this.heap.getCapacity() > LARGE_NODE);
+    }
+
+    @Test
+    public void testStartSearchForgetsPreviousSearch() {
+        this.heap.decreaseKey(NODE, KEY);
+        this.heap.decreaseKey(OTHER_NODE, KEY);
+        this.heap.poll();
+
+        this.heap.startSearch();
+        Assert.assertTrue("Heap should be empty.", this.heap.isEmpty());
+        Assert.assertFalse("Node should not be polled in new search.", this.heap.wasPolled(NODE));
+        Assert.assertEquals(
+                "Key should have been forgotten.",
+                IndexedMinHeap.INFINITY, this.heap.getKey(OTHER_NODE), DOUBLE_COMPARISON_DELTA);
+        Assert.assertTrue("Node was not touched in new search.", this.heap.touch(NODE));
+    }
+}
@@ -12,6 +12,7 @@ import org.junit.Test;
 import util.Tuple;
 
 import java.util.ArrayList;
+import java.util.DoubleSummaryStatistics;
 import java.util.List;
 
 /**
@@ -137,6 +138,48 @@ public class LocalDatabaseTest {
         TestCase.assertEquals("Expected useful data not to be deleted.", usefulData, allData.get(0));
     }
 
+    @Test
+    public void testRunningAggregatesMatchStatistics() {
+        this.database.add(new DisasterData(DisasterData.DataType.MARKER, 0, 0, ORIGIN));
+        this.database.add(new DisasterData(DisasterData.DataType.SKILL, 0, CURR_TIME, CURR_LOCATION));
+        this.database.add(new DisasterData(DisasterData.DataType.RESOURCE, 0, CURR_TIME / 2, ORIGIN));
+        this.database.add(new DisasterData(DisasterData.DataType.MAP, 0, 0, CURR_LOCATION));
+        this.checkRunningAggregatesMatchStatistics();
+
+        // Move and advance time s.t. the utilities are recomputed.
+        SimClock.getInstance().advance(TIME_ENOUGH_TO_RECOMPUTE);
+        this.owner.setLocation(ORIGIN);
+        this.checkRunningAggregatesMatchStatistics();
+    }
+
+    @Test
+    public void testRunningAggregatesAreUpdatedOnDeletion() {
+        DisasterData usefulData = new DisasterData(DisasterData.DataType.MARKER, DB_SIZE - 1, CURR_TIME, CURR_LOCATION);
+        DisasterData lessUsefulData = new DisasterData(DisasterData.DataType.MARKER, 0, 0, ORIGIN);
+        this.database.add(lessUsefulData);
+        SimClock.getInstance().advance(TIME_ENOUGH_TO_RECOMPUTE);
+        this.database.add(usefulData);
+
+        TestCase.assertEquals("Expected data deletion.", SINGLE_ITEM, this.database.getNumberOfNonMapItems());
+        TestCase.assertEquals(
+                "Deleted item should not count towards maximum age.",
+                TIME_ENOUGH_TO_RECOMPUTE, this.database.getMaximumDataAge(), DOUBLE_COMPARISON_EXACTNESS);
+        this.checkRunningAggregatesMatchStatistics();
+    }
+
+    @Test
+    public void testRunningAggregatesAreZeroForEmptyDatabase() {
+        TestCase.assertEquals("Expected no items.", 0, this.database.getNumberOfNonMapItems());
+        TestCase.assertEquals("Expected zero age.", 0, this.database.getAverageDataAge(), DOUBLE_COMPARISON_EXACTNESS);
+        TestCase.assertEquals("Expected zero age.", 0, this.database.getMaximumDataAge(), DOUBLE_COMPARISON_EXACTNESS);
+        TestCase.assertEquals(
+                "Expected zero distance.", 0, this.database.getAverageDataDistance(), DOUBLE_COMPARISON_EXACTNESS);
+        TestCase.assertEquals(
+                "Expected zero distance.", 0, this.database.getMaximumDataDistance(), DOUBLE_COMPARISON_EXACTNESS);
+        TestCase.assertEquals(
+                UNEXPECTED_UTILITY, 0, this.database.getAverageDataUtility(), DOUBLE_COMPARISON_EXACTNESS);
+    }
+
     /**
      * Test adding the same data a second time does not store it a second time.
      */
@@ -363,6 +406,62 @@ public class LocalDatabaseTest {
                 newUtility + DOUBLE_COMPARISON_EXACTNESS < originalUtility);
     }
 
+    /**
+     * Tests that queries for data above a minimum utility are correct if the order of utilities changes because the
+     * owner moves.
+     */
+    @Test
+    public void testGetAllNonMapDataWithMinimumUtilityHandlesChangedUtilityOrder() {
+        /* Add data at both locations. */
+        DisasterData dataAtCurrLoc = new DisasterData(DisasterData.DataType.MARKER, 0, CURR_TIME, CURR_LOCATION);
+        DisasterData dataAtOrigin = new DisasterData(DisasterData.DataType.MARKER, 0, CURR_TIME, ORIGIN);
+        this.database.add(dataAtCurrLoc);
+        this.database.add(dataAtOrigin);
+        List<Tuple<DisasterData, Double>> usefulData = this.database.getAllNonMapDataWithMinimumUtility(1);
+        TestCase.assertEquals("Expected a single useful data item.", 1, usefulData.size());
+        TestCase.assertEquals("Expected data at current location.", dataAtCurrLoc, usefulData.get(0).getKey());
+
+        /* Move to the origin and recompute utilities. */
+        this.owner.setLocation(ORIGIN);
+        SimClock.getInstance().advance(TIME_ENOUGH_TO_RECOMPUTE);
+
+        /* Check the other item is the useful one now. */
+        double minUtility = getUtility(this.database.getAllNonMapDataWithMinimumUtility(0), dataAtOrigin);
+        usefulData = this.database.getAllNonMapDataWithMinimumUtility(minUtility);
+        TestCase.assertEquals("Expected a single useful data item.", 1, usefulData.size());
+        TestCase.assertEquals("Expected data at origin.", dataAtOrigin, usefulData.get(0).getKey());
+    }
+
+    /**
+     * Tests that queries for data above a minimum utility return exactly the data with a high enough current utility
+     * if the owner only moves slightly between utility refreshes.
+     */
+    @Test
+    public void testGetAllNonMapDataWithMinimumUtilityAfterSmallMovements() {
+        LocalDatabase largeDatabase = new LocalDatabase(this.owner, Long.MAX_VALUE);
+        final int numberOfItems = 40;
+        final double itemDistance = 25;
+        for (int i = 0; i < numberOfItems; i++) {
+            largeDatabase.add(new DisasterData(
+                    DisasterData.DataType.SKILL, 0, CURR_TIME, new Coord(i * itemDistance, (i % 2) * itemDistance)));
+        }
+
+        final double movement = 10;
+        for (int step = 1; step <= numberOfItems; step++) {
+            this.owner.setLocation(new Coord(step * movement, 0));
+            SimClock.getInstance().advance(TIME_ENOUGH_TO_RECOMPUTE);
+
+            List<Tuple<DisasterData, Double>> allData = largeDatabase.getAllNonMapDataWithMinimumUtility(0);
+            double minUtility = allData.get(step % numberOfItems).getValue();
+            List<Tuple<DisasterData, Double>> usefulData = largeDatabase.getAllNonMapDataWithMinimumUtility(minUtility);
+            for (Tuple<DisasterData, Double> dataItem : allData) {
+                TestCase.assertEquals(
+                        "Expected data to be returned iff its utility is high enough.",
+                        dataItem.getValue() >= minUtility, containsData(usefulData, dataItem.getKey()));
+            }
+        }
+    }
+
     /**
      * As utilities should be cached to avoid frequent computations (costs runtime and is unnecessary, since utility
      * depends on location and time and those do not change much within a single second).
@@ -470,6 +569,33 @@ public class LocalDatabaseTest {
         return allData;
     }
 
+    /**
+     * Checks that the running aggregates of the database match the statistics computed by scanning all data.
+     */
+    private void checkRunningAggregatesMatchStatistics() {
+        DoubleSummaryStatistics ageStatistics = this.database.getDataAgeStatistics();
+        DoubleSummaryStatistics distanceStatistics = this.database.getDataDistanceStatistics();
+        DoubleSummaryStatistics utilityStatistics = this.database.getDataUtilityStatistics();
+        TestCase.assertEquals(
+                "Expected different number of non-map items.",
+                ageStatistics.getCount(), this.database.getNumberOfNonMapItems());
+        TestCase.assertEquals(
+                "Expected different average age.",
+                ageStatistics.getAverage(), this.database.getAverageDataAge(), DOUBLE_COMPARISON_EXACTNESS);
+        TestCase.assertEquals(
+                "Expected different maximum age.",
+                ageStatistics.getMax(), this.database.getMaximumDataAge(), DOUBLE_COMPARISON_EXACTNESS);
+        TestCase.assertEquals(
+                "Expected different average distance.",
+                distanceStatistics.getAverage(), this.database.getAverageDataDistance(), DOUBLE_COMPARISON_EXACTNESS);
+        TestCase.assertEquals(
+                "Expected different maximum distance.",
+                distanceStatistics.getMax(), this.database.getMaximumDataDistance(), DOUBLE_COMPARISON_EXACTNESS);
+        TestCase.assertEquals(
+                "Expected different average utility.",
+                utilityStatistics.getAverage(), this.database.getAverageDataUtility(), DOUBLE_COMPARISON_EXACTNESS);
+    }
+
     /**
      * Checks whether the given list contains the given data item.
      *
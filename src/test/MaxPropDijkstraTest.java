@@ -5,10 +5,12 @@
 package test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
 import junit.framework.TestCase;
@@ -154,4 +156,95 @@ public class MaxPropDijkstraTest extends TestCase {
 
 	}
 
+	/**
+	 * Tests that consecutive searches from different sources do not
+	 * influence each other.
+	 */
+	public void testRepeatedSearchesFromDifferentSources() {
+		targets.add(0);
+		targets.add(2);
+		targets.add(4);
+
+		mapping.get(0).updateMeetingProbFor(1);
+		mapping.get(1).updateMeetingProbFor(2);
+		mapping.get(1).updateMeetingProbFor(3);
+		mapping.get(3).updateMeetingProbFor(4);
+
+		Map<Integer, Double> fromZero = mpd.getCosts(0, targets);
+		Map<Integer, Double> fromThree = mpd.getCosts(3, targets);
+
+		assertEquals(0.0, fromZero.get(0));
+		assertEquals(0.5, fromZero.get(2));
+		assertEquals(0.5, fromZero.get(4));
+		assertEquals(0.0, fromThree.get(4));
+		assertFalse("Node 0 should not be reachable from node 3",
+				fromThree.containsKey(0));
+		assertFalse("Node 2 should not be reachable from node 3",
+				fromThree.containsKey(2));
+		assertEquals(fromZero, mpd.getCosts(0, targets));
+	}
+
+	/**
+	 * Tests the costs on a larger random graph against a simple
+	 * Bellman-Ford computation.
+	 */
+	public void testCostsOnRandomGraphMatchBellmanFord() {
+		final int nrofNodes = 200;
+		final int nrofNeighbors = 5;
+		Random rng = new Random(42);
+
+		mapping.clear();
+		for (int i = 0; i < nrofNodes; i++) {
+			MeetingProbabilitySet set = new MeetingProbabilitySet(
+					MeetingProbabilitySet.INFINITE_SET_SIZE, 1.0);
+			for (int j = 0; j < nrofNeighbors; j++) {
+				set.updateMeetingProbFor(rng.nextInt(nrofNodes),
+						rng.nextDouble());
+			}
+			mapping.put(i, set);
+		}
+		for (int i = 0; i < nrofNodes; i += 3) {
+			targets.add(i);
+		}
+
+		for (int from = 0; from < nrofNodes; from += 50) {
+			double[] expected = computeCostsWithBellmanFord(from, nrofNodes);
+			Map<Integer, Double> result = mpd.getCosts(from, targets);
+			for (int target : targets) {
+				if (expected[target] == Double.MAX_VALUE) {
+					assertFalse("Node " + target + " should be unreachable",
+							result.containsKey(target));
+				} else {
+					assertEquals(expected[target], result.get(target), DELTA);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Computes the costs from the given node to all nodes in {@link #mapping}
+	 * by repeatedly relaxing all edges.
+	 */
+	private double[] computeCostsWithBellmanFord(int from, int nrofNodes) {
+		double[] costs = new double[nrofNodes];
+		Arrays.fill(costs, Double.MAX_VALUE);
+		costs[from] = 0;
+		for (int round = 0; round < nrofNodes; round++) {
+			for (Map.Entry<Integer, MeetingProbabilitySet> e :
+					mapping.entrySet()) {
+				if (costs[e.getKey()] == Double.MAX_VALUE) {
+					continue;
+				}
+				for (Map.Entry<Integer, Double> p :
+						e.getValue().getAllProbs().entrySet()) {
+					double cost = costs[e.getKey()] + (1 - p.getValue());
+					if (cost < costs[p.getKey()]) {
+						costs[p.getKey()] = cost;
+					}
+				}
+			}
+		}
+		return costs;
+	}
+
 }
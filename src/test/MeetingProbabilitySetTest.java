@@ -0,0 +1,91 @@
+package test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import routing.maxprop.MeetingProbabilitySet;
+
+/**
+ * Contains tests for the {@link MeetingProbabilitySet} class.
+ */
+public class MeetingProbabilitySetTest {
+    private static final double DOUBLE_COMPARISON_DELTA = 0.0000001;
+
+    /** Alpha used in tests. */
+    private static final double ALPHA = 1.0;
+
+    /** Number of updates high enough to make the scale factor underflow without renormalization. */
+    private static final int MANY_UPDATES = 2000;
+
+    /* Node indexes used in tests. */
+    private static final int NODE_1 = 7;
+    private static final int NODE_2 = 3;
+    private static final int NODE_3 = 12;
+
+    private MeetingProbabilitySet set = new MeetingProbabilitySet(MeetingProbabilitySet.INFINITE_SET_SIZE, ALPHA);
+
+    @Test
+    public void testNodesAreSortedByPosition() {
+        this.set.updateMeetingProbFor(NODE_1);
+        this.set.updateMeetingProbFor(NODE_2);
+        this.set.updateMeetingProbFor(NODE_3);
+        this.set.updateMeetingProbFor(NODE_2);
+
+        Assert.assertEquals("Expected different number of nodes.", 3, this.set.size());
+        Assert.assertEquals("Expected different node.", NODE_2, this.set.getNodeAt(0));
+        Assert.assertEquals("Expected different node.", NODE_1, this.set.getNodeAt(1));
+        Assert.assertEquals("Expected different node.", NODE_3, this.set.getNodeAt(2));
+        for (int i = 0; i < this.set.size(); i++) {
+            Assert.assertEquals("Expected positional probability to match lookup.",
+                    this.set.getProbFor(this.set.getNodeAt(i)), this.set.getProbAt(i), DOUBLE_COMPARISON_DELTA);
+        }
+    }
+
+    @Test
+    public void testProbabilitiesSumToOneAfterManyUpdates() {
+        int[] nodes = { NODE_1, NODE_2, NODE_3 };
+        for (int i = 0; i < MANY_UPDATES; i++) {
+            this.set.updateMeetingProbFor(nodes[i % nodes.length]);
+        }
+
+        double total = 0;
+        for (int i = 0; i < this.set.size(); i++) {
+            Assert.assertTrue("Probability should be positive.", this.set.getProbAt(i) > 0);
+            total += this.set.getProbAt(i);
+        }
+        Assert.assertEquals("Probabilities should sum to one.", 1.0, total, DOUBLE_COMPARISON_DELTA);
+    }
+
+    @Test
+    public void testReplicaIsNotChangedByOriginal() {
+        this.set.updateMeetingProbFor(NODE_1);
+        MeetingProbabilitySet replica = this.set.replicate();
+
+        this.set.updateMeetingProbFor(NODE_2);
+        Assert.assertEquals("Replica should not know new node.", 0, replica.getProbFor(NODE_2), 0);
+        Assert.assertEquals("Replica should keep probability.", 1, replica.getProbFor(NODE_1), DOUBLE_COMPARISON_DELTA);
+        Assert.assertEquals("Original should have changed.",
+                1 / (1 + ALPHA), this.set.getProbFor(NODE_1), DOUBLE_COMPARISON_DELTA);
+    }
+
+    @Test
+    public void testOriginalIsNotChangedByReplica() {
+        this.set.updateMeetingProbFor(NODE_1);
+        this.set.updateMeetingProbFor(NODE_2);
+        MeetingProbabilitySet replica = this.set.replicate();
+
+        replica.updateMeetingProbFor(NODE_2);
+        replica.updateMeetingProbFor(NODE_3, 1);
+        Assert.assertEquals("Original should not know new node.", 0, this.set.getProbFor(NODE_3), 0);
+        Assert.assertEquals("Original should keep probability.",
+                1 / (1 + ALPHA), this.set.getProbFor(NODE_2), DOUBLE_COMPARISON_DELTA);
+        Assert.assertEquals("Replica should have changed.",
+                (1 / (1 + ALPHA) + ALPHA) / (1 + ALPHA), replica.getProbFor(NODE_2), DOUBLE_COMPARISON_DELTA);
+    }
+
+    @Test
+    public void testGetAllProbsReturnsCopy() {
+        this.set.updateMeetingProbFor(NODE_1);
+        this.set.getAllProbs().clear();
+        Assert.assertEquals("Probability should be unchanged.", 1, this.set.getProbFor(NODE_1), 0);
+    }
+}
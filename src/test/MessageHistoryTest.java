@@ -0,0 +1,96 @@
+package test;
+
+import core.DTNHost;
+import core.Message;
+import org.junit.Assert;
+import org.junit.Test;
+import routing.util.MessageHistory;
+
+import java.util.ArrayList;
+
+/**
+ * Contains tests for the {@link MessageHistory} class.
+ */
+public class MessageHistoryTest {
+    private static final int CAPACITY = 3;
+
+    private TestUtils testUtils = new TestUtils(new ArrayList<>(), new ArrayList<>(), new TestSettings());
+    private DTNHost h1 = this.testUtils.createHost();
+    private DTNHost h2 = this.testUtils.createHost();
+    private Message m1 = new Message(this.h1, this.h2, "M1", 0);
+
+    private MessageHistory history = new MessageHistory(CAPACITY);
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorThrowsForCapacityZero() {
+        new MessageHistory(0);
+    }
+
+    @Test
+    public void testContainsReturnsFalseForEmptyHistory() {
+        Assert.assertFalse("Empty history should not contain anything.", this.history.contains(this.m1, this.h2));
+    }
+
+    @Test
+    public void testContainsReturnsTrueForAddedPair() {
+        this.history.add(this.m1, this.h2);
+        Assert.assertTrue("Added pair should be contained.", this.history.contains(this.m1, this.h2));
+    }
+
+    @Test
+    public void testContainsMatchesReplicates() {
+        this.history.add(this.m1, this.h2);
+        Assert.assertTrue("Replicate should be recognized.", this.history.contains(this.m1.replicate(), this.h2));
+    }
+
+    @Test
+    public void testContainsDistinguishesHostsAndMessages() {
+        this.history.add(this.m1, this.h2);
+        Message otherMessage = new Message(this.h1, this.h2, "M2", 0);
+        Assert.assertFalse("Pair with other host should not be contained.", this.history.contains(this.m1, this.h1));
+        Assert.assertFalse("Pair with other message should not be contained.",
+                this.history.contains(otherMessage, this.h2));
+    }
+
+    @Test
+    public void testOldestPairIsEvictedWhenFull() {
+        this.history.add(this.m1, this.h2);
+        for (int i = 0; i < CAPACITY; i++) {
+            this.history.add(new Message(this.h1, this.h2, "Other" + i, 0), this.h2);
+        }
+        Assert.assertFalse("Oldest pair should have been evicted.", this.history.contains(this.m1, this.h2));
+        Assert.assertEquals("Size should be restricted to capacity.", CAPACITY, this.history.size());
+    }
+
+    @Test
+    public void testPairAddedTwiceIsKeptUntilBothEntriesAreEvicted() {
+        Message other = new Message(this.h1, this.h2, "M2", 0);
+        this.history.add(this.m1, this.h2);
+        this.history.add(other, this.h2);
+        this.history.add(this.m1, this.h2);
+
+        // Evict the first entry of m1.
+        this.history.add(other, this.h1);
+        Assert.assertTrue("Second entry of pair should still be in history.", this.history.contains(this.m1, this.h2));
+
+        // Evict the second one.
+        this.history.add(other, this.h1);
+        this.history.add(other, this.h1);
+        Assert.assertFalse("Pair should have been evicted.", this.history.contains(this.m1, this.h2));
+        Assert.assertTrue("Newer pair should still be in history.", this.history.contains(other, this.h1));
+    }
+
+    @Test
+    public void testManyEvictionsKeepMembershipConsistent() {
+        MessageHistory largeHistory = new MessageHistory(100);
+        Message[] messages = new Message[1000];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = new Message(this.h1, this.h2, "Many" + i, 0);
+            largeHistory.add(messages[i], this.h2);
+        }
+        for (int i = 0; i < messages.length; i++) {
+            Assert.assertEquals("Unexpected membership for message " + i + ".",
+                    i >= messages.length - 100, largeHistory.contains(messages[i], this.h2));
+        }
+    }
+}
@@ -5,12 +5,15 @@
 package test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 
 import core.ConnectionListener;
 import core.DTNHost;
 import core.Message;
+import core.MessageAttribute;
 import core.MessageListener;
+import core.SimError;
 import core.SimClock;
 import core.World;
 import junit.framework.TestCase;
@@ -83,6 +86,72 @@ public class MessageTest extends TestCase {
         assertEquals(value2, msg.getProperty("bar"));
     }
 
+    @Test
+    public void testAttributeIsCopiedOnReplicate() {
+        MessageAttribute<Integer> attribute = MessageAttribute.register("MessageTest.copies", Integer.class);
+        msg.setAttribute(attribute, 4);
+        Message replicate = msg.replicate();
+        msg.setAttribute(attribute, 2);
+
+        assertEquals(Integer.valueOf(4), replicate.getAttribute(attribute));
+        assertEquals(Integer.valueOf(2), msg.getAttribute(attribute));
+    }
+
+    @Test
+    public void testAttributeIsAccessibleAsProperty() {
+        MessageAttribute<String> attribute = MessageAttribute.register("MessageTest.type", String.class);
+        msg.setAttribute(attribute, "ping");
+        assertEquals("ping", msg.getProperty(attribute.getName()));
+
+        msg.updateProperty(attribute.getName(), "pong");
+        assertEquals("pong", msg.getAttribute(attribute));
+        assertNull(msgPrio.getAttribute(attribute));
+    }
+
+    @Test
+    public void testRegisteringAttributeTwiceReturnsSameAttribute() {
+        MessageAttribute<String> attribute = MessageAttribute.register("MessageTest.name", String.class);
+        assertSame(attribute, MessageAttribute.register("MessageTest.name", String.class));
+    }
+
+    @Test
+    public void testRegisteringAttributeWithDifferentTypeThrows() {
+        MessageAttribute.register("MessageTest.value", String.class);
+        try {
+            MessageAttribute.register("MessageTest.value", Integer.class);
+            fail("Expected an exception for the different type.");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testTypedAttributeTakesOverPropertyKey() {
+        msg.updateProperty("MessageTest.hops", 3);
+        MessageAttribute<Integer> attribute = MessageAttribute.register("MessageTest.hops", Integer.class);
+
+        assertEquals(Integer.class, attribute.getType());
+        assertEquals(Integer.valueOf(3), msg.getAttribute(attribute));
+        assertSame(attribute, MessageAttribute.register("MessageTest.hops", Integer.class));
+        try {
+            msg.updateProperty(attribute.getName(), "three");
+            fail("Expected an exception for the wrong type.");
+        } catch (SimError e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testUpdatePropertyThrowsForWrongType() {
+        MessageAttribute<String> attribute = MessageAttribute.register("MessageTest.label", String.class);
+        try {
+            msg.updateProperty(attribute.getName(), 1);
+            fail("Expected an exception for the wrong type.");
+        } catch (SimError e) {
+            // expected
+        }
+    }
+
     @Test
     public void testGetTo() {
         assertEquals(this.to, this.msg.getTo());
@@ -165,6 +234,33 @@ public class MessageTest extends TestCase {
         assertTrue("The message path should be empty", msg.getHops().isEmpty());
     }
 
+    @Test
+    public void testReplicatesDoNotChangeEachOthersPaths() {
+        Message.setStoreFullMsgPath(new TestSettings());
+        DTNHost relayHost = this.utils.createHost();
+        msg = new Message(from, to, "M", 100);
+        Message replicate = msg.replicate();
+
+        replicate.addNodeOnPath(relayHost);
+        msg.addNodeOnPath(to);
+        assertEquals("Unexpected path of the original.", Arrays.asList(from, to), msg.getHops());
+        assertEquals("Unexpected path of the replicate.", Arrays.asList(from, relayHost), replicate.getHops());
+        assertTrue("Path should contain the relay.", replicate.getHops().contains(relayHost));
+        assertFalse("Path should not contain the receiver.", replicate.getHops().contains(to));
+    }
+
+    @Test
+    public void testGetHopsCannotBeModified() {
+        Message.setStoreFullMsgPath(new TestSettings());
+        msg = new Message(from, to, "M", 100);
+        try {
+            msg.getHops().add(to);
+            fail("Path should not be modifiable.");
+        } catch (UnsupportedOperationException expected) {
+            // expected
+        }
+    }
+
     @Test
     public void testGetHopCount(){
         DTNHost relayHost1 = this.utils.createHost();
@@ -157,6 +157,23 @@ public class MessageTransferAcceptPolicyTest {
                 policy.acceptSending(this.sender, this.recipient, null, this.multicast));
     }
 
+    @Test
+    public void testAcceptSendingNoticesHostJoiningMulticastGroup() {
+        this.setAcceptableRecipientAddress(this.recipient2.getAddress());
+        MessageTransferAcceptPolicy policy = new MessageTransferAcceptPolicy(this.settings);
+        Group group = Group.createGroup(1);
+        group.addHost(this.sender);
+        Message groupMulticast = new MulticastMessage(this.sender, group, "G2", 0);
+
+        assertFalse(
+                UNEXPECTED_ACCEPT_S,
+                policy.acceptSending(this.sender, this.recipient, null, groupMulticast));
+        group.addHost(this.recipient2);
+        assertTrue(
+                EXPECTED_ACCEPT_S,
+                policy.acceptSending(this.sender, this.recipient, null, groupMulticast));
+    }
+
     @Test
     public void testAcceptSendingReturnsTrueForBroadcastWithSenderInsideRange() {
         MessageTransferAcceptPolicy policy = new MessageTransferAcceptPolicy(this.settings);
@@ -10,7 +10,9 @@ import org.junit.Before;
 import org.junit.Test;
 
 import core.ModuleCommunicationBus;
+import core.ModuleCommunicationBus.DoubleKey;
 import core.ModuleCommunicationListener;
+import core.SimError;
 
 public class ModuleCommunicationBusTest extends TestCase {
 
@@ -103,4 +105,96 @@ public class ModuleCommunicationBusTest extends TestCase {
 		assertEquals(-16.7, b.getDouble(key, -1.0));
 	}
 
+	@Test
+	public void testDoubleKey() {
+		DoubleKey key = DoubleKey.register("keytst");
+		assertSame(key, DoubleKey.register("keytst"));
+
+		assertFalse(b.containsProperty(key));
+		assertEquals(-1.0, b.getDouble(key, -1.0));
+		b.addDouble(key, 2.5);
+		assertTrue(b.containsProperty(key));
+		assertEquals(2.5, b.getDouble(key, -1.0));
+		b.setDouble(key, 3.5);
+		assertEquals(3.5, b.getDouble(key, -1.0));
+
+		try {
+			b.addDouble(key, 1.0);
+			fail("Adding an existing value should fail");
+		} catch (SimError expected) {
+			/* expected */
+		}
+	}
+
+	@Test
+	public void testDoubleKeyWithStringAccess() {
+		DoubleKey key = DoubleKey.register("keystrtst");
+		b.addProperty(key.getName(), 1.5);
+		assertEquals(1.5, b.getDouble(key, -1.0));
+		b.subscribe(key.getName(), mcl);
+
+		b.setDouble(key, 4.5);
+		assertEquals(key.getName(), notifyKey);
+		assertEquals(4.5, notifyValue);
+		assertEquals(4.5, b.getProperty(key.getName()));
+		assertEquals(5.5, b.updateDouble(key.getName(), 1.0));
+		assertEquals(5.5, b.getDouble(key, -1.0));
+
+		try {
+			b.updateProperty(key.getName(), "no double");
+			fail("Storing a non-Double value should fail");
+		} catch (SimError expected) {
+			/* expected */
+		}
+	}
+
+	@Test
+	public void testDoubleKeyRegisteredAfterStringAccess() {
+		String name = "latekeytst";
+		b.addProperty(name, 1.5);
+		b.subscribe(name, mcl);
+
+		DoubleKey key = DoubleKey.register(name);
+		assertTrue(b.containsProperty(key));
+		assertEquals(1.5, b.getDouble(key, -1.0));
+		b.setDouble(key, 2.5);
+		assertEquals(name, notifyKey);
+		assertEquals(2.5, notifyValue);
+		assertEquals(2.5, b.getProperty(name));
+	}
+
+	@Test
+	public void testSeveralDoubleKeysRegisteredAfterStringAccess() {
+		b.addProperty("latekeytst1", 1.5);
+		b.addProperty("latekeytst2", 2.5);
+		DoubleKey first = DoubleKey.register("latekeytst1");
+		DoubleKey second = DoubleKey.register("latekeytst2");
+
+		assertEquals(1.5, b.getDouble(first, -1.0));
+		assertEquals(2.5, b.getDouble(second, -1.0));
+		b.setDouble(second, 3.5);
+		assertEquals(3.5, b.getProperty("latekeytst2"));
+
+		b.addProperty("latekeytst3", 4.5);
+		DoubleKey third = DoubleKey.register("latekeytst3");
+		assertTrue(b.containsProperty(third));
+		assertEquals(4.5, b.getDouble(third, -1.0));
+		assertEquals(1.5, b.getDouble(first, -1.0));
+	}
+
+	@Test
+	public void testNoNotificationWithoutChange() {
+		DoubleKey key = DoubleKey.register("unchangedtst");
+		b.addDouble(key, 1.0);
+		b.addProperty("unchangedobjtst", TST_VAL);
+		b.subscribe(key.getName(), mcl);
+		b.subscribe("unchangedobjtst", mcl);
+
+		b.setDouble(key, 1.0);
+		b.updateProperty(key.getName(), 1.0);
+		b.updateProperty("unchangedobjtst", TST_VAL);
+		assertNull(notifyKey);
+		assertNull(notifyValue);
+	}
+
 }
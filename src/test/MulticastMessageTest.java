@@ -33,6 +33,8 @@ public class MulticastMessageTest {
     private static final int MESSAGE_SIZE = 100;
 
     private static final int TWO_RECIPIENTS = 2;
+    /** Number of members to add if the group should span several bitset words. */
+    private static final int MANY_HOSTS = 150;
 
     private TestUtils utils = new TestUtils(new ArrayList<ConnectionListener>(), new ArrayList<MessageListener>(),
             new TestSettings());
@@ -209,6 +211,36 @@ public class MulticastMessageTest {
                 m3.getRemainingRecipients().contains(member3.getAddress()));
     }
 
+    /**
+     * Checks that iterating with {@link MulticastMessage#nextRemainingRecipient(int)} finds exactly the recipients
+     * returned by {@link MulticastMessage#getRemainingRecipients()} if the group spans several bitset words.
+     */
+    @Test
+    public void testNextRemainingRecipientMatchesRemainingRecipients() {
+        for (int i = 0; i < MANY_HOSTS; i++) {
+            DTNHost member = this.utils.createHost();
+            this.group1.addHost(member);
+            if (i % 2 == 0) {
+                this.msg.addReachedHost(member);
+            }
+        }
+
+        Collection<Integer> remainingRecipients = this.msg.getRemainingRecipients();
+        assertEquals("Expected every second new member to remain.", MANY_HOSTS / 2, remainingRecipients.size());
+        assertEquals("Expected different number of remaining recipients.",
+                remainingRecipients.size(), this.msg.getNumberOfRemainingRecipients());
+
+        Collection<Integer> iteratedRecipients = new ArrayList<>();
+        for (int address = this.msg.nextRemainingRecipient(0);
+             address >= 0;
+             address = this.msg.nextRemainingRecipient(address + 1)) {
+            assertFalse("Sender should not be remaining.", address == this.from.getAddress());
+            iteratedRecipients.add(address);
+        }
+        assertArrayEquals("Expected iteration to find remaining recipients.",
+                remainingRecipients.toArray(), iteratedRecipients.toArray());
+    }
+
     /**
      * Checks that {@link MulticastMessage#addReachedHost(DTNHost)} removes recipients from remaining recipients.
      */
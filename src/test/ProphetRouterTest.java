@@ -318,6 +318,27 @@ public class ProphetRouterTest extends AbstractRouterTest {
                 "Original message should have been transferred.", this.mc.TYPE_RELAY, this.mc.getLastType());
     }
 
+    /**
+     * Checks that a message becomes a forwarding candidate as soon as the neighbor's delivery predictability changes,
+     * even if the connection to the neighbor already existed before.
+     */
+    public void testNeighborPredictabilityChangeUpdatesCandidates() {
+        Message message = new Message(this.h1, this.h3, "M1", 0);
+        this.h1.createNewMessage(message);
+        this.h1.connect(this.h2);
+
+        // Neither H1 nor H2 has met H3, so the message should not be sent.
+        this.mc.reset();
+        this.h1.update(true);
+        Assert.assertFalse("Did not expect any transfer.", this.mc.next());
+
+        // Let H2 meet H3 without disconnecting from H1.
+        this.h2.connect(this.h3);
+        this.mc.reset();
+        this.h1.update(true);
+        this.checkTransferStart(this.h1, this.h2, message.getId());
+    }
+
 	private void doRelay() {
 		clock.advance(10);
 		updateAllNodes();
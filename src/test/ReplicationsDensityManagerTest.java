@@ -368,6 +368,29 @@ public class ReplicationsDensityManagerTest extends AbstractIntervalRatingMechan
                 EXPECTED_DIFFERENT_VALUE,
                 1, this.replicationsDensityManager.getReplicationsDensity(MESSAGE_ID), DOUBLE_COMPARISON_DELTA);
     }
+
+    @Test
+    public void testMessageRemovedAndAddedAgainInTimeWindowKeepsEncounters() {
+        this.replicationsDensityManager.addMessage(MESSAGE_ID);
+
+        // Meet a neighbor with the message and another one without it.
+        this.meetNeighborWithMessage(MESSAGE_ID);
+        this.replicationsDensityManager.addEncounter(this.testUtils.createHost());
+
+        // Remove the message and add it again.
+        this.replicationsDensityManager.removeMessage(MESSAGE_ID);
+        this.replicationsDensityManager.addMessage(MESSAGE_ID);
+
+        // Update replications density.
+        this.clock.setTime(WINDOW_LENGTH);
+        this.replicationsDensityManager.update();
+
+        // Make sure the first meeting was still considered.
+        Assert.assertEquals(
+                EXPECTED_DIFFERENT_VALUE,
+                1D / 2, this.replicationsDensityManager.getReplicationsDensity(MESSAGE_ID), DOUBLE_COMPARISON_DELTA);
+    }
+
     /**
      * Creates a new {@link ReplicationsDensityManager} using the specified window length.
      */
@@ -4,7 +4,9 @@
  */
 package test;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import routing.schedule.ScheduleDijkstra;
 import routing.schedule.ScheduleOracle;
@@ -96,4 +98,48 @@ public class ScheduleDijkstraTest extends TestCase {
 		comparePaths(new int[]{3,12,13,14,20}, d.getShortestPath(3, 20, 40));
 	}
 
+	public void testBatchPathsMatchSinglePaths() {
+		oracle.addEntry(40, 3, 10, 5);
+		oracle.addEntry(40, 3, 11, 10);
+		oracle.addEntry(60, 10, 20, 10);
+		oracle.addEntry(65, 11, 20, 3);
+		oracle.addEntry(100, 1, 20, 5);
+
+		List<Integer> destinations = Arrays.asList(1, 2, 10, 11, 20, 30);
+		Map<Integer, List<ScheduleEntry>> paths =
+			d.getShortestPaths(1, destinations, 0);
+
+		assertEquals(destinations.size(), paths.size());
+		for (int destination : destinations) {
+			assertEquals(d.getShortestPath(1, destination, 0),
+					paths.get(destination));
+		}
+		assertEquals(0, paths.get(1).size()); /* source itself */
+		assertEquals(0, paths.get(30).size()); /* no path */
+		comparePaths(new int[]{1,3,11,20}, paths.get(20));
+	}
+
+	public void testOracleKeepsDeparturesSorted() {
+		oracle.addEntry(15, 1, 6, 10);
+		oracle.addEntry(5, 1, 7, 10);
+		oracle.addEntry(20, 1, 8, 10);
+
+		List<ScheduleEntry> departures = oracle.getDepartures(1);
+		for (int i = 1; i < departures.size(); i++) {
+			assertTrue(departures.get(i - 1).getTime() <=
+					departures.get(i).getTime());
+		}
+
+		/* entries with equal start times keep their insertion order */
+		List<ScheduleEntry> connected = oracle.getConnected(1, 20);
+		assertEquals(4, connected.size());
+		assertEquals(3, connected.get(0).getTo());
+		assertEquals(4, connected.get(1).getTo());
+		assertEquals(8, connected.get(2).getTo());
+		assertEquals(5, connected.get(3).getTo());
+
+		assertEquals(0, oracle.getConnected(1, 31).size());
+		assertEquals(0, oracle.getConnected(99, 0).size());
+	}
+
 }
@@ -0,0 +1,233 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Binary min heap of non-negative integer nodes ordered by a double key, as
+ * used by Dijkstra-like searches. Nodes with equal keys are ordered by node.
+ *
+ * All state is kept in primitive arrays indexed by node which are reused
+ * between searches. Each array slot is stamped with the search it was written
+ * in, so starting a new search does not need to clear anything. The heap
+ * position of every node is tracked, so a node's key can be decreased in
+ * logarithmic time.
+ */
+public class IndexedMinHeap {
+	/** Key of nodes which were not reached in the current search */
+	public static final double INFINITY = Double.MAX_VALUE;
+	/** Initial size of the node indexed arrays */
+	private static final int INIT_SIZE = 16;
+	/** Heap position of nodes which are not in the heap */
+	private static final int NOT_IN_HEAP = -1;
+
+	/** Keys of the nodes. Only valid for nodes whose {@link #searchStamps}
+	 * equal the current search. */
+	private double[] keys = new double[INIT_SIZE];
+	/** Search in which the node's slots were last written */
+	private int[] searchStamps = new int[INIT_SIZE];
+	/** Whether the node was already polled from the heap */
+	private boolean[] polled = new boolean[INIT_SIZE];
+	/** Position of the node in {@link #heap} or {@link #NOT_IN_HEAP} */
+	private int[] heapPositions = new int[INIT_SIZE];
+
+	/** Binary min heap of the nodes, ordered by key and then node */
+	private int[] heap = new int[INIT_SIZE];
+	/** Number of nodes in {@link #heap} */
+	private int heapSize;
+	/** The current search. Incremented before every search, so that slots
+	 * which were never written do not belong to any search. */
+	private int search = 0;
+
+	/**
+	 * Starts a new search: Empties the heap and forgets all keys.
+	 */
+	public void startSearch() {
+		if (this.search == Integer.MAX_VALUE) {
+			Arrays.fill(this.searchStamps, 0);
+			this.search = 0;
+		}
+		this.search++;
+		this.heapSize = 0;
+	}
+
+	/**
+	 * Makes sure the node's slots belong to the current search, growing the
+	 * arrays and resetting the slots if necessary. Callers keeping further
+	 * node indexed state should reset it if this returns true.
+	 * @param node The node
+	 * @return true iff the node was not touched in the current search before
+	 */
+	public boolean touch(int node) {
+		if (node >= this.searchStamps.length) {
+			grow(node + 1);
+		}
+		if (this.searchStamps[node] == this.search) {
+			return false;
+		}
+		this.searchStamps[node] = this.search;
+		this.keys[node] = INFINITY;
+		this.polled[node] = false;
+		this.heapPositions[node] = NOT_IN_HEAP;
+		return true;
+	}
+
+	/**
+	 * Returns the size of the node indexed arrays, which is larger than any
+	 * node touched so far.
+	 * @return The capacity
+	 */
+	public int getCapacity() {
+		return this.searchStamps.length;
+	}
+
+	/**
+	 * Returns the key of a node.
+	 * @param node The node
+	 * @return The node's key or {@link #INFINITY} if it was not set in the
+	 * current search
+	 */
+	public double getKey(int node) {
+		if (!isTouched(node)) {
+			return INFINITY;
+		}
+		return this.keys[node];
+	}
+
+	/**
+	 * Returns whether the node was already polled in the current search.
+	 * @param node The node
+	 * @return true iff the node was polled
+	 */
+	public boolean wasPolled(int node) {
+		return isTouched(node) && this.polled[node];
+	}
+
+	/**
+	 * Sets the key of a node and inserts the node into or moves it up in the
+	 * heap. The key must not be larger than the previous one.
+	 * @param node The node
+	 * @param key The node's new key
+	 */
+	public void decreaseKey(int node, double key) {
+		touch(node);
+		this.keys[node] = key;
+		if (this.heapPositions[node] == NOT_IN_HEAP) {
+			this.heap[this.heapSize] = node;
+			this.heapPositions[node] = this.heapSize;
+			this.heapSize++;
+		}
+		siftUp(this.heapPositions[node]);
+	}
+
+	/**
+	 * Returns whether the heap is empty.
+	 * @return true iff no nodes are in the heap
+	 */
+	public boolean isEmpty() {
+		return this.heapSize == 0;
+	}
+
+	/**
+	 * Removes and returns the node with the smallest key from the heap and
+	 * marks it as polled.
+	 * @return The node with the smallest key
+	 */
+	public int poll() {
+		int first = this.heap[0];
+		this.heapPositions[first] = NOT_IN_HEAP;
+		this.polled[first] = true;
+		this.heapSize--;
+		if (this.heapSize > 0) {
+			int last = this.heap[this.heapSize];
+			this.heap[0] = last;
+			this.heapPositions[last] = 0;
+			siftDown(0);
+		}
+		return first;
+	}
+
+	/**
+	 * Checks whether the node's slots belong to the current search.
+	 * @param node The node
+	 * @return true iff the node was touched in the current search
+	 */
+	private boolean isTouched(int node) {
+		return node < this.searchStamps.length &&
+				this.searchStamps[node] == this.search;
+	}
+
+	/**
+	 * Grows all node indexed arrays to at least the given size.
+	 * @param minSize The minimum size
+	 */
+	private void grow(int minSize) {
+		int newSize = Math.max(this.searchStamps.length * 2, minSize);
+		this.keys = Arrays.copyOf(this.keys, newSize);
+		this.searchStamps = Arrays.copyOf(this.searchStamps, newSize);
+		this.polled = Arrays.copyOf(this.polled, newSize);
+		this.heapPositions = Arrays.copyOf(this.heapPositions, newSize);
+		this.heap = Arrays.copyOf(this.heap, newSize);
+	}
+
+	/**
+	 * Moves the node at the given heap position up until the heap order is
+	 * restored.
+	 * @param position The heap position
+	 */
+	private void siftUp(int position) {
+		int node = this.heap[position];
+		while (position > 0) {
+			int parentPosition = (position - 1) / 2;
+			int parent = this.heap[parentPosition];
+			if (!isBefore(node, parent)) {
+				break;
+			}
+			this.heap[position] = parent;
+			this.heapPositions[parent] = position;
+			position = parentPosition;
+		}
+		this.heap[position] = node;
+		this.heapPositions[node] = position;
+	}
+
+	/**
+	 * Moves the node at the given heap position down until the heap order is
+	 * restored.
+	 * @param position The heap position
+	 */
+	private void siftDown(int position) {
+		int node = this.heap[position];
+		while (true) {
+			int childPosition = 2 * position + 1;
+			if (childPosition >= this.heapSize) {
+				break;
+			}
+			if (childPosition + 1 < this.heapSize &&
+					isBefore(this.heap[childPosition + 1],
+							this.heap[childPosition])) {
+				childPosition++;
+			}
+			int child = this.heap[childPosition];
+			if (!isBefore(child, node)) {
+				break;
+			}
+			this.heap[position] = child;
+			this.heapPositions[child] = position;
+			position = childPosition;
+		}
+		this.heap[position] = node;
+		this.heapPositions[node] = position;
+	}
+
+	/**
+	 * Compares two nodes by their keys, using the nodes to break ties.
+	 * @param node1 The first node
+	 * @param node2 The second node
+	 * @return true iff node1 should be polled before node2
+	 */
+	private boolean isBefore(int node1, int node2) {
+		double key1 = this.keys[node1];
+		double key2 = this.keys[node2];
+		return key1 < key2 || (key1 == key2 && node1 < node2);
+	}
+}